@@ -59,6 +59,7 @@ dependencies {
     compileOnly(libs.valtimo.temporary.resource.storage)
     compileOnly(libs.spring.boot.starter.aop)
     compileOnly(libs.spring.boot.starter.security)
+    compileOnly(libs.micrometer.core)
 
     // Lombok
     compileOnly(libs.lombok)
@@ -78,6 +79,7 @@ dependencies {
     testImplementation(libs.valtimo.importer)
     testImplementation(libs.valtimo.temporary.resource.storage)
     testImplementation(libs.spring.boot.starter.test)
+    testImplementation(libs.micrometer.core)
     testImplementation(libs.valtimo.test.utils.common)
     testImplementation(libs.junit.jupiter)
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
@@ -155,6 +157,9 @@ tasks.named<org.cyclonedx.gradle.CycloneDxTask>("cyclonedxBom") {
 
 val sbomFile = layout.buildDirectory.file("reports/bom.json")
 
+// The catalog packaging script host applications apply to their own build (see the script's header).
+val epistolaCatalogsScript = layout.projectDirectory.file("gradle/epistolaCatalogs.gradle.kts")
+
 afterEvaluate {
     publishing.publications.withType<MavenPublication>().configureEach {
         artifact(sbomFile) {
@@ -162,6 +167,10 @@ afterEvaluate {
             extension = "json"
             builtBy(tasks.named("cyclonedxBom"))
         }
+        artifact(epistolaCatalogsScript) {
+            classifier = "catalogs"
+            extension = "gradle.kts"
+        }
     }
     tasks.withType<AbstractPublishToMaven>().configureEach {
         dependsOn("cyclonedxBom")
@@ -0,0 +1,66 @@
+// SPDX-FileCopyrightText: Epistola Nederland B.V.
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+// Packages every Epistola catalog under src/main/resources/config/epistola/catalogs into a
+// ready-to-upload catalog.zip, with its SHA-256 in catalog.zip.sha256, next to the catalog.json on
+// the runtime classpath. The plugin's catalog sync streams these archives to Epistola instead of
+// assembling them from the classpath on every startup, and uses the hash to skip unchanged
+// catalogs. The hash covers the name, a zero byte and the content of every entry in name order,
+// exactly like the archives the plugin assembles itself, so a catalog keeps its hash whether it is
+// packaged or not. The plugin publishes this script next to its jar (classifier "catalogs",
+// extension "gradle.kts"), so host applications apply the version matching their plugin:
+//
+//     apply(from = "https://repo1.maven.org/maven2/app/epistola/valtimo/epistola-plugin/<version>/epistola-plugin-<version>-catalogs.gradle.kts")
+
+import java.security.MessageDigest
+import java.time.LocalDateTime
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+val epistolaCatalogsDir = layout.projectDirectory.dir("src/main/resources/config/epistola/catalogs")
+val epistolaCatalogArchivesDir = layout.buildDirectory.dir("generated/epistola-catalogs")
+
+val packageEpistolaCatalogs = tasks.register("packageEpistolaCatalogs") {
+    group = "build"
+    description = "Packages each Epistola catalog into a ready-to-upload archive with its content hash."
+
+    val catalogsDir = epistolaCatalogsDir.asFile
+    val archivesDir = epistolaCatalogArchivesDir
+    inputs.dir(catalogsDir).optional()
+    outputs.dir(archivesDir)
+
+    doLast {
+        val outputRoot = archivesDir.get().asFile
+        outputRoot.deleteRecursively()
+        val catalogDirs = catalogsDir.listFiles { dir -> File(dir, "catalog.json").isFile }.orEmpty()
+        catalogDirs.sortedBy { it.name }.forEach { catalogDir ->
+            val target = File(outputRoot, "config/epistola/catalogs/${catalogDir.name}").apply { mkdirs() }
+            val archive = File(target, "catalog.zip")
+            val digest = MessageDigest.getInstance("SHA-256")
+            ZipOutputStream(archive.outputStream().buffered()).use { zip ->
+                // Sorted entries with a fixed time: an unchanged catalog packages to the same bytes.
+                catalogDir.walkTopDown()
+                    .filter { it.isFile }
+                    .map { it.relativeTo(catalogDir).invariantSeparatorsPath to it }
+                    .filter { (path, _) -> path == "catalog.json" || path.startsWith("resources/") }
+                    .sortedBy { (path, _) -> path }
+                    .forEach { (path, file) ->
+                        val content = file.readBytes()
+                        zip.putNextEntry(ZipEntry(path).apply { timeLocal = LocalDateTime.of(1980, 2, 1, 0, 0) })
+                        zip.write(content)
+                        zip.closeEntry()
+                        digest.update(path.toByteArray(Charsets.UTF_8))
+                        digest.update(0.toByte())
+                        digest.update(content)
+                    }
+            }
+            val hash = digest.digest()
+                .joinToString("") { "%02x".format(it) }
+            File(target, "catalog.zip.sha256").writeText("$hash\n")
+            logger.info("Packaged Epistola catalog '${catalogDir.name}' ($hash)")
+        }
+    }
+}
+
+the<SourceSetContainer>()["main"].resources.srcDir(packageEpistolaCatalogs)
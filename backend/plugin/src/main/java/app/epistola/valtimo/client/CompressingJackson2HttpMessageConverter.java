@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.StreamUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Jackson converter that gzip-compresses request bodies whose JSON exceeds
+ * {@link RequestCompression#getThresholdBytes()}.
+ * <p>
+ * The decision has to be made before the body is written, because a streaming request
+ * sends its headers first. It is made by serializing into a counting sink that aborts as
+ * soon as the threshold is crossed, so at most {@code threshold} bytes are produced twice
+ * and the full uncompressed JSON is never held in memory. A compressed body is then
+ * serialized straight into a {@link GZIPOutputStream} over the request body.
+ */
+public class CompressingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    static final String GZIP = "gzip";
+
+    private final RequestCompression compression;
+
+    public CompressingJackson2HttpMessageConverter(ObjectMapper objectMapper, RequestCompression compression) {
+        super(objectMapper);
+        this.compression = compression;
+    }
+
+    @Override
+    protected void addDefaultHeaders(HttpHeaders headers, Object value, MediaType contentType) throws IOException {
+        super.addDefaultHeaders(headers, value, contentType);
+        if (!headers.containsKey(HttpHeaders.CONTENT_ENCODING) && exceedsThreshold(value)) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            // The compressed length is unknown up front; the request is sent chunked.
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (!GZIP.equals(outputMessage.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        CountingOutputStream compressed = new CountingOutputStream(StreamUtils.nonClosing(outputMessage.getBody()));
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192);
+        CountingOutputStream uncompressed = new CountingOutputStream(gzip);
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return uncompressed;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        gzip.finish();
+        compression.record(uncompressed.count, compressed.count);
+    }
+
+    private boolean exceedsThreshold(Object value) throws IOException {
+        try {
+            getObjectMapper().writeValue(new ThresholdProbe(compression.getThresholdBytes()), value);
+            return false;
+        } catch (IOException | RuntimeException e) {
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof ThresholdExceeded) {
+                    return true;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /** Discards bytes, failing fast once more than {@code limit} have been written. */
+    private static final class ThresholdProbe extends OutputStream {
+        private final long limit;
+        private long count;
+
+        ThresholdProbe(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(null, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count += len;
+            if (count > limit) {
+                throw new ThresholdExceeded();
+            }
+        }
+    }
+
+    private static final class ThresholdExceeded extends IOException {
+        ThresholdExceeded() {
+            super("request body exceeds the compression threshold", null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -27,13 +27,20 @@ import app.epistola.client.api.VariantsApi;
 import app.epistola.client.identity.ClientIdentity;
 import app.epistola.client.infrastructure.Serializer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Factory for creating Epistola API clients with custom configuration.
@@ -55,6 +62,16 @@ import java.time.Duration;
  * timeout; {@link #createRestClient} (used for the result-collector poll, document
  * download, preview, and catalog import) deliberately gets only the connect timeout
  * so a legitimately slow render or large transfer is not cut off.
+ * <p>
+ * When {@link RequestCompression} applies to the base URL, JSON request bodies above
+ * its threshold are sent gzip-compressed (see {@link CompressingJackson2HttpMessageConverter}).
+ * <p>
+ * Spring buffers the whole request body in a {@code byte[]} whenever a RestClient has a
+ * request interceptor. Clients that send large bodies ({@link #createGenerationApi},
+ * {@link #createStreamingRestClient}) therefore run the identity interceptor from a request
+ * initializer instead, which sets its headers on every request before the body is written, so
+ * Jackson serializes the body straight onto the connection with chunked transfer encoding and
+ * peak heap no longer grows with the payload size.
  */
 @Slf4j
 public class EpistolaApiClientFactory {
@@ -65,26 +82,34 @@ public class EpistolaApiClientFactory {
     private final ClientHttpRequestInterceptor identityInterceptor;
     private final Duration connectTimeout;
     private final Duration readTimeout;
+    private final RequestCompression requestCompression;
+    private final boolean streamRequestBodies;
+    // Whether streaming clients apply the identity interceptor from a request initializer.
+    private final boolean identityFromInitializer;
 
     /** Defaults (10s connect, 30s read) for tests / callers that don't configure timeouts. */
     public EpistolaApiClientFactory() {
-        this(Duration.ofSeconds(10), Duration.ofSeconds(30));
+        this(Duration.ofSeconds(10), Duration.ofSeconds(30), RequestCompression.disabled(), true);
     }
 
-    public EpistolaApiClientFactory(Duration connectTimeout, Duration readTimeout) {
+    public EpistolaApiClientFactory(Duration connectTimeout, Duration readTimeout,
+                                    RequestCompression requestCompression, boolean streamRequestBodies) {
         this.connectTimeout = connectTimeout;
         this.readTimeout = readTimeout;
+        this.requestCompression = requestCompression;
+        this.streamRequestBodies = streamRequestBodies;
         this.identityInterceptor = ClientIdentity.Companion.builder()
                 .product(PRODUCT_NAME, resolveProductVersion())
                 .build()
                 .interceptor();
+        this.identityFromInitializer = streamRequestBodies && appliesIdentityWithoutExecuting(identityInterceptor);
     }
 
     /**
      * Create a GenerationApi client for document generation operations.
      */
     public GenerationApi createGenerationApi(String baseUrl, String apiKey) {
-        return new GenerationApi(createApiRestClient(baseUrl, apiKey));
+        return new GenerationApi(buildRestClient(baseUrl, apiKey, true, true));
     }
 
     /**
@@ -140,28 +165,110 @@ public class EpistolaApiClientFactory {
      * through the {@code createXApi} clients instead.
      */
     public RestClient createRestClient(String baseUrl, String apiKey) {
-        return buildRestClient(baseUrl, apiKey, false);
+        return buildRestClient(baseUrl, apiKey, false, false);
+    }
+
+    /**
+     * Like {@link #createRestClient}, but streams request bodies to the connection instead of
+     * buffering them. For large JSON bodies such as the document preview.
+     */
+    public RestClient createStreamingRestClient(String baseUrl, String apiKey) {
+        return buildRestClient(baseUrl, apiKey, false, true);
     }
 
     /**
      * RestClient for short request/response API calls — connect <em>and</em> read timeout.
      */
     private RestClient createApiRestClient(String baseUrl, String apiKey) {
-        return buildRestClient(baseUrl, apiKey, true);
+        return buildRestClient(baseUrl, apiKey, true, false);
     }
 
-    private RestClient buildRestClient(String baseUrl, String apiKey, boolean withReadTimeout) {
-        var converter = new MappingJackson2HttpMessageConverter(Serializer.getJacksonObjectMapper());
-        return RestClient.builder()
+    private RestClient buildRestClient(String baseUrl, String apiKey, boolean withReadTimeout, boolean streaming) {
+        var converter = requestCompression.appliesTo(baseUrl)
+                ? new CompressingJackson2HttpMessageConverter(Serializer.getJacksonObjectMapper(), requestCompression)
+                : new MappingJackson2HttpMessageConverter(Serializer.getJacksonObjectMapper());
+        var builder = RestClient.builder()
                 .requestFactory(requestFactory(withReadTimeout))
                 .baseUrl(baseUrl)
                 .defaultHeader(API_KEY_HEADER, apiKey)
-                .requestInterceptor(identityInterceptor)
                 .messageConverters(converters -> {
                     converters.removeIf(c -> c instanceof MappingJackson2HttpMessageConverter);
                     converters.add(converter);
-                })
-                .build();
+                });
+        if (streaming && identityFromInitializer) {
+            builder.requestInitializer(request -> applyIdentity(identityInterceptor, request));
+        } else {
+            builder.requestInterceptor(identityInterceptor);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Run the identity interceptor against {@code request} without executing it, so the headers it
+     * sets for this request are in place before the body is written.
+     *
+     * @throws IllegalStateException when the interceptor fails or does not pass the request on
+     */
+    static void applyIdentity(ClientHttpRequestInterceptor interceptor, HttpRequest request) {
+        try {
+            interceptor.intercept(request, new byte[0], (intercepted, body) -> {
+                if (intercepted.getHeaders() != request.getHeaders()) {
+                    request.getHeaders().putAll(intercepted.getHeaders());
+                }
+                throw new IdentityApplied();
+            });
+        } catch (IdentityApplied expected) {
+            return;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Could not set the Epistola client identity headers: " + e.getMessage(), e);
+        }
+        throw new IllegalStateException("The Epistola client identity interceptor did not pass the request on");
+    }
+
+    /**
+     * Whether {@link #applyIdentity} works for this interceptor, tried once against a probe request.
+     * When it does not, every client keeps the interceptor and request bodies are buffered.
+     */
+    static boolean appliesIdentityWithoutExecuting(ClientHttpRequestInterceptor interceptor) {
+        HttpHeaders probeHeaders = new HttpHeaders();
+        HttpRequest probe = new HttpRequest() {
+            private final Map<String, Object> attributes = new HashMap<>();
+
+            @Override
+            public HttpMethod getMethod() {
+                return HttpMethod.GET;
+            }
+
+            @Override
+            public URI getURI() {
+                return URI.create("http://localhost/");
+            }
+
+            @Override
+            public Map<String, Object> getAttributes() {
+                return attributes;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return probeHeaders;
+            }
+        };
+        try {
+            applyIdentity(interceptor, probe);
+            return true;
+        } catch (IllegalStateException e) {
+            log.warn("Epistola client identity cannot be applied before sending; request bodies will be buffered: {}",
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    /** Stops the request in {@link #applyIdentity} once the interceptor has set its headers. */
+    private static final class IdentityApplied extends RuntimeException {
+        IdentityApplied() {
+            super(null, null, false, false);
+        }
     }
 
     private ClientHttpRequestFactory requestFactory(boolean withReadTimeout) {
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Settings and meters for gzip-compressing large JSON request bodies sent to Epistola
+ * (see {@link CompressingJackson2HttpMessageConverter}).
+ * <p>
+ * Compression is opt-in: the Epistola server must accept {@code Content-Encoding: gzip}
+ * request bodies. It can be limited to specific base URLs so installations that do not
+ * (yet) accept it keep receiving plain JSON.
+ */
+public final class RequestCompression {
+
+    private static final RequestCompression DISABLED = new RequestCompression(false, Long.MAX_VALUE, Set.of(), null);
+
+    private final boolean enabled;
+    private final long thresholdBytes;
+    private final Set<String> baseUrls;
+    private final Counter requests;
+    private final Counter uncompressedBytes;
+    private final Counter compressedBytes;
+    private final Counter savedBytes;
+
+    /**
+     * @param thresholdBytes bodies whose JSON exceeds this many bytes are compressed
+     * @param baseUrls       base URLs to compress for; empty means every base URL
+     * @param meterRegistry  registry for the {@code epistola.client.compression.*} meters
+     */
+    public RequestCompression(boolean enabled, long thresholdBytes, Collection<String> baseUrls,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.thresholdBytes = Math.max(0, thresholdBytes);
+        this.baseUrls = baseUrls == null ? Set.of() : baseUrls.stream()
+                .map(RequestCompression::normalize)
+                .collect(Collectors.toUnmodifiableSet());
+        if (enabled && meterRegistry != null) {
+            this.requests = Counter.builder("epistola.client.compression.requests")
+                    .description("Request bodies sent gzip-compressed")
+                    .register(meterRegistry);
+            this.uncompressedBytes = bytesCounter(meterRegistry, "uncompressed", "JSON bytes before compression");
+            this.compressedBytes = bytesCounter(meterRegistry, "compressed", "Bytes sent after compression");
+            this.savedBytes = bytesCounter(meterRegistry, "saved", "Bytes not sent thanks to compression");
+        } else {
+            this.requests = null;
+            this.uncompressedBytes = null;
+            this.compressedBytes = null;
+            this.savedBytes = null;
+        }
+    }
+
+    public static RequestCompression disabled() {
+        return DISABLED;
+    }
+
+    /** Whether request bodies sent to {@code baseUrl} may be compressed. */
+    public boolean appliesTo(String baseUrl) {
+        return enabled && (baseUrls.isEmpty() || baseUrls.contains(normalize(baseUrl)));
+    }
+
+    public long getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    void record(long uncompressed, long compressed) {
+        if (requests == null) {
+            return;
+        }
+        requests.increment();
+        uncompressedBytes.increment(uncompressed);
+        compressedBytes.increment(compressed);
+        savedBytes.increment(Math.max(0, uncompressed - compressed));
+    }
+
+    private static Counter bytesCounter(MeterRegistry meterRegistry, String kind, String description) {
+        return Counter.builder("epistola.client.compression." + kind)
+                .description(description)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private static String normalize(String baseUrl) {
+        if (baseUrl == null) {
+            return "";
+        }
+        String trimmed = baseUrl.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
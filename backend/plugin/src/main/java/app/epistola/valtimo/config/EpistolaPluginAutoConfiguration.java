@@ -20,12 +20,17 @@ package app.epistola.valtimo.config;
 import app.epistola.valtimo.authorization.EpistolaAdministrationActionProvider;
 import app.epistola.valtimo.authorization.EpistolaAdministrationSpecificationFactory;
 import app.epistola.valtimo.client.EpistolaApiClientFactory;
+import app.epistola.valtimo.client.RequestCompression;
 import app.epistola.valtimo.deploy.CatalogScanner;
+import app.epistola.valtimo.deploy.CatalogSyncStateStore;
 import app.epistola.valtimo.deploy.EpistolaCatalogSyncService;
+import app.epistola.valtimo.deploy.InMemoryCatalogSyncStateStore;
+import app.epistola.valtimo.deploy.JdbcCatalogSyncStateStore;
 import app.epistola.valtimo.deploy.EpistolaCatalogSyncTrigger;
 import app.epistola.valtimo.deployment.EpistolaCatchEventLinkResolver;
 import app.epistola.valtimo.deployment.EpistolaCatchEventParseListener;
 import app.epistola.valtimo.deployment.EpistolaProcessDefinitionValidator;
+import app.epistola.valtimo.deployment.EpistolaDeploymentEventPlugin;
 import app.epistola.valtimo.deployment.EpistolaProcessEnginePlugin;
 import app.epistola.valtimo.service.admin.EpistolaLegacyOverrideScanService; // TEMPORARY
 import app.epistola.valtimo.service.completion.EpistolaCatchEventStartListener;
@@ -35,18 +40,37 @@ import app.epistola.valtimo.expression.ExpressionFunctionSchemaResolver;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import app.epistola.valtimo.expression.functions.FormatDateFunction;
 import app.epistola.valtimo.expression.functions.StringFunctions;
+import app.epistola.valtimo.mapping.EvaluationBudget;
+import app.epistola.valtimo.mapping.EvaluationBudgets;
+import app.epistola.valtimo.mapping.ExpressionFunctionResultCache;
 import app.epistola.valtimo.mapping.JsonataMappingService;
 import app.epistola.valtimo.service.admin.EpistolaAdminService;
+import app.epistola.valtimo.service.admin.PendingJobQuery;
+import app.epistola.valtimo.service.admin.PluginUsageIndex;
 import app.epistola.valtimo.service.versioncheck.VersionCheckClient;
 import app.epistola.valtimo.service.versioncheck.VersionCheckIdentityProvider;
 import app.epistola.valtimo.service.versioncheck.VersionCheckService;
 import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.service.completion.InMemoryJobResultStore;
+import app.epistola.valtimo.service.completion.JdbcJobResultStore;
+import app.epistola.valtimo.service.completion.JobResultStore;
 import app.epistola.valtimo.service.suggestion.VariableSuggestionService;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import app.epistola.valtimo.service.completion.EpistolaMessageCorrelationService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
+import app.epistola.valtimo.service.dedup.GenerationDeduplicator;
+import app.epistola.valtimo.service.mailmerge.JdbcMailMergeRunStore;
+import app.epistola.valtimo.service.mailmerge.MailMergeDocumentSource;
+import app.epistola.valtimo.service.mailmerge.MailMergeResultTracker;
+import app.epistola.valtimo.service.mailmerge.MailMergeRunStore;
+import app.epistola.valtimo.service.mailmerge.MailMergeService;
+import app.epistola.valtimo.service.mailmerge.ValtimoCaseDocumentSource;
 import app.epistola.valtimo.service.download.DocumentStorageStrategy;
 import app.epistola.valtimo.service.EpistolaService;
 import app.epistola.valtimo.service.EpistolaServiceImpl;
 import app.epistola.valtimo.service.form.FormioFormGenerator;
+import app.epistola.valtimo.service.resilience.EpistolaResilienceRegistry;
+import app.epistola.valtimo.service.resilience.ResilientEpistolaService;
 import app.epistola.valtimo.service.suggestion.ProcessVariableDiscoveryService;
 import app.epistola.valtimo.service.form.RetryFormService;
 import app.epistola.valtimo.valueresolver.EpistolaTaskValueResolverFactory;
@@ -59,16 +83,22 @@ import com.ritense.plugin.service.PluginService;
 import com.ritense.processdocument.service.ProcessDefinitionCaseDefinitionService;
 import com.ritense.processlink.service.ProcessLinkService;
 import com.ritense.resource.autoconfigure.TemporaryResourceStorageAutoConfiguration;
+import com.ritense.valtimo.contract.config.LiquibaseMasterChangeLogLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.HistoryService;
+import org.operaton.bpm.engine.ManagementService;
 import org.operaton.bpm.engine.RepositoryService;
 import org.operaton.bpm.engine.RuntimeService;
 import org.operaton.bpm.engine.TaskService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Lazy;
@@ -78,32 +108,69 @@ import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.client.RestClient;
 
+import java.time.Clock;
 import java.util.List;
 
 @Slf4j
-@AutoConfiguration(after = TemporaryResourceStorageAutoConfiguration.class)
+@AutoConfiguration(after = TemporaryResourceStorageAutoConfiguration.class,
+        afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
 @ConditionalOnProperty(name = "epistola.enabled", havingValue = "true", matchIfMissing = true)
 @EnableConfigurationProperties(EpistolaProperties.class)
 @EnableScheduling
 @Import(EpistolaDownloadStorageConfiguration.class)
 public class EpistolaPluginAutoConfiguration {
 
+    // The plugin's tables, run by Valtimo's Liquibase runner together with the host's changelogs.
+    @Bean
+    @ConditionalOnMissingBean(name = "epistolaLiquibaseMasterChangeLogLocation")
+    public LiquibaseMasterChangeLogLocation epistolaLiquibaseMasterChangeLogLocation() {
+        return new LiquibaseMasterChangeLogLocation("config/liquibase/epistola-master.xml");
+    }
+
+    // Hosts without Actuator get one shared in-memory registry, so every plugin meter lands in the
+    // same place instead of each bean keeping a private registry nobody can read.
+    @Bean
+    @ConditionalOnMissingBean(MeterRegistry.class)
+    public SimpleMeterRegistry epistolaMeterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
     @Bean
     @ConditionalOnMissingBean(EpistolaApiClientFactory.class)
-    public EpistolaApiClientFactory epistolaApiClientFactory(EpistolaProperties properties) {
+    public EpistolaApiClientFactory epistolaApiClientFactory(
+            EpistolaProperties properties,
+            MeterRegistry meterRegistry
+    ) {
         EpistolaProperties.Client client = properties.getClient();
+        EpistolaProperties.Client.Compression compression = client.getCompression();
         return new EpistolaApiClientFactory(
                 java.time.Duration.ofMillis(client.getConnectTimeoutMs()),
-                java.time.Duration.ofMillis(client.getReadTimeoutMs()));
+                java.time.Duration.ofMillis(client.getReadTimeoutMs()),
+                new RequestCompression(compression.isEnabled(), compression.getThresholdBytes(),
+                        compression.getBaseUrls(), meterRegistry),
+                client.isStreamRequestBodies());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(EpistolaProcessLinkIndex.class)
+    public EpistolaProcessLinkIndex epistolaProcessLinkIndex(
+            ProcessLinkService processLinkService,
+            EpistolaProperties properties
+    ) {
+        EpistolaProperties.ProcessLinkIndex index = properties.getProcessLinkIndex();
+        return new EpistolaProcessLinkIndex(processLinkService, index.getMaxAge(), index.getMaxCachedDefinitions());
     }
 
     @Bean
     @ConditionalOnMissingBean(EpistolaCatchEventLinkResolver.class)
     public EpistolaCatchEventLinkResolver epistolaCatchEventLinkResolver(
             RepositoryService repositoryService,
-            ProcessLinkService processLinkService
+            EpistolaProcessLinkIndex processLinkIndex,
+            TaskScheduler taskScheduler,
+            EpistolaProperties properties
     ) {
-        return new EpistolaCatchEventLinkResolver(repositoryService, processLinkService);
+        return new EpistolaCatchEventLinkResolver(repositoryService, processLinkIndex, taskScheduler,
+                properties.getCatchEventAutoWiring().getMaxCachedDefinitions());
     }
 
     @Bean
@@ -142,10 +209,27 @@ public class EpistolaPluginAutoConfiguration {
         return new EpistolaProcessEnginePlugin(catchEventParseListener);
     }
 
+    @Bean
+    @ConditionalOnMissingBean(EpistolaResilienceRegistry.class)
+    public EpistolaResilienceRegistry epistolaResilienceRegistry(
+            EpistolaProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        return new EpistolaResilienceRegistry(properties, meterRegistry);
+    }
+
+    // The circuit breaker + bulkhead wrap the HTTP implementation, so every caller (plugin
+    // actions, preview, admin, catalog sync) shares the same per-connection guards.
     @Bean
     @ConditionalOnMissingBean(EpistolaService.class)
-    public EpistolaService epistolaService(EpistolaApiClientFactory apiClientFactory, EpistolaProperties properties) {
-        return new EpistolaServiceImpl(apiClientFactory, properties.getClient().getMaxReadRetries());
+    public EpistolaService epistolaService(
+            EpistolaApiClientFactory apiClientFactory,
+            EpistolaProperties properties,
+            EpistolaResilienceRegistry resilienceRegistry
+    ) {
+        return new ResilientEpistolaService(
+                new EpistolaServiceImpl(apiClientFactory, properties.getClient().getMaxReadRetries()),
+                resilienceRegistry);
     }
 
     // Exposes the current user task's id to a form at server-side prefill time (prefix
@@ -185,12 +269,31 @@ public class EpistolaPluginAutoConfiguration {
         return new StringFunctions();
     }
 
+    @Bean
+    @ConditionalOnMissingBean(ExpressionFunctionResultCache.class)
+    public ExpressionFunctionResultCache expressionFunctionResultCache(
+            MeterRegistry meterRegistry
+    ) {
+        return new ExpressionFunctionResultCache(meterRegistry);
+    }
+
     @Bean
     @ConditionalOnMissingBean(JsonataMappingService.class)
     public JsonataMappingService jsonataMappingService(
-            ExpressionFunctionRegistry expressionFunctionRegistry
+            ExpressionFunctionRegistry expressionFunctionRegistry,
+            ExpressionFunctionResultCache expressionFunctionResultCache,
+            EpistolaProperties properties,
+            MeterRegistry meterRegistry
     ) {
-        return new JsonataMappingService(expressionFunctionRegistry);
+        EpistolaProperties.Mapping mapping = properties.getMapping();
+        var budgets = new EvaluationBudgets(
+                new EvaluationBudget(mapping.getTimeout(), mapping.getMaxRecursionDepth(), mapping.getMaxOutputSize()),
+                mapping.getOverrides().stream()
+                        .map(o -> new EvaluationBudgets.LinkBudget(o.getProcessDefinitionKey(), o.getActivityId(),
+                                o.getTimeout(), o.getMaxRecursionDepth(), o.getMaxOutputSize()))
+                        .toList());
+        return new JsonataMappingService(expressionFunctionRegistry, expressionFunctionResultCache, budgets,
+                meterRegistry);
     }
 
     @Bean
@@ -208,11 +311,32 @@ public class EpistolaPluginAutoConfiguration {
             JsonataMappingService jsonataMappingService,
             com.ritense.document.service.DocumentService documentService,
             EpistolaResultCollectorRunner resultCollectorRunner,
-            List<DocumentStorageStrategy> storageStrategies
+            List<DocumentStorageStrategy> storageStrategies,
+            ObjectProvider<GenerationDeduplicator> deduplicator,
+            BulkSubmitter bulkSubmitter
     ) {
         return new EpistolaPluginFactory(pluginService, epistolaService,
                 objectMapper, jsonataMappingService, documentService, resultCollectorRunner,
-                storageStrategies);
+                storageStrategies, deduplicator.getIfAvailable(), bulkSubmitter);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(BulkSubmitter.class)
+    public BulkSubmitter epistolaBulkSubmitter(EpistolaProperties properties) {
+        EpistolaProperties.BulkGeneration bulk = properties.getBulkGeneration();
+        return new BulkSubmitter(bulk.getDefaultParallelism(), bulk.getMaxParallelism(), bulk.getMaxItems());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(GenerationDeduplicator.class)
+    @ConditionalOnProperty(name = "epistola.generation-dedup.enabled", havingValue = "true")
+    public GenerationDeduplicator generationDeduplicator(
+            ObjectMapper objectMapper,
+            EpistolaProperties properties
+    ) {
+        EpistolaProperties.GenerationDedup dedup = properties.getGenerationDedup();
+        return new GenerationDeduplicator(objectMapper, dedup.getWindow(), dedup.getMaxEntries(),
+                dedup.getAttachTimeout());
     }
 
     @Bean
@@ -220,9 +344,13 @@ public class EpistolaPluginAutoConfiguration {
     public ProcessVariableDiscoveryService processVariableDiscoveryService(
             HistoryService historyService,
             RepositoryService repositoryService,
-            ProcessLinkService processLinkService
+            EpistolaProcessLinkIndex processLinkIndex,
+            EpistolaProperties properties
     ) {
-        return new ProcessVariableDiscoveryService(historyService, repositoryService, processLinkService);
+        EpistolaProperties.VariableDiscovery discovery = properties.getVariableDiscovery();
+        return new ProcessVariableDiscoveryService(historyService, repositoryService, processLinkIndex,
+                discovery.getHistoryWindow(), discovery.getPageSize(), discovery.getSamplesPerName(),
+                discovery.getRefreshInterval(), discovery.getMaxCachedDefinitions());
     }
 
     @Bean
@@ -232,15 +360,18 @@ public class EpistolaPluginAutoConfiguration {
             EpistolaService epistolaService,
             RuntimeService runtimeService,
             TaskService taskService,
-            ProcessLinkService processLinkService,
+            EpistolaProcessLinkIndex processLinkIndex,
             JsonataMappingService jsonataMappingService,
             com.ritense.document.service.DocumentService documentService,
             FormioFormGenerator formioFormGenerator,
-            ObjectMapper objectMapper
+            ObjectMapper objectMapper,
+            EpistolaProperties properties
     ) {
+        EpistolaProperties.RetryForm retryForm = properties.getRetryForm();
         return new RetryFormService(pluginService, epistolaService, runtimeService,
-                taskService, processLinkService, jsonataMappingService, documentService,
-                formioFormGenerator, objectMapper);
+                taskService, processLinkIndex, jsonataMappingService, documentService,
+                formioFormGenerator, objectMapper,
+                retryForm.getTemplateCacheTtl(), retryForm.getMaxCachedTemplates());
     }
 
     @Bean
@@ -248,7 +379,7 @@ public class EpistolaPluginAutoConfiguration {
     public app.epistola.valtimo.service.preview.PreviewService previewService(
             PluginService pluginService,
             EpistolaService epistolaService,
-            ProcessLinkService processLinkService,
+            EpistolaProcessLinkIndex processLinkIndex,
             com.ritense.valtimo.operaton.service.OperatonRepositoryService operatonRepositoryService,
             RuntimeService runtimeService,
             JsonataMappingService jsonataMappingService,
@@ -256,7 +387,7 @@ public class EpistolaPluginAutoConfiguration {
             ObjectMapper objectMapper
     ) {
         return new app.epistola.valtimo.service.preview.PreviewService(pluginService, epistolaService,
-                processLinkService, operatonRepositoryService, runtimeService,
+                processLinkIndex, operatonRepositoryService, runtimeService,
                 jsonataMappingService, documentService, objectMapper);
     }
 
@@ -264,9 +395,12 @@ public class EpistolaPluginAutoConfiguration {
     @ConditionalOnMissingBean(VariableSuggestionService.class)
     public VariableSuggestionService variableSuggestionService(
             com.ritense.document.service.DocumentDefinitionService documentDefinitionService,
-            ProcessVariableDiscoveryService processVariableDiscoveryService
+            ProcessVariableDiscoveryService processVariableDiscoveryService,
+            EpistolaProperties properties
     ) {
-        return new VariableSuggestionService(documentDefinitionService, processVariableDiscoveryService);
+        return new VariableSuggestionService(documentDefinitionService, processVariableDiscoveryService,
+                properties.getVariableDiscovery().getSuggestionRefreshInterval(),
+                properties.getVariableDiscovery().getMaxCachedDefinitions());
     }
 
     @Bean
@@ -302,10 +436,10 @@ public class EpistolaPluginAutoConfiguration {
     @ConditionalOnMissingBean(app.epistola.valtimo.service.preview.ProcessLinkMappingService.class)
     public app.epistola.valtimo.service.preview.ProcessLinkMappingService processLinkMappingService(
             RepositoryService repositoryService,
-            ProcessLinkService processLinkService
+            EpistolaProcessLinkIndex processLinkIndex
     ) {
         return new app.epistola.valtimo.service.preview.ProcessLinkMappingService(
-                repositoryService, processLinkService);
+                repositoryService, processLinkIndex);
     }
 
     @Bean
@@ -332,11 +466,58 @@ public class EpistolaPluginAutoConfiguration {
             ProcessDefinitionCaseDefinitionService processDefinitionCaseDefinitionService,
             EpistolaProcessDefinitionValidator processDefinitionValidator,
             EpistolaCatalogSyncService catalogSyncService,
-            VersionCheckService versionCheckService
+            VersionCheckService versionCheckService,
+            EpistolaResilienceRegistry resilienceRegistry,
+            EpistolaResultCollectorRunner resultCollectorRunner,
+            BulkSubmitter bulkSubmitter,
+            PendingJobQuery pendingJobQuery,
+            EpistolaProcessLinkIndex processLinkIndex
     ) {
         return new EpistolaAdminService(pluginService, epistolaService, correlationService, processLinkService,
                 repositoryService, runtimeService, processDefinitionCaseDefinitionService, processDefinitionValidator,
-                catalogSyncService, versionCheckService);
+                catalogSyncService, versionCheckService, resilienceRegistry, resultCollectorRunner, bulkSubmitter,
+                pendingJobQuery, processLinkIndex);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(PluginUsageIndex.class)
+    @ConditionalOnProperty(name = "epistola.usage-index.enabled", havingValue = "true", matchIfMissing = true)
+    public PluginUsageIndex epistolaPluginUsageIndex(
+            EpistolaAdminService adminService,
+            RepositoryService repositoryService,
+            EpistolaProperties properties
+    ) {
+        return new PluginUsageIndex(adminService, repositoryService,
+                properties.getUsageIndex().getRebuildInterval());
+    }
+
+    // Feeds PluginUsageIndex and the BPMN validator: a parse listener for deployments, an aspect for
+    // process-link edits.
+    @Bean
+    @ConditionalOnMissingBean(EpistolaDeploymentEventPlugin.class)
+    public EpistolaDeploymentEventPlugin epistolaDeploymentEventPlugin(ApplicationEventPublisher eventPublisher) {
+        return new EpistolaDeploymentEventPlugin(eventPublisher);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(EpistolaProcessLinkChangeAspect.class)
+    public EpistolaProcessLinkChangeAspect epistolaProcessLinkChangeAspect(
+            ApplicationEventPublisher eventPublisher,
+            ObjectProvider<ProcessLinkService> processLinkService,
+            ObjectProvider<RepositoryService> repositoryService
+    ) {
+        return new EpistolaProcessLinkChangeAspect(eventPublisher, processLinkService, repositoryService);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(PendingJobQuery.class)
+    public PendingJobQuery epistolaPendingJobQuery(
+            RuntimeService runtimeService,
+            RepositoryService repositoryService,
+            ManagementService managementService,
+            JdbcTemplate jdbcTemplate
+    ) {
+        return new PendingJobQuery(runtimeService, repositoryService, managementService, jdbcTemplate);
     }
 
     @Bean
@@ -377,13 +558,13 @@ public class EpistolaPluginAutoConfiguration {
     @ConditionalOnMissingBean(EpistolaProcessDefinitionValidator.class)
     public EpistolaProcessDefinitionValidator epistolaProcessDefinitionValidator(
             RepositoryService repositoryService,
-            ProcessLinkService processLinkService,
+            EpistolaProcessLinkIndex processLinkIndex,
             TaskScheduler taskScheduler,
-            @Value("${epistola.validator.cron:0 */10 * * * *}") String validatorCron,
+            @Value("${epistola.validator.cron:0 0 * * * *}") String validatorCron,
             @Value("${epistola.validator.zone:UTC}") String validatorZone
     ) {
         return new EpistolaProcessDefinitionValidator(
-                repositoryService, processLinkService, taskScheduler, validatorCron, validatorZone);
+                repositoryService, processLinkIndex, taskScheduler, validatorCron, validatorZone);
     }
 
     @Bean
@@ -392,9 +573,14 @@ public class EpistolaPluginAutoConfiguration {
             EpistolaAdminService adminService,
             com.ritense.authorization.AuthorizationService authorizationService,
             // TEMPORARY: drop with the legacy override-format scan.
-            EpistolaLegacyOverrideScanService legacyOverrideScanService
+            EpistolaLegacyOverrideScanService legacyOverrideScanService,
+            ObjectProvider<MailMergeService> mailMergeService,
+            ObjectProvider<PluginUsageIndex> pluginUsageIndex,
+            ObjectProvider<ExpressionFunctionResultCache> expressionFunctionResultCache
     ) {
-        return new EpistolaAdminResource(adminService, authorizationService, legacyOverrideScanService);
+        return new EpistolaAdminResource(adminService, authorizationService, legacyOverrideScanService,
+                mailMergeService.getIfAvailable(), pluginUsageIndex.getIfAvailable(),
+                expressionFunctionResultCache.getIfAvailable());
     }
 
     @Bean
@@ -411,16 +597,78 @@ public class EpistolaPluginAutoConfiguration {
             PluginService pluginService,
             EpistolaApiClientFactory apiClientFactory,
             EpistolaMessageCorrelationService correlationService,
-            EpistolaProperties properties
+            EpistolaProperties properties,
+            ObjectProvider<GenerationDeduplicator> deduplicator,
+            ObjectProvider<MailMergeResultTracker> mailMergeResults,
+            ObjectProvider<JobResultStore> jobResults
     ) {
         return new EpistolaResultCollectorRunner(
                 pluginService,
                 apiClientFactory,
                 correlationService,
-                properties
+                properties,
+                deduplicator.getIfAvailable(),
+                mailMergeResults.getIfAvailable(),
+                jobResults.getIfAvailable()
         );
     }
 
+    @Bean
+    @ConditionalOnMissingBean(JobResultStore.class)
+    @ConditionalOnProperty(name = "epistola.job-results.enabled", havingValue = "true", matchIfMissing = true)
+    public JobResultStore epistolaJobResultStore(
+            EpistolaProperties properties,
+            ObjectProvider<JdbcTemplate> jdbcTemplate
+    ) {
+        EpistolaProperties.JobResults jobResults = properties.getJobResults();
+        if (jobResults.getPersistence() == EpistolaProperties.JobResults.Persistence.JDBC) {
+            return new JdbcJobResultStore(jdbcTemplate.getObject(), jobResults.getRetention());
+        }
+        return new InMemoryJobResultStore(jobResults.getMaxEntries(), jobResults.getRetention());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(MailMergeResultTracker.class)
+    @ConditionalOnProperty(name = "epistola.mail-merge.enabled", havingValue = "true")
+    public MailMergeResultTracker mailMergeResultTracker() {
+        return new MailMergeResultTracker();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(MailMergeRunStore.class)
+    @ConditionalOnProperty(name = "epistola.mail-merge.enabled", havingValue = "true")
+    public MailMergeRunStore mailMergeRunStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        return new JdbcMailMergeRunStore(jdbcTemplate, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(MailMergeDocumentSource.class)
+    @ConditionalOnProperty(name = "epistola.mail-merge.enabled", havingValue = "true")
+    public MailMergeDocumentSource mailMergeDocumentSource(
+            com.ritense.document.repository.impl.JsonSchemaDocumentRepository documentRepository,
+            ObjectMapper objectMapper
+    ) {
+        return new ValtimoCaseDocumentSource(documentRepository, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(MailMergeService.class)
+    @ConditionalOnProperty(name = "epistola.mail-merge.enabled", havingValue = "true")
+    public MailMergeService mailMergeService(
+            PluginService pluginService,
+            EpistolaService epistolaService,
+            JsonataMappingService jsonataMappingService,
+            EpistolaResultCollectorRunner resultCollectorRunner,
+            BulkSubmitter bulkSubmitter,
+            MailMergeRunStore mailMergeRunStore,
+            MailMergeDocumentSource mailMergeDocumentSource,
+            MailMergeResultTracker mailMergeResultTracker,
+            EpistolaProperties properties
+    ) {
+        return new MailMergeService(pluginService, epistolaService, jsonataMappingService, resultCollectorRunner,
+                bulkSubmitter, mailMergeRunStore, mailMergeDocumentSource, mailMergeResultTracker, properties);
+    }
+
     @Bean
     @ConditionalOnMissingBean(EpistolaHttpSecurityConfigurer.class)
     public EpistolaHttpSecurityConfigurer epistolaHttpSecurityConfigurer() {
@@ -445,13 +693,30 @@ public class EpistolaPluginAutoConfiguration {
         return new CatalogScanner(objectMapper);
     }
 
+    @Bean
+    @ConditionalOnMissingBean(CatalogSyncStateStore.class)
+    public CatalogSyncStateStore epistolaCatalogSyncStateStore(
+            EpistolaProperties properties,
+            ObjectProvider<JdbcTemplate> jdbcTemplate
+    ) {
+        if (properties.getCatalogSync().getPersistence() == EpistolaProperties.CatalogSync.Persistence.JDBC) {
+            return new JdbcCatalogSyncStateStore(jdbcTemplate.getObject());
+        }
+        return new InMemoryCatalogSyncStateStore();
+    }
+
     @Bean
     @ConditionalOnMissingBean(EpistolaCatalogSyncService.class)
     public EpistolaCatalogSyncService epistolaCatalogSyncService(
             CatalogScanner scanner,
-            EpistolaService epistolaService
+            EpistolaService epistolaService,
+            CatalogSyncStateStore stateStore,
+            BulkSubmitter bulkSubmitter,
+            EpistolaProperties properties
     ) {
-        return new EpistolaCatalogSyncService(scanner, epistolaService);
+        EpistolaProperties.CatalogSync catalogSync = properties.getCatalogSync();
+        return new EpistolaCatalogSyncService(scanner, epistolaService, stateStore, bulkSubmitter,
+                catalogSync.getParallelism(), catalogSync.getLeaseDuration(), Clock.systemUTC());
     }
 
     @Bean
@@ -19,7 +19,9 @@ package app.epistola.valtimo.config;
 
 import app.epistola.valtimo.mapping.JsonataMappingService;
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.service.dedup.GenerationDeduplicator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ritense.document.service.DocumentService;
 import app.epistola.valtimo.domain.DocumentStorageTarget;
@@ -43,7 +45,13 @@ public class EpistolaPluginFactory extends PluginFactory<EpistolaPlugin> {
     private final DocumentService documentService;
     private final EpistolaResultCollectorRunner resultCollectorRunner;
     private final Map<DocumentStorageTarget, DocumentStorageStrategy> storageStrategies;
+    private final GenerationDeduplicator deduplicator;
+    private final BulkSubmitter bulkSubmitter;
 
+    /**
+     * @param deduplicator generation dedup index, or {@code null} when {@code epistola.generation-dedup}
+     *                     is disabled
+     */
     public EpistolaPluginFactory(
             @NotNull PluginService pluginService,
             @NotNull EpistolaService epistolaService,
@@ -51,7 +59,9 @@ public class EpistolaPluginFactory extends PluginFactory<EpistolaPlugin> {
             @NotNull JsonataMappingService jsonataMappingService,
             @NotNull DocumentService documentService,
             @NotNull EpistolaResultCollectorRunner resultCollectorRunner,
-            @NotNull List<DocumentStorageStrategy> storageStrategies
+            @NotNull List<DocumentStorageStrategy> storageStrategies,
+            GenerationDeduplicator deduplicator,
+            @NotNull BulkSubmitter bulkSubmitter
     ) {
         super(pluginService);
         this.epistolaService = epistolaService;
@@ -59,6 +69,8 @@ public class EpistolaPluginFactory extends PluginFactory<EpistolaPlugin> {
         this.jsonataMappingService = jsonataMappingService;
         this.documentService = documentService;
         this.resultCollectorRunner = resultCollectorRunner;
+        this.deduplicator = deduplicator;
+        this.bulkSubmitter = bulkSubmitter;
         // Only the strategies whose backend is present are registered as beans (see auto-config),
         // so this map reflects what is actually available in this environment.
         this.storageStrategies = storageStrategies.stream().collect(Collectors.toMap(
@@ -73,6 +85,6 @@ public class EpistolaPluginFactory extends PluginFactory<EpistolaPlugin> {
     protected EpistolaPlugin create() {
         return new EpistolaPlugin(epistolaService, objectMapper,
                 jsonataMappingService, documentService, resultCollectorRunner,
-                storageStrategies);
+                storageStrategies, deduplicator, bulkSubmitter);
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.config;
+
+import app.epistola.valtimo.deployment.EpistolaProcessLinksChangedEvent;
+import com.ritense.processlink.domain.ProcessLink;
+import com.ritense.processlink.service.ProcessLinkService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.operaton.bpm.engine.RepositoryService;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * AOP aspect that publishes an {@link EpistolaProcessLinksChangedEvent} after Valtimo's
+ * {@code ProcessLinkService} creates, updates, deletes or imports process links, so the admin
+ * plugin-usage index picks up link edits without a full rescan. Valtimo publishes no event of its own
+ * for these changes.
+ *
+ * <p>The changed process definitions are taken from the intercepted call's arguments: a process link, a
+ * request with a {@code processDefinitionId}, or a link id (or a request carrying one), which is looked up
+ * before the call proceeds so a deleted link still resolves. When any argument can't be resolved the event
+ * {@link EpistolaProcessLinksChangedEvent#affectsAllDefinitions() affects all definitions}.
+ *
+ * <p>The services are resolved lazily: the aspect is created before the beans it advises, and injecting
+ * {@code ProcessLinkService} eagerly would keep that bean from being proxied.
+ */
+@Aspect
+@Slf4j
+@RequiredArgsConstructor
+public class EpistolaProcessLinkChangeAspect {
+
+    private static final String PROCESS_DEFINITION_ID_PROPERTY = "processDefinitionId";
+    private static final String ID_PROPERTY = "id";
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<ProcessLinkService> processLinkService;
+    private final ObjectProvider<RepositoryService> repositoryService;
+
+    @Around("execution(* com.ritense.processlink.service.ProcessLinkService.create*(..))"
+            + " || execution(* com.ritense.processlink.service.ProcessLinkService.update*(..))"
+            + " || execution(* com.ritense.processlink.service.ProcessLinkService.delete*(..))"
+            + " || execution(* com.ritense.processlink.service.ProcessLinkService.import*(..))")
+    public Object publishProcessLinksChanged(ProceedingJoinPoint joinPoint) throws Throwable {
+        Set<String> definitionIds = definitionIdsOf(joinPoint.getArgs());
+        Object result = joinPoint.proceed();
+        EpistolaProcessLinksChangedEvent event = eventFor(definitionIds);
+        log.debug("Valtimo process links changed for {}",
+                event.affectsAllDefinitions() ? "unknown process definitions" : event.processDefinitionIds());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Listeners re-read the links, so only tell them once the change is committed.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+        return result;
+    }
+
+    /** The process-definition ids the arguments refer to, or {@code null} when any of them is unknown. */
+    private Set<String> definitionIdsOf(Object[] args) {
+        Set<String> definitionIds = new LinkedHashSet<>();
+        try {
+            for (Object arg : args) {
+                if (!addDefinitionIds(arg, definitionIds)) {
+                    return null;
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not determine which process definitions a process-link change affects: {}",
+                    e.getMessage());
+            return null;
+        }
+        return definitionIds;
+    }
+
+    private boolean addDefinitionIds(Object arg, Set<String> definitionIds) {
+        if (arg instanceof ProcessLink link) {
+            return add(link.getProcessDefinitionId(), definitionIds);
+        }
+        if (arg instanceof UUID linkId) {
+            return add(definitionIdOfLink(linkId), definitionIds);
+        }
+        if (arg instanceof Collection<?> elements) {
+            for (Object element : elements) {
+                if (!addDefinitionIds(element, definitionIds)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (arg == null) {
+            return false;
+        }
+        BeanWrapperImpl request = new BeanWrapperImpl(arg);
+        if (request.isReadableProperty(PROCESS_DEFINITION_ID_PROPERTY)
+                && request.getPropertyValue(PROCESS_DEFINITION_ID_PROPERTY) instanceof String definitionId) {
+            return add(definitionId, definitionIds);
+        }
+        if (request.isReadableProperty(ID_PROPERTY)
+                && request.getPropertyValue(ID_PROPERTY) instanceof UUID linkId) {
+            return add(definitionIdOfLink(linkId), definitionIds);
+        }
+        return false;
+    }
+
+    private String definitionIdOfLink(UUID linkId) {
+        ProcessLinkService links = processLinkService.getIfAvailable();
+        return links == null ? null : links.getProcessLink(linkId, ProcessLink.class).getProcessDefinitionId();
+    }
+
+    private static boolean add(String definitionId, Set<String> definitionIds) {
+        if (definitionId == null || definitionId.isBlank()) {
+            return false;
+        }
+        definitionIds.add(definitionId);
+        return true;
+    }
+
+    private EpistolaProcessLinksChangedEvent eventFor(Set<String> definitionIds) {
+        RepositoryService repository = repositoryService.getIfAvailable();
+        if (definitionIds == null || definitionIds.isEmpty() || repository == null) {
+            return EpistolaProcessLinksChangedEvent.ofAllDefinitions();
+        }
+        Set<String> definitionKeys = new LinkedHashSet<>();
+        try {
+            for (String definitionId : definitionIds) {
+                definitionKeys.add(repository.getProcessDefinition(definitionId).getKey());
+            }
+        } catch (Exception e) {
+            log.debug("Could not look up the changed process definitions {}: {}", definitionIds, e.getMessage());
+            return EpistolaProcessLinksChangedEvent.ofAllDefinitions();
+        }
+        return new EpistolaProcessLinksChangedEvent(definitionIds, definitionKeys);
+    }
+}
@@ -22,6 +22,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration properties for Epistola Plugin runtime behavior.
@@ -42,6 +44,242 @@ public class EpistolaProperties {
     private final CatchEventAutoWiring catchEventAutoWiring = new CatchEventAutoWiring();
     private final Client client = new Client();
     private final VersionCheck versionCheck = new VersionCheck();
+    private final GenerationDedup generationDedup = new GenerationDedup();
+    private final BulkGeneration bulkGeneration = new BulkGeneration();
+    private final MailMerge mailMerge = new MailMerge();
+    private final JobResults jobResults = new JobResults();
+    private final UsageIndex usageIndex = new UsageIndex();
+    private final CatalogSync catalogSync = new CatalogSync();
+    private final VariableDiscovery variableDiscovery = new VariableDiscovery();
+    private final ProcessLinkIndex processLinkIndex = new ProcessLinkIndex();
+    private final Mapping mapping = new Mapping();
+
+    /**
+     * Index behind the admin page's plugin-usage overview, kept up to date on deployments and
+     * process-link changes instead of rescanning every process definition on each page load.
+     */
+    @Data
+    public static class UsageIndex {
+
+        private boolean enabled = true;
+
+        /**
+         * How often pending deployment and process-link changes are applied to the index.
+         */
+        private long refreshIntervalMs = 5000;
+
+        /**
+         * How often the whole index is rebuilt, re-checking every referenced catalog, template and
+         * variant in Epistola (which publishes no change events).
+         */
+        private Duration rebuildInterval = Duration.ofHours(1);
+    }
+
+    /**
+     * Process-variable discovery from history for the {@code /process-variables} and
+     * {@code /variable-suggestions} endpoints. History is read from a bounded window of recent
+     * process instances and cached per process definition key.
+     */
+    @Data
+    public static class VariableDiscovery {
+
+        /**
+         * Most recent process instances of a definition key whose variables are read.
+         */
+        private int historyWindow = 200;
+
+        /**
+         * Historic variable rows read per query.
+         */
+        private int pageSize = 500;
+
+        /**
+         * Values loaded per object variable to find nested paths such as {@code epistolaResult.documentId}.
+         */
+        private int samplesPerName = 3;
+
+        /**
+         * Age after which a cached result is refreshed in the background; the refresh reads only the
+         * instances started since the previous scan.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /**
+         * Process definition keys whose discovered variables are cached, and case and process
+         * definitions whose variable-suggestion index is kept; the least recently used is evicted first.
+         */
+        private int maxCachedDefinitions = 200;
+
+        /**
+         * How long the variable-suggestion index of a case or process definition is answered before
+         * it is checked again. Deployments and process-link changes drop a process index immediately.
+         */
+        private Duration suggestionRefreshInterval = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Startup import of the catalogs bundled on the classpath. A catalog is imported again only when
+     * the content of its archive changed since it was last deployed.
+     */
+    @Data
+    public static class CatalogSync {
+
+        /**
+         * Where deployed content hashes are kept: {@code memory} (per node, so every node imports all
+         * catalogs after a restart) or {@code jdbc} (shared by all nodes in the
+         * {@code epistola_catalog_sync} table of the plugin's Liquibase changelog, with a lease per
+         * configuration so only one node syncs it).
+         */
+        private Persistence persistence = Persistence.MEMORY;
+
+        /**
+         * Catalogs imported concurrently per plugin configuration.
+         */
+        private int parallelism = 4;
+
+        /**
+         * How long a node holds the sync lease of a configuration. A lease left by a node that
+         * stopped mid-sync is taken over after this time.
+         */
+        private Duration leaseDuration = Duration.ofMinutes(10);
+
+        public enum Persistence {
+            MEMORY,
+            JDBC
+        }
+    }
+
+    /**
+     * Local store of the terminal generation results the result collector received. The
+     * {@code epistola-check-job-status} action and the admin reconcile answer from it and only call
+     * Epistola for jobs it does not know, so BPMN polling loops stop costing an HTTP call per poll.
+     */
+    @Data
+    public static class JobResults {
+
+        private boolean enabled = true;
+
+        /**
+         * Where results are kept: {@code memory} (per node, lost on restart) or {@code jdbc} (shared
+         * by all nodes in the {@code epistola_job_result} table of the plugin's Liquibase changelog).
+         */
+        private Persistence persistence = Persistence.MEMORY;
+
+        /**
+         * Results remembered per node with {@code memory} persistence; the oldest is evicted first.
+         */
+        private int maxEntries = 50000;
+
+        /**
+         * How long a result is answered locally. Older results are looked up at Epistola again.
+         */
+        private Duration retention = Duration.ofHours(24);
+
+        /**
+         * How often expired rows are deleted with {@code jdbc} persistence.
+         */
+        private long purgeIntervalMs = 3600000;
+
+        public enum Persistence {
+            MEMORY,
+            JDBC
+        }
+    }
+
+    /**
+     * Plugin-managed mail-merge runs: one generation request per case document of a case
+     * definition, paged through the document table and checkpointed after every page so a run
+     * resumes where it stopped after a restart. Off by default. Runs are kept in the
+     * {@code epistola_mail_merge_run} table of the plugin's Liquibase changelog.
+     */
+    @Data
+    public static class MailMerge {
+
+        private boolean enabled = false;
+
+        /**
+         * Case documents read, evaluated and submitted per page. A checkpoint is written after
+         * every page, so this is also the most that is submitted again after a crash.
+         */
+        private int pageSize = 200;
+
+        /**
+         * Concurrent submissions within a page. Keep it below
+         * {@code client.bulkhead.bulk-max-concurrent-calls} so interactive bulk actions still get a slot.
+         */
+        private int parallelism = 4;
+
+        /**
+         * How often each node looks for runs that are due or were abandoned by a stopped node,
+         * and flushes the rendered / failed counts its result collector observed.
+         */
+        private long pollIntervalMs = 10000;
+
+        /**
+         * How long a node owns a run without writing a checkpoint. Another node (or this one after
+         * a restart) takes over a run whose lease expired. Must exceed the time one page takes.
+         */
+        private Duration leaseDuration = Duration.ofMinutes(5);
+
+        /**
+         * Pause before a run continues after Epistola throttled it, the circuit breaker opened, or
+         * the bulkhead stayed full. The run resumes from the last submitted document.
+         */
+        private Duration throttleBackoff = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Limits for the {@code epistola-generate-documents} action, which submits one generation
+     * request per item of an array concurrently.
+     */
+    @Data
+    public static class BulkGeneration {
+
+        /**
+         * Concurrent submissions per batch when the action sets no maxParallelism. Keep it below
+         * {@code client.bulkhead.bulk-max-concurrent-calls} so one batch does not hold every bulk slot.
+         */
+        private int defaultParallelism = 4;
+
+        /**
+         * Upper bound on the maxParallelism a process author may configure on the action.
+         */
+        private int maxParallelism = 16;
+
+        /**
+         * Maximum number of items in one batch; a larger items array fails the action.
+         */
+        private int maxItems = 1000;
+    }
+
+    /**
+     * Deduplication of identical generation requests: retries, re-entered subprocesses or users
+     * re-triggering the same letter with the same data reuse the earlier job instead of rendering
+     * again. Requests are identical when connection, catalog, template, variant, environment, output
+     * format, filename and resolved data all match. Off by default.
+     */
+    @Data
+    public static class GenerationDedup {
+
+        private boolean enabled = false;
+
+        /**
+         * How long after a submission an identical request reuses its job: the produced document once
+         * completed, or the job itself while still rendering. Failed jobs are never reused.
+         */
+        private Duration window = Duration.ofMinutes(10);
+
+        /**
+         * Maximum number of remembered requests per node; the oldest is evicted first.
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * How long an identical request waits for a concurrent submission of the same request to
+         * return its job before submitting on its own.
+         */
+        private Duration attachTimeout = Duration.ofSeconds(30);
+    }
 
     @Data
     public static class VersionCheck {
@@ -129,6 +367,180 @@ public class EpistolaProperties {
          * connection refused, or a 5xx response. 4xx responses are never retried.
          */
         private int maxReadRetries = 2;
+
+        /**
+         * Whether generation submissions and previews stream their JSON body onto the
+         * connection (chunked transfer encoding) instead of buffering it in memory first.
+         * Peak heap per submission then no longer grows with the payload size. Disable only
+         * if a proxy in front of Epistola rejects chunked request bodies.
+         */
+        private boolean streamRequestBodies = true;
+
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private final Bulkhead bulkhead = new Bulkhead();
+        private final RateLimiter rateLimiter = new RateLimiter();
+        private final Compression compression = new Compression();
+
+        /**
+         * Gzip compression of large JSON request bodies (generation submissions, previews).
+         * Off by default: the Epistola server must accept {@code Content-Encoding: gzip}.
+         */
+        @Data
+        public static class Compression {
+
+            private boolean enabled = false;
+
+            /**
+             * Bodies whose serialized JSON exceeds this many bytes are compressed; smaller
+             * ones are sent as-is, where compression would cost more than it saves.
+             */
+            private long thresholdBytes = 65536;
+
+            /**
+             * Epistola base URLs to compress request bodies for. Empty (the default) means
+             * every configured base URL.
+             */
+            private List<String> baseUrls = new ArrayList<>();
+        }
+
+        /**
+         * Per-connection (base URL + tenant) circuit breaker in front of every Epistola API
+         * call made through {@code EpistolaService}. When recent calls mostly fail or are slow
+         * the circuit opens and calls fail fast with {@code EpistolaCircuitOpenException}
+         * instead of each holding a job-executor thread for up to {@link #readTimeoutMs}.
+         */
+        @Data
+        public static class CircuitBreaker {
+
+            private boolean enabled = true;
+
+            /**
+             * Percentage of failed calls (timeouts, connection errors, 5xx) in the sliding
+             * window at or above which the circuit opens.
+             */
+            private float failureRateThreshold = 50;
+
+            /**
+             * Percentage of slow calls in the sliding window at or above which the circuit opens.
+             */
+            private float slowCallRateThreshold = 80;
+
+            /**
+             * A request/response call taking at least this long (ms) counts as slow. Preview,
+             * download and catalog import are never counted as slow.
+             */
+            private long slowCallDurationMs = 10000;
+
+            /**
+             * Number of most recent calls whose outcome is used to compute the rates.
+             */
+            private int slidingWindowSize = 20;
+
+            /**
+             * Minimum number of buffered calls before the rates are evaluated.
+             */
+            private int minimumNumberOfCalls = 10;
+
+            /**
+             * How long (ms) an open circuit rejects calls before letting probe calls through.
+             */
+            private long waitDurationInOpenStateMs = 30000;
+
+            /**
+             * Number of probe calls allowed while half-open; their outcome decides whether
+             * the circuit closes or re-opens.
+             */
+            private int permittedCallsInHalfOpenState = 3;
+        }
+
+        /**
+         * Per-connection cap on concurrent Epistola calls, so a degraded installation can
+         * never occupy more than {@link #maxConcurrentCalls} job-executor threads, split into
+         * interactive, admin and bulk lanes with their own caps.
+         */
+        @Data
+        public static class Bulkhead {
+
+            private boolean enabled = true;
+
+            /**
+             * Maximum number of calls in flight per connection, across all traffic classes.
+             */
+            private int maxConcurrentCalls = 8;
+
+            /**
+             * Cap for interactive calls (previews, template pickers, user downloads).
+             * Interactive calls get a freed slot before admin and bulk calls.
+             */
+            private int interactiveMaxConcurrentCalls = 8;
+
+            /**
+             * Cap for admin calls (health checks, reconcile, catalog import).
+             */
+            private int adminMaxConcurrentCalls = 2;
+
+            /**
+             * Cap for bulk BPMN calls (submissions, status polls, BPMN downloads). Keep it
+             * below {@link #maxConcurrentCalls} so a mass campaign always leaves slots free
+             * for caseworkers.
+             */
+            private int bulkMaxConcurrentCalls = 6;
+
+            /**
+             * How long (ms) a call waits for a free slot before failing with
+             * {@code EpistolaBulkheadFullException}.
+             */
+            private long maxWaitMs = 2000;
+        }
+
+        /**
+         * Per-connection adaptive token bucket in front of generation submissions. The rate
+         * starts at {@link #permitsPerSecond}, is cut by {@link #decreaseFactor} on every 429
+         * (and paused for the {@code Retry-After}) and grows back by
+         * {@link #increasePerSuccess} per accepted call.
+         */
+        @Data
+        public static class RateLimiter {
+
+            private boolean enabled = true;
+
+            /**
+             * Initial and maximum submissions per second.
+             */
+            private double permitsPerSecond = 20;
+
+            /**
+             * Floor the rate never drops below, however many 429s are received.
+             */
+            private double minPermitsPerSecond = 1;
+
+            /**
+             * Submissions that may be sent back-to-back after an idle period.
+             */
+            private int burst = 20;
+
+            /**
+             * Permits per second added back after each accepted submission.
+             */
+            private double increasePerSuccess = 0.5;
+
+            /**
+             * Factor the rate is multiplied by on a 429 response (between 0 and 1).
+             */
+            private double decreaseFactor = 0.5;
+
+            /**
+             * Maximum number of callers waiting for a permit; further callers are rejected
+             * with {@code EpistolaRateLimitedException}.
+             */
+            private int maxQueueSize = 50;
+
+            /**
+             * Longest (ms) a caller waits for a permit, including a server-sent
+             * {@code Retry-After}, before being rejected.
+             */
+            private long maxWaitMs = 5000;
+        }
     }
 
     @Data
@@ -142,6 +554,91 @@ public class EpistolaProperties {
          * declares the {@code epistolaWaitFor} {@code camunda:inputParameter} mapping explicitly.
          */
         private boolean enabled = true;
+
+        /**
+         * Process-definition versions whose catch-event to result-variable mapping is kept in memory;
+         * the least recently used is evicted first.
+         */
+        private int maxCachedDefinitions = 1000;
+    }
+
+    /**
+     * Shared index of the plugin process links per process-definition version, used by preview, the retry
+     * form, variable discovery, the admin views and the deployment checks.
+     */
+    @Data
+    public static class ProcessLinkIndex {
+
+        /**
+         * How long the plugin process links of a process-definition version are served from the index
+         * before they are read again. Local link edits and deployments invalidate the index immediately;
+         * this only bounds how long an edit made on another node can go unnoticed.
+         */
+        private Duration maxAge = Duration.ofMinutes(5);
+
+        /**
+         * Maximum number of process-definition versions whose links are kept. 0 disables the index,
+         * so every lookup reads the process links.
+         */
+        private int maxCachedDefinitions = 500;
+    }
+
+    /**
+     * Resource budgets of JSONata data mappings and expressions. The defaults apply to every process
+     * link; {@code overrides} loosen or tighten them per process definition key or per activity.
+     */
+    @Data
+    public static class Mapping {
+
+        /**
+         * Wall-clock time one evaluation may take, custom-function calls included.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * Deepest function recursion an expression may reach.
+         */
+        private int maxRecursionDepth = 100;
+
+        /**
+         * Largest evaluation result, in characters of its JSON form. 0 disables the limit.
+         */
+        private long maxOutputSize = 0;
+
+        /**
+         * Budgets of specific process links. An override with an {@code activity-id} wins over one for
+         * the whole process definition; limits it leaves unset are inherited.
+         */
+        private List<BudgetOverride> overrides = new ArrayList<>();
+
+        @Data
+        public static class BudgetOverride {
+
+            /**
+             * Key of the process definition the override applies to.
+             */
+            private String processDefinitionKey;
+
+            /**
+             * BPMN activity of the process link; unset applies the override to all links of the process.
+             */
+            private String activityId;
+
+            /**
+             * Evaluation timeout of these links; inherited when unset.
+             */
+            private Duration timeout;
+
+            /**
+             * Maximum recursion depth of these links; inherited when unset.
+             */
+            private Integer maxRecursionDepth;
+
+            /**
+             * Maximum output size of these links (0 disables it); inherited when unset.
+             */
+            private Long maxOutputSize;
+        }
     }
 
     @Data
@@ -160,6 +657,17 @@ public class EpistolaProperties {
          * Example: "permit.*|subsidy.*"
          */
         private String caseFilter = "all";
+
+        /**
+         * How long a template's field schema and the form skeleton built from it are reused before
+         * the template is fetched from Epistola again. The skeleton is only rebuilt when the schema changed.
+         */
+        private Duration templateCacheTtl = Duration.ofMinutes(5);
+
+        /**
+         * Maximum number of templates (per plugin configuration and catalog) whose form skeleton is kept.
+         */
+        private int maxCachedTemplates = 500;
     }
 
     @Data
@@ -44,6 +44,9 @@ public class CatalogScanner {
 
     private final ObjectMapper objectMapper;
 
+    /** Result of the first successful scan; the classpath does not change while the application runs. */
+    private volatile List<CatalogOnClasspath> scanned;
+
     public CatalogScanner(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
     }
@@ -58,21 +61,33 @@ public class CatalogScanner {
     public record CatalogOnClasspath(String slug, String version, String basePath) {}
 
     /**
-     * Scan the classpath for catalog.json files and extract metadata.
+     * Scan the classpath for catalog.json files and extract metadata. The classpath is scanned once;
+     * later calls return the same catalogs.
      *
      * @return List of catalogs found on the classpath (never null)
      */
     public List<CatalogOnClasspath> scan() {
+        List<CatalogOnClasspath> catalogs = scanned;
+        if (catalogs != null) {
+            return catalogs;
+        }
         PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
 
         Resource[] resources;
         try {
             resources = resolver.getResources(CATALOG_PATTERN);
         } catch (IOException e) {
+            // Not remembered, so the next call scans again.
             log.warn("Failed to scan for catalog definitions: {}", e.getMessage());
             return Collections.emptyList();
         }
+        catalogs = List.copyOf(parse(resources));
+        scanned = catalogs;
+        log.debug("Found {} catalogs on classpath", catalogs.size());
+        return catalogs;
+    }
 
+    private List<CatalogOnClasspath> parse(Resource[] resources) {
         List<CatalogOnClasspath> catalogs = new ArrayList<>();
         for (Resource resource : resources) {
             try (InputStream is = resource.getInputStream()) {
@@ -107,7 +122,6 @@ public class CatalogScanner {
             }
         }
 
-        log.debug("Found {} catalogs on classpath", catalogs.size());
         return catalogs;
     }
 
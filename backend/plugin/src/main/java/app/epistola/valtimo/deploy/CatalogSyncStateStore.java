@@ -0,0 +1,42 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.deploy;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * What {@link EpistolaCatalogSyncService} last deployed per plugin configuration and catalog, and the
+ * lease that lets only one node sync a configuration at a time.
+ */
+public interface CatalogSyncStateStore {
+
+    /** Content hash of the last successfully imported archive, by catalog slug. */
+    Map<String, String> deployedHashes(String configId);
+
+    void recordDeployed(String configId, String slug, String version, String contentHash, Instant now);
+
+    /**
+     * Take or extend the sync lease of a configuration.
+     *
+     * @return {@code false} when another owner holds an unexpired lease
+     */
+    boolean tryLease(String configId, String owner, Instant now, Instant leaseUntil);
+
+    void releaseLease(String configId, String owner);
+}
@@ -19,6 +19,7 @@ package app.epistola.valtimo.deploy;
 
 import app.epistola.valtimo.service.EpistolaApiException;
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -26,44 +27,71 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 /**
  * Synchronizes catalog resources from classpath to Epistola via ZIP import.
  * <p>
- * For each catalog found by the {@link CatalogScanner}, compares the version against
- * previously deployed versions. If the version has changed (or this is the first deploy),
- * builds a ZIP archive from the classpath resources and POSTs it to Epistola's catalog
- * import endpoint.
+ * For each catalog found by the {@link CatalogScanner}, takes the archive packaged at build time
+ * ({@code catalog.zip} with its {@code catalog.zip.sha256}, see {@code packageEpistolaCatalogs}) or
+ * else builds a ZIP archive from the classpath resources, and compares its content hash against the
+ * one last deployed. If the content has changed (or this is the first deploy), POSTs the archive to
+ * Epistola's catalog import endpoint; a packaged archive is streamed from the jar.
+ * Changed catalogs are imported concurrently, at most {@code parallelism} at a time.
  * <p>
- * Deployed versions are tracked in memory per plugin configuration. On restart,
- * all catalogs are re-imported (idempotent — the import API handles create-or-update).
+ * Deployed hashes are kept per plugin configuration in a {@link CatalogSyncStateStore}. With the
+ * JDBC store they survive restarts and are shared by all nodes, which take a lease per
+ * configuration so only one of them syncs it at a time; with the in-memory store every node
+ * re-imports all catalogs on startup (idempotent — the import API handles create-or-update).
  */
 @Slf4j
 public class EpistolaCatalogSyncService {
 
+    static final String PACKAGED_ARCHIVE = "catalog.zip";
+    static final String PACKAGED_ARCHIVE_HASH = "catalog.zip.sha256";
+
     private final CatalogScanner scanner;
     private final EpistolaService epistolaService;
-
-    /**
-     * Tracks deployed versions per plugin configuration ID.
-     * Key: plugin configuration ID, Value: map of catalog slug to version.
-     */
-    private final Map<String, Map<String, String>> deployedVersions = new HashMap<>();
-
-    public EpistolaCatalogSyncService(CatalogScanner scanner, EpistolaService epistolaService) {
+    private final CatalogSyncStateStore stateStore;
+    private final BulkSubmitter bulkSubmitter;
+    private final int parallelism;
+    private final Duration leaseDuration;
+    private final Clock clock;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public EpistolaCatalogSyncService(CatalogScanner scanner, EpistolaService epistolaService,
+                                      CatalogSyncStateStore stateStore, BulkSubmitter bulkSubmitter,
+                                      int parallelism, Duration leaseDuration, Clock clock) {
         this.scanner = scanner;
         this.epistolaService = epistolaService;
+        this.stateStore = stateStore;
+        this.bulkSubmitter = bulkSubmitter;
+        this.parallelism = Math.max(1, parallelism);
+        this.leaseDuration = leaseDuration;
+        this.clock = clock;
     }
 
     /**
      * Perform catalog synchronization for a specific plugin configuration.
      *
-     * @param configId    The plugin configuration ID (for version tracking)
+     * When another node holds the sync lease of this configuration, nothing is imported and the
+     * result reports every catalog as neither synced nor failed.
+     *
+     * @param configId    The plugin configuration ID (for hash tracking and the lease)
      * @param baseUrl     The Epistola API base URL
      * @param apiKey      The API key for authentication
      * @param tenantId    The tenant ID in Epistola
@@ -78,49 +106,71 @@ public class EpistolaCatalogSyncService {
             return new SyncResult(0, 0, 0);
         }
 
+        Instant now = clock.instant();
+        if (!stateStore.tryLease(configId, nodeId, now, now.plus(leaseDuration))) {
+            log.info("Catalog sync for configuration '{}' is running on another node, skipping", configId);
+            return new SyncResult(allCatalogs.size(), 0, 0);
+        }
+        try {
+            return syncChangedCatalogs(configId, baseUrl, apiKey, tenantId, catalogType, allCatalogs);
+        } finally {
+            stateStore.releaseLease(configId, nodeId);
+        }
+    }
+
+    private SyncResult syncChangedCatalogs(String configId, String baseUrl, String apiKey, String tenantId,
+                                           String catalogType, List<CatalogScanner.CatalogOnClasspath> allCatalogs) {
         // Determine which catalogs have changed
-        Map<String, String> previousVersions = deployedVersions.getOrDefault(configId, Map.of());
-        List<CatalogScanner.CatalogOnClasspath> changedCatalogs = allCatalogs.stream()
-                .filter(cat -> {
-                    String previousVersion = previousVersions.get(cat.slug());
-                    return !cat.version().equals(previousVersion);
-                })
-                .toList();
+        Map<String, String> previousHashes = stateStore.deployedHashes(configId);
+        List<CatalogScanner.CatalogOnClasspath> changedCatalogs = new ArrayList<>();
+        List<BuiltCatalog> builtCatalogs = new ArrayList<>();
+        int failCount = 0;
+        for (CatalogScanner.CatalogOnClasspath catalog : allCatalogs) {
+            try {
+                BuiltCatalog built = prepareCatalog(catalog);
+                if (!built.contentHash().equals(previousHashes.get(catalog.slug()))) {
+                    changedCatalogs.add(catalog);
+                    builtCatalogs.add(built);
+                }
+            } catch (Exception e) {
+                failCount++;
+                log.error("Failed to build catalog '{}' v{}: {}",
+                        catalog.slug(), catalog.version(), e.getMessage(), e);
+            }
+        }
 
         if (changedCatalogs.isEmpty()) {
-            log.debug("All {} catalogs are up-to-date, nothing to sync", allCatalogs.size());
-            return new SyncResult(allCatalogs.size(), 0, 0);
+            log.debug("All {} catalogs are up-to-date, nothing to sync", allCatalogs.size() - failCount);
+            return new SyncResult(allCatalogs.size(), 0, failCount);
         }
 
         log.info("Syncing {} changed catalogs (out of {} total) to tenant '{}'",
                 changedCatalogs.size(), allCatalogs.size(), tenantId);
 
-        Map<String, String> updatedVersions = new HashMap<>(previousVersions);
-        int successCount = 0;
-        int failCount = 0;
+        List<BulkSubmitter.Outcome<EpistolaService.ImportCatalogResult>> outcomes = bulkSubmitter.submitAll(
+                builtCatalogs, parallelism,
+                built -> importArchive(built, baseUrl, apiKey, tenantId, catalogType));
 
-        for (CatalogScanner.CatalogOnClasspath catalog : changedCatalogs) {
-            try {
-                byte[] zipBytes = buildCatalogZip(catalog);
-
-                EpistolaService.ImportCatalogResult result = epistolaService.importCatalog(
-                        baseUrl, apiKey, tenantId, zipBytes, catalogType);
-
-                updatedVersions.put(catalog.slug(), catalog.version());
-                successCount++;
-                log.info("Catalog '{}' v{} imported: key={}, installed={}, updated={}, failed={}, total={}",
-                        catalog.slug(), catalog.version(),
-                        result.catalogKey(), result.installed(), result.updated(),
-                        result.failed(), result.total());
-            } catch (Exception e) {
+        int successCount = 0;
+        for (int i = 0; i < outcomes.size(); i++) {
+            CatalogScanner.CatalogOnClasspath catalog = changedCatalogs.get(i);
+            BulkSubmitter.Outcome<EpistolaService.ImportCatalogResult> outcome = outcomes.get(i);
+            if (!outcome.succeeded()) {
                 failCount++;
                 log.error("Failed to sync catalog '{}' v{}: {}",
-                        catalog.slug(), catalog.version(), e.getMessage(), e);
+                        catalog.slug(), catalog.version(), outcome.error().getMessage(), outcome.error());
+                continue;
             }
+            EpistolaService.ImportCatalogResult result = outcome.value();
+            stateStore.recordDeployed(configId, catalog.slug(), catalog.version(),
+                    builtCatalogs.get(i).contentHash(), clock.instant());
+            successCount++;
+            log.info("Catalog '{}' v{} imported: key={}, installed={}, updated={}, failed={}, total={}",
+                    catalog.slug(), catalog.version(),
+                    result.catalogKey(), result.installed(), result.updated(),
+                    result.failed(), result.total());
         }
 
-        deployedVersions.put(configId, updatedVersions);
-
         return new SyncResult(allCatalogs.size(), successCount, failCount);
     }
 
@@ -137,13 +187,12 @@ public class EpistolaCatalogSyncService {
 
     /**
      * Force-redeploy a single classpath catalog to Epistola, bypassing the
-     * version-skip check that {@link #syncCatalogs} applies. This is the explicit
+     * content-hash check that {@link #syncCatalogs} applies. This is the explicit
      * manual admin action: it always pushes regardless of {@code templateSyncEnabled}
      * (gating is the caller's concern) and regardless of whether the version changed.
-     * On success the in-memory deployed-version is updated so a later startup sync
-     * sees it as current.
+     * On success the deployed hash is recorded so a later startup sync sees it as current.
      *
-     * @param configId    The plugin configuration ID (for version tracking)
+     * @param configId    The plugin configuration ID (for hash tracking)
      * @param baseUrl     The Epistola API base URL
      * @param apiKey      The API key for authentication
      * @param tenantId    The tenant ID in Epistola
@@ -162,14 +211,12 @@ public class EpistolaCatalogSyncService {
                         "No classpath catalog found with slug '" + slug + "'"));
 
         try {
-            byte[] zipBytes = buildCatalogZip(catalog);
+            BuiltCatalog built = prepareCatalog(catalog);
 
-            EpistolaService.ImportCatalogResult result = epistolaService.importCatalog(
-                    baseUrl, apiKey, tenantId, zipBytes, catalogType);
+            EpistolaService.ImportCatalogResult result = importArchive(built, baseUrl, apiKey, tenantId, catalogType);
 
-            deployedVersions
-                    .computeIfAbsent(configId, k -> new HashMap<>())
-                    .put(catalog.slug(), catalog.version());
+            stateStore.recordDeployed(configId, catalog.slug(), catalog.version(), built.contentHash(),
+                    clock.instant());
 
             log.info("Manual redeploy of catalog '{}' v{} to tenant '{}': "
                             + "key={}, installed={}, updated={}, failed={}, total={}",
@@ -220,6 +267,30 @@ public class EpistolaCatalogSyncService {
         return e.getMessage();
     }
 
+    private EpistolaService.ImportCatalogResult importArchive(BuiltCatalog built, String baseUrl, String apiKey,
+                                                              String tenantId, String catalogType) {
+        return built.packagedArchive() != null
+                ? epistolaService.importCatalog(baseUrl, apiKey, tenantId, built.packagedArchive(), catalogType)
+                : epistolaService.importCatalog(baseUrl, apiKey, tenantId, built.zipBytes(), catalogType);
+    }
+
+    /**
+     * The archive to upload for a catalog: the one packaged at build time when the catalog directory
+     * holds a {@code catalog.zip} and its {@code catalog.zip.sha256}, otherwise one assembled from
+     * the classpath resources by {@link #buildCatalog}.
+     */
+    BuiltCatalog prepareCatalog(CatalogScanner.CatalogOnClasspath catalog) throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        Resource archive = resolver.getResource("classpath:" + catalog.basePath() + "/" + PACKAGED_ARCHIVE);
+        Resource hash = resolver.getResource("classpath:" + catalog.basePath() + "/" + PACKAGED_ARCHIVE_HASH);
+        if (archive.exists() && hash.exists()) {
+            String contentHash = hash.getContentAsString(StandardCharsets.UTF_8).trim();
+            log.debug("Using packaged archive for catalog '{}', hash {}", catalog.slug(), contentHash);
+            return new BuiltCatalog(null, archive, contentHash);
+        }
+        return buildCatalog(catalog);
+    }
+
     /**
      * Build a ZIP archive from a catalog's classpath resources.
      * <p>
@@ -234,73 +305,101 @@ public class EpistolaCatalogSyncService {
      * @throws IOException if reading classpath resources fails
      */
     byte[] buildCatalogZip(CatalogScanner.CatalogOnClasspath catalog) throws IOException {
+        return buildCatalog(catalog).zipBytes();
+    }
+
+    /**
+     * Build the ZIP archive of a catalog together with its content hash: a SHA-256 over the name, a
+     * zero byte and the content of every entry, in entry name order. The archive bytes themselves
+     * are not stable (every entry carries the time it was written), so they cannot be hashed
+     * directly. {@code epistolaCatalogs.gradle.kts} hashes packaged archives the same way, so a
+     * catalog keeps its hash whether it is packaged at build time or assembled here.
+     */
+    BuiltCatalog buildCatalog(CatalogScanner.CatalogOnClasspath catalog) throws IOException {
         PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        Map<String, Resource> entries = new TreeMap<>();
+
+        // 1. Add catalog.json
+        String catalogJsonPath = "classpath:" + catalog.basePath() + "/catalog.json";
+        Resource catalogJson = resolver.getResource(catalogJsonPath);
+        if (catalogJson.exists()) {
+            entries.put("catalog.json", catalogJson);
+        } else {
+            throw new IOException("catalog.json not found at " + catalogJsonPath);
+        }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-            // 1. Add catalog.json
-            String catalogJsonPath = "classpath:" + catalog.basePath() + "/catalog.json";
-            Resource catalogJson = resolver.getResource(catalogJsonPath);
-            if (catalogJson.exists()) {
-                addToZip(zos, "catalog.json", catalogJson);
+        // 2. Add all resources/**/*.json files
+        String resourcePattern = "classpath*:" + catalog.basePath() + "/resources/**/*.json";
+        Resource[] resourceFiles;
+        try {
+            resourceFiles = resolver.getResources(resourcePattern);
+        } catch (IOException e) {
+            log.debug("No resource files found for catalog '{}': {}", catalog.slug(), e.getMessage());
+            resourceFiles = new Resource[0];
+        }
+
+        String resourcePrefix = catalog.basePath() + "/resources/";
+        for (Resource resource : resourceFiles) {
+            String resourceUrl = resource.getURL().toString();
+            int prefixIdx = resourceUrl.indexOf(resourcePrefix);
+            if (prefixIdx >= 0) {
+                String relativePath = "resources/" + resourceUrl.substring(prefixIdx + resourcePrefix.length());
+                entries.putIfAbsent(relativePath, resource);
             } else {
-                throw new IOException("catalog.json not found at " + catalogJsonPath);
+                log.warn("Could not determine relative path for resource: {}", resource.getDescription());
             }
+        }
 
-            // 2. Add all resources/**/*.json files
-            String resourcePattern = "classpath*:" + catalog.basePath() + "/resources/**/*.json";
-            Resource[] resourceFiles;
-            try {
-                resourceFiles = resolver.getResources(resourcePattern);
-            } catch (IOException e) {
-                log.debug("No resource files found for catalog '{}': {}", catalog.slug(), e.getMessage());
-                resourceFiles = new Resource[0];
-            }
+        // 3. Scan for binary asset files (images, fonts, etc.) under resources/
+        String assetPattern = "classpath*:" + catalog.basePath() + "/resources/**/*";
+        Resource[] allResourceFiles;
+        try {
+            allResourceFiles = resolver.getResources(assetPattern);
+        } catch (IOException e) {
+            log.debug("No asset files found for catalog '{}': {}", catalog.slug(), e.getMessage());
+            allResourceFiles = new Resource[0];
+        }
 
-            String resourcePrefix = catalog.basePath() + "/resources/";
-            for (Resource resource : resourceFiles) {
-                String resourceUrl = resource.getURL().toString();
-                int prefixIdx = resourceUrl.indexOf(resourcePrefix);
-                if (prefixIdx >= 0) {
-                    String relativePath = "resources/" + resourceUrl.substring(prefixIdx + resourcePrefix.length());
-                    addToZip(zos, relativePath, resource);
-                } else {
-                    log.warn("Could not determine relative path for resource: {}", resource.getDescription());
-                }
+        for (Resource resource : allResourceFiles) {
+            // Skip JSON files (already added above) and directories
+            String filename = resource.getFilename();
+            if (filename == null || filename.endsWith(".json")) {
+                continue;
             }
 
-            // 3. Scan for binary asset files (images, fonts, etc.) under resources/
-            String assetPattern = "classpath*:" + catalog.basePath() + "/resources/**/*";
-            Resource[] allResourceFiles;
-            try {
-                allResourceFiles = resolver.getResources(assetPattern);
-            } catch (IOException e) {
-                log.debug("No asset files found for catalog '{}': {}", catalog.slug(), e.getMessage());
-                allResourceFiles = new Resource[0];
+            String resourceUrl = resource.getURL().toString();
+            int prefixIdx = resourceUrl.indexOf(resourcePrefix);
+            if (prefixIdx >= 0) {
+                String relativePath = "resources/" + resourceUrl.substring(prefixIdx + resourcePrefix.length());
+                entries.putIfAbsent(relativePath, resource);
             }
+        }
 
-            for (Resource resource : allResourceFiles) {
-                // Skip JSON files (already added above) and directories
-                String filename = resource.getFilename();
-                if (filename == null || filename.endsWith(".json")) {
-                    continue;
-                }
-
-                String resourceUrl = resource.getURL().toString();
-                int prefixIdx = resourceUrl.indexOf(resourcePrefix);
-                if (prefixIdx >= 0) {
-                    String relativePath = "resources/" + resourceUrl.substring(prefixIdx + resourcePrefix.length());
-                    addToZip(zos, relativePath, resource);
-                }
+        // 4. Write the entries in name order, hashing as they go
+        MessageDigest digest = sha256();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            for (Map.Entry<String, Resource> entry : entries.entrySet()) {
+                addToZip(zos, digest, entry.getKey(), entry.getValue());
             }
         }
 
         byte[] zipBytes = baos.toByteArray();
-        log.debug("Built ZIP for catalog '{}': {} bytes", catalog.slug(), zipBytes.length);
-        return zipBytes;
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        log.debug("Built ZIP for catalog '{}': {} bytes, hash {}", catalog.slug(), zipBytes.length, contentHash);
+        return new BuiltCatalog(zipBytes, null, contentHash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    private void addToZip(ZipOutputStream zos, String entryName, Resource resource) throws IOException {
+    private void addToZip(ZipOutputStream zos, MessageDigest digest, String entryName, Resource resource)
+            throws IOException {
         // Skip directories — file-based resources can be checked directly,
         // classpath resources that are directories throw on getInputStream()
         try {
@@ -311,12 +410,22 @@ public class EpistolaCatalogSyncService {
             // Not a file-based resource (e.g., JAR entry) — proceed
         }
         zos.putNextEntry(new ZipEntry(entryName));
+        digest.update(entryName.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
         try (InputStream is = resource.getInputStream()) {
-            is.transferTo(zos);
+            // Not closed: closing would close the ZIP stream.
+            is.transferTo(new DigestOutputStream(zos, digest));
         }
         zos.closeEntry();
     }
 
+    /**
+     * A catalog archive ready for upload, with the hash of its content: either assembled in memory
+     * ({@code zipBytes}) or packaged at build time and streamed from the classpath
+     * ({@code packagedArchive}).
+     */
+    record BuiltCatalog(byte[] zipBytes, Resource packagedArchive, String contentHash) {}
+
     /**
      * Result of a catalog sync operation.
      */
@@ -31,7 +31,8 @@ import java.util.List;
  * <p>
  * Scans all Epistola plugin configurations where {@code templateSyncEnabled = true},
  * and for each configuration, synchronizes catalog resources from classpath
- * to the Epistola server.
+ * to the Epistola server. The sync runs on its own (virtual) thread, so a slow or unreachable
+ * Epistola does not hold up the application-ready event and the listeners after this one.
  */
 @Slf4j
 public class EpistolaCatalogSyncTrigger {
@@ -46,6 +47,10 @@ public class EpistolaCatalogSyncTrigger {
 
     @EventListener(ApplicationReadyEvent.class)
     public void onApplicationReady() {
+        Thread.ofVirtual().name("epistola-catalog-sync").start(this::syncAll);
+    }
+
+    void syncAll() {
         log.debug("Application ready — checking for Epistola catalog sync configurations");
 
         try {
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.deploy;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CatalogSyncStateStore} kept in memory: every node tracks its own deployments, and forgets
+ * them on restart (after which every catalog is imported again).
+ */
+public class InMemoryCatalogSyncStateStore implements CatalogSyncStateStore {
+
+    private record Lease(String owner, Instant until) {}
+
+    private final Map<String, Map<String, String>> hashesByConfig = new ConcurrentHashMap<>();
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, String> deployedHashes(String configId) {
+        return Map.copyOf(hashesByConfig.getOrDefault(configId, Map.of()));
+    }
+
+    @Override
+    public void recordDeployed(String configId, String slug, String version, String contentHash, Instant now) {
+        hashesByConfig.computeIfAbsent(configId, k -> new ConcurrentHashMap<>()).put(slug, contentHash);
+    }
+
+    @Override
+    public boolean tryLease(String configId, String owner, Instant now, Instant leaseUntil) {
+        Lease taken = leases.compute(configId, (k, current) ->
+                current == null || current.owner().equals(owner) || current.until().isBefore(now)
+                        ? new Lease(owner, leaseUntil)
+                        : current);
+        return taken.owner().equals(owner);
+    }
+
+    @Override
+    public void releaseLease(String configId, String owner) {
+        leases.computeIfPresent(configId, (k, current) -> current.owner().equals(owner) ? null : current);
+    }
+}
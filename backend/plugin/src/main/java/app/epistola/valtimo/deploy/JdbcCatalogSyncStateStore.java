@@ -0,0 +1,101 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.deploy;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link CatalogSyncStateStore} in the {@code epistola_catalog_sync} and
+ * {@code epistola_catalog_sync_lease} tables, shared by every node: a catalog imported by one node is
+ * not imported again by another, nor after a restart, until its content changes. The tables come
+ * with the plugin's Liquibase changelog. Leases are taken with conditional updates, like the
+ * mail-merge runs.
+ */
+public class JdbcCatalogSyncStateStore implements CatalogSyncStateStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcCatalogSyncStateStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<String, String> deployedHashes(String configId) {
+        Map<String, String> hashes = new HashMap<>();
+        jdbcTemplate.query("select slug, content_hash from epistola_catalog_sync where config_id = ?",
+                rs -> {
+                    hashes.put(rs.getString("slug"), rs.getString("content_hash"));
+                },
+                configId);
+        return hashes;
+    }
+
+    @Override
+    public void recordDeployed(String configId, String slug, String version, String contentHash, Instant now) {
+        Timestamp ts = Timestamp.from(now);
+        int updated = jdbcTemplate.update("""
+                        update epistola_catalog_sync
+                           set version = ?, content_hash = ?, deployed_at = ?
+                         where config_id = ? and slug = ?""",
+                version, contentHash, ts, configId, slug);
+        if (updated > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("""
+                            insert into epistola_catalog_sync (config_id, slug, version, content_hash, deployed_at)
+                            values (?, ?, ?, ?, ?)""",
+                    configId, slug, version, contentHash, ts);
+        } catch (DuplicateKeyException e) {
+            // A manual redeploy on another node recorded the same catalog first.
+            recordDeployed(configId, slug, version, contentHash, now);
+        }
+    }
+
+    @Override
+    public boolean tryLease(String configId, String owner, Instant now, Instant leaseUntil) {
+        int updated = jdbcTemplate.update("""
+                        update epistola_catalog_sync_lease
+                           set lease_owner = ?, lease_until = ?
+                         where config_id = ? and (lease_owner = ? or lease_until < ?)""",
+                owner, Timestamp.from(leaseUntil), configId, owner, Timestamp.from(now));
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update("""
+                            insert into epistola_catalog_sync_lease (config_id, lease_owner, lease_until)
+                            values (?, ?, ?)""",
+                    configId, owner, Timestamp.from(leaseUntil)) == 1;
+        } catch (DuplicateKeyException e) {
+            return false; // held by another node
+        }
+    }
+
+    @Override
+    public void releaseLease(String configId, String owner) {
+        jdbcTemplate.update("delete from epistola_catalog_sync_lease where config_id = ? and lease_owner = ?",
+                configId, owner);
+    }
+}
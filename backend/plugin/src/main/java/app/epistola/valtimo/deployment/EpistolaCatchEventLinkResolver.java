@@ -17,18 +17,27 @@
  */
 package app.epistola.valtimo.deployment;
 
+import app.epistola.valtimo.service.BoundedLruCache;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
+import app.epistola.valtimo.service.processlink.IndexedProcessLink;
 import com.ritense.plugin.domain.PluginProcessLink;
 import com.ritense.processlink.service.ProcessLinkService;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
 import org.operaton.bpm.model.bpmn.BpmnModelInstance;
 import org.operaton.bpm.model.bpmn.instance.FlowNode;
 import org.operaton.bpm.model.bpmn.instance.IntermediateCatchEvent;
 import org.operaton.bpm.model.bpmn.instance.ReceiveTask;
 import org.operaton.bpm.model.bpmn.instance.ServiceTask;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -40,7 +49,18 @@ import java.util.concurrent.ConcurrentHashMap;
  * ({@link EpistolaProcessDefinitionValidator#findReachableEpistolaWait}): for each
  * {@code generate-document} process link, find its reachable Epistola wait (a round catch event or a
  * receive task) and map that wait activity's id to the link's {@code resultProcessVariable}. Results are
- * cached per process-definition id (a deployed version is immutable).
+ * cached per process-definition id, in a bounded least-recently-used cache so versions nobody runs any
+ * more age out.
+ *
+ * <p><b>Precomputed ahead of the first catch event.</b> The mapping of a definition is built as soon as it
+ * is deployed ({@link EpistolaProcessDeployedEvent}, published after the deployment commits — also when
+ * the engine re-parses a definition after a restart), so the start listener normally finds it cached
+ * instead of loading the BPMN model on the wait's entry. A freshly deployed definition typically has no
+ * process links yet (Valtimo imports them after the BPMN); its mapping is then not ready, and is rebuilt
+ * when the links arrive ({@link EpistolaProcessLinksChangedEvent}). A process-link change also
+ * invalidates the cached mappings of the changed definitions (all of them when those are unknown), since a
+ * link's {@code resultProcessVariable} may have been edited; those are rebuilt on their next lookup. The
+ * precompute pass is debounced by a {@link ProcessChangeDebouncer}, so a link-import burst costs one pass.
  *
  * <p><b>Cache only trustworthy results.</b> An empty mapping is cached only when the model genuinely has
  * no {@code EpistolaDocumentGenerated} catch event (definitively non-Epistola). If the model contains
@@ -48,17 +68,41 @@ import java.util.concurrent.ConcurrentHashMap;
  * the BPMN model was momentarily unreadable — the result is treated as "not ready" and is
  * <em>not</em> cached, so a later call retries instead of poisoning the definition until restart.
  */
-@RequiredArgsConstructor
+@Slf4j
 public class EpistolaCatchEventLinkResolver {
 
-    private static final String GENERATE_DOCUMENT_ACTION_KEY = "epistola-generate-document";
+    public static final int DEFAULT_MAX_CACHED_DEFINITIONS = 1000;
+
     private static final String RESULT_PROCESS_VARIABLE_PROPERTY = "resultProcessVariable";
 
     private final RepositoryService repositoryService;
-    private final ProcessLinkService processLinkService;
+    private final EpistolaProcessLinkIndex processLinkIndex;
+    private final int maxCachedDefinitions;
+
+    /** catch-event activityId → result-variable name, per process-definition id; least recently used first. */
+    private final BoundedLruCache<String, Map<String, String>> cache;
+
+    /** Definition ids whose mapping was not ready when precomputed, to retry once their links arrive. */
+    private final Set<String> notReady = ConcurrentHashMap.newKeySet();
+    /** Deployment and process-link events collected for the next {@link #applyPendingChanges()}. */
+    private final ProcessChangeDebouncer pendingChanges;
 
-    /** catch-event activityId → result-variable name, per process-definition id. */
-    private final Map<String, Map<String, String>> cache = new ConcurrentHashMap<>();
+    /**
+     * @param taskScheduler        runs the debounced precompute pass; {@code null} applies events inline
+     * @param maxCachedDefinitions process-definition versions whose mapping is kept
+     */
+    public EpistolaCatchEventLinkResolver(
+            RepositoryService repositoryService,
+            EpistolaProcessLinkIndex processLinkIndex,
+            TaskScheduler taskScheduler,
+            int maxCachedDefinitions
+    ) {
+        this.repositoryService = repositoryService;
+        this.processLinkIndex = processLinkIndex;
+        this.pendingChanges = new ProcessChangeDebouncer(taskScheduler, this::applyPendingChanges);
+        this.maxCachedDefinitions = maxCachedDefinitions;
+        this.cache = new BoundedLruCache<>(maxCachedDefinitions);
+    }
 
     /**
      * The result-variable name for the {@code generate-document} that flows into the given catch event,
@@ -71,15 +115,77 @@ public class EpistolaCatchEventLinkResolver {
         }
         Map<String, String> mapping = cache.get(processDefinitionId);
         if (mapping == null) {
-            Mapping built = buildMapping(processDefinitionId);
-            if (built.cacheable()) {
-                cache.putIfAbsent(processDefinitionId, built.mapping());
-            }
-            mapping = built.mapping();
+            mapping = resolve(processDefinitionId).mapping();
         }
         return mapping.get(catchEventActivityId);
     }
 
+    @EventListener
+    public void onProcessDeployed(EpistolaProcessDeployedEvent event) {
+        pendingChanges.deployed(event);
+    }
+
+    @EventListener
+    public void onProcessLinksChanged(EpistolaProcessLinksChangedEvent event) {
+        if (event.affectsAllDefinitions()) {
+            cache.clear();
+        } else {
+            cache.removeAll(event.processDefinitionIds());
+        }
+        pendingChanges.linksChanged(event);
+    }
+
+    /**
+     * Precompute the mappings affected by the events collected since the last pass: the latest version of
+     * every deployed key and, after a process-link change, the changed definitions whose mapping was not
+     * ready (every not-ready one when the changed definitions are unknown). Invalidated mappings that were
+     * ready are left to be rebuilt on their next lookup.
+     */
+    public void applyPendingChanges() {
+        ProcessChangeDebouncer.Changes changes = pendingChanges.drain();
+        Set<String> definitionIds = new LinkedHashSet<>();
+        for (String definitionId : List.copyOf(notReady)) {
+            if (changes.allLinksChanged() || changes.linkChangedIds().contains(definitionId)) {
+                definitionIds.add(definitionId);
+            }
+        }
+        for (String key : changes.deployedKeys()) {
+            try {
+                ProcessDefinition latest = repositoryService.createProcessDefinitionQuery()
+                        .processDefinitionKey(key)
+                        .latestVersion()
+                        .singleResult();
+                if (latest != null) {
+                    definitionIds.add(latest.getId());
+                }
+            } catch (Exception e) {
+                log.debug("Could not look up the latest version of process definition {}: {}", key, e.getMessage());
+            }
+        }
+        for (String definitionId : definitionIds) {
+            try {
+                if (!resolve(definitionId).cacheable()) {
+                    notReady.add(definitionId);
+                }
+            } catch (Exception e) {
+                log.debug("Could not precompute the catch-event mapping of {}: {}", definitionId, e.getMessage());
+            }
+        }
+        // Bounded like the cache: a definition that never gets its links must not be retried forever.
+        if (notReady.size() > maxCachedDefinitions) {
+            notReady.clear();
+        }
+    }
+
+    private Mapping resolve(String processDefinitionId) {
+        Mapping built = buildMapping(processDefinitionId);
+        if (built.cacheable()) {
+            cache.put(processDefinitionId, built.mapping());
+            notReady.remove(processDefinitionId);
+        }
+        return built;
+    }
+
     /** A built mapping plus whether it's safe to cache (see class doc — never cache a "not ready" result). */
     private record Mapping(Map<String, String> mapping, boolean cacheable) {}
 
@@ -126,11 +232,9 @@ public class EpistolaCatchEventLinkResolver {
         return false;
     }
 
-    private java.util.List<PluginProcessLink> generateDocumentLinks(String processDefinitionId) {
-        return processLinkService.getProcessLinks(processDefinitionId).stream()
-                .filter(PluginProcessLink.class::isInstance)
-                .map(PluginProcessLink.class::cast)
-                .filter(link -> GENERATE_DOCUMENT_ACTION_KEY.equals(link.getPluginActionDefinitionKey()))
+    private List<PluginProcessLink> generateDocumentLinks(String processDefinitionId) {
+        return processLinkIndex.linksWithAction(processDefinitionId, EpistolaProcessLinkIndex.GENERATE_ACTION_KEYS).stream()
+                .map(IndexedProcessLink::link)
                 .toList();
     }
 
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.deployment;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.impl.bpmn.parser.BpmnParseListener;
+import org.operaton.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.operaton.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.operaton.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.operaton.bpm.engine.impl.util.xml.Element;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes an {@link EpistolaProcessDeployedEvent} for every process definition the engine parses, so
+ * the admin plugin-usage index and the BPMN validator refresh only the deployed key instead of
+ * rescanning every definition.
+ * Registered through the same {@code ProcessEnginePlugin} SPI as {@link EpistolaProcessEnginePlugin}, but
+ * as a separate bean so it does not depend on catch-event auto-wiring being enabled.
+ *
+ * <p>The event is published after the deploying transaction commits (a listener reading the new version
+ * would not see it earlier), or immediately when no Spring transaction synchronization is active.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class EpistolaDeploymentEventPlugin extends AbstractProcessEnginePlugin {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl configuration) {
+        List<BpmnParseListener> listeners = configuration.getCustomPostBPMNParseListeners();
+        if (listeners == null) {
+            listeners = new ArrayList<>();
+            configuration.setCustomPostBPMNParseListeners(listeners);
+        }
+        listeners.add(new DeploymentParseListener());
+        log.debug("Registered Epistola deployment parse listener (publishes EpistolaProcessDeployedEvent)");
+    }
+
+    void publish(String processDefinitionKey) {
+        EpistolaProcessDeployedEvent event = new EpistolaProcessDeployedEvent(processDefinitionKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    private final class DeploymentParseListener implements BpmnParseListener {
+
+        @Override
+        public void parseProcess(Element processElement, ProcessDefinitionEntity processDefinition) {
+            publish(processDefinition.getKey());
+        }
+    }
+}
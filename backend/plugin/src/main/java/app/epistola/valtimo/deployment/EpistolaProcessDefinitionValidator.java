@@ -18,9 +18,10 @@
 package app.epistola.valtimo.deployment;
 
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
+import app.epistola.valtimo.service.processlink.IndexedProcessLink;
 import app.epistola.valtimo.web.rest.dto.BpmnValidationViolation;
 import com.ritense.plugin.domain.PluginProcessLink;
-import com.ritense.processlink.service.ProcessLinkService;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.RepositoryService;
 import org.operaton.bpm.engine.repository.ProcessDefinition;
@@ -54,6 +55,8 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -95,8 +98,15 @@ import java.util.concurrent.atomic.AtomicReference;
  * admin UI. Validation does not fail deployment — Valtimo redeploys many definitions
  * on every boot and a hard fail would be operationally hostile.
  *
- * <p>Scanning runs on a <strong>cron</strong> schedule (default {@code 0 *​/10 * * * *} — every
- * 10 minutes on the wall clock) rather than a per-instance fixed delay, so in a clustered
+ * <p>Validation is driven by change: an {@link EpistolaProcessDeployedEvent} re-validates just the
+ * deployed key, and an {@link EpistolaProcessLinksChangedEvent} the keys whose links changed; a link change
+ * whose definitions are unknown re-reads the links of every latest definition, re-parsing only those whose
+ * links changed.
+ * Events are coalesced for {@value ProcessChangeDebouncer#EVENT_DEBOUNCE_MS} ms so a boot-time deployment burst costs one
+ * pass, and are applied on the task scheduler rather than on the deploying thread.
+ *
+ * <p>A full consistency sweep additionally runs on a <strong>cron</strong> schedule (default
+ * {@code 0 0 * * * *} — hourly on the wall clock) rather than a per-instance fixed delay, so in a clustered
  * deployment every node fires at the same clock boundary and the scans stay aligned within a
  * minute of each other (NTP-synced clocks assumed) instead of drifting by each node's startup
  * offset. To avoid every node hitting the engine/DB at the same instant, each node then defers
@@ -107,11 +117,12 @@ import java.util.concurrent.atomic.AtomicReference;
  * reads, alongside the {@link #getLastCheckedAt() last-checked timestamp}. Per deployed version,
  * results are cached and only recomputed when a new version is deployed or its
  * {@code generate-document} links change, so an unchanged process is not re-parsed every tick.
+ * The sweep catches what the events cannot: deployments on another cluster node, and process links
+ * changed outside Valtimo's {@code ProcessLinkService}.
  */
 @Slf4j
 public class EpistolaProcessDefinitionValidator {
 
-    private static final String GENERATE_DOCUMENT_ACTION_KEY = "epistola-generate-document";
     private static final long FALLBACK_INTERVAL_MS = 600_000L;
 
     /** Random per-node delay applied after the aligned cron tick, to de-synchronise the herd. */
@@ -119,7 +130,7 @@ public class EpistolaProcessDefinitionValidator {
     private static final long MAX_JITTER_MS = 25_000L;
 
     private final RepositoryService repositoryService;
-    private final ProcessLinkService processLinkService;
+    private final EpistolaProcessLinkIndex processLinkIndex;
 
     /**
      * The validator's scan cadence in milliseconds, derived from the configured cron so the
@@ -134,28 +145,33 @@ public class EpistolaProcessDefinitionValidator {
     private final AtomicReference<Instant> lastCheckedAt = new AtomicReference<>(null);
 
     /**
-     * Per-version result cache keyed by {@link ProcessDefinition#getId()} (the
-     * deployment-specific id that changes on every new deployment). A deployed
-     * version's BPMN is immutable, so its violations can only change if the set of
-     * {@code generate-document} links changes — captured by {@link CachedResult#linkSignature()}.
-     * Reused across scans to skip the expensive BPMN model parse + forward-graph walk.
-     * Rebuilt every scan so ids no longer in the latest set are evicted.
+     * Result cache of the latest version per process definition key, remembering the
+     * {@link CachedResult#processDefinitionId() deployment-specific id} it was computed for. A deployed
+     * version's BPMN is immutable, so its violations can only change if a new version is deployed or
+     * the set of {@code generate-document} links changes — captured by
+     * {@link CachedResult#linkSignature()}. Reused across scans to skip the expensive BPMN model parse +
+     * forward-graph walk. Rebuilt by every full scan so keys no longer deployed are evicted; updated in
+     * place by {@link #applyPendingChanges()}. Guarded by {@code this}.
      */
-    private Map<String, CachedResult> cache = Map.of();
+    private Map<String, CachedResult> cache = new LinkedHashMap<>();
+
+    /** Deployment and process-link events collected for the next {@link #applyPendingChanges()}. */
+    private final ProcessChangeDebouncer pendingChanges;
 
     /** Spring's shared scheduler, used to defer the jittered scan without blocking a thread. */
     private final TaskScheduler taskScheduler;
 
     public EpistolaProcessDefinitionValidator(
             RepositoryService repositoryService,
-            ProcessLinkService processLinkService,
+            EpistolaProcessLinkIndex processLinkIndex,
             TaskScheduler taskScheduler,
             String cron,
             String zone
     ) {
         this.repositoryService = repositoryService;
-        this.processLinkService = processLinkService;
+        this.processLinkIndex = processLinkIndex;
         this.taskScheduler = taskScheduler;
+        this.pendingChanges = new ProcessChangeDebouncer(taskScheduler, this::applyPendingChanges);
         this.refreshIntervalMs = estimateIntervalMs(cron, zone);
     }
 
@@ -197,7 +213,57 @@ public class EpistolaProcessDefinitionValidator {
     }
 
     /** Cached validation outcome for one deployed process-definition version. */
-    private record CachedResult(List<String> linkSignature, List<BpmnValidationViolation> violations) {}
+    private record CachedResult(String processDefinitionId, List<String> linkSignature,
+                                List<BpmnValidationViolation> violations) {}
+
+    @EventListener
+    public void onProcessDeployed(EpistolaProcessDeployedEvent event) {
+        pendingChanges.deployed(event);
+    }
+
+    @EventListener
+    public void onProcessLinksChanged(EpistolaProcessLinksChangedEvent event) {
+        pendingChanges.linksChanged(event);
+    }
+
+    /**
+     * Apply the deployment and process-link events collected since the last pass. Deployed keys and the
+     * keys whose links changed are re-validated one by one; a process-link change for unknown definitions
+     * re-reads every latest definition (a full {@link #scan()}, which still only re-parses definitions
+     * whose links changed).
+     */
+    public void applyPendingChanges() {
+        ProcessChangeDebouncer.Changes changes = pendingChanges.drain();
+        if (changes.allLinksChanged()) {
+            scan();
+            return;
+        }
+        Set<String> keys = new LinkedHashSet<>(changes.deployedKeys());
+        keys.addAll(changes.linkChangedKeys());
+        if (!keys.isEmpty()) {
+            validateKeys(List.copyOf(keys));
+        }
+    }
+
+    private synchronized void validateKeys(List<String> keys) {
+        for (String key : keys) {
+            try {
+                ProcessDefinition latest = repositoryService.createProcessDefinitionQuery()
+                        .processDefinitionKey(key)
+                        .latestVersion()
+                        .singleResult();
+                if (latest == null) {
+                    cache.remove(key);
+                } else {
+                    cache.put(key, validateCached(latest, cache.get(key)));
+                }
+            } catch (Exception e) {
+                log.debug("Skipped validation for process definition key {}: {}", key, e.getMessage());
+            }
+        }
+        publish();
+        log.debug("Epistola race-safety validation re-checked deployed process definitions {}", keys);
+    }
 
     /**
      * One-shot scan once the context is ready, so a freshly (re)started node populates its
@@ -219,7 +285,7 @@ public class EpistolaProcessDefinitionValidator {
      * free during the wait.
      */
     @Scheduled(
-            cron = "${epistola.validator.cron:0 */10 * * * *}",
+            cron = "${epistola.validator.cron:0 0 * * * *}",
             zone = "${epistola.validator.zone:UTC}"
     )
     public void scheduledScan() {
@@ -233,30 +299,19 @@ public class EpistolaProcessDefinitionValidator {
 
     /**
      * Run the validation scan now. Cluster-aligned periodic ticks reach this via
-     * {@link #scheduledScan()} (with jitter); startup reaches it via {@link #scanOnStartup()}.
+     * {@link #scheduledScan()} (with jitter); startup reaches it via {@link #scanOnStartup()}, and a
+     * process-link change via {@link #applyPendingChanges()}.
      */
     public synchronized void scan() {
         Map<String, CachedResult> previous = cache;
-        Map<String, CachedResult> next = new HashMap<>();
-        List<BpmnValidationViolation> found = new ArrayList<>();
+        Map<String, CachedResult> next = new LinkedHashMap<>();
         try {
             List<ProcessDefinition> definitions = repositoryService.createProcessDefinitionQuery()
                     .latestVersion()
                     .list();
             for (ProcessDefinition definition : definitions) {
                 try {
-                    List<PluginProcessLink> links = generateDocumentLinks(definition);
-                    List<String> signature = links.stream()
-                            .map(PluginProcessLink::getActivityId)
-                            .sorted()
-                            .toList();
-                    CachedResult cached = previous.get(definition.getId());
-                    List<BpmnValidationViolation> result = (cached != null
-                            && cached.linkSignature().equals(signature))
-                            ? cached.violations()
-                            : validate(definition, links);
-                    next.put(definition.getId(), new CachedResult(signature, result));
-                    found.addAll(result);
+                    next.put(definition.getKey(), validateCached(definition, previous.get(definition.getKey())));
                 } catch (Exception e) {
                     log.debug("Skipped validation for process definition {}: {}",
                             definition.getId(), e.getMessage());
@@ -268,7 +323,29 @@ public class EpistolaProcessDefinitionValidator {
         }
 
         cache = next;
-        violations.set(Collections.unmodifiableList(found));
+        publish();
+    }
+
+    /** The result for {@code definition}, reusing {@code cached} when version and links are unchanged. */
+    private CachedResult validateCached(ProcessDefinition definition, CachedResult cached) {
+        List<PluginProcessLink> links = generateDocumentLinks(definition);
+        List<String> signature = links.stream()
+                .map(PluginProcessLink::getActivityId)
+                .sorted()
+                .toList();
+        if (cached != null
+                && cached.processDefinitionId().equals(definition.getId())
+                && cached.linkSignature().equals(signature)) {
+            return cached;
+        }
+        return new CachedResult(definition.getId(), signature, validate(definition, links));
+    }
+
+    private void publish() {
+        List<BpmnValidationViolation> found = cache.values().stream()
+                .flatMap(result -> result.violations().stream())
+                .toList();
+        violations.set(found);
         lastCheckedAt.set(Instant.now());
         if (!found.isEmpty()) {
             log.warn("Epistola race-safety validation found {} violation(s):", found.size());
@@ -283,10 +360,8 @@ public class EpistolaProcessDefinitionValidator {
 
     /** The {@code generate-document} plugin process links bound to this definition version. */
     private List<PluginProcessLink> generateDocumentLinks(ProcessDefinition definition) {
-        return processLinkService.getProcessLinks(definition.getId()).stream()
-                .filter(PluginProcessLink.class::isInstance)
-                .map(PluginProcessLink.class::cast)
-                .filter(link -> GENERATE_DOCUMENT_ACTION_KEY.equals(link.getPluginActionDefinitionKey()))
+        return processLinkIndex.linksWithAction(definition.getId(), EpistolaProcessLinkIndex.GENERATE_ACTION_KEYS).stream()
+                .map(IndexedProcessLink::link)
                 .toList();
     }
 
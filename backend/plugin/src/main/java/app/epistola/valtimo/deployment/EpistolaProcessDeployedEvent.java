@@ -0,0 +1,29 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.deployment;
+
+/**
+ * Published (after the deploying transaction commits) when the engine parses a process definition, so
+ * caches keyed by the latest definition version can refresh just that key. Parsing also happens when an
+ * evicted definition is reloaded into the deployment cache, so a listener must treat this as "may have
+ * changed", not as "a new version exists".
+ *
+ * @param processDefinitionKey the key of the parsed process definition
+ */
+public record EpistolaProcessDeployedEvent(String processDefinitionKey) {
+}
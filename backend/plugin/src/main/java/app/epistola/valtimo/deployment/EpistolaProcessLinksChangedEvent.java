@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.deployment;
+
+import java.util.Set;
+
+/**
+ * Published when Valtimo process links are created, updated, deleted or imported, with the process
+ * definitions whose links changed, by id and by key. Listeners refresh only those definitions. When the
+ * changed definitions could not be determined both sets are empty ({@link #affectsAllDefinitions()}),
+ * and listeners re-read the links of every definition they track.
+ *
+ * @param processDefinitionIds  ids of the process-definition versions whose links changed
+ * @param processDefinitionKeys keys of those process definitions
+ */
+public record EpistolaProcessLinksChangedEvent(Set<String> processDefinitionIds, Set<String> processDefinitionKeys) {
+
+    public EpistolaProcessLinksChangedEvent {
+        processDefinitionIds = Set.copyOf(processDefinitionIds);
+        processDefinitionKeys = Set.copyOf(processDefinitionKeys);
+    }
+
+    /** A change whose process definitions are not known. */
+    public static EpistolaProcessLinksChangedEvent ofAllDefinitions() {
+        return new EpistolaProcessLinksChangedEvent(Set.of(), Set.of());
+    }
+
+    /** Whether the changed definitions are unknown, so listeners have to re-read every definition. */
+    public boolean affectsAllDefinitions() {
+        return processDefinitionIds.isEmpty() || processDefinitionKeys.isEmpty();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.deployment;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects {@link EpistolaProcessDeployedEvent}s and {@link EpistolaProcessLinksChangedEvent}s for
+ * {@value #EVENT_DEBOUNCE_MS} ms and then runs one pass over them on the task scheduler, so a boot-time
+ * deployment burst or a link import costs one pass instead of one per event.
+ */
+final class ProcessChangeDebouncer {
+
+    /** How long deployment and process-link events are collected before they are applied. */
+    static final long EVENT_DEBOUNCE_MS = 2_000L;
+
+    /**
+     * The changes collected since the last pass.
+     *
+     * @param deployedKeys    keys of the deployed process definitions
+     * @param linkChangedKeys keys of the process definitions whose links changed
+     * @param linkChangedIds  ids of the process-definition versions whose links changed
+     * @param allLinksChanged whether links of unknown process definitions changed
+     */
+    record Changes(Set<String> deployedKeys, Set<String> linkChangedKeys, Set<String> linkChangedIds,
+                   boolean allLinksChanged) {
+    }
+
+    private final TaskScheduler taskScheduler;
+    private final Runnable pass;
+
+    private final Set<String> deployedKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> linkChangedKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> linkChangedIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean allLinksChanged = new AtomicBoolean(false);
+    private final AtomicBoolean passScheduled = new AtomicBoolean(false);
+
+    /**
+     * @param taskScheduler runs the debounced pass; {@code null} runs it inline on every event
+     * @param pass          applies the collected changes, draining them with {@link #drain()}
+     */
+    ProcessChangeDebouncer(TaskScheduler taskScheduler, Runnable pass) {
+        this.taskScheduler = taskScheduler;
+        this.pass = pass;
+    }
+
+    void deployed(EpistolaProcessDeployedEvent event) {
+        deployedKeys.add(event.processDefinitionKey());
+        schedulePass();
+    }
+
+    void linksChanged(EpistolaProcessLinksChangedEvent event) {
+        if (event.affectsAllDefinitions()) {
+            allLinksChanged.set(true);
+        } else {
+            linkChangedKeys.addAll(event.processDefinitionKeys());
+            linkChangedIds.addAll(event.processDefinitionIds());
+        }
+        schedulePass();
+    }
+
+    /** Take the changes collected so far; events arriving from now on schedule a new pass. */
+    Changes drain() {
+        passScheduled.set(false);
+        boolean all = allLinksChanged.getAndSet(false);
+        return new Changes(take(deployedKeys), take(linkChangedKeys), take(linkChangedIds), all);
+    }
+
+    private static Set<String> take(Set<String> pending) {
+        Set<String> taken = Set.copyOf(pending);
+        pending.removeAll(taken);
+        return taken;
+    }
+
+    private void schedulePass() {
+        if (taskScheduler == null) {
+            pass.run();
+        } else if (passScheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(pass, Instant.now().plusMillis(EVENT_DEBOUNCE_MS));
+        }
+    }
+}
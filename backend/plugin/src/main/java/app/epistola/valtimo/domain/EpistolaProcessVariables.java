@@ -30,6 +30,19 @@ public final class EpistolaProcessVariables {
     /** Prefix for the composite job path: {@code epistola:job:{tenantId}/{requestId}}. */
     public static final String JOB_PATH_PREFIX = "epistola:job:";
 
+    /**
+     * Prefix for the aggregate path of a {@code generate-documents} batch:
+     * {@code epistola:batch:{tenantId}/{batchId}}. Pinned as {@link #WAIT_FOR} on the batch's catch event.
+     */
+    public static final String BATCH_PATH_PREFIX = "epistola:batch:";
+
+    /**
+     * Prefix on the value of a batch item's jobPath locator, pointing the collector at the item's batch:
+     * {@code batch:epistola:batch:{tenantId}/{batchId}}. Result-variable names are alphanumeric, so the
+     * prefix can never be part of one.
+     */
+    public static final String BATCH_ITEM_LOCATOR_PREFIX = "batch:";
+
     /** Tenant ID of the Epistola instance that handled the request. */
     public static final String TENANT_ID = "epistolaTenantId";
 
@@ -71,6 +84,24 @@ public final class EpistolaProcessVariables {
     /** Result-object key for the failure message (set on FAILED, null otherwise). */
     public static final String RESULT_KEY_ERROR_MESSAGE = "errorMessage";
 
+    /** Batch-result key for the batch id (UUID string). */
+    public static final String RESULT_KEY_BATCH_ID = "batchId";
+
+    /** Batch-result key for the per-item results, in the order of the items expression. */
+    public static final String RESULT_KEY_ITEMS = "items";
+
+    /** Batch-result (and item) key for the item's position in the items expression. */
+    public static final String RESULT_KEY_INDEX = "index";
+
+    /** Batch-result key for the number of items. */
+    public static final String RESULT_KEY_TOTAL = "total";
+
+    /** Batch-result key for the number of completed items. */
+    public static final String RESULT_KEY_COMPLETED = "completed";
+
+    /** Batch-result key for the number of failed or cancelled items. */
+    public static final String RESULT_KEY_FAILED = "failed";
+
     /** Whether a result-object {@code status} value is terminal (the generation has finished). */
     public static boolean isTerminalStatus(Object status) {
         return "COMPLETED".equals(status) || "FAILED".equals(status) || "CANCELLED".equals(status);
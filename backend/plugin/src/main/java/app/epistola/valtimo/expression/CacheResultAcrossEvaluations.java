@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.expression;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Reuses the result of equal calls to an expression-function overload across JSONata
+ * evaluations, for a bounded time.
+ * <p>
+ * Entries are scoped by function, overload, Epistola tenant and argument snapshot, so one tenant
+ * never sees another tenant's result. The cache holds at most {@link #maxEntries()} results per
+ * overload (least recently used results are evicted first) and drops a result once its
+ * {@link #ttl()} has passed. Successful results, including {@code null}, are cached; exceptions
+ * are not. Only arguments that are JSON-like values (strings, numbers, booleans, maps, lists)
+ * can produce cache hits.
+ * <p>
+ * Annotate only overloads whose result depends on nothing but the arguments and the tenant —
+ * not on the process instance, the document or the calling user — and whose result object is
+ * never mutated by callers. Can be combined with {@link CacheResultForEvaluation}; the
+ * evaluation-scoped cache is consulted first.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheResultAcrossEvaluations {
+
+    /**
+     * How long a result is reused, e.g. {@code "10m"}, {@code "1h"} or {@code "PT30S"}.
+     */
+    String ttl() default "5m";
+
+    /**
+     * Maximum number of results kept for the annotated overload, across all tenants.
+     */
+    int maxEntries() default 1000;
+}
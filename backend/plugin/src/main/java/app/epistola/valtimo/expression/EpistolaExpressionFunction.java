@@ -35,6 +35,13 @@ package app.epistola.valtimo.expression;
  *   <li>An execute method may declare an optional {@link ExpressionFunctionResultSchema}</li>
  *   <li>An execute method may opt into evaluation-scoped result caching with
  *       {@link CacheResultForEvaluation}</li>
+ *   <li>An execute method may opt into tenant-scoped result caching across evaluations with
+ *       {@link CacheResultAcrossEvaluations}</li>
+ *   <li>A single-argument {@code R execute(ExpressionContext, T)} may be served in bulk by a
+ *       {@code List<R> executeBatch(ExpressionContext, List<T>)} method that returns one result
+ *       per argument, in order</li>
+ *   <li>A side-effect free, I/O-bound execute method may let its calls start early and run
+ *       concurrently with {@link PrefetchConcurrently}</li>
  * </ul>
  * <p>
  * Example usage in a data mapping value:
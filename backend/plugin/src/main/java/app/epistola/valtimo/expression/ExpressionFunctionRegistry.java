@@ -20,24 +20,30 @@ package app.epistola.valtimo.expression;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Registry that collects all {@link EpistolaExpressionFunction} beans, discovers their
- * {@code execute(ExpressionContext, ...)} methods via reflection, and provides overload
- * matching at runtime.
+ * {@code execute(ExpressionContext, ...)} methods and the {@code executeBatch} methods that
+ * serve them via reflection, and provides overload matching at runtime.
  */
 @Slf4j
 public class ExpressionFunctionRegistry {
 
     private final Map<String, RegisteredFunction> functions = new LinkedHashMap<>();
+    private final Map<Method, Method> batchMethods = new HashMap<>();
     private final List<ExpressionFunctionInfo> functionMetadata;
 
     public ExpressionFunctionRegistry(List<EpistolaExpressionFunction> functionBeans) {
@@ -72,6 +78,8 @@ public class ExpressionFunctionRegistry {
                         name, bean.getClass().getName());
                 continue;
             }
+            executeMethods.forEach(method -> validateAnnotations(name, method));
+            discoverBatchMethods(name, bean, executeMethods);
             functions.put(name, new RegisteredFunction(bean, executeMethods));
             log.debug("Registered expression function '{}' with {} overload(s)", name, executeMethods.size());
         }
@@ -87,6 +95,23 @@ public class ExpressionFunctionRegistry {
         return functions.get(name);
     }
 
+    /**
+     * The {@code executeBatch} method that serves many calls of {@code executeMethod} at once.
+     *
+     * @return the batch method, or {@code null} if the overload is only callable one at a time
+     */
+    public Method findBatchMethod(Method executeMethod) {
+        return batchMethods.get(executeMethod);
+    }
+
+    /**
+     * Whether any overload of the named function has an {@code executeBatch} method.
+     */
+    public boolean hasBatchMethod(String name) {
+        RegisteredFunction rf = functions.get(name);
+        return rf != null && rf.methods().stream().anyMatch(batchMethods::containsKey);
+    }
+
     /**
      * List all registered functions with their overload metadata, for the REST API.
      */
@@ -197,6 +222,64 @@ public class ExpressionFunctionRegistry {
                 .toList();
     }
 
+    /**
+     * Pair each {@code List<R> executeBatch(ExpressionContext, List<T>)} with the single-argument
+     * {@code R execute(ExpressionContext, T)} overload it serves.
+     */
+    private void discoverBatchMethods(String name, EpistolaExpressionFunction bean, List<Method> executeMethods) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        for (Method batch : targetClass.getMethods()) {
+            if (!"executeBatch".equals(batch.getName())) {
+                continue;
+            }
+            Class<?>[] types = batch.getParameterTypes();
+            Class<?> elementType = types.length == 2
+                    ? ResolvableType.forMethodParameter(batch, 1).getGeneric(0).resolve(Object.class)
+                    : null;
+            Method served = elementType == null
+                    || !ExpressionContext.class.isAssignableFrom(types[0])
+                    || !List.class.equals(types[1])
+                    || !List.class.isAssignableFrom(batch.getReturnType())
+                    ? null
+                    : executeMethods.stream()
+                            .filter(m -> m.getParameterCount() == 2)
+                            .filter(m -> ClassUtils.resolvePrimitiveIfNecessary(m.getParameterTypes()[1])
+                                    .equals(elementType))
+                            .findFirst()
+                            .orElse(null);
+            if (served == null) {
+                log.warn("Expression function '{}' has an executeBatch method without a matching single-argument "
+                        + "execute overload; expected List<R> executeBatch(ExpressionContext, List<T>) next to "
+                        + "R execute(ExpressionContext, T): {}", name, batch);
+                continue;
+            }
+            batchMethods.put(served, batch);
+        }
+    }
+
+    private static void validateAnnotations(String name, Method method) {
+        PrefetchConcurrently prefetch = method.getAnnotation(PrefetchConcurrently.class);
+        if (prefetch != null && prefetch.maxConcurrency() < 1) {
+            throw new IllegalStateException("Expression function '" + name + "' needs a positive "
+                    + "@PrefetchConcurrently maxConcurrency");
+        }
+        CacheResultAcrossEvaluations settings = method.getAnnotation(CacheResultAcrossEvaluations.class);
+        if (settings == null) {
+            return;
+        }
+        Duration ttl;
+        try {
+            ttl = DurationStyle.detectAndParse(settings.ttl());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Expression function '" + name + "' has an invalid "
+                    + "@CacheResultAcrossEvaluations ttl '" + settings.ttl() + "'", e);
+        }
+        if (ttl.isNegative() || ttl.isZero() || settings.maxEntries() < 1) {
+            throw new IllegalStateException("Expression function '" + name + "' needs a positive "
+                    + "@CacheResultAcrossEvaluations ttl and maxEntries");
+        }
+    }
+
     private boolean isAssignable(Class<?> paramType, Object arg) {
         if (paramType.isInstance(arg)) {
             return true;
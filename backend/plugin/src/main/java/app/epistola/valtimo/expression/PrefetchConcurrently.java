@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.expression;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an expression-function overload as side-effect free and I/O bound, so its calls may start
+ * speculatively on virtual threads as soon as their arguments are known, and run concurrently with
+ * other such calls of the same evaluation.
+ * <p>
+ * The mapping service finds the calls in a recording pass over the expression and joins each
+ * result when the expression consumes it, within the evaluation's time budget. A call that the
+ * expression does not consume after all is cancelled, and its failure is ignored.
+ * <p>
+ * The call runs off the process engine's thread, so its {@link ExpressionContext} carries only the
+ * document id: no execution, document data or process variables, and no security or transaction
+ * context of the caller. Annotate only overloads whose result depends on nothing but their
+ * arguments. At most {@link #maxConcurrency()} calls of the overload run at once on this node.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PrefetchConcurrently {
+
+    /**
+     * Maximum number of concurrent calls of the annotated overload across all evaluations.
+     */
+    int maxConcurrency() default 4;
+}
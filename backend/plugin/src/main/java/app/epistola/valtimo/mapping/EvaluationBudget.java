@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.mapping;
+
+import java.time.Duration;
+
+/**
+ * Resource limits of one JSONata evaluation.
+ *
+ * @param timeout           wall-clock time the evaluation may take, including custom-function calls
+ * @param maxRecursionDepth deepest function recursion the expression may reach
+ * @param maxOutputSize     largest result, in characters of its JSON form; 0 means no limit
+ */
+public record EvaluationBudget(Duration timeout, int maxRecursionDepth, long maxOutputSize) {
+
+    /** The limits every evaluation had before they became configurable. */
+    public static final EvaluationBudget DEFAULT = new EvaluationBudget(Duration.ofSeconds(5), 100, 0);
+
+    public EvaluationBudget {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive, but was " + timeout);
+        }
+        if (maxRecursionDepth < 1) {
+            throw new IllegalArgumentException("maxRecursionDepth must be at least 1, but was " + maxRecursionDepth);
+        }
+        if (maxOutputSize < 0) {
+            throw new IllegalArgumentException("maxOutputSize must not be negative, but was " + maxOutputSize);
+        }
+    }
+}
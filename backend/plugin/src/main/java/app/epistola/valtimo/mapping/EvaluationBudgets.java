@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.mapping;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The {@link EvaluationBudget} of each process link: a default, overridden per process definition
+ * key and, more specifically, per activity of that process definition. An override only replaces
+ * the limits it sets.
+ */
+public class EvaluationBudgets {
+
+    private final EvaluationBudget defaultBudget;
+    private final List<LinkBudget> overrides;
+
+    public EvaluationBudgets() {
+        this(EvaluationBudget.DEFAULT, List.of());
+    }
+
+    public EvaluationBudgets(EvaluationBudget defaultBudget, List<LinkBudget> overrides) {
+        this.defaultBudget = defaultBudget;
+        this.overrides = List.copyOf(overrides);
+    }
+
+    public EvaluationBudget getDefaultBudget() {
+        return defaultBudget;
+    }
+
+    /**
+     * The budget of the process link on {@code activityId} of {@code processDefinitionKey}. Both may
+     * be null (an evaluation outside a process), which yields the default budget.
+     */
+    public EvaluationBudget forLink(String processDefinitionKey, String activityId) {
+        if (processDefinitionKey == null || overrides.isEmpty()) {
+            return defaultBudget;
+        }
+        LinkBudget processWide = null;
+        LinkBudget activity = null;
+        for (LinkBudget candidate : overrides) {
+            if (!processDefinitionKey.equals(candidate.processDefinitionKey())) {
+                continue;
+            }
+            if (candidate.activityId() == null) {
+                processWide = candidate;
+            } else if (candidate.activityId().equals(activityId)) {
+                activity = candidate;
+            }
+        }
+        return apply(activity, apply(processWide, defaultBudget));
+    }
+
+    private static EvaluationBudget apply(LinkBudget override, EvaluationBudget budget) {
+        if (override == null) {
+            return budget;
+        }
+        return new EvaluationBudget(
+                override.timeout() != null ? override.timeout() : budget.timeout(),
+                override.maxRecursionDepth() != null ? override.maxRecursionDepth() : budget.maxRecursionDepth(),
+                override.maxOutputSize() != null ? override.maxOutputSize() : budget.maxOutputSize());
+    }
+
+    /**
+     * Limits for the process links of one process definition key, or of one of its activities when
+     * {@code activityId} is set. Null limits are inherited.
+     */
+    public record LinkBudget(
+            String processDefinitionKey,
+            String activityId,
+            Duration timeout,
+            Integer maxRecursionDepth,
+            Long maxOutputSize
+    ) {
+
+        public LinkBudget {
+            if (processDefinitionKey == null || processDefinitionKey.isBlank()) {
+                throw new IllegalArgumentException("An evaluation budget override needs a processDefinitionKey");
+            }
+        }
+    }
+}
@@ -40,8 +40,10 @@ public class EvaluationContext {
     private final DelegateExecution execution;
     private final String operation;
     private final String processDefinitionId;
+    private final String processDefinitionKey;
     private final String processInstanceId;
     private final String activityId;
+    private final String tenantId;
 
     private EvaluationContext(Builder builder) {
         this.expression = builder.expression;
@@ -52,8 +54,10 @@ public class EvaluationContext {
         this.execution = builder.execution;
         this.operation = builder.operation;
         this.processDefinitionId = builder.processDefinitionId;
+        this.processDefinitionKey = builder.processDefinitionKey;
         this.processInstanceId = builder.processInstanceId;
         this.activityId = builder.activityId;
+        this.tenantId = builder.tenantId;
     }
 
     public String getExpression() { return expression; }
@@ -64,8 +68,10 @@ public class EvaluationContext {
     public DelegateExecution getExecution() { return execution; }
     public String getOperation() { return operation; }
     public String getProcessDefinitionId() { return processDefinitionId; }
+    public String getProcessDefinitionKey() { return processDefinitionKey; }
     public String getProcessInstanceId() { return processInstanceId; }
     public String getActivityId() { return activityId; }
+    public String getTenantId() { return tenantId; }
 
     /** Return a copy with a different expression, keeping all resolvers. */
     public EvaluationContext withExpression(String newExpression) {
@@ -78,8 +84,10 @@ public class EvaluationContext {
                 .execution(this.execution)
                 .operation(this.operation)
                 .processDefinitionId(this.processDefinitionId)
+                .processDefinitionKey(this.processDefinitionKey)
                 .processInstanceId(this.processInstanceId)
                 .activityId(this.activityId)
+                .tenantId(this.tenantId)
                 .build();
     }
 
@@ -94,8 +102,10 @@ public class EvaluationContext {
         private DelegateExecution execution;
         private String operation;
         private String processDefinitionId;
+        private String processDefinitionKey;
         private String processInstanceId;
         private String activityId;
+        private String tenantId;
 
         public Builder expression(String expression) {
             this.expression = expression;
@@ -141,6 +151,15 @@ public class EvaluationContext {
             return this;
         }
 
+        /**
+         * The key of the process definition, as read from the definition itself: ids are not always
+         * {@code key:version:id}. Tags metrics and selects the link's evaluation budget.
+         */
+        public Builder processDefinitionKey(String processDefinitionKey) {
+            this.processDefinitionKey = processDefinitionKey;
+            return this;
+        }
+
         public Builder processInstanceId(String processInstanceId) {
             this.processInstanceId = processInstanceId;
             return this;
@@ -151,6 +170,15 @@ public class EvaluationContext {
             return this;
         }
 
+        /**
+         * The Epistola tenant the evaluation runs for. Scopes results that functions share across
+         * evaluations; without a tenant, function results are not shared.
+         */
+        public Builder tenantId(String tenantId) {
+            this.tenantId = tenantId;
+            return this;
+        }
+
         public EvaluationContext build() {
             return new EvaluationContext(this);
         }
@@ -25,11 +25,12 @@ import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.RandomAccess;
 import java.util.UUID;
 
 /**
@@ -38,24 +39,70 @@ import java.util.UUID;
  * <p>JSON-like containers are copied recursively so function code cannot invalidate a
  * hash-map entry by mutating an input. Unknown objects use identity semantics: that may
  * produce a safe cache miss for equal DTO instances, but never an unsafe cache hit.</p>
+ *
+ * <p>A key comes in two forms. A <em>probe</em> ({@link #probe}) only references the live
+ * arguments and a 64-bit structural fingerprint streamed over them, so looking a call up costs no
+ * copy. A probe equals a stored <em>snapshot</em> ({@link #of}, {@link #snapshot()}) when the
+ * fingerprints agree and the live arguments match the snapshot structurally; the snapshot is built
+ * only to store a result. Only snapshots may be kept as map keys.</p>
  */
 final class ExpressionFunctionInvocationKey {
 
+    private static final long NULL_SEED = 0x5bd1e9955bd1e995L;
+    private static final long MAP_SEED = 0x27d4eb2f165667c5L;
+    private static final long ITERABLE_SEED = 0x165667b19e3779f9L;
+    private static final long ARRAY_SEED = 0x85ebca77c2b2ae63L;
+    private static final long IDENTITY_SEED = 0xc2b2ae3d27d4eb4fL;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
     private final String functionName;
     private final Method method;
+    /** Immutable snapshots of the arguments; {@code null} for a probe. */
     private final List<Object> arguments;
+    /** The live arguments of a probe; {@code null} for a snapshot. */
+    private final Object[] liveArguments;
+    private final long fingerprint;
 
-    private ExpressionFunctionInvocationKey(String functionName, Method method, Object[] arguments) {
+    private ExpressionFunctionInvocationKey(String functionName, Method method, List<Object> arguments,
+                                            Object[] liveArguments, long fingerprint) {
         this.functionName = functionName;
         this.method = method;
-        IdentityHashMap<Object, Boolean> visiting = new IdentityHashMap<>();
-        this.arguments = Arrays.stream(arguments)
-                .map(argument -> snapshot(argument, visiting))
-                .toList();
+        this.arguments = arguments;
+        this.liveArguments = liveArguments;
+        this.fingerprint = fingerprint;
     }
 
+    /**
+     * A snapshot key, safe to store.
+     */
     static ExpressionFunctionInvocationKey of(String functionName, Method method, Object[] arguments) {
-        return new ExpressionFunctionInvocationKey(functionName, method, arguments);
+        return probe(functionName, method, arguments).snapshot();
+    }
+
+    /**
+     * A lookup key over the live arguments; call {@link #snapshot()} before storing it.
+     */
+    static ExpressionFunctionInvocationKey probe(String functionName, Method method, Object[] arguments) {
+        Fingerprinter fingerprinter = new Fingerprinter();
+        long hash = mix(functionName.hashCode() * GOLDEN ^ method.hashCode());
+        for (Object argument : arguments) {
+            hash = mix(hash * GOLDEN ^ fingerprinter.fingerprint(argument));
+        }
+        return new ExpressionFunctionInvocationKey(functionName, method, null, arguments, hash);
+    }
+
+    /**
+     * This key in its storable form: itself for a snapshot, a deep copy of the arguments for a probe.
+     */
+    ExpressionFunctionInvocationKey snapshot() {
+        if (arguments != null) {
+            return this;
+        }
+        IdentityHashMap<Object, Boolean> visiting = new IdentityHashMap<>();
+        List<Object> snapshots = Arrays.stream(liveArguments)
+                .map(argument -> snapshot(argument, visiting))
+                .toList();
+        return new ExpressionFunctionInvocationKey(functionName, method, snapshots, null, fingerprint);
     }
 
     private static Object snapshot(Object value, IdentityHashMap<Object, Boolean> visiting) {
@@ -70,10 +117,14 @@ final class ExpressionFunctionInvocationKey {
         }
         try {
             if (value instanceof Map<?, ?> map) {
-                Set<MapEntryValue> entries = new LinkedHashSet<>();
-                map.forEach((key, item) -> entries.add(
-                        new MapEntryValue(snapshot(key, visiting), snapshot(item, visiting))));
-                return new MapValue(Collections.unmodifiableSet(entries));
+                Map<Object, Object> entries = new HashMap<>();
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (entries.put(snapshot(entry.getKey(), visiting), snapshot(entry.getValue(), visiting)) != null) {
+                        // Two keys with equal snapshots: no structural key can represent this map safely.
+                        return new IdentityValue(value);
+                    }
+                }
+                return new MapValue(Collections.unmodifiableMap(entries));
             }
             if (value instanceof Iterable<?> iterable) {
                 List<Object> items = new ArrayList<>();
@@ -93,6 +144,73 @@ final class ExpressionFunctionInvocationKey {
         }
     }
 
+    /**
+     * Whether {@code live} would snapshot to {@code snapshot}, without building its snapshot.
+     */
+    private static boolean matches(Object snapshot, Object live) {
+        if (live == null) {
+            return snapshot == NullValue.INSTANCE;
+        }
+        if (isKnownImmutable(live)) {
+            return live.equals(snapshot);
+        }
+        if (snapshot instanceof IdentityValue identity) {
+            return identity.value == live;
+        }
+        if (live instanceof Map<?, ?> map) {
+            if (!(snapshot instanceof MapValue mapValue) || mapValue.entries().size() != map.size()) {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object key = entry.getKey();
+                if (key != null && !isKnownImmutable(key)) {
+                    return snapshot(live, new IdentityHashMap<>()).equals(snapshot);
+                }
+                Object valueSnapshot = mapValue.entries().get(key == null ? NullValue.INSTANCE : key);
+                if (valueSnapshot == null || !matches(valueSnapshot, entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (live instanceof Iterable<?> iterable) {
+            if (!(snapshot instanceof IterableValue iterableValue)) {
+                return false;
+            }
+            List<Object> items = iterableValue.items();
+            if (live instanceof List<?> list && live instanceof RandomAccess) {
+                if (list.size() != items.size()) {
+                    return false;
+                }
+                for (int index = 0; index < items.size(); index++) {
+                    if (!matches(items.get(index), list.get(index))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            Iterator<?> iterator = iterable.iterator();
+            for (Object item : items) {
+                if (!iterator.hasNext() || !matches(item, iterator.next())) {
+                    return false;
+                }
+            }
+            return !iterator.hasNext();
+        }
+        if (live.getClass().isArray()) {
+            if (!(snapshot instanceof ArrayValue arrayValue) || arrayValue.items().size() != Array.getLength(live)) {
+                return false;
+            }
+            for (int index = 0; index < arrayValue.items().size(); index++) {
+                if (!matches(arrayValue.items().get(index), Array.get(live, index))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
     private static boolean isKnownImmutable(Object value) {
         return value instanceof String
                 || value instanceof Boolean
@@ -110,6 +228,14 @@ final class ExpressionFunctionInvocationKey {
                 || value instanceof TemporalAccessor;
     }
 
+    /** SplitMix64 finalizer. */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
     @Override
     public boolean equals(Object other) {
         if (this == other) {
@@ -118,27 +244,117 @@ final class ExpressionFunctionInvocationKey {
         if (!(other instanceof ExpressionFunctionInvocationKey that)) {
             return false;
         }
-        return functionName.equals(that.functionName)
-                && method.equals(that.method)
-                && arguments.equals(that.arguments);
+        if (fingerprint != that.fingerprint
+                || !functionName.equals(that.functionName)
+                || !method.equals(that.method)) {
+            return false;
+        }
+        if (arguments != null && that.arguments != null) {
+            return arguments.equals(that.arguments);
+        }
+        if (arguments != null) {
+            return matchesArguments(arguments, that.liveArguments);
+        }
+        if (that.arguments != null) {
+            return matchesArguments(that.arguments, liveArguments);
+        }
+        return snapshot().equals(that.snapshot());
+    }
+
+    private static boolean matchesArguments(List<Object> snapshots, Object[] live) {
+        if (snapshots.size() != live.length) {
+            return false;
+        }
+        for (int index = 0; index < live.length; index++) {
+            if (!matches(snapshots.get(index), live[index])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        int result = functionName.hashCode();
-        result = 31 * result + method.hashCode();
-        result = 31 * result + arguments.hashCode();
-        return result;
+        return Long.hashCode(fingerprint);
     }
 
-    private enum NullValue {
-        INSTANCE
+    /**
+     * Streams a structural hash over an argument tree. Equal snapshots yield equal fingerprints:
+     * maps hash order-independently, and a container revisited on its own path hashes by identity,
+     * as {@link #snapshot} records it. The only allocation is the ancestor stack, on the first
+     * container.
+     */
+    private static final class Fingerprinter {
+
+        private Object[] ancestors;
+        private int depth;
+
+        long fingerprint(Object value) {
+            if (value == null) {
+                return NULL_SEED;
+            }
+            if (isKnownImmutable(value)) {
+                return mix(value.hashCode() * GOLDEN);
+            }
+            boolean map = value instanceof Map<?, ?>;
+            boolean iterable = !map && value instanceof Iterable<?>;
+            boolean array = !map && !iterable && value.getClass().isArray();
+            if (!map && !iterable && !array || onPath(value)) {
+                return identity(value);
+            }
+            push(value);
+            try {
+                if (map) {
+                    long entries = 0;
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                        entries += mix(fingerprint(entry.getKey()) * GOLDEN ^ fingerprint(entry.getValue()));
+                    }
+                    return mix(MAP_SEED ^ entries);
+                }
+                long hash = iterable ? ITERABLE_SEED : ARRAY_SEED;
+                if (iterable) {
+                    for (Object item : (Iterable<?>) value) {
+                        hash = mix(hash * GOLDEN ^ fingerprint(item));
+                    }
+                } else {
+                    for (int index = 0; index < Array.getLength(value); index++) {
+                        hash = mix(hash * GOLDEN ^ fingerprint(Array.get(value, index)));
+                    }
+                }
+                return hash;
+            } finally {
+                depth--;
+            }
+        }
+
+        private static long identity(Object value) {
+            return mix(IDENTITY_SEED ^ System.identityHashCode(value));
+        }
+
+        private boolean onPath(Object value) {
+            for (int index = 0; index < depth; index++) {
+                if (ancestors[index] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void push(Object value) {
+            if (ancestors == null) {
+                ancestors = new Object[8];
+            } else if (depth == ancestors.length) {
+                ancestors = Arrays.copyOf(ancestors, depth * 2);
+            }
+            ancestors[depth++] = value;
+        }
     }
 
-    private record MapValue(Set<MapEntryValue> entries) {
+    private enum NullValue {
+        INSTANCE
     }
 
-    private record MapEntryValue(Object key, Object value) {
+    private record MapValue(Map<Object, Object> entries) {
     }
 
     private record IterableValue(List<Object> items) {
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.mapping;
+
+import app.epistola.valtimo.expression.CacheResultAcrossEvaluations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, tenant-scoped results of expression-function overloads annotated with
+ * {@link CacheResultAcrossEvaluations}, shared by all JSONata evaluations of this node.
+ * <p>
+ * Each overload gets its own region, sized and timed by its annotation. Entries are keyed by
+ * tenant and an {@link ExpressionFunctionInvocationKey} snapshot of the arguments. Hits, misses
+ * and evictions are published per function as {@code epistola.expression.cache.*} meters.
+ */
+public class ExpressionFunctionResultCache {
+
+    /** Returned by {@link #lookup} when no live entry exists; {@code null} is a valid cached result. */
+    static final Object MISS = new Object();
+
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<Method, Region> regions = new ConcurrentHashMap<>();
+
+    public ExpressionFunctionResultCache(MeterRegistry meterRegistry) {
+        this(meterRegistry, Clock.systemUTC());
+    }
+
+    ExpressionFunctionResultCache(MeterRegistry meterRegistry, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * The cached result of {@code key} for {@code tenantId}, or {@link #MISS}. {@code key} may be a
+     * probe.
+     */
+    Object lookup(String functionName, Method method, String tenantId, ExpressionFunctionInvocationKey key) {
+        return region(functionName, method).get(new ScopedKey(tenantId, key), clock.instant());
+    }
+
+    /**
+     * Cache a successful result of {@code key} for {@code tenantId}.
+     */
+    void store(String functionName, Method method, String tenantId, ExpressionFunctionInvocationKey key,
+               Object result) {
+        region(functionName, method).put(new ScopedKey(tenantId, key.snapshot()), result, clock.instant());
+    }
+
+    /**
+     * Drop every cached result, e.g. after a correction in an upstream registry.
+     */
+    public void flush() {
+        regions.values().forEach(Region::clear);
+    }
+
+    /**
+     * Drop the cached results of all overloads of one function.
+     *
+     * @return whether the function has a cache region
+     */
+    public boolean flush(String functionName) {
+        boolean found = false;
+        for (Region region : regions.values()) {
+            if (region.functionName.equals(functionName)) {
+                region.clear();
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Hit and eviction counts per function, summed over its cached overloads.
+     */
+    public List<FunctionCacheStatistics> statistics() {
+        Map<String, FunctionCacheStatistics> byFunction = new LinkedHashMap<>();
+        for (Region region : regions.values()) {
+            byFunction.merge(region.functionName, region.statistics(), FunctionCacheStatistics::plus);
+        }
+        return byFunction.values().stream()
+                .sorted(Comparator.comparing(FunctionCacheStatistics::function))
+                .toList();
+    }
+
+    private Region region(String functionName, Method method) {
+        return regions.computeIfAbsent(method, m -> {
+            CacheResultAcrossEvaluations settings = m.getAnnotation(CacheResultAcrossEvaluations.class);
+            if (settings == null) {
+                throw new IllegalArgumentException(m + " is not annotated with @CacheResultAcrossEvaluations");
+            }
+            Region region = new Region(functionName, DurationStyle.detectAndParse(settings.ttl()),
+                    settings.maxEntries());
+            Gauge.builder("epistola.expression.cache.size", region, Region::size)
+                    .description("Expression-function results cached across evaluations")
+                    .tag("function", functionName)
+                    .tag("overload", overloadTag(m))
+                    .register(meterRegistry);
+            return region;
+        });
+    }
+
+    private static String overloadTag(Method method) {
+        StringBuilder tag = new StringBuilder();
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 1; i < types.length; i++) {
+            tag.append(i > 1 ? "," : "").append(types[i].getSimpleName());
+        }
+        return tag.toString();
+    }
+
+    private record ScopedKey(String tenantId, ExpressionFunctionInvocationKey invocation) {
+    }
+
+    private record Entry(Object value, Instant expiresAt) {
+    }
+
+    /**
+     * Cache statistics of one function since startup; {@code hitRate} is the fraction of lookups
+     * answered from the cache, or 0 before the first lookup.
+     */
+    public record FunctionCacheStatistics(String function, int size, long hits, long misses, long evictions,
+                                          double hitRate) {
+
+        static FunctionCacheStatistics of(String function, int size, long hits, long misses, long evictions) {
+            long lookups = hits + misses;
+            return new FunctionCacheStatistics(function, size, hits, misses, evictions,
+                    lookups == 0 ? 0 : (double) hits / lookups);
+        }
+
+        private FunctionCacheStatistics plus(FunctionCacheStatistics other) {
+            return of(function, size + other.size, hits + other.hits, misses + other.misses,
+                    evictions + other.evictions);
+        }
+    }
+
+    private final class Region {
+
+        private final String functionName;
+        private final Duration ttl;
+        private final int maxEntries;
+        private final LinkedHashMap<ScopedKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final Counter hitCounter;
+        private final Counter missCounter;
+        private final Counter evictionCounter;
+
+        private Region(String functionName, Duration ttl, int maxEntries) {
+            if (ttl.isNegative() || ttl.isZero() || maxEntries < 1) {
+                throw new IllegalArgumentException("@CacheResultAcrossEvaluations on function '" + functionName
+                        + "' needs a positive ttl and maxEntries");
+            }
+            this.functionName = functionName;
+            this.ttl = ttl;
+            this.maxEntries = maxEntries;
+            this.hitCounter = requests(functionName, "hit");
+            this.missCounter = requests(functionName, "miss");
+            this.evictionCounter = Counter.builder("epistola.expression.cache.evictions")
+                    .description("Expression-function results evicted for size or age")
+                    .tag("function", functionName)
+                    .register(meterRegistry);
+        }
+
+        private Counter requests(String function, String result) {
+            return Counter.builder("epistola.expression.cache.requests")
+                    .description("Expression-function calls looked up in the cross-evaluation cache")
+                    .tag("function", function)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        synchronized Object get(ScopedKey key, Instant now) {
+            Entry entry = entries.get(key);
+            if (entry != null && now.isBefore(entry.expiresAt())) {
+                hits.incrementAndGet();
+                hitCounter.increment();
+                return entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evicted(1);
+            }
+            misses.incrementAndGet();
+            missCounter.increment();
+            return MISS;
+        }
+
+        synchronized void put(ScopedKey key, Object value, Instant now) {
+            entries.put(key, new Entry(value, now.plus(ttl)));
+            int excess = entries.size() - maxEntries;
+            if (excess > 0) {
+                var eldest = entries.keySet().iterator();
+                for (int i = 0; i < excess; i++) {
+                    eldest.next();
+                    eldest.remove();
+                }
+                evicted(excess);
+            }
+        }
+
+        private void evicted(int count) {
+            evictions.addAndGet(count);
+            evictionCounter.increment(count);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        FunctionCacheStatistics statistics() {
+            return FunctionCacheStatistics.of(functionName, size(), hits.get(), misses.get(), evictions.get());
+        }
+    }
+}
@@ -17,20 +17,43 @@
  */
 package app.epistola.valtimo.mapping;
 
+import app.epistola.valtimo.expression.CacheResultAcrossEvaluations;
 import app.epistola.valtimo.expression.CacheResultForEvaluation;
 import app.epistola.valtimo.expression.DefaultExpressionContext;
 import app.epistola.valtimo.expression.ExpressionContext;
 import app.epistola.valtimo.expression.ExpressionEvaluationException;
+import app.epistola.valtimo.expression.ExpressionFunctionInfo;
 import app.epistola.valtimo.expression.ExpressionFunctionRegistry;
+import app.epistola.valtimo.expression.PrefetchConcurrently;
 import com.dashjoin.jsonata.Jsonata;
 import com.dashjoin.jsonata.Jsonata.Frame;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.dashjoin.jsonata.Jsonata.jsonata;
 
@@ -39,15 +62,47 @@ import static com.dashjoin.jsonata.Jsonata.jsonata;
  * <p>
  * Accepts an {@link EvaluationContext} that provides delegates for resolving
  * data lazily. Binds {@code $doc} and {@code $pv} as lazy maps, and passes
- * a fully populated {@link ExpressionContext} to custom functions.
+ * a fully populated {@link ExpressionContext} to custom functions. Function results are reused
+ * within one evaluation ({@link CacheResultForEvaluation}) and, per tenant, across evaluations
+ * ({@link CacheResultAcrossEvaluations}) when the overload opts in.
+ * Calls of overloads that have an {@code executeBatch} method are collected and served by one
+ * batch call per evaluation; calls of {@link PrefetchConcurrently} overloads start early on
+ * virtual threads and run concurrently.
+ * <p>
+ * Each evaluation runs within the {@link EvaluationBudget} of its process link and is measured by
+ * {@code epistola.expression.*} meters tagged with that link's process definition key and activity.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class JsonataMappingService {
 
-    private static final long TIMEOUT_MS = 5000;
-    private static final int MAX_RECURSION_DEPTH = 100;
+    private static final String NONE = "none";
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCountingThreads();
     private final ExpressionFunctionRegistry functionRegistry;
+    private final ExpressionFunctionResultCache resultCache;
+    private final EvaluationBudgets budgets;
+    private final MeterRegistry meterRegistry;
+    private final Map<LinkTags, LinkMeters> linkMeters = new ConcurrentHashMap<>();
+    /** Functions with an overload that is batched or prefetched concurrently. */
+    private final Set<String> prefetchedFunctions;
+    private final Map<Method, Semaphore> concurrencyLimits = new ConcurrentHashMap<>();
+    private final ExecutorService prefetchExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("epistola-expression-function-", 0).factory());
+
+    public JsonataMappingService(ExpressionFunctionRegistry functionRegistry,
+                                 ExpressionFunctionResultCache resultCache,
+                                 EvaluationBudgets budgets,
+                                 MeterRegistry meterRegistry) {
+        this.functionRegistry = functionRegistry;
+        this.resultCache = resultCache;
+        this.budgets = budgets;
+        this.meterRegistry = meterRegistry;
+        this.prefetchedFunctions = functionRegistry.listFunctions().stream()
+                .map(ExpressionFunctionInfo::name)
+                .filter(name -> functionRegistry.hasBatchMethod(name) || functionRegistry.getFunction(name)
+                        .methods().stream()
+                        .anyMatch(m -> AnnotatedElementUtils.hasAnnotation(m, PrefetchConcurrently.class)))
+                .collect(Collectors.toUnmodifiableSet());
+    }
 
     /**
      * Evaluate a JSONata expression that returns an object (for data mapping).
@@ -62,9 +117,7 @@ public class JsonataMappingService {
             return Map.of();
         }
 
-        Jsonata jsonataExpr = jsonata(expression);
-        Frame frame = buildFrame(ctx, jsonataExpr);
-        Object result = jsonataExpr.evaluate(Map.of(), frame);
+        Object result = evaluateExpression(ctx, Map.of());
         if (result instanceof Map<?, ?> map) {
             return (Map<String, Object>) map;
         }
@@ -74,6 +127,43 @@ public class JsonataMappingService {
                         (result == null ? "null" : result.getClass().getSimpleName()));
     }
 
+    /**
+     * Evaluate a JSONata expression that returns an array of objects (one data payload per
+     * document of a bulk generation). A single object is a one-item list, as JSONata collapses
+     * singleton sequences; null or an empty array is an empty list.
+     *
+     * @param ctx the evaluation context with expression and resolvers
+     * @return the evaluated objects, in array order
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> evaluateList(EvaluationContext ctx) {
+        String expression = ctx.getExpression();
+        if (expression == null || expression.isBlank()) {
+            return List.of();
+        }
+
+        Object result = evaluateExpression(ctx, Map.of());
+        if (result == null) {
+            return List.of();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return List.of((Map<String, Object>) map);
+        }
+        if (result instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                if (!(list.get(i) instanceof Map<?, ?>)) {
+                    Object item = list.get(i);
+                    throw new IllegalStateException("JSONata expression must return an array of objects, but item "
+                            + i + " is " + (item == null ? "null" : item.getClass().getSimpleName()));
+                }
+            }
+            return (List<Map<String, Object>>) list;
+        }
+
+        throw new IllegalStateException(
+                "JSONata expression must return an array of objects, but got: " + result.getClass().getSimpleName());
+    }
+
     /**
      * Evaluate a JSONata expression that returns a scalar string.
      * Used for variantId, variant attribute values, and filename.
@@ -82,14 +172,25 @@ public class JsonataMappingService {
      * @return the evaluated scalar result as a String, or null
      */
     public String evaluateScalar(EvaluationContext ctx) {
+        return evaluateScalar(ctx, Map.of());
+    }
+
+    /**
+     * Evaluate a JSONata expression that returns a scalar string against an input document, so
+     * the expression can address its fields directly (e.g. a per-item filename in a bulk
+     * generation). {@code $doc}, {@code $pv} and {@code $case} stay bound as usual.
+     *
+     * @param ctx   the evaluation context with expression and resolvers
+     * @param input the JSONata input ({@code $})
+     * @return the evaluated scalar result as a String, or null
+     */
+    public String evaluateScalar(EvaluationContext ctx, Object input) {
         String expression = ctx.getExpression();
         if (expression == null || expression.isBlank()) {
             return expression;
         }
 
-        Jsonata jsonataExpr = jsonata(expression);
-        Frame frame = buildFrame(ctx, jsonataExpr);
-        Object result = jsonataExpr.evaluate(Map.of(), frame);
+        Object result = evaluateExpression(ctx, input);
         return result != null ? result.toString() : null;
     }
 
@@ -105,8 +206,10 @@ public class JsonataMappingService {
         return evaluateWithMaps(expression, documentData, processVariables, caseData, null);
     }
 
-    private Frame buildFrame(EvaluationContext ctx, Jsonata jsonataExpr) {
-        Map<String, Object> docMap = buildDocumentMap(ctx);
+    private Object evaluateExpression(EvaluationContext ctx, Object input) {
+        LinkMeters meters = meters(
+                new LinkTags(ctx.getProcessDefinitionKey(), ctx.getActivityId(), ctx.getOperation()));
+        Map<String, Object> docMap = buildDocumentMap(ctx, meters);
         Map<String, Object> pvMap = buildProcessVariableMap(ctx);
 
         ExpressionContext exprCtx = new DefaultExpressionContext(
@@ -117,14 +220,173 @@ public class JsonataMappingService {
                 Map.of()
         );
 
+        EvaluationBudget budget = budgets.forLink(ctx.getProcessDefinitionKey(), ctx.getActivityId());
+        return evaluateExpression(ctx.getExpression(), input, docMap, pvMap, Map.of(),
+                new FunctionCalls(exprCtx, ctx.getTenantId(), budget, meters));
+    }
+
+    /**
+     * Evaluate once, after a recording pass when the expression references a batched or
+     * concurrently prefetched function: that pass collects batchable calls so each batch method is
+     * invoked once, and starts prefetched calls on virtual threads. The real pass takes their
+     * results from {@link FunctionCalls#prefetched} and {@link FunctionCalls#started}; all share the
+     * evaluation's time budget.
+     */
+    private Object evaluateExpression(
+            String expression,
+            Object input,
+            Map<String, Object> documentData,
+            Map<String, Object> processVariables,
+            Map<String, Object> caseData,
+            FunctionCalls calls
+    ) {
+        Jsonata jsonataExpr = jsonata(expression);
+        long start = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        calls.deadline = start + calls.budget.timeout().toNanos();
+        boolean success = false;
+        try {
+            if (referencesPrefetchedFunction(expression)) {
+                calls.recording = true;
+                try {
+                    jsonataExpr.evaluate(input,
+                            createFrame(jsonataExpr, documentData, processVariables, caseData, calls));
+                } catch (RuntimeException e) {
+                    // Placeholder results can break the recording pass; batch what was collected so far.
+                    log.debug("Recording pass for batched expression functions stopped early: {}", e.getMessage());
+                }
+                calls.recording = false;
+                calls.dispatchBatches();
+            }
+            Object result = jsonataExpr.evaluate(input,
+                    createFrame(jsonataExpr, documentData, processVariables, caseData, calls));
+            checkOutputSize(result, calls.budget);
+            success = true;
+            return result;
+        } finally {
+            calls.cancelUnconsumed();
+            calls.meters.evaluation(success).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (allocatedBefore >= 0) {
+                calls.meters.allocation.record(Math.max(0, allocatedBytes() - allocatedBefore));
+            }
+        }
+    }
+
+    /**
+     * Reject a result larger than the budget's {@code maxOutputSize}, measured in characters of its
+     * JSON form. Counting stops as soon as the limit is passed.
+     */
+    private static void checkOutputSize(Object result, EvaluationBudget budget) {
+        long limit = budget.maxOutputSize();
+        if (limit > 0 && outputSize(result, limit) > limit) {
+            throw new ExpressionEvaluationException(
+                    "JSONata expression produced more than the maximum output size of " + limit + " characters");
+        }
+    }
+
+    private static long outputSize(Object value, long limit) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence text) {
+            return text.length() + 2L;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 2;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += String.valueOf(entry.getKey()).length() + 4L + outputSize(entry.getValue(), limit - size);
+                if (size > limit) {
+                    return size;
+                }
+            }
+            return size;
+        }
+        if (value instanceof Iterable<?> items) {
+            long size = 2;
+            for (Object item : items) {
+                size += 1 + outputSize(item, limit - size);
+                if (size > limit) {
+                    return size;
+                }
+            }
+            return size;
+        }
+        return String.valueOf(value).length();
+    }
+
+    private boolean referencesPrefetchedFunction(String expression) {
+        if (prefetchedFunctions.isEmpty()) {
+            return false;
+        }
+        for (String name : referencedVariables(expression)) {
+            if (prefetchedFunctions.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The {@code $name} references of an expression: whole names only, outside string literals,
+     * back-quoted names and comments. This is a lexical scan, not a walk of the parsed expression,
+     * so a local variable that shadows a function name still counts as a reference.
+     */
+    static Set<String> referencedVariables(String expression) {
+        Set<String> names = new HashSet<>();
+        int length = expression.length();
+        int i = 0;
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (c == '"' || c == '\'' || c == '`') {
+                i++;
+                while (i < length && expression.charAt(i) != c) {
+                    i += expression.charAt(i) == '\\' && c != '`' ? 2 : 1;
+                }
+                i++;
+            } else if (c == '/' && i + 1 < length && expression.charAt(i + 1) == '*') {
+                int end = expression.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '$') {
+                int end = i + 1;
+                while (end < length && isNameChar(expression.charAt(end))) {
+                    end++;
+                }
+                if (end > i + 1) {
+                    names.add(expression.substring(i + 1, end));
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return names;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private Frame createFrame(
+            Jsonata jsonataExpr,
+            Map<String, Object> documentData,
+            Map<String, Object> processVariables,
+            Map<String, Object> caseData,
+            FunctionCalls calls
+    ) {
+        // Both passes share one wall-clock budget: each frame only gets the time left of it.
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(calls.deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+            throw new ExpressionEvaluationException("JSONata expression did not finish within "
+                    + calls.budget.timeout().toMillis() + " ms");
+        }
         Frame frame = jsonataExpr.createFrame();
-        frame.setRuntimeBounds(TIMEOUT_MS, MAX_RECURSION_DEPTH);
+        frame.setRuntimeBounds(remainingMillis, calls.budget.maxRecursionDepth());
 
-        frame.bind("doc", docMap);
-        frame.bind("pv", pvMap);
-        frame.bind("case", Map.of());
+        frame.bind("doc", documentData != null ? documentData : Map.of());
+        frame.bind("pv", processVariables != null ? processVariables : Map.of());
+        frame.bind("case", caseData != null ? caseData : Map.of());
 
-        registerCustomFunctions(frame, exprCtx);
+        registerCustomFunctions(frame, calls);
         return frame;
     }
 
@@ -147,17 +409,8 @@ public class JsonataMappingService {
             exprCtx = new DefaultExpressionContext(null, null, documentData, processVariables, Map.of());
         }
 
-        Jsonata jsonataExpr = jsonata(expression);
-        Frame frame = jsonataExpr.createFrame();
-        frame.setRuntimeBounds(TIMEOUT_MS, MAX_RECURSION_DEPTH);
-
-        frame.bind("doc", documentData != null ? documentData : Map.of());
-        frame.bind("pv", processVariables != null ? processVariables : Map.of());
-        frame.bind("case", caseData != null ? caseData : Map.of());
-
-        registerCustomFunctions(frame, exprCtx);
-
-        Object result = jsonataExpr.evaluate(Map.of(), frame);
+        Object result = evaluateExpression(expression, Map.of(), documentData, processVariables, caseData,
+                new FunctionCalls(exprCtx, null, budgets.getDefaultBudget(), meters(LinkTags.UNLINKED)));
         if (result instanceof Map<?, ?> map) {
             return (Map<String, Object>) map;
         }
@@ -167,12 +420,11 @@ public class JsonataMappingService {
                         (result == null ? "null" : result.getClass().getSimpleName()));
     }
 
-    private Map<String, Object> buildDocumentMap(EvaluationContext ctx) {
-        if (ctx.getDocumentResolver() != null && ctx.getDocumentId() != null) {
-            return new LazyDocumentMap(() -> ctx.getDocumentResolver().apply(ctx.getDocumentId()));
-        }
+    private Map<String, Object> buildDocumentMap(EvaluationContext ctx, LinkMeters meters) {
         if (ctx.getDocumentResolver() != null) {
-            return new LazyDocumentMap(() -> ctx.getDocumentResolver().apply(null));
+            String documentId = ctx.getDocumentId();
+            Supplier<Map<String, Object>> loader = () -> ctx.getDocumentResolver().apply(documentId);
+            return new LazyDocumentMap(() -> meters.documentLoad.record(loader));
         }
         return Map.of();
     }
@@ -189,50 +441,341 @@ public class JsonataMappingService {
         return Map.of();
     }
 
-    private void registerCustomFunctions(Frame frame, ExpressionContext exprCtx) {
-        Map<ExpressionFunctionInvocationKey, Object> evaluationCache = new HashMap<>();
-
+    private void registerCustomFunctions(Frame frame, FunctionCalls calls) {
         for (var funcInfo : functionRegistry.listFunctions()) {
             String name = funcInfo.name();
-            var registeredFunc = functionRegistry.getFunction(name);
-            if (registeredFunc == null) {
+            if (functionRegistry.getFunction(name) == null) {
                 continue;
             }
 
-            Jsonata.JFunctionCallable callable = (input, args) -> {
-                Object[] argsArray = args != null ? args.toArray() : new Object[0];
-                try {
-                    var match = functionRegistry.findMatchingOverload(name, argsArray);
-                    boolean cacheResult = AnnotatedElementUtils.hasAnnotation(
-                            match.method(), CacheResultForEvaluation.class);
-                    ExpressionFunctionInvocationKey cacheKey = cacheResult
-                            ? ExpressionFunctionInvocationKey.of(name, match.method(), argsArray)
-                            : null;
-                    if (cacheResult && evaluationCache.containsKey(cacheKey)) {
-                        return evaluationCache.get(cacheKey);
-                    }
+            Jsonata.JFunctionCallable callable = (input, args) ->
+                    calls.call(name, args != null ? args.toArray() : new Object[0]);
+            Jsonata.JFunction jFunc = new Jsonata.JFunction(callable, null);
+            frame.bind(name, jFunc);
+        }
+    }
+
+    /**
+     * Custom-function calls of one evaluation: its evaluation-scoped cache, the results of batched
+     * calls collected by a recording pass, and the calls that pass started concurrently.
+     */
+    private final class FunctionCalls {
+
+        private final ExpressionContext exprCtx;
+        private final String tenantId;
+        private final EvaluationBudget budget;
+        private final LinkMeters meters;
+        private final Map<ExpressionFunctionInvocationKey, Object> evaluationCache = new HashMap<>();
+        private final Map<ExpressionFunctionInvocationKey, Object> prefetched = new HashMap<>();
+        private final Map<Method, PendingBatch> pending = new LinkedHashMap<>();
+        private final Map<ExpressionFunctionInvocationKey, Future<Object>> started = new HashMap<>();
+        private boolean recording;
+        private long deadline;
 
-                    Object[] fullArgs = new Object[argsArray.length + 1];
-                    fullArgs[0] = exprCtx;
-                    System.arraycopy(argsArray, 0, fullArgs, 1, argsArray.length);
-                    Object result = match.method().invoke(match.bean(), fullArgs);
-                    if (cacheResult) {
-                        evaluationCache.put(cacheKey, result);
+        private FunctionCalls(ExpressionContext exprCtx, String tenantId, EvaluationBudget budget,
+                              LinkMeters meters) {
+            this.exprCtx = exprCtx;
+            this.tenantId = tenantId;
+            this.budget = budget;
+            this.meters = meters;
+        }
+
+        private Object call(String name, Object[] argsArray) {
+            try {
+                var match = functionRegistry.findMatchingOverload(name, argsArray);
+                boolean cacheResult = AnnotatedElementUtils.hasAnnotation(
+                        match.method(), CacheResultForEvaluation.class);
+                boolean shareResult = tenantId != null && AnnotatedElementUtils.hasAnnotation(
+                        match.method(), CacheResultAcrossEvaluations.class);
+                Method batchMethod = functionRegistry.findBatchMethod(match.method());
+                PrefetchConcurrently prefetch = batchMethod == null
+                        ? AnnotatedElementUtils.findMergedAnnotation(match.method(), PrefetchConcurrently.class)
+                        : null;
+                ExpressionFunctionInvocationKey cacheKey =
+                        cacheResult || shareResult || batchMethod != null || prefetch != null
+                                ? ExpressionFunctionInvocationKey.probe(name, match.method(), argsArray)
+                                : null;
+                if (cacheResult) {
+                    Object cached = evaluationCache.get(cacheKey);
+                    if (cached != null || evaluationCache.containsKey(cacheKey)) {
+                        return cached;
+                    }
+                }
+                if (batchMethod != null || prefetch != null) {
+                    Object cached = prefetched.get(cacheKey);
+                    if (cached != null || prefetched.containsKey(cacheKey)) {
+                        return cached;
+                    }
+                }
+                if (recording) {
+                    // Nothing runs while recording: batchable calls are collected, prefetched calls
+                    // started, others wait for the real pass. Their placeholder is null, so a null
+                    // argument may come from one; such calls wait for the real pass too.
+                    if ((batchMethod == null && prefetch == null) || hasNullArgument(argsArray)) {
+                        return null;
+                    }
+                    // Only the calls this pass resolves are looked up, so each call counts once in
+                    // the cache meters. A hit is kept for the real pass.
+                    if (shareResult) {
+                        Object shared = resultCache.lookup(name, match.method(), tenantId, cacheKey);
+                        if (shared != ExpressionFunctionResultCache.MISS) {
+                            prefetched.put(cacheKey.snapshot(), shared);
+                            return shared;
+                        }
+                    }
+                    if (batchMethod != null) {
+                        var arguments = pending.computeIfAbsent(match.method(),
+                                m -> new PendingBatch(name, match.bean(), batchMethod)).arguments();
+                        if (!arguments.containsKey(cacheKey)) {
+                            arguments.put(cacheKey.snapshot(), argsArray[0]);
+                        }
+                    } else if (!started.containsKey(cacheKey)) {
+                        started.put(cacheKey.snapshot(), start(name, match, argsArray, prefetch));
                     }
+                    return null;
+                }
+                Future<Object> future = prefetch != null ? started.remove(cacheKey) : null;
+                if (future != null) {
+                    Object result = join(name, future);
+                    ExpressionFunctionInvocationKey storedKey = cacheKey.snapshot();
+                    prefetched.put(storedKey, result);
+                    remember(name, match.method(), storedKey, result, cacheResult, shareResult);
                     return result;
-                } catch (InvocationTargetException e) {
-                    Throwable cause = e.getTargetException();
-                    throw new ExpressionEvaluationException(
-                            "Custom function '" + name + "' failed: " + cause.getMessage(), cause);
-                } catch (ExpressionEvaluationException e) {
-                    throw e;
+                }
+                if (shareResult) {
+                    Object shared = resultCache.lookup(name, match.method(), tenantId, cacheKey);
+                    if (shared != ExpressionFunctionResultCache.MISS) {
+                        if (cacheResult) {
+                            evaluationCache.put(cacheKey.snapshot(), shared);
+                        }
+                        return shared;
+                    }
+                }
+
+                Object[] fullArgs = new Object[argsArray.length + 1];
+                fullArgs[0] = exprCtx;
+                System.arraycopy(argsArray, 0, fullArgs, 1, argsArray.length);
+                Object result = invokeTimed(name, match.method(), match.bean(), fullArgs);
+                remember(name, match.method(), cacheKey, result, cacheResult, shareResult);
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getTargetException();
+                throw new ExpressionEvaluationException(
+                        "Custom function '" + name + "' failed: " + cause.getMessage(), cause);
+            } catch (ExpressionEvaluationException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ExpressionEvaluationException(
+                        "Custom function '" + name + "' invocation failed: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Invoke each batch method once with the distinct arguments collected while recording. A
+         * batch that fails or answers with the wrong number of results is left to per-call
+         * execution in the real pass.
+         */
+        private void dispatchBatches() {
+            pending.forEach((method, batch) -> {
+                List<Object> arguments = new ArrayList<>(batch.arguments().values());
+                try {
+                    Object results = invokeTimed(batch.name(), batch.batchMethod(), batch.bean(), exprCtx, arguments);
+                    if (!(results instanceof List<?> list) || list.size() != arguments.size()) {
+                        log.warn("Batch method of expression function '{}' returned {} results for {} calls; "
+                                        + "falling back to one call at a time", batch.name(),
+                                results instanceof List<?> batchResults ? batchResults.size() : "no",
+                                arguments.size());
+                        return;
+                    }
+                    boolean cacheResult = AnnotatedElementUtils.hasAnnotation(method, CacheResultForEvaluation.class);
+                    boolean shareResult = tenantId != null
+                            && AnnotatedElementUtils.hasAnnotation(method, CacheResultAcrossEvaluations.class);
+                    int i = 0;
+                    for (ExpressionFunctionInvocationKey key : batch.arguments().keySet()) {
+                        Object result = list.get(i++);
+                        prefetched.put(key, result);
+                        remember(batch.name(), method, key, result, cacheResult, shareResult);
+                    }
+                    log.debug("Batched {} calls of expression function '{}'", arguments.size(), batch.name());
                 } catch (Exception e) {
-                    throw new ExpressionEvaluationException(
-                            "Custom function '" + name + "' invocation failed: " + e.getMessage(), e);
+                    Throwable cause = e instanceof InvocationTargetException ite ? ite.getTargetException() : e;
+                    log.warn("Batch method of expression function '{}' failed, falling back to one call at a time: {}",
+                            batch.name(), cause.getMessage());
                 }
-            };
-            Jsonata.JFunction jFunc = new Jsonata.JFunction(callable, null);
-            frame.bind(name, jFunc);
+            });
+            pending.clear();
+        }
+
+        /**
+         * Start a call on a virtual thread, with a context detached from the engine's thread. It
+         * waits for a permit of the overload's concurrency limit no longer than the budget allows.
+         */
+        private Future<Object> start(String name, ExpressionFunctionRegistry.MethodMatch match, Object[] argsArray,
+                                     PrefetchConcurrently prefetch) {
+            Semaphore permits = concurrencyLimits.computeIfAbsent(
+                    match.method(), m -> new Semaphore(prefetch.maxConcurrency()));
+            Object[] fullArgs = new Object[argsArray.length + 1];
+            fullArgs[0] = new DefaultExpressionContext(null, exprCtx.getDocumentId(), Map.of(), Map.of(), Map.of());
+            System.arraycopy(argsArray, 0, fullArgs, 1, argsArray.length);
+            long callDeadline = deadline;
+            return prefetchExecutor.submit(() -> {
+                if (!permits.tryAcquire(callDeadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new TimeoutException("no free slot within the evaluation time budget");
+                }
+                try {
+                    return invokeTimed(name, match.method(), match.bean(), fullArgs);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        private Object join(String name, Future<Object> future) throws InvocationTargetException {
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InvocationTargetException ite) {
+                    throw ite;
+                }
+                throw new ExpressionEvaluationException(
+                        "Custom function '" + name + "' invocation failed: " + e.getCause().getMessage(), e.getCause());
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                throw new ExpressionEvaluationException(
+                        "Custom function '" + name + "' did not finish within " + budget.timeout().toMillis() + " ms", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                throw new ExpressionEvaluationException(
+                        "Interrupted while waiting for custom function '" + name + "'", e);
+            }
+        }
+
+        /** Invoke a function or batch method, timing it as {@code epistola.expression.function}. */
+        private Object invokeTimed(String name, Method method, Object bean, Object... args)
+                throws InvocationTargetException, IllegalAccessException {
+            long start = System.nanoTime();
+            try {
+                return method.invoke(bean, args);
+            } finally {
+                meters.function(name).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /** Cancel speculative calls whose result the expression did not consume. */
+        private void cancelUnconsumed() {
+            started.values().forEach(future -> future.cancel(true));
+            started.clear();
+        }
+
+        /** Store a result in the caches its overload opts into; only builds the key snapshot then. */
+        private void remember(String name, Method method, ExpressionFunctionInvocationKey key, Object result,
+                              boolean cacheResult, boolean shareResult) {
+            if (!cacheResult && !shareResult) {
+                return;
+            }
+            ExpressionFunctionInvocationKey storedKey = key.snapshot();
+            if (cacheResult) {
+                evaluationCache.put(storedKey, result);
+            }
+            if (shareResult) {
+                resultCache.store(name, method, tenantId, storedKey, result);
+            }
+        }
+    }
+
+    private static boolean hasNullArgument(Object[] argsArray) {
+        for (Object argument : argsArray) {
+            if (argument == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LinkMeters meters(LinkTags tags) {
+        return linkMeters.computeIfAbsent(tags, LinkMeters::new);
+    }
+
+    /** Bytes allocated so far by the current thread, or -1 when the JVM does not count them. */
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCountingThreads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+
+    /** The process link an evaluation belongs to, as meter tags; {@code none} outside a process. */
+    private record LinkTags(String processDefinitionKey, String activityId, String operation) {
+
+        private static final LinkTags UNLINKED = new LinkTags(null, null, null);
+
+        private Tags tags() {
+            return Tags.of(
+                    "process.definition.key", processDefinitionKey != null ? processDefinitionKey : NONE,
+                    "activity.id", activityId != null ? activityId : NONE,
+                    "operation", operation != null ? operation : NONE);
+        }
+    }
+
+    /** The meters of one process link, registered on its first evaluation. */
+    private final class LinkMeters {
+
+        private final Tags tags;
+        private final Timer succeeded;
+        private final Timer failed;
+        private final Timer documentLoad;
+        private final DistributionSummary allocation;
+        private final Map<String, Timer> functions = new ConcurrentHashMap<>();
+
+        private LinkMeters(LinkTags link) {
+            this.tags = link.tags();
+            this.succeeded = evaluationTimer("success");
+            this.failed = evaluationTimer("failure");
+            this.documentLoad = Timer.builder("epistola.expression.document-load")
+                    .description("Time taken to load the case document bound as $doc")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.allocation = DistributionSummary.builder("epistola.expression.allocation")
+                    .description("Bytes allocated on the evaluating thread by a JSONata evaluation")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private Timer evaluationTimer(String outcome) {
+            return Timer.builder("epistola.expression.evaluation")
+                    .description("Time taken by JSONata evaluations, custom-function calls included")
+                    .tags(tags).tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private Timer evaluation(boolean success) {
+            return success ? succeeded : failed;
+        }
+
+        private Timer function(String name) {
+            return functions.computeIfAbsent(name, function -> Timer.builder("epistola.expression.function")
+                    .description("Time taken by custom expression-function calls, batch calls included")
+                    .tags(tags).tag("function", function)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private record PendingBatch(String name, Object bean, Method batchMethod,
+                                Map<ExpressionFunctionInvocationKey, Object> arguments) {
+
+        private PendingBatch(String name, Object bean, Method batchMethod) {
+            this(name, bean, batchMethod, new LinkedHashMap<>());
         }
     }
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A map that holds at most {@code maxEntries} entries and evicts the least recently used one beyond
+ * that; reads and writes both count as a use.
+ * <p>
+ * Every method locks the cache itself, so callers that need several calls to happen atomically
+ * synchronize on the cache.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BoundedLruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    /** @param maxEntries the number of entries kept; values below 1 keep one */
+    public BoundedLruCache(int maxEntries) {
+        int bound = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > bound;
+            }
+        };
+    }
+
+    /** The value for {@code key}, or {@code null} when it isn't cached. */
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void removeAll(Collection<? extends K> keys) {
+        entries.keySet().removeAll(keys);
+    }
+
+    public synchronized void removeIf(Predicate<? super K> keyFilter) {
+        entries.keySet().removeIf(keyFilter);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
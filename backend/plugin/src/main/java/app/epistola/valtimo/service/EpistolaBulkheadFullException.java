@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service;
+
+/**
+ * Thrown without contacting Epistola when all concurrent-call slots for a connection
+ * stayed occupied for the configured bulkhead wait. Like
+ * {@link EpistolaCircuitOpenException} this is a transient, retryable condition: it
+ * caps how many job-executor threads a single slow Epistola installation can hold.
+ */
+public class EpistolaBulkheadFullException extends EpistolaApiException {
+
+    private final String tenantId;
+
+    public EpistolaBulkheadFullException(String message, String tenantId) {
+        super(message);
+        this.tenantId = tenantId;
+    }
+
+    /** The tenant whose bulkhead rejected the call. */
+    public String getTenantId() {
+        return tenantId;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown without contacting Epistola when the connection's circuit breaker is open
+ * (or half-open with all probe slots taken) because recent calls failed or were too slow.
+ *
+ * <p>Extends {@link EpistolaApiException} so every existing {@code catch} keeps working.
+ * The failure is always transient, so BPMN activities should let the job fail and rely
+ * on a retry cycle (e.g. {@code R5/PT1M}) rather than model it as a business error;
+ * {@link #getRetryAfter()} tells callers how long the rejection is expected to last.
+ */
+public class EpistolaCircuitOpenException extends EpistolaApiException {
+
+    private final String tenantId;
+    private final Duration retryAfter;
+
+    public EpistolaCircuitOpenException(String message, String tenantId, Duration retryAfter) {
+        super(message);
+        this.tenantId = tenantId;
+        this.retryAfter = retryAfter;
+    }
+
+    /** The tenant whose circuit rejected the call. */
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    /** Time until the circuit lets a probe call through again (never null; may be zero). */
+    public Duration getRetryAfter() {
+        return retryAfter != null ? retryAfter : Duration.ZERO;
+    }
+}
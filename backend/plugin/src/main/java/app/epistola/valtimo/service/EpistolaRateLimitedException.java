@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a call could not obtain a client-side rate-limit permit in time: the
+ * tenant's queue was full, or the expected wait (including a server-sent
+ * {@code Retry-After}) exceeded the configured maximum.
+ *
+ * <p>Like {@link EpistolaCircuitOpenException} this is transient; let the BPMN job fail
+ * and rely on its retry cycle.
+ */
+public class EpistolaRateLimitedException extends EpistolaApiException {
+
+    private final String tenantId;
+    private final Duration retryAfter;
+
+    public EpistolaRateLimitedException(String message, String tenantId, Duration retryAfter) {
+        super(message, null, 429, null, null);
+        this.tenantId = tenantId;
+        this.retryAfter = retryAfter;
+    }
+
+    /** The tenant whose rate limiter rejected the call. */
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    /** Expected time until a permit becomes available (never null; may be zero). */
+    public Duration getRetryAfter() {
+        return retryAfter != null ? retryAfter : Duration.ZERO;
+    }
+}
@@ -19,6 +19,7 @@ package app.epistola.valtimo.service;
 
 import app.epistola.client.model.VariantSelectionAttribute;
 import app.epistola.valtimo.domain.*;
+import org.springframework.core.io.Resource;
 
 import java.util.List;
 import java.util.Map;
@@ -194,6 +195,19 @@ public interface EpistolaService {
      */
     ImportCatalogResult importCatalog(String baseUrl, String apiKey, String tenantId, byte[] zipBytes, String catalogType);
 
+    /**
+     * Import a catalog ZIP archive that is streamed from a resource, such as one packaged into the
+     * application jar at build time, without reading it into memory first.
+     *
+     * @param baseUrl     The Epistola API base URL
+     * @param apiKey      The API key for authentication
+     * @param tenantId    The tenant ID in Epistola
+     * @param archive     The catalog ZIP archive
+     * @param catalogType The type of catalog import (e.g. "full", "templates-only")
+     * @return The import result with counts of installed/updated/failed resources
+     */
+    ImportCatalogResult importCatalog(String baseUrl, String apiKey, String tenantId, Resource archive, String catalogType);
+
     /**
      * Result of a catalog import operation.
      */
@@ -50,6 +50,7 @@ import app.epistola.client.model.TemplateListResponse;
 import app.epistola.client.model.TemplateSummaryDto;
 import app.epistola.client.model.VariantDto;
 import app.epistola.client.model.VariantListResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
@@ -400,14 +401,27 @@ public class EpistolaServiceImpl implements EpistolaService {
     @Override
     public ImportCatalogResult importCatalog(String baseUrl, String apiKey, String tenantId, byte[] zipBytes, String catalogType) {
         log.info("Importing catalog ZIP ({} bytes) for tenant: {}, type: {}", zipBytes.length, tenantId, catalogType);
-        try {
-            org.springframework.core.io.ByteArrayResource zipResource = new org.springframework.core.io.ByteArrayResource(zipBytes) {
-                @Override
-                public String getFilename() {
-                    return "catalog.zip";
-                }
-            };
+        org.springframework.core.io.ByteArrayResource zipResource = new org.springframework.core.io.ByteArrayResource(zipBytes) {
+            @Override
+            public String getFilename() {
+                return "catalog.zip";
+            }
+        };
+        return postCatalogImport(baseUrl, apiKey, tenantId, zipResource, catalogType);
+    }
 
+    @Override
+    public ImportCatalogResult importCatalog(String baseUrl, String apiKey, String tenantId,
+                                             org.springframework.core.io.Resource archive, String catalogType) {
+        log.info("Importing catalog archive {} for tenant: {}, type: {}", archive.getDescription(), tenantId, catalogType);
+        // The multipart part is written from the resource's input stream, so a packaged archive
+        // goes from the jar to the request body without being buffered here.
+        return postCatalogImport(baseUrl, apiKey, tenantId, archive, catalogType);
+    }
+
+    private ImportCatalogResult postCatalogImport(String baseUrl, String apiKey, String tenantId,
+                                                  org.springframework.core.io.Resource zipResource, String catalogType) {
+        try {
             org.springframework.util.LinkedMultiValueMap<String, Object> body = new org.springframework.util.LinkedMultiValueMap<>();
             body.add("file", zipResource);
             if (catalogType != null && !catalogType.isBlank()) {
@@ -466,14 +480,10 @@ public class EpistolaServiceImpl implements EpistolaService {
     ) {
         log.debug("Previewing document for tenant: {}, catalog: {}, template: {}", tenantId, catalogId, templateId);
         try {
-            var requestBody = new java.util.LinkedHashMap<String, Object>();
-            requestBody.put("catalogId", catalogId);
-            requestBody.put("templateId", templateId);
-            requestBody.put("data", data);
-            if (variantId != null) requestBody.put("variantId", variantId);
-            if (environmentId != null) requestBody.put("environmentId", environmentId);
-
-            byte[] content = apiClientFactory.createRestClient(baseUrl, apiKey)
+            // Wraps data by reference (no copy); the streaming client writes it straight to the connection.
+            var requestBody = new PreviewRequestBody(catalogId, templateId, data, variantId, environmentId);
+
+            byte[] content = apiClientFactory.createStreamingRestClient(baseUrl, apiKey)
                     .post()
                     .uri("/tenants/{tenantId}/documents/preview", tenantId)
                     .contentType(org.springframework.http.MediaType.parseMediaType("application/vnd.epistola.v1+json"))
@@ -528,6 +538,19 @@ public class EpistolaServiceImpl implements EpistolaService {
      */
     private record ProblemBody(String message, String type, Map<String, Object> extensions) {}
 
+    /**
+     * Body of {@code POST /documents/preview}. Same field order as the former map body; null
+     * ids are omitted so the server resolves its defaults.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record PreviewRequestBody(
+            String catalogId,
+            String templateId,
+            Map<String, Object> data,
+            String variantId,
+            String environmentId
+    ) {}
+
     /** Parse an Epistola error response body into its message + RFC-9457 type/extensions. */
     private ProblemBody parseProblemBody(String responseBody) {
         String message = extractErrorMessage(responseBody);
@@ -28,20 +28,31 @@ import app.epistola.valtimo.domain.GenerationJobStatus;
 import app.epistola.valtimo.domain.TemplateInfo;
 import app.epistola.valtimo.domain.VariantInfo;
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BatchResults;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import app.epistola.valtimo.service.completion.EpistolaMessageCorrelationService;
+import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
+import app.epistola.valtimo.service.processlink.IndexedProcessLink;
+import app.epistola.valtimo.service.resilience.EpistolaResilienceRegistry;
+import app.epistola.valtimo.service.resilience.EpistolaTrafficClass;
 import app.epistola.valtimo.service.versioncheck.VersionCheckService;
 
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
 import app.epistola.valtimo.web.rest.dto.BpmnValidationReport;
+import app.epistola.valtimo.web.rest.dto.BulkReconcileProgress;
+import app.epistola.valtimo.web.rest.dto.BulkReconcileSummary;
 import app.epistola.valtimo.web.rest.dto.CatalogRedeployResult;
 import app.epistola.valtimo.web.rest.dto.ChangelogRelease;
 import app.epistola.valtimo.web.rest.dto.ClasspathCatalog;
 import app.epistola.valtimo.web.rest.dto.ConnectionStatus;
 import app.epistola.valtimo.web.rest.dto.ContractCompatibilitySeverity;
 import app.epistola.valtimo.web.rest.dto.PendingJob;
+import app.epistola.valtimo.web.rest.dto.PendingJobSummary;
 import app.epistola.valtimo.web.rest.dto.PluginUsageEntry;
 import app.epistola.valtimo.web.rest.dto.ProcessLinkExport;
 import app.epistola.valtimo.web.rest.dto.ReconcileResult;
+import app.epistola.valtimo.web.rest.dto.ResilienceStatus;
 import app.epistola.valtimo.web.rest.dto.VersionInfo;
 import com.ritense.plugin.domain.PluginConfiguration;
 import com.ritense.plugin.domain.PluginConfigurationId;
@@ -58,17 +69,33 @@ import org.operaton.bpm.engine.RepositoryService;
 import org.operaton.bpm.engine.RuntimeService;
 import org.operaton.bpm.engine.repository.ProcessDefinition;
 import org.operaton.bpm.engine.runtime.Execution;
+import org.operaton.bpm.engine.runtime.VariableInstance;
 import org.operaton.bpm.model.bpmn.BpmnModelInstance;
 import org.operaton.bpm.model.bpmn.instance.FlowElement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -81,13 +108,17 @@ import java.util.stream.Collectors;
 public class EpistolaAdminService {
 
     private static final Set<String> EPISTOLA_ACTION_KEYS = Set.of(
-            "epistola-generate-document", "epistola-check-job-status", "epistola-download-document"
+            "epistola-generate-document", "epistola-generate-documents", "epistola-check-job-status",
+            "epistola-download-document"
     );
 
     /** Catalog import type — mirrors the value used by the startup sync trigger. */
     private static final String CATALOG_SYNC_TYPE = "AUTHORED";
     private static final String CONTRACT_VERSION_RESOURCE = "epistola-contract-version.txt";
     private static final Pattern SEMVER_PREFIX = Pattern.compile("^(\\d+)\\.(\\d+)(?:\\.(\\d+))?.*");
+    /** The only sort property of the paginated pending-jobs view. */
+    static final String PENDING_SORT_PROPERTY = "waitingSince";
+    static final int MAX_PENDING_PAGE_SIZE = 500;
 
     private final PluginService pluginService;
     private final EpistolaService epistolaService;
@@ -99,6 +130,11 @@ public class EpistolaAdminService {
     private final EpistolaProcessDefinitionValidator processDefinitionValidator;
     private final EpistolaCatalogSyncService catalogSyncService;
     private final VersionCheckService versionCheckService;
+    private final EpistolaResilienceRegistry resilienceRegistry;
+    private final EpistolaResultCollectorRunner resultCollectorRunner;
+    private final BulkSubmitter bulkSubmitter;
+    private final PendingJobQuery pendingJobQuery;
+    private final EpistolaProcessLinkIndex processLinkIndex;
 
     /**
      * Latest BPMN race-safety validation report: the violation snapshot (empty when
@@ -116,7 +152,9 @@ public class EpistolaAdminService {
 
     /**
      * Check connectivity to Epistola for each plugin configuration.
-     * Uses getCatalogs() as a lightweight health probe.
+     * Uses getCatalogs() as a lightweight health probe. The probe goes through the
+     * connection's circuit breaker, so an open circuit reports unreachable without a
+     * remote call; the breaker and bulkhead state is attached either way.
      */
     public List<ConnectionStatus> checkConnections() {
         List<ConnectionStatus> results = new ArrayList<>();
@@ -127,7 +165,8 @@ public class EpistolaAdminService {
 
             long start = System.currentTimeMillis();
             try {
-                epistolaService.getCatalogs(plugin.getBaseUrl(), plugin.getApiKey(), plugin.getTenantId());
+                EpistolaTrafficClass.callAs(EpistolaTrafficClass.ADMIN,
+                        () -> epistolaService.getCatalogs(plugin.getBaseUrl(), plugin.getApiKey(), plugin.getTenantId()));
                 EpistolaService.SystemInfo systemInfo = fetchSystemInfo(plugin);
                 String contractVersion = getContractVersion();
                 ContractCompatibilitySeverity compatibilitySeverity = classifyContractCompatibility(
@@ -145,7 +184,8 @@ public class EpistolaAdminService {
                         systemInfo != null ? systemInfo.serverVersion() : null,
                         contractVersion,
                         systemInfo != null ? systemInfo.contractVersion() : null,
-                        compatibilitySeverity
+                        compatibilitySeverity,
+                        resilienceStatus(plugin)
                 ));
             } catch (Exception e) {
                 long latency = System.currentTimeMillis() - start;
@@ -160,7 +200,8 @@ public class EpistolaAdminService {
                         null,
                         getContractVersion(),
                         null,
-                        ContractCompatibilitySeverity.UNKNOWN
+                        ContractCompatibilitySeverity.UNKNOWN,
+                        resilienceStatus(plugin)
                 ));
             }
         }
@@ -168,6 +209,20 @@ public class EpistolaAdminService {
         return results;
     }
 
+    private ResilienceStatus resilienceStatus(EpistolaPlugin plugin) {
+        return resilienceRegistry.statusFor(plugin.getBaseUrl(), plugin.getTenantId())
+                .map(r -> new ResilienceStatus(
+                        r.circuitBreaker() != null ? r.circuitBreaker().state().name() : null,
+                        r.circuitBreaker() != null ? r.circuitBreaker().failureRate() : -1f,
+                        r.circuitBreaker() != null ? r.circuitBreaker().slowCallRate() : -1f,
+                        r.circuitBreaker() != null ? r.circuitBreaker().bufferedCalls() : 0,
+                        r.circuitBreaker() != null ? r.circuitBreaker().openedAt() : null,
+                        r.activeCalls(),
+                        r.waitingCalls(),
+                        r.maxConcurrentCalls()))
+                .orElse(null);
+    }
+
     /**
      * Get version information for the plugin (and Epistola server if reachable).
      */
@@ -232,51 +287,81 @@ public class EpistolaAdminService {
      * Reports each usage with basic problem detection.
      */
     public List<PluginUsageEntry> getPluginUsage() {
-        List<PluginUsageEntry> entries = new ArrayList<>();
-        EpistolaReferenceCache refCache = new EpistolaReferenceCache();
-
-        List<ProcessDefinition> processDefinitions = repositoryService.createProcessDefinitionQuery()
+        return getPluginUsage(repositoryService.createProcessDefinitionQuery()
                 .latestVersion()
-                .list();
+                .list());
+    }
 
+    /**
+     * Usage entries for the given process definitions, in their order. The plugin configurations are
+     * loaded once for the whole call, and the reference-existence checks against Epistola run
+     * concurrently in the admin lane, each distinct catalog, template and variant lookup at most once.
+     */
+    public List<PluginUsageEntry> getPluginUsage(List<ProcessDefinition> processDefinitions) {
+        Map<ProcessDefinition, List<PluginProcessLink>> linksByDefinition = new LinkedHashMap<>();
         for (ProcessDefinition processDef : processDefinitions) {
-            List<PluginProcessLink> epistolaLinks = processLinkService.getProcessLinks(processDef.getId()).stream()
-                    .filter(PluginProcessLink.class::isInstance)
-                    .map(PluginProcessLink.class::cast)
-                    .filter(link -> EPISTOLA_ACTION_KEYS.contains(link.getPluginActionDefinitionKey()))
-                    .toList();
-
-            if (epistolaLinks.isEmpty()) {
-                continue;
-            }
-
-            // Resolve case definition for this process
-            var caseInfo = resolveCaseDefinition(processDef.getId());
-
-            for (PluginProcessLink link : epistolaLinks) {
-                String activityName = resolveActivityName(processDef.getId(), link.getActivityId());
-                String configTitle = resolveConfigurationTitle(link.getPluginConfigurationId());
-                List<String> problems = detectProblems(link, refCache);
-
-                entries.add(new PluginUsageEntry(
-                        link.getId().toString(),
-                        caseInfo != null ? caseInfo.key() : null,
-                        caseInfo != null ? caseInfo.versionTag() : null,
-                        processDef.getKey(),
-                        processDef.getName() != null ? processDef.getName() : processDef.getKey(),
-                        link.getActivityId(),
-                        activityName,
-                        link.getPluginActionDefinitionKey(),
-                        link.getPluginConfigurationId().toString(),
-                        configTitle,
-                        problems
-                ));
+            List<PluginProcessLink> epistolaLinks = getEpistolaProcessLinks(processDef.getId());
+            if (!epistolaLinks.isEmpty()) {
+                linksByDefinition.put(processDef, epistolaLinks);
             }
         }
+        return getPluginUsage(linksByDefinition);
+    }
 
+    /**
+     * Usage entries for process definitions whose Epistola process links are already known (see
+     * {@link #getEpistolaProcessLinks(String)}).
+     */
+    public List<PluginUsageEntry> getPluginUsage(Map<ProcessDefinition, List<PluginProcessLink>> linksByDefinition) {
+        if (linksByDefinition.isEmpty()) {
+            return List.of();
+        }
+        EpistolaReferenceCache refCache = new EpistolaReferenceCache();
+        Map<PluginConfigurationId, String> configTitles = loadConfigurationTitles();
+
+        record UsageLink(ProcessDefinition processDef, CaseInfo caseInfo, PluginProcessLink link) {}
+        List<UsageLink> usageLinks = new ArrayList<>();
+        linksByDefinition.forEach((processDef, links) -> {
+            CaseInfo caseInfo = resolveCaseDefinition(processDef.getId());
+            links.forEach(link -> usageLinks.add(new UsageLink(processDef, caseInfo, link)));
+        });
+
+        List<BulkSubmitter.Outcome<List<String>>> problems = bulkSubmitter.submitAll(usageLinks,
+                bulkSubmitter.parallelism(null), usage -> detectProblems(usage.link(), refCache));
+
+        List<PluginUsageEntry> entries = new ArrayList<>(usageLinks.size());
+        for (int i = 0; i < usageLinks.size(); i++) {
+            UsageLink usage = usageLinks.get(i);
+            ProcessDefinition processDef = usage.processDef();
+            PluginProcessLink link = usage.link();
+            BulkSubmitter.Outcome<List<String>> linkProblems = problems.get(i);
+            entries.add(new PluginUsageEntry(
+                    link.getId().toString(),
+                    usage.caseInfo() != null ? usage.caseInfo().key() : null,
+                    usage.caseInfo() != null ? usage.caseInfo().versionTag() : null,
+                    processDef.getKey(),
+                    processDef.getName() != null ? processDef.getName() : processDef.getKey(),
+                    link.getActivityId(),
+                    resolveActivityName(processDef.getId(), link.getActivityId()),
+                    link.getPluginActionDefinitionKey(),
+                    link.getPluginConfigurationId().toString(),
+                    configTitles.getOrDefault(link.getPluginConfigurationId(),
+                            link.getPluginConfigurationId().toString()),
+                    linkProblems.succeeded()
+                            ? linkProblems.value()
+                            : List.of("Could not check this action: " + linkProblems.error().getMessage())
+            ));
+        }
         return entries;
     }
 
+    /** The Epistola plugin process links bound to a process definition version. */
+    public List<PluginProcessLink> getEpistolaProcessLinks(String processDefinitionId) {
+        return processLinkIndex.linksWithAction(processDefinitionId, EPISTOLA_ACTION_KEYS).stream()
+                .map(IndexedProcessLink::link)
+                .toList();
+    }
+
     /**
      * Export a single process link in Valtimo's .process-link.json auto-deploy format.
      */
@@ -298,6 +383,8 @@ public class EpistolaAdminService {
 
     /**
      * Find all process instances currently waiting for an Epistola document generation result.
+     * Reads a few variables and the BPMN model per instance, so with many waiting instances prefer
+     * {@link #getPendingJobPage(Pageable)} and {@link #getPendingJobSummary()}.
      */
     public List<PendingJob> getPendingJobs() {
         List<Execution> waitingExecutions = runtimeService.createExecutionQuery()
@@ -320,7 +407,10 @@ public class EpistolaAdminService {
                 String requestId;
                 String status;
                 if (jobPath != null) {
-                    String[] parts = EpistolaMessageCorrelationService.parseJobPath(jobPath);
+                    // A generate-documents batch waits for its batch path; the row's requestId is the batchId.
+                    String[] parts = BatchResults.isBatchPath(jobPath)
+                            ? BatchResults.parseBatchPath(jobPath)
+                            : EpistolaMessageCorrelationService.parseJobPath(jobPath);
                     tenantId = parts[0];
                     requestId = parts[1];
                     status = PendingJob.STATUS_WAITING;
@@ -366,7 +456,8 @@ public class EpistolaAdminService {
                         tenantId,
                         requestId,
                         configTitle,
-                        status
+                        status,
+                        null
                 ));
             } catch (Exception e) {
                 log.warn("Failed to read pending job for execution {}: {}",
@@ -377,6 +468,93 @@ public class EpistolaAdminService {
         return jobs;
     }
 
+    /**
+     * One page of the process instances waiting for an Epistola document generation result, for
+     * installations where listing them all with {@link #getPendingJobs()} is too slow. A page costs a
+     * fixed number of queries however many instances are waiting (see {@link PendingJobQuery}).
+     *
+     * <p>Rows are ordered by {@code waitingSince}, the moment the catch event subscribed: oldest first,
+     * or newest first when sorted descending. The page size is capped at {@value #MAX_PENDING_PAGE_SIZE}.
+     *
+     * @throws IllegalArgumentException when sorted by any other property
+     */
+    public Page<PendingJob> getPendingJobPage(Pageable pageable) {
+        boolean newestFirst = newestFirst(pageable.getSort());
+        int size = Math.min(pageable.getPageSize(), MAX_PENDING_PAGE_SIZE);
+        long firstResult = (long) pageable.getPageNumber() * size;
+        long total = pendingJobQuery.count();
+        List<PendingJobQuery.Row> rows = firstResult < total
+                ? pendingJobQuery.page((int) firstResult, size, newestFirst)
+                : List.of();
+
+        Map<String, String> configTitlesByTenant = rows.isEmpty() ? Map.of() : buildTenantConfigTitleMap();
+        List<PendingJob> jobs = rows.stream().map(row -> toPendingJob(row, configTitlesByTenant)).toList();
+        return new PageImpl<>(jobs, PageRequest.of(pageable.getPageNumber(), size, pageable.getSort()), total);
+    }
+
+    /**
+     * Counts of the waiting process instances per tenant and per catch-event activity, computed in
+     * one streamed query instead of from the rows of {@link #getPendingJobs()}.
+     */
+    public PendingJobSummary getPendingJobSummary() {
+        PendingJobQuery.Counts counts = pendingJobQuery.counts();
+        Map<String, String> configTitlesByTenant = counts.byTenant().isEmpty() ? Map.of() : buildTenantConfigTitleMap();
+        List<PendingJobSummary.TenantCount> tenants = counts.byTenant().entrySet().stream()
+                .map(entry -> new PendingJobSummary.TenantCount(
+                        entry.getKey(),
+                        entry.getKey() != null ? configTitlesByTenant.getOrDefault(entry.getKey(), entry.getKey()) : null,
+                        entry.getValue()))
+                .sorted(Comparator.comparingLong(PendingJobSummary.TenantCount::count).reversed())
+                .toList();
+        return new PendingJobSummary(counts.total(), counts.unwired(), tenants, counts.byActivity());
+    }
+
+    private static boolean newestFirst(Sort sort) {
+        boolean newestFirst = false;
+        for (Sort.Order order : sort) {
+            if (!PENDING_SORT_PROPERTY.equals(order.getProperty())) {
+                throw new IllegalArgumentException(
+                        "Pending jobs can only be sorted by '" + PENDING_SORT_PROPERTY + "', not '"
+                                + order.getProperty() + "'");
+            }
+            newestFirst = order.isDescending();
+        }
+        return newestFirst;
+    }
+
+    private static PendingJob toPendingJob(PendingJobQuery.Row row, Map<String, String> configTitlesByTenant) {
+        String tenantId = row.tenantVariable();
+        String requestId = null;
+        String status = PendingJob.STATUS_UNWIRED;
+        if (row.waitFor() != null) {
+            status = PendingJob.STATUS_WAITING;
+            try {
+                // A generate-documents batch waits for its batch path; the row's requestId is the batchId.
+                String[] parts = BatchResults.isBatchPath(row.waitFor())
+                        ? BatchResults.parseBatchPath(row.waitFor())
+                        : EpistolaMessageCorrelationService.parseJobPath(row.waitFor());
+                tenantId = parts[0];
+                requestId = parts[1];
+            } catch (IllegalArgumentException e) {
+                log.warn("Pending job for execution {} has an invalid {} token: {}",
+                        row.executionId(), EpistolaProcessVariables.WAIT_FOR, e.getMessage());
+            }
+        }
+        return new PendingJob(
+                row.executionId(),
+                row.processInstanceId(),
+                row.processDefinitionKey(),
+                row.processDefinitionName(),
+                row.activityId(),
+                row.activityName(),
+                tenantId,
+                requestId,
+                tenantId != null ? configTitlesByTenant.getOrDefault(tenantId, tenantId) : null,
+                status,
+                row.waitingSince()
+        );
+    }
+
     /**
      * Manual recovery for a stuck Epistola catch event.
      *
@@ -421,13 +599,193 @@ public class EpistolaAdminService {
                     "Execution " + executionId + " has no " + EpistolaProcessVariables.WAIT_FOR + " variable");
         }
 
+        if (BatchResults.isBatchPath(jobPath)) {
+            return reconcileBatch(execution, jobPath, this::findPluginForTenant);
+        }
+
         String[] parts = EpistolaMessageCorrelationService.parseJobPath(jobPath);
         String tenantId = parts[0];
         String requestId = parts[1];
 
-        EpistolaPlugin plugin = findPluginForTenant(tenantId);
-        GenerationJobDetail detail = epistolaService.getJobStatus(
-                plugin.getBaseUrl(), plugin.getApiKey(), tenantId, requestId);
+        return reconcileJob(execution, tenantId, requestId, jobStatus(tenantId, requestId));
+    }
+
+    /**
+     * Reconcile every catch event currently waiting for an Epistola result, optionally only those of
+     * one tenant. This is the bulk form of {@link #reconcile(String)} for the aftermath of an
+     * incident, when hundreds of catch events are stuck at once.
+     *
+     * <p>The waiting executions are grouped by tenant, and the plugin configurations are loaded at most
+     * once for the whole run. Per tenant, the job statuses that are not in the local job result store
+     * are fetched concurrently in the admin lane (Epistola has no batch status endpoint). The terminal
+     * jobs are then correlated one at a time on the calling thread, exactly as a single reconcile would.
+     * Every execution is reported on {@code progress} as soon as it is handled; a failure for one
+     * execution is reported there and does not stop the run.
+     *
+     * @param tenantId only reconcile this tenant's executions; {@code null} for all tenants
+     * @param progress receives one {@link BulkReconcileProgress} per waiting execution
+     * @return the totals of the run
+     */
+    public BulkReconcileSummary reconcileAll(String tenantId, Consumer<BulkReconcileProgress> progress) {
+        long started = System.nanoTime();
+        List<Execution> waitingExecutions = runtimeService.createExecutionQuery()
+                .messageEventSubscriptionName(EpistolaProcessVariables.MESSAGE_NAME)
+                .list();
+
+        // First-seen tenant order, so the stream follows the order of the pending-jobs list.
+        Map<String, List<WaitingJob>> jobsByTenant = new LinkedHashMap<>();
+        // Executions without a readable correlation token: nothing to look up (see getPendingJobs()).
+        Map<String, String> unreadable = new LinkedHashMap<>();
+        for (Execution execution : waitingExecutions) {
+            WaitingJob job;
+            try {
+                job = waitingJob(execution);
+            } catch (Exception e) {
+                unreadable.put(execution.getId(), describe(e));
+                continue;
+            }
+            if (job == null) {
+                unreadable.put(execution.getId(),
+                        "Execution has no " + EpistolaProcessVariables.WAIT_FOR + " variable");
+            } else if (tenantId == null || tenantId.equals(job.tenantId())) {
+                jobsByTenant.computeIfAbsent(job.tenantId(), key -> new ArrayList<>()).add(job);
+            }
+        }
+
+        int total = jobsByTenant.values().stream().mapToInt(List::size).sum()
+                + (tenantId == null ? unreadable.size() : 0);
+        BulkReconcileTally tally = new BulkReconcileTally(total, progress);
+        log.info("Bulk reconcile: {} waiting execution(s) across {} tenant(s)", total, jobsByTenant.size());
+
+        if (tenantId == null) {
+            unreadable.forEach(tally::failed);
+        }
+
+        TenantPlugins plugins = new TenantPlugins();
+        int parallelism = bulkSubmitter.parallelism(null);
+        for (Map.Entry<String, List<WaitingJob>> group : jobsByTenant.entrySet()) {
+            String tenant = group.getKey();
+            List<WaitingJob> singles = group.getValue().stream().filter(job -> job.batchPath() == null).toList();
+
+            List<BulkSubmitter.Outcome<GenerationJobDetail>> statuses = bulkSubmitter.submitAll(singles, parallelism,
+                    job -> knownResult(tenant, job.requestId())
+                            .orElseGet(() -> remoteJobStatus(plugins.forTenant(tenant), tenant, job.requestId())));
+            for (int i = 0; i < singles.size(); i++) {
+                WaitingJob job = singles.get(i);
+                BulkSubmitter.Outcome<GenerationJobDetail> status = statuses.get(i);
+                if (!status.succeeded()) {
+                    tally.failed(job.execution().getId(), describe(status.error()));
+                    continue;
+                }
+                try {
+                    tally.reconciled(reconcileJob(job.execution(), tenant, job.requestId(), status.value()));
+                } catch (Exception e) {
+                    log.warn("Bulk reconcile: correlation failed for execution {}: {}",
+                            job.execution().getId(), e.getMessage());
+                    tally.failed(job.execution().getId(), describe(e));
+                }
+            }
+
+            for (WaitingJob job : group.getValue()) {
+                if (job.batchPath() == null) {
+                    continue;
+                }
+                try {
+                    tally.reconciled(reconcileBatch(job.execution(), job.batchPath(), plugins::forTenant));
+                } catch (Exception e) {
+                    log.warn("Bulk reconcile: batch reconcile failed for execution {}: {}",
+                            job.execution().getId(), e.getMessage());
+                    tally.failed(job.execution().getId(), describe(e));
+                }
+            }
+        }
+
+        BulkReconcileSummary summary = tally.summary(Duration.ofNanos(System.nanoTime() - started).toMillis());
+        log.info("Bulk reconcile finished: {}", summary);
+        return summary;
+    }
+
+    /** A waiting execution with its parsed correlation token; {@code null} when it has none. */
+    private WaitingJob waitingJob(Execution execution) {
+        if (!(runtimeService.getVariable(execution.getId(), EpistolaProcessVariables.WAIT_FOR)
+                instanceof String jobPath)) {
+            return null;
+        }
+        if (BatchResults.isBatchPath(jobPath)) {
+            return new WaitingJob(execution, BatchResults.parseBatchPath(jobPath)[0], null, jobPath);
+        }
+        String[] parts = EpistolaMessageCorrelationService.parseJobPath(jobPath);
+        return new WaitingJob(execution, parts[0], parts[1], null);
+    }
+
+    private record WaitingJob(Execution execution, String tenantId, String requestId, String batchPath) {}
+
+    private static String describe(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    /** Running totals of a bulk reconcile, forwarding every handled execution to the progress listener. */
+    private static final class BulkReconcileTally {
+
+        private final int total;
+        private final Consumer<BulkReconcileProgress> progress;
+        private int processed;
+        private int correlated;
+        private int stillPending;
+        private int failed;
+
+        private BulkReconcileTally(int total, Consumer<BulkReconcileProgress> progress) {
+            this.total = total;
+            this.progress = progress;
+        }
+
+        void reconciled(ReconcileResult result) {
+            if (result.correlated()) {
+                correlated++;
+            } else {
+                stillPending++;
+            }
+            progress.accept(new BulkReconcileProgress(++processed, total, result.executionId(), result, null));
+        }
+
+        void failed(String executionId, String error) {
+            failed++;
+            progress.accept(new BulkReconcileProgress(++processed, total, executionId, null, error));
+        }
+
+        BulkReconcileSummary summary(long durationMs) {
+            return new BulkReconcileSummary(total, correlated, stillPending, failed, durationMs);
+        }
+    }
+
+    /**
+     * Plugin per tenant for one bulk reconcile: the configurations are loaded on the first lookup,
+     * which is skipped entirely when every status comes from the local job result store. Looked up
+     * from the status-fetching threads, hence synchronized.
+     */
+    private final class TenantPlugins {
+
+        private Map<String, EpistolaPlugin> byTenant;
+
+        synchronized EpistolaPlugin forTenant(String tenantId) {
+            if (byTenant == null) {
+                byTenant = new HashMap<>();
+                for (PluginConfigEntry entry : loadPluginConfigurations()) {
+                    byTenant.putIfAbsent(entry.plugin().getTenantId(), entry.plugin());
+                }
+            }
+            EpistolaPlugin plugin = byTenant.get(tenantId);
+            if (plugin == null) {
+                throw new IllegalArgumentException(
+                        "No Epistola plugin configuration found for tenantId=" + tenantId);
+            }
+            return plugin;
+        }
+    }
+
+    /** Correlate one waiting execution with its job's status when that status is terminal. */
+    private ReconcileResult reconcileJob(Execution execution, String tenantId, String requestId,
+                                         GenerationJobDetail detail) {
         GenerationJobStatus status = detail.getStatus();
 
         if (!isTerminal(status)) {
@@ -465,6 +823,90 @@ public class EpistolaAdminService {
         );
     }
 
+    /**
+     * Reconcile a catch event waiting for a {@code generate-documents} batch: fetch the status of every
+     * item without a recorded result and correlate the finished ones, which wakes the catch event once the
+     * last item is in. {@code correlated} is {@code false} when no pending item had finished.
+     */
+    private ReconcileResult reconcileBatch(Execution execution, String batchPath,
+                                           Function<String, EpistolaPlugin> pluginForTenant) {
+        String[] parts = BatchResults.parseBatchPath(batchPath);
+        String tenantId = parts[0];
+        String batchId = parts[1];
+
+        // The batch locator (named by the batch path) holds the result-variable name.
+        if (!(runtimeService.getVariable(execution.getId(), batchPath) instanceof String resultVariable)
+                || !(runtimeService.getVariable(execution.getId(), resultVariable) instanceof Map<?, ?> batch)) {
+            throw new IllegalArgumentException(
+                    "Execution " + execution.getId() + " has no batch result for " + batchPath);
+        }
+
+        // Resolved on the first item not known locally, so a batch loads the configurations at most once.
+        EpistolaPlugin plugin = null;
+        // Track the batch locally, starting from the item results recorded so far: once the last item is
+        // correlated the process may have moved on.
+        List<Object> recorded = runtimeService.createVariableInstanceQuery()
+                .processInstanceIdIn(execution.getProcessInstanceId())
+                .variableNameLike(BatchResults.itemResultVariablePattern(batchPath))
+                .list().stream()
+                .map(VariableInstance::getValue)
+                .toList();
+        Map<?, ?> current = Objects.requireNonNullElse(BatchResults.withItemResults(batch, recorded), batch);
+        int finishedItems = 0;
+        int count = 0;
+        for (String requestId : BatchResults.pendingRequestIds(current)) {
+            Optional<GenerationJobDetail> known = knownResult(tenantId, requestId);
+            if (known.isEmpty() && plugin == null) {
+                plugin = pluginForTenant.apply(tenantId);
+            }
+            GenerationJobDetail detail = known.isPresent()
+                    ? known.get()
+                    : remoteJobStatus(plugin, tenantId, requestId);
+            if (isTerminal(detail.getStatus())) {
+                count += correlationService.correlateCompletion(tenantId, requestId, detail.getStatus().name(),
+                        detail.getDocumentId(), detail.getErrorMessage());
+                current = BatchResults.withItemResult(current, requestId, detail.getStatus().name(),
+                        detail.getDocumentId(), detail.getErrorMessage());
+                finishedItems++;
+            }
+        }
+        Object status = current.get(EpistolaProcessVariables.RESULT_KEY_STATUS);
+        log.info("Reconcile: batch executionId={} (tenantId={}, batchId={}): {} item(s) finished, status={}, "
+                        + "{} instance(s) woken",
+                execution.getId(), tenantId, batchId, finishedItems, status, count);
+
+        return new ReconcileResult(
+                execution.getId(),
+                execution.getProcessInstanceId(),
+                tenantId,
+                batchId,
+                status != null ? status.toString() : null,
+                finishedItems > 0 ? count : null,
+                finishedItems > 0
+        );
+    }
+
+    /**
+     * Status of a job for a reconcile: the result the collector already received if it is in the
+     * local store, otherwise asked at Epistola in the admin lane.
+     */
+    private GenerationJobDetail jobStatus(String tenantId, String requestId) {
+        return knownResult(tenantId, requestId)
+                .orElseGet(() -> remoteJobStatus(findPluginForTenant(tenantId), tenantId, requestId));
+    }
+
+    private Optional<GenerationJobDetail> knownResult(String tenantId, String requestId) {
+        Optional<GenerationJobDetail> known = resultCollectorRunner.findResult(tenantId, requestId);
+        known.ifPresent(detail -> log.debug(
+                "Reconcile: tenantId={}, requestId={} answered from the local job result store", tenantId, requestId));
+        return known;
+    }
+
+    private GenerationJobDetail remoteJobStatus(EpistolaPlugin plugin, String tenantId, String requestId) {
+        return EpistolaTrafficClass.callAs(EpistolaTrafficClass.ADMIN,
+                () -> epistolaService.getJobStatus(plugin.getBaseUrl(), plugin.getApiKey(), tenantId, requestId));
+    }
+
     private static boolean isTerminal(GenerationJobStatus status) {
         return status == GenerationJobStatus.COMPLETED
                 || status == GenerationJobStatus.FAILED
@@ -608,20 +1050,17 @@ public class EpistolaAdminService {
         return activityId;
     }
 
-    private String resolveConfigurationTitle(PluginConfigurationId configurationId) {
+    private Map<PluginConfigurationId, String> loadConfigurationTitles() {
+        Map<PluginConfigurationId, String> titles = new HashMap<>();
         try {
-            List<?> configurations = pluginService.findPluginConfigurations(
-                    EpistolaPlugin.class, props -> true);
-            for (Object config : configurations) {
+            for (Object config : pluginService.findPluginConfigurations(EpistolaPlugin.class, props -> true)) {
                 PluginConfiguration pluginConfig = (PluginConfiguration) config;
-                if (pluginConfig.getId().equals(configurationId)) {
-                    return pluginConfig.getTitle();
-                }
+                titles.put(pluginConfig.getId(), pluginConfig.getTitle());
             }
         } catch (Exception e) {
-            log.debug("Could not resolve configuration title for '{}': {}", configurationId, e.getMessage());
+            log.debug("Could not resolve configuration titles: {}", e.getMessage());
         }
-        return configurationId.toString();
+        return titles;
     }
 
     @SuppressWarnings("removal")
@@ -645,7 +1084,7 @@ public class EpistolaAdminService {
 
         EpistolaPlugin plugin;
         try {
-            plugin = (EpistolaPlugin) pluginService.createInstance(link.getPluginConfigurationId());
+            plugin = refCache.plugin(link.getPluginConfigurationId());
         } catch (Exception e) {
             problems.add("Plugin configuration not found or invalid: " + e.getMessage());
             return problems;
@@ -708,25 +1147,45 @@ public class EpistolaAdminService {
     }
 
     /**
-     * Per-{@link #getPluginUsage()}-invocation memo of which catalog/template/variant
-     * ids exist in the connected Epistola installation. Created fresh per call so an
-     * admin refresh sees current state. A failed fetch is memoized as
-     * {@link Optional#empty()} so an unreachable config is not re-probed for every
-     * link (a plain nullable Set would not stick — {@code computeIfAbsent} does not
-     * store {@code null}). Non-static so it closes over {@code epistolaService}/{@code log}.
+     * Per-{@link #getPluginUsage(Map)}-invocation memo of the plugin instances and of which
+     * catalog/template/variant ids exist in the connected Epistola installation. Created fresh per
+     * call so an admin refresh sees current state. Shared by the concurrent problem checks of one
+     * call: the first caller of a key fetches it and the others wait for that result, so every
+     * distinct lookup runs once. A failed fetch is memoized as {@link Optional#empty()} so an
+     * unreachable config is not re-probed for every link. Non-static so it closes over
+     * {@code epistolaService}/{@code log}.
      */
     private final class EpistolaReferenceCache {
 
-        private final Map<String, Optional<Set<String>>> catalogIdsByConfig = new HashMap<>();
-        private final Map<String, Optional<Set<String>>> templateIdsByConfigCatalog = new HashMap<>();
-        private final Map<String, Optional<Set<String>>> variantIdsByConfigCatalogTemplate = new HashMap<>();
+        private final Map<PluginConfigurationId, CompletableFuture<EpistolaPlugin>> pluginsByConfig =
+                new ConcurrentHashMap<>();
+        private final Map<String, CompletableFuture<Optional<Set<String>>>> idsByKey = new ConcurrentHashMap<>();
+
+        /** The plugin instance for a configuration; rethrows the creation failure for every caller. */
+        EpistolaPlugin plugin(PluginConfigurationId configurationId) {
+            CompletableFuture<EpistolaPlugin> created = new CompletableFuture<>();
+            CompletableFuture<EpistolaPlugin> existing = pluginsByConfig.putIfAbsent(configurationId, created);
+            if (existing == null) {
+                try {
+                    created.complete((EpistolaPlugin) pluginService.createInstance(configurationId));
+                } catch (Exception e) {
+                    created.completeExceptionally(e);
+                }
+                existing = created;
+            }
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
 
         /** Present = the existing-id set; empty = lookup failed (caller must skip the check). */
         Optional<Set<String>> catalogIds(String configId, EpistolaPlugin plugin) {
-            return catalogIdsByConfig.computeIfAbsent(configId, k -> {
+            return memoized("catalogs|" + configId, () -> {
                 try {
-                    return Optional.of(epistolaService
-                            .getCatalogs(plugin.getBaseUrl(), plugin.getApiKey(), plugin.getTenantId())
+                    return Optional.of(EpistolaTrafficClass.callAs(EpistolaTrafficClass.ADMIN, () -> epistolaService
+                            .getCatalogs(plugin.getBaseUrl(), plugin.getApiKey(), plugin.getTenantId()))
                             .stream().map(CatalogInfo::id).collect(Collectors.toSet()));
                 } catch (Exception e) {
                     log.debug("Catalog existence check skipped for config {}: {}",
@@ -737,11 +1196,11 @@ public class EpistolaAdminService {
         }
 
         Optional<Set<String>> templateIds(String configId, String catalogId, EpistolaPlugin plugin) {
-            return templateIdsByConfigCatalog.computeIfAbsent(configId + '|' + catalogId, k -> {
+            return memoized("templates|" + configId + '|' + catalogId, () -> {
                 try {
-                    return Optional.of(epistolaService
+                    return Optional.of(EpistolaTrafficClass.callAs(EpistolaTrafficClass.ADMIN, () -> epistolaService
                             .getTemplates(plugin.getBaseUrl(), plugin.getApiKey(),
-                                    plugin.getTenantId(), catalogId)
+                                    plugin.getTenantId(), catalogId))
                             .stream().map(TemplateInfo::id).collect(Collectors.toSet()));
                 } catch (Exception e) {
                     log.debug("Template existence check skipped for config {} catalog {}: {}",
@@ -753,20 +1212,31 @@ public class EpistolaAdminService {
 
         Optional<Set<String>> variantIds(String configId, String catalogId,
                                           String templateId, EpistolaPlugin plugin) {
-            return variantIdsByConfigCatalogTemplate.computeIfAbsent(
-                    configId + '|' + catalogId + '|' + templateId, k -> {
-                        try {
-                            return Optional.of(epistolaService
-                                    .getVariants(plugin.getBaseUrl(), plugin.getApiKey(),
-                                            plugin.getTenantId(), catalogId, templateId)
-                                    .stream().map(VariantInfo::id).collect(Collectors.toSet()));
-                        } catch (Exception e) {
-                            log.debug("Variant existence check skipped for config {} "
-                                    + "catalog {} template {}: {}",
-                                    configId, catalogId, templateId, e.getMessage());
-                            return Optional.empty();
-                        }
-                    });
+            return memoized("variants|" + configId + '|' + catalogId + '|' + templateId, () -> {
+                try {
+                    return Optional.of(EpistolaTrafficClass.callAs(EpistolaTrafficClass.ADMIN, () -> epistolaService
+                            .getVariants(plugin.getBaseUrl(), plugin.getApiKey(),
+                                    plugin.getTenantId(), catalogId, templateId))
+                            .stream().map(VariantInfo::id).collect(Collectors.toSet()));
+                } catch (Exception e) {
+                    log.debug("Variant existence check skipped for config {} "
+                            + "catalog {} template {}: {}",
+                            configId, catalogId, templateId, e.getMessage());
+                    return Optional.empty();
+                }
+            });
+        }
+
+        /** {@code fetch} must not throw: a failure is memoized as its empty result. */
+        private Optional<Set<String>> memoized(String key, Supplier<Optional<Set<String>>> fetch) {
+            CompletableFuture<Optional<Set<String>>> fetched = new CompletableFuture<>();
+            CompletableFuture<Optional<Set<String>>> existing = idsByKey.putIfAbsent(key, fetched);
+            if (existing != null) {
+                return existing.join();
+            }
+            Optional<Set<String>> ids = fetch.get();
+            fetched.complete(ids);
+            return ids;
         }
     }
 
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.admin;
+
+import app.epistola.valtimo.domain.EpistolaProcessVariables;
+import app.epistola.valtimo.web.rest.dto.PendingJobSummary.ActivityCount;
+import org.operaton.bpm.engine.ManagementService;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.RuntimeService;
+import org.operaton.bpm.engine.runtime.EventSubscription;
+import org.operaton.bpm.engine.runtime.EventSubscriptionQuery;
+import org.operaton.bpm.engine.runtime.Execution;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.operaton.bpm.engine.runtime.VariableInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the process instances waiting for an Epistola result a page at a time, with a fixed number
+ * of queries per page however many instances are waiting.
+ * <p>
+ * A page is a page of {@code EpistolaDocumentGenerated} message subscriptions, which carry the
+ * waiting execution and its catch-event activity. The {@code epistolaWaitFor} tokens of the page
+ * are then read in one variable query, the tenant variables of its unwired waits in another, and
+ * the process definitions of its instances in a third. Definition and activity names come from a
+ * {@link ProcessDefinitionNames} cache, so a BPMN model is parsed once per definition, not once per
+ * row.
+ * <p>
+ * The aggregate counts are a single query over the engine's runtime tables, grouped by catch event
+ * and tenant in the database, so only one row per group is read. The engine's table prefix is
+ * honoured.
+ */
+public class PendingJobQuery {
+
+    private static final String MESSAGE_EVENT_TYPE = "message";
+
+    private static final String EXECUTION_TABLE = "ACT_RU_EXECUTION";
+
+    /** Filled with the engine's table prefix. */
+    private static final String COUNTS_QUERY = """
+            select s.ACTIVITY_ID_, x.PROC_DEF_ID_, t.TEXT_, count(*), count(w.ID_)
+              from %1$sACT_RU_EVENT_SUBSCR s
+              join %1$sACT_RU_EXECUTION x on x.ID_ = s.EXECUTION_ID_
+              left join %1$sACT_RU_VARIABLE w on w.EXECUTION_ID_ = s.EXECUTION_ID_ and w.NAME_ = ?
+              left join %1$sACT_RU_VARIABLE t on t.EXECUTION_ID_ = s.PROC_INST_ID_ and t.NAME_ = ?
+             where s.EVENT_TYPE_ = ? and s.EVENT_NAME_ = ?
+             group by s.ACTIVITY_ID_, x.PROC_DEF_ID_, t.TEXT_""";
+
+    private final RuntimeService runtimeService;
+    private final ManagementService managementService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProcessDefinitionNames definitionNames;
+    private volatile String countsQuery;
+
+    public PendingJobQuery(RuntimeService runtimeService, RepositoryService repositoryService,
+                           ManagementService managementService, JdbcTemplate jdbcTemplate) {
+        this.runtimeService = runtimeService;
+        this.managementService = managementService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.definitionNames = new ProcessDefinitionNames(repositoryService,
+                ProcessDefinitionNames.DEFAULT_MAX_DEFINITIONS);
+    }
+
+    /** Number of waiting instances. */
+    public long count() {
+        return subscriptions().count();
+    }
+
+    /**
+     * One page of waiting instances, ordered by when their catch event subscribed.
+     *
+     * @param firstResult index of the first row, from 0
+     * @param maxResults  page size
+     * @param newestFirst {@code true} for the most recent waits first, {@code false} for the oldest
+     */
+    public List<Row> page(int firstResult, int maxResults, boolean newestFirst) {
+        EventSubscriptionQuery query = subscriptions().orderByCreated();
+        List<EventSubscription> page = (newestFirst ? query.desc() : query.asc()).listPage(firstResult, maxResults);
+        if (page.isEmpty()) {
+            return List.of();
+        }
+
+        String[] executionIds = page.stream().map(EventSubscription::getExecutionId).toArray(String[]::new);
+        Map<String, String> waitForByExecution = new HashMap<>();
+        for (VariableInstance variable : runtimeService.createVariableInstanceQuery()
+                .variableName(EpistolaProcessVariables.WAIT_FOR)
+                .executionIdIn(executionIds)
+                .disableBinaryFetching()
+                .list()) {
+            if (variable.getValue() instanceof String waitFor) {
+                waitForByExecution.put(variable.getExecutionId(), waitFor);
+            }
+        }
+
+        Set<String> processInstanceIds = new HashSet<>();
+        Set<String> unwiredInstanceIds = new HashSet<>();
+        for (EventSubscription subscription : page) {
+            processInstanceIds.add(subscription.getProcessInstanceId());
+            if (!waitForByExecution.containsKey(subscription.getExecutionId())) {
+                unwiredInstanceIds.add(subscription.getProcessInstanceId());
+            }
+        }
+        Map<String, String> tenantByInstance = unwiredInstanceIds.isEmpty()
+                ? Map.of()
+                : instanceTenantVariables(unwiredInstanceIds);
+
+        Map<String, String> definitionByInstance = new HashMap<>();
+        for (ProcessInstance instance : runtimeService.createProcessInstanceQuery()
+                .processInstanceIds(processInstanceIds)
+                .list()) {
+            definitionByInstance.put(instance.getId(), instance.getProcessDefinitionId());
+        }
+
+        List<Row> rows = new ArrayList<>(page.size());
+        for (EventSubscription subscription : page) {
+            String definitionId = definitionByInstance.get(subscription.getProcessInstanceId());
+            ProcessDefinitionNames.Names names = definitionId != null ? definitionNames.of(definitionId) : null;
+            rows.add(new Row(
+                    subscription.getExecutionId(),
+                    subscription.getProcessInstanceId(),
+                    names != null ? names.key() : null,
+                    names != null ? names.displayName() : null,
+                    subscription.getActivityId(),
+                    names != null ? names.activityName(subscription.getActivityId()) : subscription.getActivityId(),
+                    waitForByExecution.get(subscription.getExecutionId()),
+                    tenantByInstance.get(subscription.getProcessInstanceId()),
+                    subscription.getCreated() != null ? subscription.getCreated().toInstant() : null));
+        }
+        return rows;
+    }
+
+    /**
+     * Counts of all waiting instances per Epistola tenant and per catch-event activity. The tenant of
+     * a wait is the instance's {@code epistolaTenantId} variable, which every Epistola action writes
+     * next to the correlation token; it is {@code null} when the instance has none.
+     */
+    public Counts counts() {
+        CountingHandler handler = new CountingHandler();
+        jdbcTemplate.query(countsQuery(), handler,
+                EpistolaProcessVariables.WAIT_FOR, EpistolaProcessVariables.TENANT_ID,
+                MESSAGE_EVENT_TYPE, EpistolaProcessVariables.MESSAGE_NAME);
+
+        // Versions of one definition are merged: the operator thinks in process and catch event.
+        Map<Activity, ActivityCount> byActivity = new LinkedHashMap<>();
+        handler.byActivity.forEach((activity, count) -> {
+            ProcessDefinitionNames.Names names = definitionNames.of(activity.processDefinitionId());
+            String activityId = activity.activityId();
+            byActivity.merge(new Activity(names.key(), activityId),
+                    new ActivityCount(names.key(), names.displayName(), activityId,
+                            names.activityName(activityId), count),
+                    (a, b) -> new ActivityCount(a.processDefinitionKey(), a.processDefinitionName(),
+                            a.activityId(), a.activityName(), a.count() + b.count()));
+        });
+        List<ActivityCount> activities = new ArrayList<>(byActivity.values());
+        activities.sort(Comparator.comparingLong(ActivityCount::count).reversed());
+        return new Counts(handler.total, handler.unwired, handler.byTenant, activities);
+    }
+
+    /**
+     * The counts query with the engine's table prefix, resolved on first use. Of the tables it reads,
+     * only the execution table can be looked up through its public API type; the others share its
+     * prefix.
+     */
+    private String countsQuery() {
+        String query = countsQuery;
+        if (query == null) {
+            String executionTable = managementService.getTableName(Execution.class);
+            String prefix = executionTable.endsWith(EXECUTION_TABLE)
+                    ? executionTable.substring(0, executionTable.length() - EXECUTION_TABLE.length())
+                    : "";
+            query = COUNTS_QUERY.formatted(prefix);
+            countsQuery = query;
+        }
+        return query;
+    }
+
+    /** The tenant variable per process instance, read at instance scope, for waits without a token. */
+    private Map<String, String> instanceTenantVariables(Set<String> processInstanceIds) {
+        Map<String, String> tenantByInstance = new HashMap<>();
+        for (VariableInstance variable : runtimeService.createVariableInstanceQuery()
+                .variableName(EpistolaProcessVariables.TENANT_ID)
+                .processInstanceIdIn(processInstanceIds.toArray(String[]::new))
+                .disableBinaryFetching()
+                .list()) {
+            if (variable.getProcessInstanceId().equals(variable.getExecutionId())
+                    && variable.getValue() instanceof String tenantId) {
+                tenantByInstance.put(variable.getProcessInstanceId(), tenantId);
+            }
+        }
+        return tenantByInstance;
+    }
+
+    private EventSubscriptionQuery subscriptions() {
+        return runtimeService.createEventSubscriptionQuery()
+                .eventType(MESSAGE_EVENT_TYPE)
+                .eventName(EpistolaProcessVariables.MESSAGE_NAME);
+    }
+
+    /**
+     * A waiting instance as read from the engine. {@code waitFor} is its correlation token, or
+     * {@code null} for an unwired wait, which carries {@code tenantVariable} instead when it has one.
+     */
+    public record Row(
+            String executionId,
+            String processInstanceId,
+            String processDefinitionKey,
+            String processDefinitionName,
+            String activityId,
+            String activityName,
+            String waitFor,
+            String tenantVariable,
+            Instant waitingSince
+    ) {}
+
+    /**
+     * Aggregate counts; {@code byTenant} may hold a {@code null} key for waits whose tenant is
+     * unknown, and {@code byActivity} is sorted by count, highest first.
+     */
+    public record Counts(long total, long unwired, Map<String, Long> byTenant, List<ActivityCount> byActivity) {}
+
+    /** A catch event, identified by a process definition id or key and the activity id. */
+    private record Activity(String processDefinitionId, String activityId) {}
+
+    private static final class CountingHandler implements RowCallbackHandler {
+
+        private final Map<String, Long> byTenant = new HashMap<>();
+        private final Map<Activity, Long> byActivity = new HashMap<>();
+        private long total;
+        private long unwired;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String activityId = rs.getString(1);
+            String definitionId = rs.getString(2);
+            String tenantId = rs.getString(3);
+            long count = rs.getLong(4);
+            total += count;
+            unwired += count - rs.getLong(5);
+            byTenant.merge(tenantId, count, Long::sum);
+            byActivity.merge(new Activity(definitionId, activityId), count, Long::sum);
+        }
+    }
+}
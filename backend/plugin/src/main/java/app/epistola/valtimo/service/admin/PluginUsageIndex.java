@@ -0,0 +1,243 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.admin;
+
+import app.epistola.valtimo.deployment.EpistolaProcessDeployedEvent;
+import app.epistola.valtimo.deployment.EpistolaProcessLinksChangedEvent;
+import app.epistola.valtimo.web.rest.dto.PluginUsageEntry;
+import com.ritense.plugin.domain.PluginProcessLink;
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the admin page's plugin-usage overview ready to serve, instead of scanning every process
+ * definition, its process links, its BPMN and Epistola on each page load.
+ *
+ * <p>The index is maintained incrementally:
+ * <ul>
+ *   <li>an {@link EpistolaProcessDeployedEvent} marks that definition key dirty;</li>
+ *   <li>an {@link EpistolaProcessLinksChangedEvent} marks the keys of the changed definitions dirty; when
+ *       those are unknown it re-reads the Epistola links of every latest definition (one query per
+ *       definition, no BPMN parse or Epistola call for unchanged ones);</li>
+ *   <li>a definition is only recomputed when its latest version or its link signature (link id,
+ *       action, configuration and action properties) differs from what was indexed.</li>
+ * </ul>
+ * Pending changes are applied by {@link #refresh()} on a short fixed delay
+ * ({@code epistola.usage-index.refresh-interval-ms}). The reference-existence problems depend on
+ * Epistola, which publishes no change events, so the whole index is additionally rebuilt once per
+ * {@code epistola.usage-index.rebuild-interval} and on {@link #requestRebuild() request}.
+ *
+ * <p>Reads are lock-free: {@link #snapshot()} returns the last published {@link Snapshot}, whose
+ * {@link Snapshot#refreshedAt() refreshedAt} tells the caller how fresh it is. Only the very first read
+ * before any refresh builds the index synchronously.
+ */
+@Slf4j
+public class PluginUsageIndex {
+
+    /**
+     * A published view of the index.
+     *
+     * @param entries      the usage entries, ordered by process definition key
+     * @param refreshedAt  when the index last applied changes
+     * @param rebuiltAt    when the index was last rebuilt from scratch (including the Epistola checks)
+     */
+    public record Snapshot(List<PluginUsageEntry> entries, Instant refreshedAt, Instant rebuiltAt) {}
+
+    private record IndexedDefinition(String processDefinitionId, String linkSignature,
+                                     List<PluginUsageEntry> entries) {}
+
+    private final EpistolaAdminService adminService;
+    private final RepositoryService repositoryService;
+    private final Duration rebuildInterval;
+
+    /** Indexed latest definitions with Epistola links, by definition key. Guarded by {@code this}. */
+    private final Map<String, IndexedDefinition> definitionsByKey = new TreeMap<>();
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(null);
+    private volatile boolean linksChanged;
+    private volatile boolean rebuildRequested = true;
+
+    public PluginUsageIndex(EpistolaAdminService adminService, RepositoryService repositoryService,
+                            Duration rebuildInterval) {
+        this.adminService = adminService;
+        this.repositoryService = repositoryService;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    @EventListener
+    public void onProcessDeployed(EpistolaProcessDeployedEvent event) {
+        dirtyKeys.add(event.processDefinitionKey());
+    }
+
+    @EventListener
+    public void onProcessLinksChanged(EpistolaProcessLinksChangedEvent event) {
+        if (event.affectsAllDefinitions()) {
+            linksChanged = true;
+        } else {
+            dirtyKeys.addAll(event.processDefinitionKeys());
+        }
+    }
+
+    /** Have the next {@link #refresh()} rebuild the whole index, re-checking every reference in Epistola. */
+    public void requestRebuild() {
+        rebuildRequested = true;
+    }
+
+    /**
+     * The current usage overview, building the index first if it has never been built; {@code null}
+     * when that first build fails.
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            refresh();
+            current = snapshot.get();
+        }
+        return current;
+    }
+
+    /**
+     * Apply pending changes: a full rebuild when one is requested or due, otherwise only the dirty
+     * definitions. A no-op when nothing changed.
+     */
+    @Scheduled(fixedDelayString = "${epistola.usage-index.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        Instant now = Instant.now();
+        Snapshot current = snapshot.get();
+        boolean rebuild = rebuildRequested || current == null
+                || !now.isBefore(current.rebuiltAt().plus(rebuildInterval));
+        if (!rebuild && !linksChanged && dirtyKeys.isEmpty()) {
+            return;
+        }
+        try {
+            if (rebuild) {
+                rebuild(now);
+            } else {
+                applyChanges(now, current.rebuiltAt());
+            }
+        } catch (RuntimeException e) {
+            // Pending changes were consumed; recover them with a full rebuild on the next tick.
+            rebuildRequested = true;
+            log.warn("Failed to refresh the Epistola plugin usage index: {}", e.getMessage(), e);
+        }
+    }
+
+    private void rebuild(Instant now) {
+        rebuildRequested = false;
+        linksChanged = false;
+        dirtyKeys.clear();
+        Map<ProcessDefinition, List<PluginProcessLink>> linksByDefinition = new LinkedHashMap<>();
+        for (ProcessDefinition definition : latestDefinitions()) {
+            List<PluginProcessLink> links = adminService.getEpistolaProcessLinks(definition.getId());
+            if (!links.isEmpty()) {
+                linksByDefinition.put(definition, links);
+            }
+        }
+        definitionsByKey.clear();
+        index(linksByDefinition);
+        publish(now, now);
+        log.debug("Rebuilt the Epistola plugin usage index: {} process definitions", definitionsByKey.size());
+    }
+
+    private void applyChanges(Instant now, Instant rebuiltAt) {
+        List<ProcessDefinition> candidates;
+        if (linksChanged) {
+            linksChanged = false;
+            dirtyKeys.clear();
+            candidates = latestDefinitions();
+            Set<String> latestKeys = candidates.stream().map(ProcessDefinition::getKey).collect(Collectors.toSet());
+            definitionsByKey.keySet().retainAll(latestKeys);
+        } else {
+            candidates = new ArrayList<>();
+            for (String key : List.copyOf(dirtyKeys)) {
+                dirtyKeys.remove(key);
+                ProcessDefinition latest = repositoryService.createProcessDefinitionQuery()
+                        .processDefinitionKey(key)
+                        .latestVersion()
+                        .singleResult();
+                if (latest != null) {
+                    candidates.add(latest);
+                } else {
+                    definitionsByKey.remove(key);
+                }
+            }
+        }
+
+        Map<ProcessDefinition, List<PluginProcessLink>> changed = new LinkedHashMap<>();
+        for (ProcessDefinition definition : candidates) {
+            List<PluginProcessLink> links = adminService.getEpistolaProcessLinks(definition.getId());
+            IndexedDefinition indexed = definitionsByKey.get(definition.getKey());
+            if (links.isEmpty()) {
+                definitionsByKey.remove(definition.getKey());
+            } else if (indexed == null
+                    || !indexed.processDefinitionId().equals(definition.getId())
+                    || !indexed.linkSignature().equals(signature(links))) {
+                changed.put(definition, links);
+            }
+        }
+        index(changed);
+        publish(now, rebuiltAt);
+        log.debug("Refreshed {} of {} candidate process definitions in the Epistola plugin usage index",
+                changed.size(), candidates.size());
+    }
+
+    private void index(Map<ProcessDefinition, List<PluginProcessLink>> linksByDefinition) {
+        Map<String, List<PluginUsageEntry>> entriesByKey = adminService.getPluginUsage(linksByDefinition).stream()
+                .collect(Collectors.groupingBy(PluginUsageEntry::processDefinitionKey));
+        linksByDefinition.forEach((definition, links) -> definitionsByKey.put(definition.getKey(),
+                new IndexedDefinition(definition.getId(), signature(links),
+                        entriesByKey.getOrDefault(definition.getKey(), List.of()))));
+    }
+
+    private void publish(Instant refreshedAt, Instant rebuiltAt) {
+        List<PluginUsageEntry> entries = definitionsByKey.values().stream()
+                .flatMap(indexed -> indexed.entries().stream())
+                .toList();
+        snapshot.set(new Snapshot(entries, refreshedAt, rebuiltAt));
+    }
+
+    private List<ProcessDefinition> latestDefinitions() {
+        return repositoryService.createProcessDefinitionQuery()
+                .latestVersion()
+                .list();
+    }
+
+    /** What the usage entries of a definition version are derived from, apart from Epistola itself. */
+    private static String signature(List<PluginProcessLink> links) {
+        return links.stream()
+                .map(link -> link.getId() + "|" + link.getPluginActionDefinitionKey() + "|"
+                        + link.getPluginConfigurationId() + "|" + link.getActionProperties())
+                .sorted()
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.admin;
+
+import app.epistola.valtimo.service.BoundedLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.operaton.bpm.model.bpmn.BpmnModelInstance;
+import org.operaton.bpm.model.bpmn.instance.FlowElement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Display names of process definitions and their activities, cached by process definition id.
+ * <p>
+ * A deployed process definition never changes under its id, so an entry never goes stale; the
+ * cache is only bounded, evicting the least recently used definition. Loading an entry parses the
+ * BPMN model once and keeps just the names of its flow elements, not the model.
+ */
+@Slf4j
+class ProcessDefinitionNames {
+
+    static final int DEFAULT_MAX_DEFINITIONS = 256;
+
+    private final RepositoryService repositoryService;
+    private final BoundedLruCache<String, Names> byDefinitionId;
+
+    ProcessDefinitionNames(RepositoryService repositoryService, int maxDefinitions) {
+        this.repositoryService = repositoryService;
+        this.byDefinitionId = new BoundedLruCache<>(maxDefinitions);
+    }
+
+    /** The names for a process definition; falls back to the ids when the definition can't be read. */
+    Names of(String processDefinitionId) {
+        Names cached = byDefinitionId.get(processDefinitionId);
+        if (cached != null) {
+            return cached;
+        }
+        Names loaded = load(processDefinitionId);
+        if (loaded == null) {
+            // Not cached: the definition may just not be readable right now.
+            return new Names(keyOf(processDefinitionId), null, Map.of());
+        }
+        byDefinitionId.put(processDefinitionId, loaded);
+        return loaded;
+    }
+
+    private Names load(String processDefinitionId) {
+        try {
+            ProcessDefinition definition = repositoryService.getProcessDefinition(processDefinitionId);
+            Map<String, String> activityNames = new HashMap<>();
+            BpmnModelInstance model = repositoryService.getBpmnModelInstance(processDefinitionId);
+            if (model != null) {
+                for (FlowElement element : model.getModelElementsByType(FlowElement.class)) {
+                    if (element.getName() != null) {
+                        activityNames.put(element.getId(), element.getName());
+                    }
+                }
+            }
+            return new Names(definition.getKey(), definition.getName(), Map.copyOf(activityNames));
+        } catch (Exception e) {
+            log.debug("Could not resolve names for process definition '{}': {}", processDefinitionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /** Process definition ids are {@code key:version:uuid}. */
+    private static String keyOf(String processDefinitionId) {
+        int colon = processDefinitionId.indexOf(':');
+        return colon > 0 ? processDefinitionId.substring(0, colon) : processDefinitionId;
+    }
+
+    record Names(String key, String name, Map<String, String> activityNames) {
+
+        /** The definition name, or its key when it has none. */
+        String displayName() {
+            return name != null ? name : key;
+        }
+
+        /** The activity name, or its id when it has none. */
+        String activityName(String activityId) {
+            return activityId == null ? null : activityNames.getOrDefault(activityId, activityId);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.bulk;
+
+import app.epistola.valtimo.domain.EpistolaProcessVariables;
+import app.epistola.valtimo.service.completion.EpistolaMessageCorrelationService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_BATCH_ID;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_COMPLETED;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_DOCUMENT_ID;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_ERROR_MESSAGE;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_FAILED;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_INDEX;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_ITEMS;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_JOB_PATH;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_REQUEST_ID;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_STATUS;
+import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_TOTAL;
+
+/**
+ * Builds and updates the aggregate result object {@code generate-documents} stores on its result
+ * variable:
+ * <pre>
+ * {batchId, jobPath, status, total, completed, failed,
+ *  items: [{index, requestId, jobPath, status, documentId, errorMessage}, ...]}
+ * </pre>
+ * The batch {@code status} stays {@code PENDING} until every item is terminal, then becomes
+ * {@code COMPLETED} when all items completed and {@code FAILED} otherwise; the per-item entries say
+ * which ones failed and why. The batch {@code jobPath} ({@code epistola:batch:{tenantId}/{batchId}})
+ * is the token the batch's catch event waits for.
+ * <p>
+ * While the batch runs, each finished item's result is kept in its own variable
+ * ({@link #itemResultVariable}) and the number of submitted items in {@link #submittedCountVariable}.
+ * The aggregate is only rebuilt once, from those variables, when the last item has finished.
+ */
+public final class BatchResults {
+
+    private static final String ITEM_RESULT_SEPARATOR = "#item:";
+
+    private BatchResults() {}
+
+    /** One item of a batch as known right after submission. */
+    public record Item(int index, String requestId, String status, String errorMessage) {}
+
+    public static String buildBatchPath(String tenantId, String batchId) {
+        return EpistolaProcessVariables.BATCH_PATH_PREFIX + tenantId + "/" + batchId;
+    }
+
+    public static boolean isBatchPath(String path) {
+        return path != null && path.startsWith(EpistolaProcessVariables.BATCH_PATH_PREFIX);
+    }
+
+    /**
+     * Parse a batch path into its tenantId and batchId components.
+     *
+     * @throws IllegalArgumentException if the format is invalid
+     */
+    public static String[] parseBatchPath(String batchPath) {
+        if (!isBatchPath(batchPath)) {
+            throw new IllegalArgumentException("Invalid batch path: " + batchPath);
+        }
+        String remainder = batchPath.substring(EpistolaProcessVariables.BATCH_PATH_PREFIX.length());
+        int slashIndex = remainder.indexOf('/');
+        if (slashIndex <= 0 || slashIndex == remainder.length() - 1) {
+            throw new IllegalArgumentException("Invalid batch path: " + batchPath);
+        }
+        return new String[]{remainder.substring(0, slashIndex), remainder.substring(slashIndex + 1)};
+    }
+
+    /** The variable holding the result of one finished item until the batch is complete. */
+    public static String itemResultVariable(String batchPath, String requestId) {
+        return batchPath + ITEM_RESULT_SEPARATOR + requestId;
+    }
+
+    /** A {@code like} pattern matching the names of all {@link #itemResultVariable item result variables}. */
+    public static String itemResultVariablePattern(String batchPath) {
+        return batchPath + ITEM_RESULT_SEPARATOR + "%";
+    }
+
+    /** The variable holding how many items of the batch were submitted, i.e. how many results to wait for. */
+    public static String submittedCountVariable(String batchPath) {
+        return batchPath + "#submitted";
+    }
+
+    /** Whether a result-variable value is a batch aggregate (rather than a single-document result). */
+    public static boolean isBatchResult(Object value) {
+        return value instanceof Map<?, ?> map && map.get(RESULT_KEY_ITEMS) instanceof List<?>;
+    }
+
+    public static Map<String, Object> create(String tenantId, String batchId, List<Item> items) {
+        List<Map<String, Object>> entries = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put(RESULT_KEY_INDEX, item.index());
+            entry.put(RESULT_KEY_REQUEST_ID, item.requestId());
+            entry.put(RESULT_KEY_JOB_PATH, item.requestId() == null
+                    ? null
+                    : EpistolaMessageCorrelationService.buildJobPath(tenantId, item.requestId()));
+            entry.put(RESULT_KEY_STATUS, item.status());
+            entry.put(RESULT_KEY_DOCUMENT_ID, null);
+            entry.put(RESULT_KEY_ERROR_MESSAGE, item.errorMessage());
+            entries.add(entry);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(RESULT_KEY_BATCH_ID, batchId);
+        result.put(RESULT_KEY_JOB_PATH, buildBatchPath(tenantId, batchId));
+        result.put(RESULT_KEY_ITEMS, entries);
+        return summarize(result);
+    }
+
+    /**
+     * A copy of {@code batch} with the result of the item for {@code requestId} applied, or
+     * {@code null} when the batch has no such item.
+     */
+    public static Map<String, Object> withItemResult(Map<?, ?> batch, String requestId, String status,
+                                                     String documentId, String errorMessage) {
+        if (!(batch.get(RESULT_KEY_ITEMS) instanceof List<?> items)) {
+            return null;
+        }
+        boolean found = false;
+        List<Map<String, Object>> entries = new ArrayList<>(items.size());
+        for (Object item : items) {
+            Map<String, Object> entry = copy((Map<?, ?>) item);
+            if (requestId.equals(entry.get(RESULT_KEY_REQUEST_ID))) {
+                entry.put(RESULT_KEY_STATUS, status);
+                entry.put(RESULT_KEY_DOCUMENT_ID, documentId);
+                entry.put(RESULT_KEY_ERROR_MESSAGE, errorMessage);
+                found = true;
+            }
+            entries.add(entry);
+        }
+        if (!found) {
+            return null;
+        }
+        Map<String, Object> result = copy(batch);
+        result.put(RESULT_KEY_ITEMS, entries);
+        return summarize(result);
+    }
+
+    /**
+     * A copy of {@code batch} with the item results applied in one pass. Each item result is a map
+     * with {@code requestId}, {@code status}, {@code documentId} and {@code errorMessage}; results
+     * without a matching item are ignored. Returns {@code null} when {@code batch} has no items.
+     */
+    public static Map<String, Object> withItemResults(Map<?, ?> batch, Collection<?> itemResults) {
+        if (!(batch.get(RESULT_KEY_ITEMS) instanceof List<?> items)) {
+            return null;
+        }
+        Map<Object, Map<?, ?>> resultsByRequestId = new HashMap<>();
+        for (Object itemResult : itemResults) {
+            if (itemResult instanceof Map<?, ?> result && result.get(RESULT_KEY_REQUEST_ID) != null) {
+                resultsByRequestId.put(result.get(RESULT_KEY_REQUEST_ID), result);
+            }
+        }
+        List<Map<String, Object>> entries = new ArrayList<>(items.size());
+        for (Object item : items) {
+            Map<String, Object> entry = copy((Map<?, ?>) item);
+            Map<?, ?> result = resultsByRequestId.get(entry.get(RESULT_KEY_REQUEST_ID));
+            if (result != null) {
+                entry.put(RESULT_KEY_STATUS, result.get(RESULT_KEY_STATUS));
+                entry.put(RESULT_KEY_DOCUMENT_ID, result.get(RESULT_KEY_DOCUMENT_ID));
+                entry.put(RESULT_KEY_ERROR_MESSAGE, result.get(RESULT_KEY_ERROR_MESSAGE));
+            }
+            entries.add(entry);
+        }
+        Map<String, Object> result = copy(batch);
+        result.put(RESULT_KEY_ITEMS, entries);
+        return summarize(result);
+    }
+
+    /** Request ids of the items that have not reached a terminal status yet. */
+    public static List<String> pendingRequestIds(Map<?, ?> batch) {
+        List<String> pending = new ArrayList<>();
+        if (batch.get(RESULT_KEY_ITEMS) instanceof List<?> items) {
+            for (Object item : items) {
+                if (item instanceof Map<?, ?> entry
+                        && !EpistolaProcessVariables.isTerminalStatus(entry.get(RESULT_KEY_STATUS))
+                        && entry.get(RESULT_KEY_REQUEST_ID) instanceof String requestId) {
+                    pending.add(requestId);
+                }
+            }
+        }
+        return pending;
+    }
+
+    private static Map<String, Object> summarize(Map<String, Object> result) {
+        int total = 0;
+        int completed = 0;
+        int failed = 0;
+        for (Object item : (List<?>) result.get(RESULT_KEY_ITEMS)) {
+            Object status = ((Map<?, ?>) item).get(RESULT_KEY_STATUS);
+            total++;
+            if ("COMPLETED".equals(status)) {
+                completed++;
+            } else if (EpistolaProcessVariables.isTerminalStatus(status)) {
+                failed++;
+            }
+        }
+        String status = completed + failed < total ? "PENDING" : failed > 0 ? "FAILED" : "COMPLETED";
+        // Keep the key order stable: summary first, items last.
+        Map<String, Object> ordered = new LinkedHashMap<>();
+        ordered.put(RESULT_KEY_BATCH_ID, result.get(RESULT_KEY_BATCH_ID));
+        ordered.put(RESULT_KEY_JOB_PATH, result.get(RESULT_KEY_JOB_PATH));
+        ordered.put(RESULT_KEY_STATUS, status);
+        ordered.put(RESULT_KEY_TOTAL, total);
+        ordered.put(RESULT_KEY_COMPLETED, completed);
+        ordered.put(RESULT_KEY_FAILED, failed);
+        ordered.put(RESULT_KEY_ITEMS, result.get(RESULT_KEY_ITEMS));
+        return ordered;
+    }
+
+    private static Map<String, Object> copy(Map<?, ?> source) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        source.forEach((key, value) -> copy.put(String.valueOf(key), value));
+        return copy;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.bulk;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs a list of blocking calls concurrently on virtual threads, with at most a fixed number in
+ * flight at once, and returns one {@link Outcome} per input in input order.
+ * <p>
+ * Used to fan out the Epistola submissions of a bulk action: the caller prepares every request on
+ * its own thread (JSONata evaluation, process-variable reads — none of which is safe off the
+ * engine's thread) and only the HTTP calls run here. The parallelism cap keeps one batch from
+ * occupying every slot of the connection's bulkhead; the per-connection rate limiter and bulkhead
+ * still apply to each call on top of it.
+ */
+@Getter
+public class BulkSubmitter {
+
+    private final int defaultParallelism;
+    private final int maxParallelism;
+    private final int maxItems;
+
+    public BulkSubmitter(int defaultParallelism, int maxParallelism, int maxItems) {
+        if (defaultParallelism < 1 || maxParallelism < 1 || maxItems < 1) {
+            throw new IllegalArgumentException("Bulk parallelism and item limits must be at least 1");
+        }
+        this.defaultParallelism = Math.min(defaultParallelism, maxParallelism);
+        this.maxParallelism = maxParallelism;
+        this.maxItems = maxItems;
+    }
+
+    /** The effective parallelism for a requested value: the default when unset, capped at the maximum. */
+    public int parallelism(Integer requested) {
+        if (requested == null || requested < 1) {
+            return defaultParallelism;
+        }
+        return Math.min(requested, maxParallelism);
+    }
+
+    /**
+     * Apply {@code call} to every item with at most {@code parallelism} calls in flight, blocking
+     * until all have finished. Calls start in item order. A failing call yields a failed outcome
+     * for its item only.
+     */
+    public <T, R> List<Outcome<R>> submitAll(List<T> items, int parallelism, Function<T, R> call) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (T item : items) {
+                // Taking the permit before starting the call keeps the calls in item order.
+                permits.acquireUninterruptibly();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return call.apply(item);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        List<Outcome<R>> outcomes = new ArrayList<>(futures.size());
+        for (Future<R> future : futures) {
+            outcomes.add(outcomeOf(future));
+        }
+        return outcomes;
+    }
+
+    private static <R> Outcome<R> outcomeOf(Future<R> future) {
+        try {
+            return Outcome.success(future.get());
+        } catch (ExecutionException e) {
+            return Outcome.failure(e.getCause() != null ? e.getCause() : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.failure(e);
+        } catch (RuntimeException e) {
+            // CancellationException when the executor was shut down by an interrupt.
+            return Outcome.failure(e);
+        }
+    }
+
+    /** The result of one call: either a value or the failure it raised. */
+    public record Outcome<R>(R value, Throwable error) {
+
+        static <R> Outcome<R> success(R value) {
+            return new Outcome<>(value, null);
+        }
+
+        static <R> Outcome<R> failure(Throwable error) {
+            return new Outcome<>(null, error);
+        }
+
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+}
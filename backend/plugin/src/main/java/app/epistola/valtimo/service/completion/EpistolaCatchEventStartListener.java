@@ -69,7 +69,7 @@ public class EpistolaCatchEventStartListener implements ExecutionListener {
             }
 
             pinWaitToken(execution, resultVariableName);
-            armSelfHeal(execution.getId());
+            armSelfHeal(execution.getId(), resultVariableName);
         } catch (Exception e) {
             log.warn("Epistola catch-event auto-wiring failed for execution {} (activity {}); continuing "
                             + "without an auto-pinned token: {}",
@@ -90,7 +90,7 @@ public class EpistolaCatchEventStartListener implements ExecutionListener {
     }
 
     /** Deliver an already-terminal result once the subscription is committed (after-commit, public Spring tx hook). */
-    private void armSelfHeal(String executionId) {
+    private void armSelfHeal(String executionId, String resultVariableName) {
         if (!TransactionSynchronizationManager.isSynchronizationActive()) {
             return; // no Spring tx (e.g. standalone engine in tests); selfHeal() is exercised directly there
         }
@@ -98,7 +98,7 @@ public class EpistolaCatchEventStartListener implements ExecutionListener {
             @Override
             public void afterCommit() {
                 try {
-                    correlationService.selfHeal(executionId);
+                    correlationService.selfHeal(executionId, resultVariableName);
                 } catch (Exception e) {
                     log.warn("Self-heal check failed for catch-event execution {}: {}", executionId, e.getMessage());
                 }
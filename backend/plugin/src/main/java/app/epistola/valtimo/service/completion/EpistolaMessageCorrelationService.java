@@ -18,6 +18,7 @@
 package app.epistola.valtimo.service.completion;
 
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
+import app.epistola.valtimo.service.bulk.BatchResults;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.MismatchingMessageCorrelationException;
@@ -25,9 +26,12 @@ import org.operaton.bpm.engine.RuntimeService;
 import org.operaton.bpm.engine.runtime.Execution;
 import org.operaton.bpm.engine.runtime.VariableInstance;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static app.epistola.valtimo.domain.EpistolaProcessVariables.MESSAGE_NAME;
 import static app.epistola.valtimo.domain.EpistolaProcessVariables.RESULT_KEY_DOCUMENT_ID;
@@ -53,6 +57,9 @@ import static app.epistola.valtimo.domain.EpistolaProcessVariables.WAIT_FOR;
  *   <li>The result-variable <em>name</em> (and process instance, for the variable-pattern fallback) is
  *       resolved from a locator variable {@code generate-document} writes whose <em>name</em> is the
  *       jobPath itself (globally unique → no clobber) and whose value is the result-variable name.</li>
+ *   <li>An item of a {@code generate-documents} batch has a locator whose value is
+ *       {@code batch:<resultVar>}: its result is merged into the batch aggregate instead, and the
+ *       catch event waiting for the batch path is woken once the last item has finished.</li>
  * </ul>
  */
 @Slf4j
@@ -108,9 +115,21 @@ public class EpistolaMessageCorrelationService {
         String jobPath = buildJobPath(tenantId, requestId);
         Map<String, Object> resultData = buildResult(requestId, status, documentId, errorMessage, jobPath);
 
-        // The result-variable name to update, resolved from the jobPath-named locator (see
-        // generate-document). May be null if the job is unknown to this engine (e.g. already ended).
-        String resultVariableName = resolveResultVariableName(jobPath);
+        // The result-variable name to update per process instance, resolved from the jobPath-named
+        // locators (see generate-document). Usually one; several when identical requests were
+        // deduplicated onto this job. Empty if the job is unknown to this engine (e.g. already ended).
+        List<VariableInstance> locators = findLocators(jobPath);
+        Map<String, String> resultVariableNames = resultVariableNames(locators);
+
+        // Items of a generate-documents batch are recorded for the batch aggregate instead.
+        Map<String, String> batchPaths = batchPaths(locators);
+        if (!batchPaths.isEmpty()) {
+            int batchesWoken = correlateBatchItem(jobPath, requestId, status, documentId, errorMessage,
+                    batchPaths);
+            if (resultVariableNames.isEmpty()) {
+                return batchesWoken;
+            }
+        }
 
         // Match the waiting catch event(s) by their own pinned WAIT_FOR token — a single indexed
         // query, independent of where the executions sit in the tree.
@@ -120,7 +139,9 @@ public class EpistolaMessageCorrelationService {
                 .list();
 
         int correlated = 0;
+        Set<String> wokenInstances = new HashSet<>();
         for (Execution execution : waiting) {
+            String resultVariableName = resultVariableNames.get(execution.getProcessInstanceId());
             if (resultVariableName != null) {
                 // Set on the subscription execution: engine scope-bubbling lands it at the right scope
                 // (process instance for a parallel gateway, the instance scope for multi-instance).
@@ -129,6 +150,7 @@ public class EpistolaMessageCorrelationService {
             try {
                 runtimeService.messageEventReceived(MESSAGE_NAME, execution.getId());
                 correlated++;
+                wokenInstances.add(execution.getProcessInstanceId());
             } catch (MismatchingMessageCorrelationException e) {
                 log.debug("Execution {} no longer has a {} subscription (jobPath={}): {}",
                         execution.getId(), MESSAGE_NAME, jobPath, e.getMessage());
@@ -137,7 +159,14 @@ public class EpistolaMessageCorrelationService {
 
         if (correlated > 0) {
             log.debug("Correlated message {} for jobPath={}: {} execution(s)", MESSAGE_NAME, jobPath, correlated);
-            removeLocatorIfTerminal(jobPath, status);
+            // Instances deduplicated onto this job without a waiting catch event (variable pattern)
+            // still get their result variable updated; their locator stays, as below.
+            resultVariableNames.forEach((processInstanceId, resultVariableName) -> {
+                if (!wokenInstances.contains(processInstanceId)) {
+                    updateResultVariable(processInstanceId, resultVariableName, jobPath, resultData);
+                }
+            });
+            removeLocatorIfTerminal(jobPath, status, wokenInstances);
             return correlated;
         }
 
@@ -148,7 +177,7 @@ public class EpistolaMessageCorrelationService {
         // locator to resolve the result variable. (Genuine variable-pattern processes keep one locator
         // per generation; that pattern is typically low-volume, and the catch-event pattern — the
         // high-volume one — is cleaned up above.)
-        int updated = updateResultVariableWithoutSubscription(jobPath, resultData);
+        int updated = updateResultVariableWithoutSubscription(jobPath, resultVariableNames, resultData);
         if (updated == 0) {
             log.warn("Correlated 0 executions for jobPath={} (status={}); event acked but no waiting "
                     + "subscription and no matching job found.", jobPath, status);
@@ -163,19 +192,18 @@ public class EpistolaMessageCorrelationService {
      * Once a catch-event-pattern generation has been woken with a terminal status, the jobPath-named
      * locator variable has done its job (the result variable is updated and the branch correlated), so
      * remove it to avoid accumulating one variable per generation on long-lived/high-volume process
-     * instances. No-op for non-terminal statuses or when no locator exists.
+     * instances. Only the woken instances' locators are removed. No-op for non-terminal statuses or when
+     * no locator exists.
      */
-    private void removeLocatorIfTerminal(String jobPath, String status) {
+    private void removeLocatorIfTerminal(String jobPath, String status, Set<String> wokenInstances) {
         if (!EpistolaProcessVariables.isTerminalStatus(status)) {
             return;
         }
         for (VariableInstance locator : runtimeService.createVariableInstanceQuery().variableName(jobPath).list()) {
-            try {
-                runtimeService.removeVariable(locator.getProcessInstanceId(), jobPath);
-            } catch (Exception e) {
-                log.debug("Could not remove locator variable {} on process instance {}: {}",
-                        jobPath, locator.getProcessInstanceId(), e.getMessage());
+            if (!wokenInstances.contains(locator.getProcessInstanceId())) {
+                continue;
             }
+            removeVariableQuietly(locator.getProcessInstanceId(), jobPath);
         }
     }
 
@@ -193,16 +221,34 @@ public class EpistolaMessageCorrelationService {
      * @return {@code true} if the catch event was woken
      */
     public boolean selfHeal(String executionId) {
+        return selfHeal(executionId, null);
+    }
+
+    /**
+     * Like {@link #selfHeal(String)}, reading the result from {@code resultVariableName} when the catch
+     * event's link names it. That result only counts when it is for the pinned job. This also covers a
+     * generation that reused a finished job, which leaves no locator behind.
+     *
+     * @param resultVariableName the result variable of the generation the catch event waits for, or
+     *                           {@code null} to resolve it from the job's locator
+     */
+    public boolean selfHeal(String executionId, String resultVariableName) {
         if (!(runtimeService.getVariableLocal(executionId, WAIT_FOR) instanceof String jobPath) || jobPath.isBlank()) {
             return false; // not an Epistola catch event, or no correlation token pinned
         }
-        String resultVariableName = resolveResultVariableName(jobPath);
+        if (resultVariableName == null) {
+            Execution execution = runtimeService.createExecutionQuery().executionId(executionId).singleResult();
+            resultVariableName = execution == null
+                    ? null
+                    : resultVariableNames(findLocators(jobPath)).get(execution.getProcessInstanceId());
+        }
         if (resultVariableName == null) {
             return false;
         }
         if (!(runtimeService.getVariable(executionId, resultVariableName) instanceof Map<?, ?> result)
+                || !jobPath.equals(result.get(RESULT_KEY_JOB_PATH))
                 || !EpistolaProcessVariables.isTerminalStatus(result.get(RESULT_KEY_STATUS))) {
-            return false; // result not (yet) terminal — wait normally
+            return false; // result not (yet) terminal, or for another job — wait normally
         }
         try {
             runtimeService.messageEventReceived(MESSAGE_NAME, executionId);
@@ -230,39 +276,176 @@ public class EpistolaMessageCorrelationService {
     }
 
     /**
-     * The result-variable name for this job, read from the locator variable whose <em>name</em> is the
-     * jobPath (written by {@code generate-document}; globally unique → exactly one). Null if unknown.
+     * The locator variables whose <em>name</em> is the jobPath (written by {@code generate-document} and
+     * {@code generate-documents}). The jobPath is globally unique, so there is one locator per instance
+     * that submitted — or, with generation dedup, attached to — the job.
      */
-    private String resolveResultVariableName(String jobPath) {
-        return runtimeService.createVariableInstanceQuery()
-                .variableName(jobPath)
-                .list().stream()
-                .map(VariableInstance::getValue)
-                .filter(String.class::isInstance)
-                .map(String.class::cast)
-                .filter(name -> !name.isBlank())
-                .findFirst()
-                .orElse(null);
+    private List<VariableInstance> findLocators(String jobPath) {
+        return runtimeService.createVariableInstanceQuery().variableName(jobPath).list();
+    }
+
+    /** The single-document result-variable name per process instance. Empty if unknown. */
+    private static Map<String, String> resultVariableNames(List<VariableInstance> locators) {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (VariableInstance locator : locators) {
+            if (locator.getValue() instanceof String name && !name.isBlank()
+                    && !name.startsWith(EpistolaProcessVariables.BATCH_ITEM_LOCATOR_PREFIX)) {
+                names.putIfAbsent(locator.getProcessInstanceId(), name);
+            }
+        }
+        return names;
+    }
+
+    /** The batch path per process instance, for a job that is an item of a batch. */
+    private static Map<String, String> batchPaths(List<VariableInstance> locators) {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (VariableInstance locator : locators) {
+            if (locator.getValue() instanceof String value
+                    && value.startsWith(EpistolaProcessVariables.BATCH_ITEM_LOCATOR_PREFIX)) {
+                names.putIfAbsent(locator.getProcessInstanceId(),
+                        value.substring(EpistolaProcessVariables.BATCH_ITEM_LOCATOR_PREFIX.length()));
+            }
+        }
+        return names;
     }
 
     /**
-     * Fallback for the variable pattern (no catch event): update the result variable on the process
-     * instance(s) holding this job's locator. Returns the number of instances updated.
+     * Record a terminal item result in its own variable and remove the item's locator. The item that
+     * finds every submitted item recorded builds the batch aggregate, once, and wakes the catch event
+     * waiting for the batch path. Non-terminal statuses are not recorded. Returns the number of catch
+     * events woken.
      */
-    private int updateResultVariableWithoutSubscription(String jobPath, Map<String, Object> resultData) {
-        int updated = 0;
-        for (VariableInstance locator : runtimeService.createVariableInstanceQuery().variableName(jobPath).list()) {
-            if (!(locator.getValue() instanceof String resultVariableName) || resultVariableName.isBlank()) {
+    private int correlateBatchItem(String jobPath, String requestId, String status, String documentId,
+                                   String errorMessage, Map<String, String> batchPaths) {
+        if (!EpistolaProcessVariables.isTerminalStatus(status)) {
+            return 0;
+        }
+        Map<String, Object> itemResult = buildResult(requestId, status, documentId, errorMessage, jobPath);
+        int woken = 0;
+        for (Map.Entry<String, String> entry : batchPaths.entrySet()) {
+            String processInstanceId = entry.getKey();
+            String batchPath = entry.getValue();
+            if (!updateResultVariable(processInstanceId, BatchResults.itemResultVariable(batchPath, requestId),
+                    jobPath, itemResult)) {
                 continue;
             }
+            removeVariableQuietly(processInstanceId, jobPath);
+            // Counts only item results that are committed. An item that finished before the batch's own
+            // transaction committed found no locator here; generate-documents re-delivers it once that
+            // commit is done, so the last item to be correlated sees them all. Two items finishing
+            // together may both see the batch complete; finishBatch tolerates that.
+            long recorded = runtimeService.createVariableInstanceQuery()
+                    .processInstanceIdIn(processInstanceId)
+                    .variableNameLike(BatchResults.itemResultVariablePattern(batchPath))
+                    .count();
+            if (runtimeService.getVariable(processInstanceId, BatchResults.submittedCountVariable(batchPath))
+                    instanceof Number submitted && recorded >= submitted.longValue()) {
+                woken += finishBatch(processInstanceId, batchPath, submitted.longValue());
+            }
+        }
+        return woken;
+    }
+
+    /**
+     * Build the aggregate of a batch whose items have all finished from the item result variables,
+     * remove those, and wake the waiting catch event. A no-op when the batch was already finished by a
+     * concurrently correlated item.
+     */
+    private int finishBatch(String processInstanceId, String batchPath, long submitted) {
+        List<VariableInstance> itemResults = runtimeService.createVariableInstanceQuery()
+                .processInstanceIdIn(processInstanceId)
+                .variableNameLike(BatchResults.itemResultVariablePattern(batchPath))
+                .list();
+        if (itemResults.size() < submitted
+                || !(runtimeService.getVariable(processInstanceId, batchPath) instanceof String resultVariableName)) {
+            return 0;
+        }
+        Map<String, Object> batch = runtimeService.getVariable(processInstanceId, resultVariableName)
+                instanceof Map<?, ?> current
+                ? BatchResults.withItemResults(current, itemResults.stream().map(VariableInstance::getValue).toList())
+                : null;
+        if (batch == null) {
+            log.warn("Batch result variable '{}' on process instance {} is not a batch result (batchPath={})",
+                    resultVariableName, processInstanceId, batchPath);
+            return 0;
+        }
+        if (!updateResultVariable(processInstanceId, resultVariableName, batchPath, batch)) {
+            return 0;
+        }
+        List<String> finished = new ArrayList<>(itemResults.size() + 1);
+        itemResults.forEach(itemResult -> finished.add(itemResult.getName()));
+        finished.add(BatchResults.submittedCountVariable(batchPath));
+        try {
+            runtimeService.removeVariables(processInstanceId, finished);
+        } catch (Exception e) {
+            log.debug("Could not remove the item results of batch {} on process instance {}: {}",
+                    batchPath, processInstanceId, e.getMessage());
+        }
+        return wakeBatch(processInstanceId, batchPath);
+    }
+
+    /**
+     * Wake the catch event waiting for a finished batch. Its batch locator is removed once woken; without
+     * a waiting catch event (variable pattern) it stays, for a catch event that subscribes later to
+     * self-heal.
+     */
+    private int wakeBatch(String processInstanceId, String batchPath) {
+        int woken = 0;
+        List<Execution> waiting = runtimeService.createExecutionQuery()
+                .processInstanceId(processInstanceId)
+                .messageEventSubscriptionName(MESSAGE_NAME)
+                .variableValueEquals(WAIT_FOR, batchPath)
+                .list();
+        for (Execution execution : waiting) {
             try {
-                runtimeService.setVariable(locator.getProcessInstanceId(), resultVariableName, resultData);
+                runtimeService.messageEventReceived(MESSAGE_NAME, execution.getId());
+                woken++;
+            } catch (MismatchingMessageCorrelationException e) {
+                log.debug("Execution {} no longer has a {} subscription (batchPath={}): {}",
+                        execution.getId(), MESSAGE_NAME, batchPath, e.getMessage());
+            }
+        }
+        if (woken > 0) {
+            removeVariableQuietly(processInstanceId, batchPath);
+        }
+        log.debug("Batch {} finished on process instance {}: {} execution(s) woken", batchPath, processInstanceId,
+                woken);
+        return woken;
+    }
+
+    private void removeVariableQuietly(String processInstanceId, String variableName) {
+        try {
+            runtimeService.removeVariable(processInstanceId, variableName);
+        } catch (Exception e) {
+            log.debug("Could not remove locator variable {} on process instance {}: {}",
+                    variableName, processInstanceId, e.getMessage());
+        }
+    }
+
+    /**
+     * Fallback for the variable pattern (no catch event): update the result variable on the process
+     * instance(s) holding this job's locator. Returns the number of instances updated.
+     */
+    private int updateResultVariableWithoutSubscription(String jobPath, Map<String, String> resultVariableNames,
+                                                        Map<String, Object> resultData) {
+        int updated = 0;
+        for (Map.Entry<String, String> entry : resultVariableNames.entrySet()) {
+            if (updateResultVariable(entry.getKey(), entry.getValue(), jobPath, resultData)) {
                 updated++;
-            } catch (Exception e) {
-                log.warn("Failed to update result variable for process instance {} (jobPath={}): {}",
-                        locator.getProcessInstanceId(), jobPath, e.getMessage());
             }
         }
         return updated;
     }
+
+    private boolean updateResultVariable(String processInstanceId, String resultVariableName, String jobPath,
+                                         Map<String, Object> resultData) {
+        try {
+            runtimeService.setVariable(processInstanceId, resultVariableName, resultData);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to update result variable for process instance {} (jobPath={}): {}",
+                    processInstanceId, jobPath, e.getMessage());
+            return false;
+        }
+    }
 }
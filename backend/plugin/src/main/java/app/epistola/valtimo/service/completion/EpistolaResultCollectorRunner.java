@@ -20,6 +20,10 @@ package app.epistola.valtimo.service.completion;
 import app.epistola.client.collect.ResultCollector;
 import app.epistola.valtimo.client.EpistolaApiClientFactory;
 import app.epistola.valtimo.config.EpistolaProperties;
+import app.epistola.valtimo.domain.GenerationJobDetail;
+import app.epistola.valtimo.domain.GenerationJobStatus;
+import app.epistola.valtimo.service.dedup.GenerationDeduplicator;
+import app.epistola.valtimo.service.mailmerge.MailMergeResultTracker;
 import com.ritense.plugin.domain.PluginConfiguration;
 import com.ritense.plugin.events.PluginConfigurationDeletedEvent;
 import com.ritense.plugin.service.PluginService;
@@ -28,7 +32,6 @@ import com.ritense.valtimo.epistola.plugin.EpistolaPlugin;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import kotlin.Unit;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -38,6 +41,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -66,19 +70,50 @@ import java.util.concurrent.ConcurrentHashMap;
  * Each result is delivered to {@link EpistolaMessageCorrelationService#correlateCompletion}
  * with the same {@code epistola:job:{tenantId}/{requestId}} job path encoding the
  * plugin already uses, so the existing BPMN message correlation continues to work
- * without changes to deployed processes.
+ * without changes to deployed processes. Each result is also recorded in the
+ * {@link JobResultStore}, from which {@link #findResult} answers status checks for
+ * finished jobs without a call to Epistola.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class EpistolaResultCollectorRunner {
 
     private final PluginService pluginService;
     private final EpistolaApiClientFactory apiClientFactory;
     private final EpistolaMessageCorrelationService correlationService;
     private final EpistolaProperties properties;
+    private final GenerationDeduplicator deduplicator;
+    private final MailMergeResultTracker mailMergeResults;
+    private final JobResultStore jobResults;
 
     private final Map<String, ManagedCollector> collectors = new ConcurrentHashMap<>();
 
+    /**
+     * @param deduplicator     generation dedup index to report results to; {@code null} when
+     *                         {@code epistola.generation-dedup} is disabled
+     * @param mailMergeResults counter for results of mail-merge submissions, which have no waiting
+     *                         process instance; {@code null} when {@code epistola.mail-merge} is disabled
+     * @param jobResults       local store every received result is recorded in, so status checks for
+     *                         finished jobs need no call to Epistola; {@code null} when
+     *                         {@code epistola.job-results} is disabled
+     */
+    public EpistolaResultCollectorRunner(
+            PluginService pluginService,
+            EpistolaApiClientFactory apiClientFactory,
+            EpistolaMessageCorrelationService correlationService,
+            EpistolaProperties properties,
+            GenerationDeduplicator deduplicator,
+            MailMergeResultTracker mailMergeResults,
+            JobResultStore jobResults
+    ) {
+        this.pluginService = pluginService;
+        this.apiClientFactory = apiClientFactory;
+        this.correlationService = correlationService;
+        this.properties = properties;
+        this.deduplicator = deduplicator;
+        this.mailMergeResults = mailMergeResults;
+        this.jobResults = jobResults;
+    }
+
     @PostConstruct
     public void start() {
         if (!properties.getResultCollector().isEnabled()) {
@@ -281,25 +316,94 @@ public class EpistolaResultCollectorRunner {
         }
     }
 
+    /**
+     * Re-deliver the result of a job that finished while the transaction that submitted it, or
+     * attached to it through dedup, was still committing. The collector delivered that result before
+     * the job's locator was visible, so without this the waiting branch or batch would wait forever.
+     * Call it once that transaction has committed. No-op while the job is still running, or when
+     * neither the deduplicator nor the local result store knows its result; the collector then
+     * delivers it, to the now visible locator.
+     */
+    public void redeliverFinishedResult(String tenantId, String requestId) {
+        if (deduplicator != null) {
+            Optional<GenerationDeduplicator.Job> job = deduplicator.job(tenantId, requestId)
+                    .filter(GenerationDeduplicator.Job::isFinished);
+            if (job.isPresent()) {
+                correlate(tenantId, requestId, job.get().status(), job.get().documentId(), job.get().errorMessage());
+                return;
+            }
+        }
+        findResult(tenantId, requestId).ifPresent(result -> correlate(tenantId, requestId,
+                result.getStatus().name(), result.getDocumentId(), result.getErrorMessage()));
+    }
+
     void handleResult(String tenantId, ResultCollector.GenerationResult result) {
+        if (deduplicator != null) {
+            deduplicator.onResult(tenantId, result.getRequestId(), result.getStatus(),
+                    result.getDocumentId(), result.getError());
+        }
+        if (mailMergeResults != null && mailMergeResults.offer(result.getCorrelationId(), result.getStatus())) {
+            return;
+        }
+        recordResult(tenantId, result);
+        correlate(tenantId, result.getRequestId(), result.getStatus(), result.getDocumentId(), result.getError());
+    }
+
+    /**
+     * The terminal result of a job as received by a collector, if it is still in the local store.
+     * Empty when the store is disabled, the job is unknown or the store cannot be read; callers
+     * then ask Epistola.
+     */
+    public Optional<GenerationJobDetail> findResult(String tenantId, String requestId) {
+        if (jobResults == null) {
+            return Optional.empty();
+        }
+        try {
+            return jobResults.find(tenantId, requestId);
+        } catch (Exception e) {
+            log.warn("Failed to read local job result for tenantId={}, requestId={}: {}",
+                    tenantId, requestId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void recordResult(String tenantId, ResultCollector.GenerationResult result) {
+        if (jobResults == null) {
+            return;
+        }
+        try {
+            jobResults.record(tenantId, GenerationJobDetail.builder()
+                    .requestId(result.getRequestId())
+                    .status(GenerationJobStatus.valueOf(result.getStatus()))
+                    .documentId(result.getDocumentId())
+                    .errorMessage(result.getError())
+                    .build());
+        } catch (Exception e) {
+            // A result that cannot be stored is still correlated; a later status check asks Epistola.
+            log.warn("Failed to store job result for tenantId={}, requestId={}: {}",
+                    tenantId, result.getRequestId(), e.getMessage());
+        }
+    }
+
+    private void correlate(String tenantId, String requestId, String status, String documentId, String error) {
         try {
             int correlated = correlationService.correlateCompletion(
                     tenantId,
-                    result.getRequestId(),
-                    result.getStatus(),
-                    result.getDocumentId(),
-                    result.getError()
+                    requestId,
+                    status,
+                    documentId,
+                    error
             );
             if (correlated == 0) {
                 log.debug("No waiting execution for tenantId={}, requestId={} (status={}); acking anyway",
-                        tenantId, result.getRequestId(), result.getStatus());
+                        tenantId, requestId, status);
             }
         } catch (Exception e) {
             // Swallow — re-throwing would block this sequence in the collector and
             // re-deliver the same result on every poll. The result has already been
             // produced server-side; redelivery cannot fix a missing waiting execution.
             log.warn("Failed to correlate result for tenantId={}, requestId={}: {}",
-                    tenantId, result.getRequestId(), e.getMessage());
+                    tenantId, requestId, e.getMessage());
         }
     }
 
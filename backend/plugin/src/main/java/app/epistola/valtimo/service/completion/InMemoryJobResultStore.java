@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.completion;
+
+import app.epistola.valtimo.domain.GenerationJobDetail;
+import app.epistola.valtimo.service.BoundedLruCache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * {@link JobResultStore} kept in memory on this node: at most {@code maxEntries} results, least
+ * recently recorded or read evicted first, each answered for {@code retention} after it was received.
+ */
+public class InMemoryJobResultStore implements JobResultStore {
+
+    private record Key(String tenantId, String requestId) {}
+
+    private record Entry(GenerationJobDetail result, Instant receivedAt) {}
+
+    private final Duration retention;
+    private final Clock clock;
+    private final BoundedLruCache<Key, Entry> entries;
+
+    public InMemoryJobResultStore(int maxEntries, Duration retention) {
+        this(maxEntries, retention, Clock.systemUTC());
+    }
+
+    InMemoryJobResultStore(int maxEntries, Duration retention, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.retention = retention;
+        this.clock = clock;
+        this.entries = new BoundedLruCache<>(maxEntries);
+    }
+
+    @Override
+    public synchronized void record(String tenantId, GenerationJobDetail result) {
+        entries.put(new Key(tenantId, result.getRequestId()), new Entry(result, clock.instant()));
+    }
+
+    @Override
+    public synchronized Optional<GenerationJobDetail> find(String tenantId, String requestId) {
+        Key key = new Key(tenantId, requestId);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.receivedAt().plus(retention).isBefore(clock.instant())) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.result());
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
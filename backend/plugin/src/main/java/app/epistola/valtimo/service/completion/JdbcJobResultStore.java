@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.completion;
+
+import app.epistola.valtimo.domain.GenerationJobDetail;
+import app.epistola.valtimo.domain.GenerationJobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * {@link JobResultStore} in the {@code epistola_job_result} table, shared by every node: a
+ * result received by one node's collector answers a status check on any other node, and survives
+ * restarts. The table comes with the plugin's Liquibase changelog; expired rows are deleted on a
+ * schedule.
+ */
+@Slf4j
+public class JdbcJobResultStore implements JobResultStore {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final Clock clock;
+
+    public JdbcJobResultStore(JdbcTemplate jdbcTemplate, Duration retention) {
+        this(jdbcTemplate, retention, Clock.systemUTC());
+    }
+
+    JdbcJobResultStore(JdbcTemplate jdbcTemplate, Duration retention, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    @Override
+    public void record(String tenantId, GenerationJobDetail result) {
+        Timestamp now = Timestamp.from(clock.instant());
+        String error = truncate(result.getErrorMessage());
+        int updated = jdbcTemplate.update("""
+                        update epistola_job_result
+                           set status = ?, document_id = ?, error_message = ?, received_at = ?
+                         where tenant_id = ? and request_id = ?""",
+                result.getStatus().name(), result.getDocumentId(), error, now, tenantId, result.getRequestId());
+        if (updated > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("""
+                            insert into epistola_job_result
+                                (tenant_id, request_id, status, document_id, error_message, received_at)
+                            values (?, ?, ?, ?, ?, ?)""",
+                    tenantId, result.getRequestId(), result.getStatus().name(), result.getDocumentId(), error, now);
+        } catch (DuplicateKeyException e) {
+            // Another node's collector recorded the same (redelivered) result first.
+            log.debug("Result for tenantId={}, requestId={} already recorded", tenantId, result.getRequestId());
+        }
+    }
+
+    @Override
+    public Optional<GenerationJobDetail> find(String tenantId, String requestId) {
+        return jdbcTemplate.query("""
+                                select status, document_id, error_message
+                                  from epistola_job_result
+                                 where tenant_id = ? and request_id = ? and received_at >= ?""",
+                        (rs, rowNum) -> GenerationJobDetail.builder()
+                                .requestId(requestId)
+                                .status(GenerationJobStatus.valueOf(rs.getString("status")))
+                                .documentId(rs.getString("document_id"))
+                                .errorMessage(rs.getString("error_message"))
+                                .build(),
+                        tenantId, requestId, Timestamp.from(cutoff()))
+                .stream()
+                .findFirst();
+    }
+
+    @Scheduled(fixedDelayString = "${epistola.job-results.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = jdbcTemplate.update("delete from epistola_job_result where received_at < ?",
+                Timestamp.from(cutoff()));
+        if (deleted > 0) {
+            log.debug("Purged {} expired Epistola job results", deleted);
+        }
+    }
+
+    private Instant cutoff() {
+        return clock.instant().minus(retention);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
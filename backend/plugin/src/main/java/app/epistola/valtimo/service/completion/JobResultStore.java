@@ -0,0 +1,35 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.completion;
+
+import app.epistola.valtimo.domain.GenerationJobDetail;
+
+import java.util.Optional;
+
+/**
+ * Terminal generation results received by the result collector, so status lookups for finished
+ * jobs can be answered without calling Epistola. Only terminal results are stored: a miss means
+ * "ask Epistola", never "still running".
+ */
+public interface JobResultStore {
+
+    void record(String tenantId, GenerationJobDetail result);
+
+    /** The terminal result of a job, if it was received within the retention period. */
+    Optional<GenerationJobDetail> find(String tenantId, String requestId);
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.dedup;
+
+import app.epistola.client.model.VariantSelectionAttribute;
+import app.epistola.valtimo.domain.EpistolaProcessVariables;
+import app.epistola.valtimo.domain.FileFormat;
+import app.epistola.valtimo.service.completion.EpistolaMessageCorrelationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Opt-in deduplication of identical generation requests ({@code epistola.generation-dedup}).
+ *
+ * <p>Every submission is keyed by a SHA-256 {@link #fingerprint} over the connection, template
+ * coordinates, output format, filename and the resolved data. Within {@code window} of the first
+ * submission, an identical request {@link #claim claims} the earlier job instead of rendering again:
+ * it reuses the produced document once the job has completed, or attaches to the job while it is
+ * still in flight. Failed and cancelled jobs are never reused, so a retry after a failure always
+ * renders again.
+ *
+ * <p>The index is an insertion-ordered map bounded by {@code maxEntries}; the oldest entry is
+ * evicted first, and expired entries are purged from the head on every claim. It is local to this
+ * node: results of the jobs it submitted are routed back to this node's collector (see
+ * {@link EpistolaMessageCorrelationService}), which reports them through {@link #onResult}.
+ */
+@Slf4j
+public class GenerationDeduplicator {
+
+    /**
+     * A generation job an identical request can reuse. {@code status} is {@code PENDING} until the
+     * collector reports the result.
+     */
+    public record Job(
+            String tenantId,
+            String requestId,
+            String status,
+            String documentId,
+            String errorMessage
+    ) {
+        public String jobPath() {
+            return EpistolaMessageCorrelationService.buildJobPath(tenantId, requestId);
+        }
+
+        public boolean isFinished() {
+            return EpistolaProcessVariables.isTerminalStatus(status);
+        }
+
+        boolean isReusable() {
+            return !isFinished() || "COMPLETED".equals(status);
+        }
+    }
+
+    /** Outcome of {@link #claim}: either reuse an earlier job, or submit and report back. */
+    public sealed interface Claim permits Reuse, Lead {}
+
+    /** An identical request was submitted within the window; {@code job} is its current state. */
+    public record Reuse(Job job) implements Claim {}
+
+    /**
+     * No reusable job exists; the caller submits and must call exactly one of {@link #submitted}
+     * or {@link #abandon}, so identical requests waiting on this one are released.
+     */
+    public final class Lead implements Claim {
+
+        private final String key;
+        private final Slot slot;
+
+        private Lead(String key, Slot slot) {
+            this.key = key;
+            this.slot = slot;
+        }
+
+        public void submitted(String tenantId, String requestId) {
+            if (slot == null) {
+                return;
+            }
+            Job job = new Job(tenantId, requestId, "PENDING", null, null);
+            synchronized (GenerationDeduplicator.this) {
+                if (entries.get(key) == slot) {
+                    slot.job = job;
+                    keysByJobPath.put(job.jobPath(), key);
+                }
+            }
+            slot.submission.complete(job);
+        }
+
+        public void abandon() {
+            if (slot == null) {
+                return;
+            }
+            synchronized (GenerationDeduplicator.this) {
+                entries.remove(key, slot);
+            }
+            slot.submission.completeExceptionally(new IllegalStateException("Submission abandoned"));
+        }
+    }
+
+    private static final class Slot {
+        private final Instant createdAt;
+        private final CompletableFuture<Job> submission = new CompletableFuture<>();
+        private Job job;
+
+        private Slot(Instant createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final ObjectWriter canonicalWriter;
+    private final Duration window;
+    private final int maxEntries;
+    private final Duration attachTimeout;
+    private final Clock clock;
+
+    private final LinkedHashMap<String, Slot> entries = new LinkedHashMap<>();
+    private final Map<String, String> keysByJobPath = new HashMap<>();
+
+    public GenerationDeduplicator(ObjectMapper objectMapper, Duration window, int maxEntries, Duration attachTimeout) {
+        this(objectMapper, window, maxEntries, attachTimeout, Clock.systemUTC());
+    }
+
+    GenerationDeduplicator(ObjectMapper objectMapper, Duration window, int maxEntries,
+                           Duration attachTimeout, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        // Sorted map keys make the serialization, and so the hash, independent of the order in
+        // which the data mapping happened to build its objects.
+        this.canonicalWriter = objectMapper.writer()
+                .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .without(SerializationFeature.INDENT_OUTPUT);
+        this.window = window;
+        this.maxEntries = maxEntries;
+        this.attachTimeout = attachTimeout;
+        this.clock = clock;
+    }
+
+    /**
+     * Canonical content hash of one generation request. The correlation id and routing key are
+     * deliberately left out: they identify the caller, not the document.
+     */
+    public String fingerprint(String baseUrl, String tenantId, String catalogId, String templateId,
+                              String variantId, List<VariantSelectionAttribute> variantAttributes,
+                              String environmentId, FileFormat format, String filename,
+                              Map<String, Object> data) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("baseUrl", baseUrl);
+        request.put("tenantId", tenantId);
+        request.put("catalogId", catalogId);
+        request.put("templateId", templateId);
+        request.put("variantId", variantId);
+        request.put("variantAttributes", variantAttributes);
+        request.put("environmentId", environmentId);
+        request.put("format", format);
+        request.put("filename", filename);
+        request.put("data", data);
+
+        MessageDigest digest = sha256();
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            canonicalWriter.writeValue(out, request);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fingerprint generation request", e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Claim the generation identified by {@code key}. If an identical request is still being
+     * submitted by another thread, waits up to {@code attachTimeout} for its job; when that submission
+     * fails or takes too long the caller gets an untracked {@link Lead} and simply submits itself.
+     */
+    public Claim claim(String key) {
+        Slot inFlight;
+        synchronized (this) {
+            purgeExpired();
+            Slot slot = entries.get(key);
+            if (slot != null && slot.job != null && slot.job.isReusable()) {
+                return new Reuse(slot.job);
+            }
+            if (slot == null || slot.job != null) {
+                Slot fresh = new Slot(clock.instant());
+                put(key, fresh);
+                return new Lead(key, fresh);
+            }
+            inFlight = slot;
+        }
+        try {
+            return new Reuse(inFlight.submission.get(attachTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Identical generation request did not submit in time ({}); submitting separately",
+                    e.getClass().getSimpleName());
+        }
+        return new Lead(key, null);
+    }
+
+    /**
+     * Record the outcome of a job reported by the result collector. Unknown jobs are ignored.
+     */
+    public synchronized void onResult(String tenantId, String requestId, String status,
+                                      String documentId, String errorMessage) {
+        String jobPath = EpistolaMessageCorrelationService.buildJobPath(tenantId, requestId);
+        String key = keysByJobPath.get(jobPath);
+        Slot slot = key == null ? null : entries.get(key);
+        if (slot != null && slot.job != null && slot.job.requestId().equals(requestId)) {
+            slot.job = new Job(tenantId, requestId, status, documentId, errorMessage);
+        }
+    }
+
+    /**
+     * The current state of a job this index still tracks, for requests that attached to it.
+     */
+    public synchronized Optional<Job> job(String tenantId, String requestId) {
+        String key = keysByJobPath.get(EpistolaMessageCorrelationService.buildJobPath(tenantId, requestId));
+        Slot slot = key == null ? null : entries.get(key);
+        return slot == null || slot.job == null || !slot.job.requestId().equals(requestId)
+                ? Optional.empty()
+                : Optional.of(slot.job);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void put(String key, Slot slot) {
+        Slot replaced = entries.remove(key);
+        forget(replaced);
+        entries.put(key, slot);
+        if (entries.size() > maxEntries) {
+            Iterator<Slot> eldest = entries.values().iterator();
+            forget(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private void purgeExpired() {
+        Instant cutoff = clock.instant().minus(window);
+        Iterator<Slot> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Slot slot = it.next();
+            // Insertion order is creation order, so the first live entry ends the scan.
+            if (slot.createdAt.isAfter(cutoff)) {
+                break;
+            }
+            forget(slot);
+            it.remove();
+        }
+    }
+
+    private void forget(Slot slot) {
+        if (slot != null && slot.job != null) {
+            keysByJobPath.remove(slot.job.jobPath());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -23,7 +23,6 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -52,31 +51,80 @@ public class FormioFormGenerator {
      * @return a Formio form JSON object with display:"form" and components array
      */
     public ObjectNode generateForm(List<TemplateField> fields, Map<String, Object> resolvedData) {
+        ObjectNode form = generateSkeleton(fields);
+        applyDefaults((ArrayNode) form.get("components"), fields, resolvedData);
+        return form;
+    }
+
+    /**
+     * Generate the data-independent part of a form: every component, label and validation rule,
+     * but no {@code defaultValue}s. The result only depends on the field schema, so callers can
+     * build it once per template and {@link #prefill} a copy for each request.
+     *
+     * @param fields the template field schema
+     * @return a Formio form JSON object without prefilled values
+     */
+    public ObjectNode generateSkeleton(List<TemplateField> fields) {
         ObjectNode form = objectMapper.createObjectNode();
         form.put("display", "form");
         ArrayNode components = form.putArray("components");
 
         for (TemplateField field : fields) {
-            components.add(buildComponent(field, resolvedData));
+            components.add(buildComponent(field));
         }
 
         return form;
     }
 
+    /**
+     * Prefill a copy of a skeleton produced by {@link #generateSkeleton} for the same fields.
+     * The skeleton itself is left untouched, so it can be shared between requests.
+     *
+     * @param skeleton     the skeleton generated from {@code fields}
+     * @param fields       the template field schema the skeleton was generated from
+     * @param resolvedData the resolved data values to prefill
+     * @return a new Formio form JSON object, equal to {@code generateForm(fields, resolvedData)}
+     */
+    public ObjectNode prefill(ObjectNode skeleton, List<TemplateField> fields, Map<String, Object> resolvedData) {
+        ObjectNode form = skeleton.deepCopy();
+        applyDefaults((ArrayNode) form.get("components"), fields, resolvedData);
+        return form;
+    }
+
     @SuppressWarnings("unchecked")
-    private ObjectNode buildComponent(TemplateField field, Map<String, Object> parentData) {
-        Object value = parentData != null ? parentData.get(field.name()) : null;
+    private void applyDefaults(ArrayNode components, List<TemplateField> fields, Map<String, Object> parentData) {
+        for (int i = 0; i < fields.size(); i++) {
+            TemplateField field = fields.get(i);
+            ObjectNode component = (ObjectNode) components.get(i);
+            Object value = parentData != null ? parentData.get(field.name()) : null;
+
+            switch (field.fieldType()) {
+                case SCALAR -> {
+                    if (value != null) {
+                        component.set("defaultValue", objectMapper.valueToTree(value));
+                    }
+                }
+                case OBJECT -> applyDefaults((ArrayNode) component.get("components"), safeChildren(field),
+                        value instanceof Map<?, ?> ? (Map<String, Object>) value : Map.of());
+                case ARRAY -> {
+                    // Set default values from resolved data
+                    if (value instanceof List<?> items && !items.isEmpty()) {
+                        component.set("defaultValue", objectMapper.valueToTree(items));
+                    }
+                }
+            }
+        }
+    }
 
+    private ObjectNode buildComponent(TemplateField field) {
         return switch (field.fieldType()) {
-            case SCALAR -> buildScalarComponent(field, value);
-            case OBJECT -> buildObjectComponent(field, value instanceof Map<?, ?>
-                    ? (Map<String, Object>) value : Map.of());
-            case ARRAY -> buildArrayComponent(field, value instanceof List<?>
-                    ? (List<?>) value : List.of());
+            case SCALAR -> buildScalarComponent(field);
+            case OBJECT -> buildObjectComponent(field);
+            case ARRAY -> buildArrayComponent(field);
         };
     }
 
-    private ObjectNode buildScalarComponent(TemplateField field, Object value) {
+    private ObjectNode buildScalarComponent(TemplateField field) {
         ObjectNode component = objectMapper.createObjectNode();
         String formioType = mapScalarType(field.type());
         component.put("type", formioType);
@@ -89,10 +137,6 @@ public class FormioFormGenerator {
             component.put("tooltip", field.description());
         }
 
-        if (value != null) {
-            component.set("defaultValue", objectMapper.valueToTree(value));
-        }
-
         if (field.required()) {
             ObjectNode validate = component.putObject("validate");
             validate.put("required", true);
@@ -101,7 +145,7 @@ public class FormioFormGenerator {
         return component;
     }
 
-    private ObjectNode buildObjectComponent(TemplateField field, Map<String, Object> data) {
+    private ObjectNode buildObjectComponent(TemplateField field) {
         ObjectNode component = objectMapper.createObjectNode();
         component.put("type", "fieldset");
         component.put("legend", humanizeLabel(field.name()));
@@ -109,14 +153,13 @@ public class FormioFormGenerator {
 
         ArrayNode components = component.putArray("components");
         for (TemplateField child : safeChildren(field)) {
-            components.add(buildComponent(child, data));
+            components.add(buildComponent(child));
         }
 
         return component;
     }
 
-    @SuppressWarnings("unchecked")
-    private ObjectNode buildArrayComponent(TemplateField field, List<?> items) {
+    private ObjectNode buildArrayComponent(TemplateField field) {
         ObjectNode component = objectMapper.createObjectNode();
         component.put("type", "datagrid");
         component.put("key", field.path());
@@ -126,17 +169,12 @@ public class FormioFormGenerator {
         // Add item field definitions — use leaf name() since keys are relative to the array item
         ArrayNode components = component.putArray("components");
         for (TemplateField child : safeChildren(field)) {
-            ObjectNode colComponent = buildScalarComponent(child, null);
+            ObjectNode colComponent = buildScalarComponent(child);
             // Override key to use leaf name (not full path) since datagrid items are scoped
             colComponent.put("key", child.name());
             components.add(colComponent);
         }
 
-        // Set default values from resolved data
-        if (!items.isEmpty()) {
-            component.set("defaultValue", objectMapper.valueToTree(items));
-        }
-
         if (field.required()) {
             ObjectNode validate = component.putObject("validate");
             validate.put("required", true);
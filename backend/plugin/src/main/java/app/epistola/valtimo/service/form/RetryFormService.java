@@ -17,26 +17,30 @@
  */
 package app.epistola.valtimo.service.form;
 
-import app.epistola.valtimo.action.generate.GenerateDocumentActionConfigurationRegistry;
+import app.epistola.valtimo.service.BoundedLruCache;
 import app.epistola.valtimo.service.EpistolaService;
 
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
 import app.epistola.valtimo.domain.TemplateDetails;
+import app.epistola.valtimo.domain.TemplateField;
 import app.epistola.valtimo.mapping.JsonataMappingService;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
+import app.epistola.valtimo.service.processlink.IndexedProcessLink;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ritense.plugin.domain.PluginConfigurationId;
 import com.ritense.plugin.domain.PluginProcessLink;
 import com.ritense.plugin.service.PluginService;
-import com.ritense.processlink.domain.ProcessLink;
-import com.ritense.processlink.service.ProcessLinkService;
 import com.ritense.valtimo.epistola.plugin.EpistolaPlugin;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.RuntimeService;
 import org.operaton.bpm.engine.TaskService;
 import org.operaton.bpm.engine.runtime.ProcessInstance;
 import org.operaton.bpm.engine.task.Task;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
@@ -46,20 +50,69 @@ import java.util.Map;
  * Looks up the original generate-document process link, resolves its data mapping
  * expressions against the current process instance, fetches the template field schema,
  * and generates a Formio form JSON with prefilled values.
+ * <p>
+ * The template schema and the form skeleton built from it are cached per plugin configuration,
+ * catalog and template, so a retry only evaluates the data mapping and prefills a copy of the
+ * skeleton. After {@code templateCacheTtl} the template is fetched again; the skeleton is only
+ * rebuilt when its field schema actually changed.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class RetryFormService {
 
     private final PluginService pluginService;
     private final EpistolaService epistolaService;
     private final RuntimeService runtimeService;
     private final TaskService taskService;
-    private final ProcessLinkService processLinkService;
+    private final EpistolaProcessLinkIndex processLinkIndex;
     private final JsonataMappingService jsonataMappingService;
     private final com.ritense.document.service.DocumentService documentService;
     private final FormioFormGenerator formioFormGenerator;
     private final ObjectMapper objectMapper;
+    private final Duration templateCacheTtl;
+    private final Clock clock;
+    private final BoundedLruCache<SkeletonKey, CachedSkeleton> skeletons;
+
+    public RetryFormService(PluginService pluginService,
+                            EpistolaService epistolaService,
+                            RuntimeService runtimeService,
+                            TaskService taskService,
+                            EpistolaProcessLinkIndex processLinkIndex,
+                            JsonataMappingService jsonataMappingService,
+                            com.ritense.document.service.DocumentService documentService,
+                            FormioFormGenerator formioFormGenerator,
+                            ObjectMapper objectMapper,
+                            Duration templateCacheTtl,
+                            int maxCachedTemplates) {
+        this(pluginService, epistolaService, runtimeService, taskService, processLinkIndex,
+                jsonataMappingService, documentService, formioFormGenerator, objectMapper,
+                templateCacheTtl, maxCachedTemplates, Clock.systemUTC());
+    }
+
+    RetryFormService(PluginService pluginService,
+                     EpistolaService epistolaService,
+                     RuntimeService runtimeService,
+                     TaskService taskService,
+                     EpistolaProcessLinkIndex processLinkIndex,
+                     JsonataMappingService jsonataMappingService,
+                     com.ritense.document.service.DocumentService documentService,
+                     FormioFormGenerator formioFormGenerator,
+                     ObjectMapper objectMapper,
+                     Duration templateCacheTtl,
+                     int maxCachedTemplates,
+                     Clock clock) {
+        this.pluginService = pluginService;
+        this.epistolaService = epistolaService;
+        this.runtimeService = runtimeService;
+        this.taskService = taskService;
+        this.processLinkIndex = processLinkIndex;
+        this.jsonataMappingService = jsonataMappingService;
+        this.documentService = documentService;
+        this.formioFormGenerator = formioFormGenerator;
+        this.objectMapper = objectMapper;
+        this.templateCacheTtl = templateCacheTtl;
+        this.clock = clock;
+        this.skeletons = new BoundedLruCache<>(maxCachedTemplates);
+    }
 
     /**
      * Generate a retry form for a failed document generation.
@@ -74,8 +127,9 @@ public class RetryFormService {
         ProcessInstance processInstance = lookupProcessInstance(processInstanceId);
         String processDefinitionId = processInstance.getProcessDefinitionId();
 
-        PluginProcessLink originalLink = resolveSourceProcessLink(
+        IndexedProcessLink indexedLink = resolveSourceProcessLink(
                 processDefinitionId, processInstanceId, sourceActivityId);
+        PluginProcessLink originalLink = indexedLink.link();
 
         ObjectNode actionProperties = originalLink.getActionProperties();
         String configuredTemplateId = actionProperties.path("templateId").asText(null);
@@ -85,7 +139,7 @@ public class RetryFormService {
                             + originalLink.getActivityId() + "'");
         }
 
-        var actionConfig = GenerateDocumentActionConfigurationRegistry.parse(actionProperties);
+        var actionConfig = indexedLink.configuration();
         String catalogId = actionConfig.catalogId();
         String templateId = actionConfig.templateId();
         String dataMapping = actionConfig.dataMapping();
@@ -96,16 +150,16 @@ public class RetryFormService {
                 .documentResolver(this::loadDocumentContent)
                 .processVariableResolver(key -> runtimeService.getVariable(processInstanceId, key))
                 .documentId(effectiveDocumentId)
+                .processDefinitionId(processDefinitionId)
+                .processDefinitionKey(processInstance.getProcessDefinitionKey())
+                .processInstanceId(processInstanceId)
+                .activityId(originalLink.getActivityId())
                 .build();
         Map<String, Object> resolvedData = jsonataMappingService.evaluate(evalCtx);
 
-        EpistolaPlugin plugin = (EpistolaPlugin) pluginService.createInstance(
-                originalLink.getPluginConfigurationId());
-        String effectiveCatalogId = catalogId;
-        TemplateDetails template = epistolaService.getTemplateDetails(
-                plugin.getBaseUrl(), plugin.getApiKey(), plugin.getTenantId(), effectiveCatalogId, templateId);
-
-        ObjectNode form = formioFormGenerator.generateForm(template.fields(), resolvedData);
+        CachedSkeleton skeleton = skeletonFor(
+                new SkeletonKey(originalLink.getPluginConfigurationId(), catalogId, templateId));
+        ObjectNode form = formioFormGenerator.prefill(skeleton.skeleton(), skeleton.fields(), resolvedData);
 
         log.debug("Generated retry form with {} top-level components for template '{}'",
                 form.get("components").size(), templateId);
@@ -113,6 +167,28 @@ public class RetryFormService {
         return form;
     }
 
+    /**
+     * Return the form skeleton for a template, fetching the template schema from Epistola only on a
+     * miss or once the cached entry is older than {@code templateCacheTtl}.
+     */
+    private CachedSkeleton skeletonFor(SkeletonKey key) {
+        Instant now = clock.instant();
+        CachedSkeleton cached = skeletons.get(key);
+        if (cached != null && cached.fetchedAt().plus(templateCacheTtl).isAfter(now)) {
+            return cached;
+        }
+
+        EpistolaPlugin plugin = (EpistolaPlugin) pluginService.createInstance(key.pluginConfigurationId());
+        TemplateDetails template = epistolaService.getTemplateDetails(
+                plugin.getBaseUrl(), plugin.getApiKey(), plugin.getTenantId(), key.catalogId(), key.templateId());
+
+        CachedSkeleton fresh = cached != null && cached.fields().equals(template.fields())
+                ? new CachedSkeleton(cached.fields(), cached.skeleton(), now)
+                : new CachedSkeleton(template.fields(), formioFormGenerator.generateSkeleton(template.fields()), now);
+        skeletons.put(key, fresh);
+        return fresh;
+    }
+
     private ProcessInstance lookupProcessInstance(String processInstanceId) {
         var processInstance = runtimeService.createProcessInstanceQuery()
                 .processInstanceId(processInstanceId)
@@ -124,7 +200,7 @@ public class RetryFormService {
         return processInstance;
     }
 
-    private PluginProcessLink resolveSourceProcessLink(
+    private IndexedProcessLink resolveSourceProcessLink(
             String processDefinitionId, String processInstanceId, String sourceActivityId) {
 
         String effectiveActivityId = sourceActivityId;
@@ -134,7 +210,7 @@ public class RetryFormService {
         }
 
         if (effectiveActivityId != null && !effectiveActivityId.isBlank()) {
-            PluginProcessLink link = findPluginProcessLink(processDefinitionId, effectiveActivityId);
+            IndexedProcessLink link = processLinkIndex.pluginLink(processDefinitionId, effectiveActivityId);
             if (link == null) {
                 throw new RetryFormException(RetryFormException.Reason.LINK_NOT_FOUND,
                         "No plugin process link found for activity '" + effectiveActivityId
@@ -144,20 +220,20 @@ public class RetryFormService {
         }
 
         // Auto-discover
-        List<PluginProcessLink> generateLinks = findGenerateDocumentProcessLinks(processDefinitionId);
+        List<IndexedProcessLink> generateLinks = processLinkIndex.generateDocumentLinks(processDefinitionId);
         if (generateLinks.isEmpty()) {
             throw new RetryFormException(RetryFormException.Reason.LINK_NOT_FOUND,
                     "No generate-document process links found in process '" + processDefinitionId + "'");
         }
         if (generateLinks.size() > 1) {
             List<String> activityIds = generateLinks.stream()
-                    .map(ProcessLink::getActivityId).toList();
+                    .map(IndexedProcessLink::activityId).toList();
             throw new RetryFormException(RetryFormException.Reason.AMBIGUOUS_ACTIVITY,
                     "Multiple generate-document activities found: " + activityIds
                             + ". Set epistolaSourceActivityId as a BPMN input parameter on the retry user task.");
         }
 
-        log.debug("Auto-discovered generate-document activity: {}", generateLinks.get(0).getActivityId());
+        log.debug("Auto-discovered generate-document activity: {}", generateLinks.get(0).activityId());
         return generateLinks.get(0);
     }
 
@@ -188,21 +264,10 @@ public class RetryFormService {
         return null;
     }
 
-    private PluginProcessLink findPluginProcessLink(String processDefinitionId, String activityId) {
-        List<ProcessLink> links = processLinkService.getProcessLinks(processDefinitionId, activityId);
-        return links.stream()
-                .filter(PluginProcessLink.class::isInstance)
-                .map(PluginProcessLink.class::cast)
-                .findFirst()
-                .orElse(null);
+    private record SkeletonKey(PluginConfigurationId pluginConfigurationId, String catalogId, String templateId) {
     }
 
-    private List<PluginProcessLink> findGenerateDocumentProcessLinks(String processDefinitionId) {
-        return processLinkService.getProcessLinks(processDefinitionId).stream()
-                .filter(PluginProcessLink.class::isInstance)
-                .map(PluginProcessLink.class::cast)
-                .filter(link -> "epistola-generate-document".equals(link.getPluginActionDefinitionKey()))
-                .toList();
+    private record CachedSkeleton(List<TemplateField> fields, ObjectNode skeleton, Instant fetchedAt) {
     }
 
     /**
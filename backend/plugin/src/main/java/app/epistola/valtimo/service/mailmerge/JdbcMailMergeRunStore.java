@@ -0,0 +1,214 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * {@link MailMergeRunStore} backed by the {@code epistola_mail_merge_run} table, which the plugin's
+ * Liquibase changelog creates.
+ * <p>
+ * Leases are taken and checked with conditional updates, which makes the table the only
+ * coordination point between nodes.
+ */
+public class JdbcMailMergeRunStore implements MailMergeRunStore {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private static final String COLUMNS = """
+            id, status, definition_json, cursor_created_on, cursor_document_id, cursor_handled_ahead, estimated_total,
+            scanned, submitted, skipped, failed, rendered, render_failed,
+            start_at, created_at, started_at, updated_at, finished_at, lease_owner, lease_until, last_error""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final RowMapper<MailMergeRun> rowMapper = this::mapRow;
+
+    public JdbcMailMergeRunStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void create(UUID id, MailMergeDefinition definition, Instant startAt, Instant now) {
+        jdbcTemplate.update("""
+                        insert into epistola_mail_merge_run (id, status, definition_json, start_at, created_at, updated_at)
+                        values (?, ?, ?, ?, ?, ?)""",
+                id.toString(), MailMergeRunStatus.SCHEDULED.name(), writeDefinition(definition),
+                Timestamp.from(startAt), Timestamp.from(now), Timestamp.from(now));
+    }
+
+    @Override
+    public Optional<MailMergeRun> find(UUID id) {
+        return jdbcTemplate.query("select " + COLUMNS + " from epistola_mail_merge_run where id = ?",
+                rowMapper, id.toString()).stream().findFirst();
+    }
+
+    @Override
+    public List<MailMergeRun> findRecent(int limit) {
+        return jdbcTemplate.query("select " + COLUMNS
+                + " from epistola_mail_merge_run order by created_at desc limit ?", rowMapper, limit);
+    }
+
+    @Override
+    public List<UUID> findClaimable(Instant now) {
+        Timestamp ts = Timestamp.from(now);
+        return jdbcTemplate.queryForList("""
+                        select id from epistola_mail_merge_run
+                         where (status = 'SCHEDULED' and start_at <= ?)
+                            or (status = 'RUNNING' and lease_until < ?)
+                         order by start_at""", String.class, ts, ts)
+                .stream()
+                .map(UUID::fromString)
+                .toList();
+    }
+
+    @Override
+    public boolean claim(UUID id, String owner, Instant now, Instant leaseUntil) {
+        Timestamp ts = Timestamp.from(now);
+        return jdbcTemplate.update("""
+                        update epistola_mail_merge_run
+                           set status = 'RUNNING', lease_owner = ?, lease_until = ?,
+                               started_at = coalesce(started_at, ?), updated_at = ?
+                         where id = ?
+                           and ((status = 'SCHEDULED' and start_at <= ?)
+                             or (status = 'RUNNING' and lease_until < ?))""",
+                owner, Timestamp.from(leaseUntil), ts, ts, id.toString(), ts, ts) == 1;
+    }
+
+    @Override
+    public void updateEstimatedTotal(UUID id, long estimatedTotal) {
+        jdbcTemplate.update("update epistola_mail_merge_run set estimated_total = ? where id = ?",
+                estimatedTotal, id.toString());
+    }
+
+    @Override
+    public boolean checkpoint(UUID id, String owner, MailMergeCursor cursor, MailMergeRun.PageCounts counts,
+                              Instant now, Instant leaseUntil) {
+        return jdbcTemplate.update("""
+                        update epistola_mail_merge_run
+                           set cursor_created_on = ?, cursor_document_id = ?, cursor_handled_ahead = ?,
+                               scanned = scanned + ?, submitted = submitted + ?,
+                               skipped = skipped + ?, failed = failed + ?,
+                               lease_until = ?, updated_at = ?
+                         where id = ? and status = 'RUNNING' and lease_owner = ?""",
+                cursor != null && cursor.createdOn() != null ? Timestamp.from(cursor.createdOn()) : null,
+                cursor != null ? cursor.documentId() : null,
+                cursor != null && !cursor.handledAhead().isEmpty() ? String.join(",", cursor.handledAhead()) : null,
+                counts.scanned(), counts.submitted(), counts.skipped(), counts.failed(),
+                Timestamp.from(leaseUntil), Timestamp.from(now), id.toString(), owner) == 1;
+    }
+
+    @Override
+    public void finish(UUID id, String owner, MailMergeRunStatus status, String error, Instant now) {
+        Timestamp ts = Timestamp.from(now);
+        jdbcTemplate.update("""
+                        update epistola_mail_merge_run
+                           set status = ?, last_error = coalesce(?, last_error), lease_owner = null,
+                               lease_until = null, finished_at = ?, updated_at = ?
+                         where id = ? and status = 'RUNNING' and lease_owner = ?""",
+                status.name(), truncate(error), ts, ts, id.toString(), owner);
+    }
+
+    @Override
+    public boolean cancel(UUID id, Instant now) {
+        Timestamp ts = Timestamp.from(now);
+        return jdbcTemplate.update("""
+                        update epistola_mail_merge_run
+                           set status = 'CANCELLED', lease_owner = null, lease_until = null,
+                               finished_at = ?, updated_at = ?
+                         where id = ? and status in ('SCHEDULED', 'RUNNING')""",
+                ts, ts, id.toString()) == 1;
+    }
+
+    @Override
+    public void addResults(UUID id, long rendered, long renderFailed) {
+        jdbcTemplate.update("""
+                        update epistola_mail_merge_run
+                           set rendered = rendered + ?, render_failed = render_failed + ?
+                         where id = ?""",
+                rendered, renderFailed, id.toString());
+    }
+
+    private MailMergeRun mapRow(ResultSet rs, int rowNum) throws SQLException {
+        long estimated = rs.getLong("estimated_total");
+        Long estimatedTotal = rs.wasNull() ? null : estimated;
+        String cursorDocumentId = rs.getString("cursor_document_id");
+        String handledAhead = rs.getString("cursor_handled_ahead");
+        return new MailMergeRun(
+                UUID.fromString(rs.getString("id")),
+                readDefinition(rs.getString("definition_json")),
+                MailMergeRunStatus.valueOf(rs.getString("status")),
+                cursorDocumentId != null || handledAhead != null
+                        ? new MailMergeCursor(instant(rs, "cursor_created_on"), cursorDocumentId,
+                                handledAhead != null ? Set.of(handledAhead.split(",")) : Set.of())
+                        : null,
+                estimatedTotal,
+                rs.getLong("scanned"),
+                rs.getLong("submitted"),
+                rs.getLong("skipped"),
+                rs.getLong("failed"),
+                rs.getLong("rendered"),
+                rs.getLong("render_failed"),
+                instant(rs, "start_at"),
+                instant(rs, "created_at"),
+                instant(rs, "started_at"),
+                instant(rs, "updated_at"),
+                instant(rs, "finished_at"),
+                rs.getString("lease_owner"),
+                instant(rs, "lease_until"),
+                rs.getString("last_error"));
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private String writeDefinition(MailMergeDefinition definition) {
+        try {
+            return objectMapper.writeValueAsString(definition);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Mail-merge definition cannot be serialized", e);
+        }
+    }
+
+    private MailMergeDefinition readDefinition(String json) {
+        try {
+            return objectMapper.readValue(json, MailMergeDefinition.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored mail-merge definition cannot be read", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Keyset position of a mail-merge run: the creation time and id of the last case document that
+ * was submitted (or skipped). The next page starts strictly after it.
+ * <p>
+ * When a page paused on a throttled submission, {@code handledAhead} holds the documents after
+ * the position that were already submitted, skipped or failed, so the resumed run passes over
+ * them instead of submitting them again. The position is {@code null} when the pause came before
+ * the first document of the run.
+ */
+public record MailMergeCursor(Instant createdOn, String documentId, Set<String> handledAhead) {
+
+    public MailMergeCursor {
+        handledAhead = handledAhead != null ? Set.copyOf(handledAhead) : Set.of();
+    }
+
+    public MailMergeCursor(Instant createdOn, String documentId) {
+        this(createdOn, documentId, Set.of());
+    }
+
+    /** The keyset position alone, or {@code null} when no document was passed yet. */
+    public MailMergeCursor position() {
+        if (documentId == null) {
+            return null;
+        }
+        return handledAhead.isEmpty() ? this : new MailMergeCursor(createdOn, documentId);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import app.epistola.valtimo.action.generate.GenerateDocumentActionConfiguration;
+import app.epistola.valtimo.action.generate.GenerateDocumentActionConfigurationRegistry;
+import app.epistola.valtimo.action.generate.GenerateDocumentActionProperties;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a mail-merge run generates: one document per case document of {@code caseDefinitionKey}
+ * that passes {@code filter}, rendered with the same mapping fields as the
+ * {@code epistola-generate-document} action.
+ * <p>
+ * Expressions are evaluated per case document with {@code $doc} bound to its content; there is
+ * no process instance, so {@code $pv} is empty. {@code filter} is an optional JSONata expression
+ * that must evaluate to {@code true} for the document to be included. {@code startAt} delays the
+ * run; {@code null} starts it on the next scheduler tick.
+ */
+public record MailMergeDefinition(
+        String name,
+        String pluginConfigurationId,
+        String caseDefinitionKey,
+        String filter,
+        Integer actionConfigVersion,
+        String catalogId,
+        String templateId,
+        String variantId,
+        List<Map<String, Object>> variantAttributes,
+        String environmentId,
+        String dataMapping,
+        String outputFormat,
+        String filename,
+        Instant startAt
+) {
+
+    /**
+     * The generate-document parsers require a result variable; a mail merge has no process to
+     * store it in, so a fixed name satisfies the check and is never written.
+     */
+    private static final String UNUSED_RESULT_VARIABLE = "epistolaMailMergeResult";
+
+    /**
+     * Parse the mapping fields with the generate-document action's versioned parsers, so a mail
+     * merge accepts exactly what a process link would.
+     *
+     * @throws IllegalArgumentException when the mapping is not a valid action configuration
+     */
+    public GenerateDocumentActionConfiguration toActionConfiguration() {
+        return GenerateDocumentActionConfigurationRegistry.parse(new GenerateDocumentActionProperties(
+                actionConfigVersion,
+                catalogId,
+                templateId,
+                variantId,
+                variantAttributes,
+                environmentId,
+                dataMapping,
+                outputFormat,
+                filename,
+                null,
+                UNUSED_RESULT_VARIABLE));
+    }
+}
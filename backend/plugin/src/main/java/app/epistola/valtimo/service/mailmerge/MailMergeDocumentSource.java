@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pages through the case documents of a case definition in a stable order, so a mail merge never
+ * holds more than one page in memory and can continue from a {@link MailMergeCursor}.
+ */
+public interface MailMergeDocumentSource {
+
+    /** One case document: its id, creation time (the keyset) and JSON content. */
+    record CaseDocument(String id, Instant createdOn, Map<String, Object> content) {
+
+        public MailMergeCursor cursor() {
+            return new MailMergeCursor(createdOn, id);
+        }
+    }
+
+    /**
+     * The next {@code limit} documents ordered by creation time and id, strictly after
+     * {@code after}, or from the start when {@code after} is {@code null}.
+     */
+    List<CaseDocument> nextPage(String caseDefinitionKey, MailMergeCursor after, int limit);
+
+    /** Number of documents of the case definition, used to estimate the time remaining. */
+    long count(String caseDefinitionKey);
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the generation results of mail-merge submissions as the result collector receives them.
+ * <p>
+ * Mail-merge jobs are recognised by their correlation id; no process instance waits for them, so
+ * the collector hands them here instead of attempting a message correlation per document. The
+ * counts are kept in memory and flushed to the run store in bulk by {@link MailMergeService}.
+ */
+public class MailMergeResultTracker {
+
+    static final String CORRELATION_PREFIX = "epistola-mail-merge:";
+
+    /** Rendered and failed result counts since the last {@link #drain()}. */
+    public record Counts(long rendered, long failed) {
+
+        Counts plus(Counts other) {
+            return new Counts(rendered + other.rendered, failed + other.failed);
+        }
+    }
+
+    private static final Counts ONE_RENDERED = new Counts(1, 0);
+    private static final Counts ONE_FAILED = new Counts(0, 1);
+
+    private final Map<UUID, Counts> pending = new ConcurrentHashMap<>();
+
+    /** Correlation id sent with the generation request of one case document. */
+    public static String correlationId(UUID runId, String documentId) {
+        return CORRELATION_PREFIX + runId + ":" + documentId;
+    }
+
+    /**
+     * Count a generation result if it belongs to a mail merge.
+     *
+     * @return {@code true} when the result was a mail-merge result and needs no correlation
+     */
+    public boolean offer(String correlationId, String status) {
+        UUID runId = runId(correlationId);
+        if (runId == null) {
+            return false;
+        }
+        pending.merge(runId, "COMPLETED".equals(status) ? ONE_RENDERED : ONE_FAILED, Counts::plus);
+        return true;
+    }
+
+    /** Take the counts recorded since the previous call. */
+    public Map<UUID, Counts> drain() {
+        Map<UUID, Counts> drained = new HashMap<>();
+        for (UUID runId : pending.keySet()) {
+            Counts counts = pending.remove(runId);
+            if (counts != null) {
+                drained.put(runId, counts);
+            }
+        }
+        return drained;
+    }
+
+    static UUID runId(String correlationId) {
+        if (correlationId == null || !correlationId.startsWith(CORRELATION_PREFIX)) {
+            return null;
+        }
+        int end = correlationId.indexOf(':', CORRELATION_PREFIX.length());
+        try {
+            return UUID.fromString(correlationId.substring(CORRELATION_PREFIX.length(),
+                    end < 0 ? correlationId.length() : end));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Persisted state of one mail-merge run, as last checkpointed.
+ * <p>
+ * {@code scanned} counts every case document read; each of them is then either
+ * {@code skipped} by the filter, {@code submitted}, or {@code failed} (mapping or submit error).
+ * {@code rendered} and {@code renderFailed} count the generation results reported back for the
+ * submitted documents, so they trail {@code submitted} while Epistola is still rendering.
+ */
+public record MailMergeRun(
+        UUID id,
+        MailMergeDefinition definition,
+        MailMergeRunStatus status,
+        MailMergeCursor cursor,
+        Long estimatedTotal,
+        long scanned,
+        long submitted,
+        long skipped,
+        long failed,
+        long rendered,
+        long renderFailed,
+        Instant startAt,
+        Instant createdAt,
+        Instant startedAt,
+        Instant updatedAt,
+        Instant finishedAt,
+        String leaseOwner,
+        Instant leaseUntil,
+        String lastError
+) {
+
+    /** Per-page increments written together with the cursor. */
+    public record PageCounts(int scanned, int submitted, int skipped, int failed) {
+
+        public static final PageCounts NONE = new PageCounts(0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persistence of mail-merge runs, shared by every node of the cluster. A node only works on a run
+ * while it holds the run's lease; every state-changing write after the claim is conditional on
+ * that lease, so a node that lost its lease (or whose run was cancelled) notices on its next
+ * checkpoint and stops.
+ */
+public interface MailMergeRunStore {
+
+    void create(UUID id, MailMergeDefinition definition, Instant startAt, Instant now);
+
+    Optional<MailMergeRun> find(UUID id);
+
+    /** Most recently created runs first. */
+    List<MailMergeRun> findRecent(int limit);
+
+    /** Runs that are due to start, or that are running under a lease that has expired. */
+    List<UUID> findClaimable(Instant now);
+
+    /**
+     * Take the lease of a claimable run and mark it {@link MailMergeRunStatus#RUNNING}.
+     *
+     * @return {@code false} when another node claimed it first or it is no longer claimable
+     */
+    boolean claim(UUID id, String owner, Instant now, Instant leaseUntil);
+
+    void updateEstimatedTotal(UUID id, long estimatedTotal);
+
+    /**
+     * Advance the cursor, add the page's counts and extend the lease.
+     *
+     * @return {@code false} when {@code owner} no longer holds a running lease on the run
+     */
+    boolean checkpoint(UUID id, String owner, MailMergeCursor cursor, MailMergeRun.PageCounts counts,
+                       Instant now, Instant leaseUntil);
+
+    /** Finish a run this node owns; a no-op when the lease was lost or the run was cancelled. */
+    void finish(UUID id, String owner, MailMergeRunStatus status, String error, Instant now);
+
+    /** @return {@code false} when the run does not exist or already finished */
+    boolean cancel(UUID id, Instant now);
+
+    /** Add generation results observed by any node's result collector. */
+    void addResults(UUID id, long rendered, long renderFailed);
+}
@@ -0,0 +1,521 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import app.epistola.client.model.VariantSelectionAttribute;
+import app.epistola.valtimo.action.generate.GenerateDocumentActionConfiguration;
+import app.epistola.valtimo.config.EpistolaProperties;
+import app.epistola.valtimo.domain.FileFormat;
+import app.epistola.valtimo.domain.GenerationJobResult;
+import app.epistola.valtimo.mapping.EvaluationContext;
+import app.epistola.valtimo.mapping.JsonataMappingService;
+import app.epistola.valtimo.service.EpistolaBulkheadFullException;
+import app.epistola.valtimo.service.EpistolaCircuitOpenException;
+import app.epistola.valtimo.service.EpistolaRateLimitedException;
+import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
+import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.web.rest.dto.MailMergeProgress;
+import com.ritense.plugin.domain.PluginConfiguration;
+import com.ritense.plugin.service.PluginService;
+import com.ritense.valtimo.epistola.plugin.EpistolaPlugin;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs mail merges: one generation request per case document of a case definition, without a
+ * process instance per case.
+ * <p>
+ * A run is stored by {@link #start} and picked up by the {@link Scheduled} tick of whichever node
+ * claims it first. The owning node pages through the case documents with a keyset cursor, one
+ * page at a time on a dedicated virtual thread: every document of the page is filtered and mapped
+ * with {@link JsonataMappingService}, the page's submissions are fanned out through the
+ * {@link BulkSubmitter} (each call still passes the connection's rate limiter and bulkhead in the
+ * bulk lane), and the cursor and counts are checkpointed together with a lease renewal. After a
+ * restart the run is claimed again once its lease expires and continues after the last
+ * checkpoint, so at most one page is submitted twice.
+ * <p>
+ * When Epistola throttles the run beyond the rate limiter's queue, or the circuit breaker or
+ * bulkhead rejects a call, the page starts no further submissions. The run checkpoints up to the
+ * first document that was not submitted, remembers which later documents of the page were
+ * already handled so a resume does not submit them again, and releases its lease for
+ * {@code epistola.mail-merge.throttle-backoff} instead of failing every remaining document.
+ * <p>
+ * Results are counted through the {@link MailMergeResultTracker}; the tick flushes them to the
+ * store so the admin API can report rendered and failed documents next to the submission progress.
+ */
+@Slf4j
+public class MailMergeService {
+
+    private static final int RECENT_RUNS_LIMIT = 50;
+    private static final String OPERATION = "mail-merge";
+
+    private final PluginService pluginService;
+    private final EpistolaService epistolaService;
+    private final JsonataMappingService jsonataMappingService;
+    private final EpistolaResultCollectorRunner resultCollectorRunner;
+    private final BulkSubmitter bulkSubmitter;
+    private final MailMergeRunStore store;
+    private final MailMergeDocumentSource documentSource;
+    private final MailMergeResultTracker resultTracker;
+    private final EpistolaProperties.MailMerge properties;
+    private final Clock clock;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<UUID> activeRuns = ConcurrentHashMap.newKeySet();
+
+    public MailMergeService(
+            PluginService pluginService,
+            EpistolaService epistolaService,
+            JsonataMappingService jsonataMappingService,
+            EpistolaResultCollectorRunner resultCollectorRunner,
+            BulkSubmitter bulkSubmitter,
+            MailMergeRunStore store,
+            MailMergeDocumentSource documentSource,
+            MailMergeResultTracker resultTracker,
+            EpistolaProperties properties
+    ) {
+        this(pluginService, epistolaService, jsonataMappingService, resultCollectorRunner, bulkSubmitter,
+                store, documentSource, resultTracker, properties, Clock.systemUTC());
+    }
+
+    MailMergeService(
+            PluginService pluginService,
+            EpistolaService epistolaService,
+            JsonataMappingService jsonataMappingService,
+            EpistolaResultCollectorRunner resultCollectorRunner,
+            BulkSubmitter bulkSubmitter,
+            MailMergeRunStore store,
+            MailMergeDocumentSource documentSource,
+            MailMergeResultTracker resultTracker,
+            EpistolaProperties properties,
+            Clock clock
+    ) {
+        this.pluginService = pluginService;
+        this.epistolaService = epistolaService;
+        this.jsonataMappingService = jsonataMappingService;
+        this.resultCollectorRunner = resultCollectorRunner;
+        this.bulkSubmitter = bulkSubmitter;
+        this.store = store;
+        this.documentSource = documentSource;
+        this.resultTracker = resultTracker;
+        this.properties = properties.getMailMerge();
+        this.clock = clock;
+    }
+
+    /**
+     * Validate and schedule a run. The mapping is parsed like an {@code epistola-generate-document}
+     * action configuration and the plugin configuration must exist, so mistakes surface here
+     * rather than on the first page.
+     *
+     * @throws IllegalArgumentException when the definition is incomplete or invalid
+     */
+    public MailMergeProgress start(MailMergeDefinition definition) {
+        requireText("pluginConfigurationId", definition.pluginConfigurationId());
+        requireText("caseDefinitionKey", definition.caseDefinitionKey());
+        GenerateDocumentActionConfiguration config = definition.toActionConfiguration();
+        if (!config.filename().isConfigured()) {
+            throw new IllegalArgumentException("filename is required for a mail merge");
+        }
+        loadPlugin(definition.pluginConfigurationId());
+
+        UUID id = UUID.randomUUID();
+        Instant now = clock.instant();
+        store.create(id, definition, definition.startAt() != null ? definition.startAt() : now, now);
+        log.info("Scheduled mail merge {} for case definition '{}' (template {})",
+                id, definition.caseDefinitionKey(), definition.templateId());
+        return get(id);
+    }
+
+    public List<MailMergeProgress> list() {
+        return store.findRecent(RECENT_RUNS_LIMIT).stream().map(this::progress).toList();
+    }
+
+    /** @throws IllegalArgumentException when the run does not exist */
+    public MailMergeProgress get(UUID id) {
+        return store.find(id).map(this::progress)
+                .orElseThrow(() -> new IllegalArgumentException("No mail merge found with id=" + id));
+    }
+
+    /**
+     * Cancel a scheduled or running run. The owning node stops at its next checkpoint; documents
+     * already submitted still render.
+     *
+     * @return {@code false} when the run had already finished
+     */
+    public boolean cancel(UUID id) {
+        get(id);
+        boolean cancelled = store.cancel(id, clock.instant());
+        if (cancelled) {
+            log.info("Cancelled mail merge {}", id);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Flush the result counts seen by this node, then claim due or abandoned runs and start each
+     * on its own virtual thread so a long run never holds the shared scheduler thread.
+     */
+    @Scheduled(fixedDelayString = "${epistola.mail-merge.poll-interval-ms:10000}")
+    public void tick() {
+        flushResults();
+        Instant now = clock.instant();
+        for (UUID id : store.findClaimable(now)) {
+            if (!activeRuns.add(id)) {
+                continue;
+            }
+            if (!claim(id, now)) {
+                activeRuns.remove(id);
+                continue;
+            }
+            Thread.ofVirtual()
+                    .name("epistola-mail-merge-" + id.toString().substring(0, 8))
+                    .start(() -> {
+                        try {
+                            execute(id);
+                        } finally {
+                            activeRuns.remove(id);
+                        }
+                    });
+        }
+    }
+
+    boolean claim(UUID id, Instant now) {
+        return store.claim(id, nodeId, now, now.plus(properties.getLeaseDuration()));
+    }
+
+    void flushResults() {
+        resultTracker.drain().forEach((id, counts) -> {
+            try {
+                store.addResults(id, counts.rendered(), counts.failed());
+            } catch (Exception e) {
+                log.warn("Failed to record results of mail merge {}: {}", id, e.getMessage());
+            }
+        });
+    }
+
+    /** Process a run this node has claimed until it completes, pauses, fails or loses its lease. */
+    void execute(UUID id) {
+        try {
+            MailMergeRun run = store.find(id).orElse(null);
+            if (run == null || run.status() != MailMergeRunStatus.RUNNING || !nodeId.equals(run.leaseOwner())) {
+                return;
+            }
+            MailMergeDefinition definition = run.definition();
+            Target target = new Target(run.id(), loadPlugin(definition.pluginConfigurationId()),
+                    definition.toActionConfiguration(), blankToNull(definition.filter()));
+            if (run.estimatedTotal() == null) {
+                store.updateEstimatedTotal(id, documentSource.count(definition.caseDefinitionKey()));
+            }
+            log.info("Mail merge {} running on this node from cursor {}", id, run.cursor());
+
+            MailMergeCursor cursor = run.cursor();
+            int pageSize = Math.max(1, properties.getPageSize());
+            while (true) {
+                List<MailMergeDocumentSource.CaseDocument> page = documentSource.nextPage(
+                        definition.caseDefinitionKey(), cursor != null ? cursor.position() : null, pageSize);
+                PageOutcome outcome = processPage(target, page, cursor);
+                cursor = outcome.cursor();
+                Instant now = clock.instant();
+                Duration lease = outcome.throttled() ? properties.getThrottleBackoff() : properties.getLeaseDuration();
+                if (!store.checkpoint(id, nodeId, cursor, outcome.counts(), now, now.plus(lease))) {
+                    log.info("Mail merge {} was cancelled or taken over; stopping on this node", id);
+                    return;
+                }
+                if (outcome.throttled()) {
+                    log.warn("Mail merge {} paused for {} after Epistola rejected submissions",
+                            id, properties.getThrottleBackoff());
+                    return;
+                }
+                if (page.size() < pageSize) {
+                    store.finish(id, nodeId, MailMergeRunStatus.COMPLETED, null, clock.instant());
+                    log.info("Mail merge {} submitted its last page", id);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Mail merge {} failed: {}", id, e.getMessage(), e);
+            store.finish(id, nodeId, MailMergeRunStatus.FAILED, e.getMessage(), clock.instant());
+        }
+    }
+
+    private PageOutcome processPage(Target target, List<MailMergeDocumentSource.CaseDocument> page,
+                                    MailMergeCursor cursor) {
+        Set<String> handledBefore = cursor != null ? cursor.handledAhead() : Set.of();
+        // Evaluate on this thread, submit concurrently: JSONata evaluation is CPU-bound and the
+        // submissions are the part that waits on Epistola.
+        List<Prepared> prepared = new ArrayList<>(page.size());
+        List<Submission> submissions = new ArrayList<>();
+        for (MailMergeDocumentSource.CaseDocument document : page) {
+            if (handledBefore.contains(document.id())) {
+                // Submitted (or skipped) before the run last paused; only the cursor moves past it.
+                prepared.add(new Prepared(document, null, false, true));
+                continue;
+            }
+            Prepared entry = prepare(target, document);
+            prepared.add(entry);
+            if (entry.submission() != null) {
+                submissions.add(entry.submission());
+            }
+        }
+        EpistolaPlugin plugin = target.plugin();
+        AtomicBoolean throttled = new AtomicBoolean();
+        List<BulkSubmitter.Outcome<GenerationJobResult>> outcomes = bulkSubmitter.submitAll(
+                submissions,
+                bulkSubmitter.parallelism(properties.getParallelism()),
+                submission -> {
+                    if (throttled.get()) {
+                        throw new NotSubmittedException();
+                    }
+                    try {
+                        return epistolaService.submitGenerationJob(
+                                plugin.getBaseUrl(),
+                                plugin.getApiKey(),
+                                plugin.getTenantId(),
+                                target.config().catalogId(),
+                                target.config().templateId(),
+                                submission.variantId(),
+                                submission.variantAttributes(),
+                                submission.environmentId(),
+                                submission.data(),
+                                submission.format(),
+                                submission.filename(),
+                                submission.correlationId(),
+                                submission.routingKey());
+                    } catch (RuntimeException e) {
+                        if (isTransient(e)) {
+                            throttled.set(true);
+                        }
+                        throw e;
+                    }
+                });
+        if (!submissions.isEmpty()) {
+            resultCollectorRunner.kickFor(plugin.getBaseUrl(), plugin.getApiKey(), plugin.getTenantId());
+        }
+
+        // Walk the page in order. The cursor stops at the first document that has to be retried;
+        // documents handled after it are remembered on the cursor so a resume skips them.
+        MailMergeCursor position = cursor != null ? cursor.position() : null;
+        Set<String> handledAhead = new LinkedHashSet<>();
+        boolean stopped = false;
+        int scanned = 0;
+        int submitted = 0;
+        int skipped = 0;
+        int failed = 0;
+        int next = 0;
+        for (Prepared entry : prepared) {
+            if (entry.handledBefore()) {
+                if (stopped) {
+                    handledAhead.add(entry.document().id());
+                } else {
+                    position = entry.document().cursor();
+                }
+                continue;
+            }
+            if (entry.submission() != null) {
+                BulkSubmitter.Outcome<GenerationJobResult> submitOutcome = outcomes.get(next++);
+                if (!submitOutcome.succeeded() && isTransient(submitOutcome.error())) {
+                    stopped = true;
+                    continue;
+                }
+                if (submitOutcome.succeeded()) {
+                    submitted++;
+                } else {
+                    log.warn("Mail merge {} failed to submit case document {}: {}",
+                            target.runId(), entry.document().id(), submitOutcome.error().getMessage());
+                    failed++;
+                }
+            } else if (entry.skipped()) {
+                skipped++;
+            } else {
+                failed++;
+            }
+            scanned++;
+            if (stopped) {
+                handledAhead.add(entry.document().id());
+            } else {
+                position = entry.document().cursor();
+            }
+        }
+        MailMergeCursor nextCursor = position == null && handledAhead.isEmpty()
+                ? null
+                : new MailMergeCursor(
+                        position != null ? position.createdOn() : null,
+                        position != null ? position.documentId() : null,
+                        handledAhead);
+        return new PageOutcome(nextCursor, new MailMergeRun.PageCounts(scanned, submitted, skipped, failed), stopped);
+    }
+
+    private Prepared prepare(Target target, MailMergeDocumentSource.CaseDocument document) {
+        EvaluationContext context = EvaluationContext.builder()
+                .documentResolver(id -> document.content())
+                .documentId(document.id())
+                .operation(OPERATION)
+                .tenantId(target.plugin().getTenantId())
+                .build();
+        try {
+            if (target.filter() != null
+                    && !"true".equals(jsonataMappingService.evaluateScalar(context.withExpression(target.filter())))) {
+                return new Prepared(document, null, true, false);
+            }
+            GenerateDocumentActionConfiguration config = target.config();
+            EpistolaPlugin plugin = target.plugin();
+            String environmentId = config.environmentId().isConfigured()
+                    ? config.environmentId().resolve(jsonataMappingService, context)
+                    : null;
+            List<VariantSelectionAttribute> attributes = config.variantAttributes().isEmpty()
+                    ? null
+                    : config.variantAttributes().stream()
+                            .map(attr -> new VariantSelectionAttribute(
+                                    attr.key(),
+                                    attr.value().resolve(jsonataMappingService, context),
+                                    null,
+                                    attr.required()))
+                            .toList();
+            String correlationId = MailMergeResultTracker.correlationId(target.runId(), document.id());
+            return new Prepared(document, new Submission(
+                    config.evaluateDataMapping(jsonataMappingService, context),
+                    resolveFormat(config, context),
+                    config.filename().resolve(jsonataMappingService, context),
+                    config.variantId().isConfigured() ? config.variantId().resolve(jsonataMappingService, context) : null,
+                    attributes,
+                    environmentId != null && !environmentId.isBlank() ? environmentId : plugin.getDefaultEnvironmentId(),
+                    correlationId,
+                    resultCollectorRunner.routingKeyFor(
+                            plugin.getBaseUrl(), plugin.getApiKey(), plugin.getTenantId(), correlationId)),
+                    false, false);
+        } catch (RuntimeException e) {
+            log.warn("Mail merge {} could not map case document {}: {}",
+                    target.runId(), document.id(), e.getMessage());
+            return new Prepared(document, null, false, false);
+        }
+    }
+
+    private FileFormat resolveFormat(GenerateDocumentActionConfiguration config, EvaluationContext context) {
+        if (!config.outputFormat().isConfigured()) {
+            return FileFormat.PDF;
+        }
+        FileFormat format = FileFormat.valueOf(config.outputFormat().resolve(jsonataMappingService, context));
+        if (config.version() >= 1 && format != FileFormat.PDF) {
+            throw new IllegalArgumentException("outputFormat must resolve to PDF for action configuration v1");
+        }
+        return format;
+    }
+
+    MailMergeProgress progress(MailMergeRun run) {
+        Instant now = clock.instant();
+        Double documentsPerSecond = null;
+        if (run.startedAt() != null && run.scanned() > 0) {
+            Instant end = run.finishedAt() != null ? run.finishedAt() : now;
+            long elapsedMillis = Duration.between(run.startedAt(), end).toMillis();
+            if (elapsedMillis > 0) {
+                documentsPerSecond = run.scanned() * 1000.0 / elapsedMillis;
+            }
+        }
+        Instant estimatedCompletionAt = null;
+        if (run.status() == MailMergeRunStatus.RUNNING && documentsPerSecond != null && run.estimatedTotal() != null) {
+            long remaining = Math.max(0, run.estimatedTotal() - run.scanned());
+            estimatedCompletionAt = now.plusMillis(Math.round(remaining * 1000.0 / documentsPerSecond));
+        }
+        MailMergeDefinition definition = run.definition();
+        return new MailMergeProgress(
+                run.id(),
+                definition.name(),
+                definition.caseDefinitionKey(),
+                definition.templateId(),
+                run.status().name(),
+                run.estimatedTotal(),
+                run.scanned(),
+                run.submitted(),
+                run.skipped(),
+                run.failed(),
+                run.rendered(),
+                run.renderFailed(),
+                documentsPerSecond,
+                estimatedCompletionAt,
+                run.startAt(),
+                run.createdAt(),
+                run.startedAt(),
+                run.updatedAt(),
+                run.finishedAt(),
+                run.lastError());
+    }
+
+    private EpistolaPlugin loadPlugin(String configurationId) {
+        for (PluginConfiguration cfg : pluginService.findPluginConfigurations(EpistolaPlugin.class, props -> true)) {
+            if (cfg.getId().getId().toString().equals(configurationId)) {
+                return (EpistolaPlugin) pluginService.createInstance(cfg);
+            }
+        }
+        throw new IllegalArgumentException("No Epistola plugin configuration found with id=" + configurationId);
+    }
+
+    private static boolean isTransient(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof NotSubmittedException
+                    || t instanceof EpistolaRateLimitedException
+                    || t instanceof EpistolaCircuitOpenException
+                    || t instanceof EpistolaBulkheadFullException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void requireText(String field, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " is required for a mail merge");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private record Target(UUID runId, EpistolaPlugin plugin, GenerateDocumentActionConfiguration config,
+                          String filter) {}
+
+    private record Submission(Map<String, Object> data, FileFormat format, String filename, String variantId,
+                              List<VariantSelectionAttribute> variantAttributes, String environmentId,
+                              String correlationId, String routingKey) {}
+
+    /** A document of the page: either a submission, or skipped by the filter, or failed to map. */
+    private record Prepared(MailMergeDocumentSource.CaseDocument document, Submission submission,
+                            boolean skipped, boolean handledBefore) {}
+
+    private record PageOutcome(MailMergeCursor cursor, MailMergeRun.PageCounts counts, boolean throttled) {}
+
+    /** A submission the page did not start because an earlier one was throttled. */
+    private static final class NotSubmittedException extends RuntimeException {
+
+        private NotSubmittedException() {
+            super("not submitted after an earlier submission was throttled", null, false, false);
+        }
+    }
+}
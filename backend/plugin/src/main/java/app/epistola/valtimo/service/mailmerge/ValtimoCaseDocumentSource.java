@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ritense.document.domain.impl.JsonSchemaDocument;
+import com.ritense.document.repository.impl.JsonSchemaDocumentRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@link MailMergeDocumentSource} paging through Valtimo's document repository.
+ * <p>
+ * Pages with a keyset on the document's creation time and id instead of an offset: every page is
+ * an index range scan that costs the same on page 1 and page 500, and documents created while the
+ * run is going are picked up at the end instead of shifting the pages. Pages are fetched without a
+ * count query.
+ */
+public class ValtimoCaseDocumentSource implements MailMergeDocumentSource {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final Sort KEYSET_ORDER = Sort.by("createdOn", "id.id");
+
+    private final JsonSchemaDocumentRepository documentRepository;
+    private final ObjectMapper objectMapper;
+
+    public ValtimoCaseDocumentSource(JsonSchemaDocumentRepository documentRepository, ObjectMapper objectMapper) {
+        this.documentRepository = documentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<CaseDocument> nextPage(String caseDefinitionKey, MailMergeCursor after, int limit) {
+        Specification<JsonSchemaDocument> page = ofDefinition(caseDefinitionKey);
+        if (after != null) {
+            page = page.and(after(after));
+        }
+        return documentRepository.findBy(page, query -> query.sortBy(KEYSET_ORDER).limit(limit).all())
+                .stream()
+                .map(this::toCaseDocument)
+                .toList();
+    }
+
+    @Override
+    public long count(String caseDefinitionKey) {
+        return documentRepository.count(ofDefinition(caseDefinitionKey));
+    }
+
+    private static Specification<JsonSchemaDocument> ofDefinition(String caseDefinitionKey) {
+        return (root, query, cb) -> cb.equal(root.get("documentDefinitionId").get("name"), caseDefinitionKey);
+    }
+
+    private static Specification<JsonSchemaDocument> after(MailMergeCursor cursor) {
+        LocalDateTime createdOn = LocalDateTime.ofInstant(cursor.createdOn(), ZoneOffset.UTC);
+        UUID documentId = UUID.fromString(cursor.documentId());
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("createdOn"), createdOn),
+                cb.and(
+                        cb.equal(root.get("createdOn"), createdOn),
+                        cb.greaterThan(root.get("id").get("id"), documentId)));
+    }
+
+    private CaseDocument toCaseDocument(JsonSchemaDocument document) {
+        Map<String, Object> content = document.content() != null && document.content().asJson() != null
+                ? objectMapper.convertValue(document.content().asJson(), MAP_TYPE)
+                : Map.of();
+        return new CaseDocument(
+                document.id().getId().toString(),
+                document.createdOn().toInstant(ZoneOffset.UTC),
+                content);
+    }
+}
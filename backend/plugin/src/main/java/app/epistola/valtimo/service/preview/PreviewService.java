@@ -17,22 +17,21 @@
  */
 package app.epistola.valtimo.service.preview;
 
-import app.epistola.valtimo.action.generate.GenerateDocumentActionConfigurationRegistry;
 import app.epistola.valtimo.service.EpistolaService;
 
 import app.epistola.valtimo.mapping.JsonataMappingService;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
+import app.epistola.valtimo.service.processlink.IndexedProcessLink;
 import app.epistola.valtimo.web.rest.dto.PreviewRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ritense.plugin.domain.PluginProcessLink;
 import com.ritense.plugin.service.PluginService;
-import com.ritense.processlink.domain.ProcessLink;
-import com.ritense.processlink.service.ProcessLinkService;
 import com.ritense.valtimo.epistola.plugin.EpistolaPlugin;
 import com.ritense.valtimo.operaton.service.OperatonRepositoryService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.RuntimeService;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
 
 import java.io.InputStream;
 import java.util.LinkedHashMap;
@@ -46,18 +45,35 @@ import java.util.Map;
  * and calls Epistola's preview API to render a PDF without creating a generation job.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class PreviewService {
 
     private final PluginService pluginService;
     private final EpistolaService epistolaService;
-    private final ProcessLinkService processLinkService;
+    private final EpistolaProcessLinkIndex processLinkIndex;
     private final OperatonRepositoryService repositoryService;
     private final RuntimeService runtimeService;
     private final JsonataMappingService jsonataMappingService;
     private final com.ritense.document.service.DocumentService documentService;
     private final ObjectMapper objectMapper;
 
+    public PreviewService(PluginService pluginService,
+                          EpistolaService epistolaService,
+                          EpistolaProcessLinkIndex processLinkIndex,
+                          OperatonRepositoryService repositoryService,
+                          RuntimeService runtimeService,
+                          JsonataMappingService jsonataMappingService,
+                          com.ritense.document.service.DocumentService documentService,
+                          ObjectMapper objectMapper) {
+        this.pluginService = pluginService;
+        this.epistolaService = epistolaService;
+        this.processLinkIndex = processLinkIndex;
+        this.repositoryService = repositoryService;
+        this.runtimeService = runtimeService;
+        this.jsonataMappingService = jsonataMappingService;
+        this.documentService = documentService;
+        this.objectMapper = objectMapper;
+    }
+
     /**
      * Generate a document preview.
      *
@@ -70,10 +86,12 @@ public class PreviewService {
      * @throws PreviewException if the preview cannot be generated
      */
     public InputStream generatePreview(PreviewRequest request, String documentId, String processInstanceId) {
-        String processDefinitionId = resolveProcessDefinitionId(processInstanceId);
-        PluginProcessLink processLink = resolveProcessLink(processDefinitionId, request.sourceActivityId());
+        ProcessInstance processInstance = resolveProcessInstance(processInstanceId);
+        String processDefinitionId = processInstance.getProcessDefinitionId();
+        IndexedProcessLink indexedLink = resolveProcessLink(processDefinitionId, request.sourceActivityId());
+        PluginProcessLink processLink = indexedLink.link();
 
-        var actionConfig = GenerateDocumentActionConfigurationRegistry.parse(processLink.getActionProperties());
+        var actionConfig = indexedLink.configuration();
         String catalogId = actionConfig.catalogId();
         String templateId = actionConfig.templateId();
         String dataMapping = actionConfig.dataMapping();
@@ -92,6 +110,9 @@ public class PreviewService {
         var docOverrides = request.inputOverrides() != null ? request.inputOverrides().get("doc") : null;
         var pvOverrides = request.inputOverrides() != null ? request.inputOverrides().get("pv") : null;
 
+        EpistolaPlugin plugin = (EpistolaPlugin) pluginService.createInstance(
+                processLink.getPluginConfigurationId());
+
         var evalCtxBuilder = app.epistola.valtimo.mapping.EvaluationContext.builder()
                 .expression(dataMapping)
                 .documentResolver(docId -> {
@@ -101,8 +122,10 @@ public class PreviewService {
                 .documentId(documentId)
                 .operation("preview")
                 .processDefinitionId(processDefinitionId)
+                .processDefinitionKey(processInstance.getProcessDefinitionKey())
                 .processInstanceId(processInstanceId)
-                .activityId(processLink.getActivityId());
+                .activityId(processLink.getActivityId())
+                .tenantId(plugin.getTenantId());
 
         // Add process variable resolver (with override fallback)
         if (pvOverrides != null || processInstanceId != null) {
@@ -132,10 +155,6 @@ public class PreviewService {
             resolvedData = deepMerge(resolvedData, request.overrides());
         }
 
-        // Get plugin config
-        EpistolaPlugin plugin = (EpistolaPlugin) pluginService.createInstance(
-                processLink.getPluginConfigurationId());
-
         var scalarEvalContext = evalCtxBuilder.build();
         String variantId = actionConfig.variantId().isConfigured()
                 ? actionConfig.variantId().resolve(jsonataMappingService, scalarEvalContext)
@@ -158,7 +177,7 @@ public class PreviewService {
         }
     }
 
-    private String resolveProcessDefinitionId(String processInstanceId) {
+    private ProcessInstance resolveProcessInstance(String processInstanceId) {
         if (processInstanceId == null) {
             throw new PreviewException(PreviewException.Reason.MISSING_CONTEXT,
                     "processInstanceId is required for preview");
@@ -170,12 +189,12 @@ public class PreviewService {
             throw new PreviewException(PreviewException.Reason.PROCESS_NOT_FOUND,
                     "Process instance not found: " + processInstanceId);
         }
-        return processInstance.getProcessDefinitionId();
+        return processInstance;
     }
 
-    private PluginProcessLink resolveProcessLink(String processDefinitionId, String sourceActivityId) {
+    private IndexedProcessLink resolveProcessLink(String processDefinitionId, String sourceActivityId) {
         if (sourceActivityId != null && !sourceActivityId.isBlank()) {
-            PluginProcessLink link = findPluginProcessLink(processDefinitionId, sourceActivityId);
+            IndexedProcessLink link = processLinkIndex.pluginLink(processDefinitionId, sourceActivityId);
             if (link == null) {
                 throw new PreviewException(PreviewException.Reason.LINK_NOT_FOUND,
                         "No generate-document process link found for activity '" + sourceActivityId + "'");
@@ -184,18 +203,14 @@ public class PreviewService {
         }
 
         // Auto-discover
-        List<PluginProcessLink> generateLinks = processLinkService.getProcessLinks(processDefinitionId).stream()
-                .filter(PluginProcessLink.class::isInstance)
-                .map(PluginProcessLink.class::cast)
-                .filter(link -> "epistola-generate-document".equals(link.getPluginActionDefinitionKey()))
-                .toList();
+        List<IndexedProcessLink> generateLinks = processLinkIndex.generateDocumentLinks(processDefinitionId);
 
         if (generateLinks.isEmpty()) {
             throw new PreviewException(PreviewException.Reason.LINK_NOT_FOUND,
                     "No generate-document process links found in process definition");
         }
         if (generateLinks.size() > 1) {
-            List<String> ids = generateLinks.stream().map(ProcessLink::getActivityId).toList();
+            List<String> ids = generateLinks.stream().map(IndexedProcessLink::activityId).toList();
             throw new PreviewException(PreviewException.Reason.AMBIGUOUS_ACTIVITY,
                     "Multiple generate-document activities found: " + ids + ". Specify sourceActivityId.");
         }
@@ -220,14 +235,6 @@ public class PreviewService {
         }
     }
 
-    private PluginProcessLink findPluginProcessLink(String processDefinitionId, String activityId) {
-        return processLinkService.getProcessLinks(processDefinitionId, activityId).stream()
-                .filter(PluginProcessLink.class::isInstance)
-                .map(PluginProcessLink.class::cast)
-                .findFirst()
-                .orElse(null);
-    }
-
     @SuppressWarnings("unchecked")
     static Map<String, Object> deepMerge(Map<String, Object> base, Map<String, Object> overrides) {
         Map<String, Object> result = new LinkedHashMap<>(base);
@@ -17,10 +17,8 @@
  */
 package app.epistola.valtimo.service.preview;
 
-import app.epistola.valtimo.action.generate.GenerateDocumentActionConfigurationRegistry;
-import com.ritense.plugin.domain.PluginProcessLink;
-import com.ritense.processlink.service.ProcessLinkService;
-import lombok.RequiredArgsConstructor;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
+import app.epistola.valtimo.service.processlink.IndexedProcessLink;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.RepositoryService;
 import org.operaton.bpm.engine.repository.ProcessDefinition;
@@ -36,11 +34,15 @@ import org.operaton.bpm.engine.repository.ProcessDefinition;
  * an empty string, which the frontend treats as "nothing to suggest".
  */
 @Slf4j
-@RequiredArgsConstructor
 public class ProcessLinkMappingService {
 
     private final RepositoryService repositoryService;
-    private final ProcessLinkService processLinkService;
+    private final EpistolaProcessLinkIndex processLinkIndex;
+
+    public ProcessLinkMappingService(RepositoryService repositoryService, EpistolaProcessLinkIndex processLinkIndex) {
+        this.repositoryService = repositoryService;
+        this.processLinkIndex = processLinkIndex;
+    }
 
     /**
      * Resolve the {@code dataMapping} JSONata for the latest version of the given process
@@ -65,17 +67,13 @@ public class ProcessLinkMappingService {
                 return "";
             }
 
-            PluginProcessLink link = processLinkService.getProcessLinks(definition.getId(), activityId).stream()
-                    .filter(PluginProcessLink.class::isInstance)
-                    .map(PluginProcessLink.class::cast)
-                    .findFirst()
-                    .orElse(null);
+            IndexedProcessLink link = processLinkIndex.pluginLink(definition.getId(), activityId);
             if (link == null) {
                 log.debug("No plugin process link found for {}/{}", processDefinitionKey, activityId);
                 return "";
             }
 
-            return GenerateDocumentActionConfigurationRegistry.parse(link.getActionProperties()).dataMapping();
+            return link.configuration().dataMapping();
         } catch (Exception e) {
             log.warn("Failed to resolve dataMapping for {}/{}: {}",
                     processDefinitionKey, activityId, e.getMessage());
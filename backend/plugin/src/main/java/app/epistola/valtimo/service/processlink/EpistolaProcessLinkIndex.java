@@ -0,0 +1,203 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.processlink;
+
+import app.epistola.valtimo.deployment.EpistolaProcessDeployedEvent;
+import app.epistola.valtimo.deployment.EpistolaProcessLinksChangedEvent;
+import app.epistola.valtimo.service.BoundedLruCache;
+import com.ritense.plugin.domain.PluginProcessLink;
+import com.ritense.processlink.domain.ProcessLink;
+import com.ritense.processlink.service.ProcessLinkService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Plugin-side index of the plugin process links of each process-definition version, by definition id and
+ * activity id, with the {@code generate-document} action configurations already parsed.
+ * <p>
+ * Preview, retry form, mapping lookup, variable discovery, the admin views and the deployment checks all
+ * look links up through this index, so a request costs one map lookup instead of a
+ * {@link ProcessLinkService} query plus a re-parse. A definition's links are read with a single query the
+ * first time they are needed. The changed definitions are dropped on {@link EpistolaProcessLinksChangedEvent}
+ * (the whole index when they are unknown) and a definition key's entries on
+ * {@link EpistolaProcessDeployedEvent}; both listeners run before any other
+ * listener of those events, so they re-read fresh links. Entries also expire after {@code maxAge}, which
+ * bounds staleness for link edits made on another node.
+ * <p>
+ * {@link #uncached(ProcessLinkService)} gives an index that forwards every lookup to the
+ * {@link ProcessLinkService}; services constructed without the shared index use it.
+ */
+@Slf4j
+public class EpistolaProcessLinkIndex {
+
+    public static final String GENERATE_DOCUMENT_ACTION_KEY = "epistola-generate-document";
+
+    /** The generate actions whose result a catch event can wait for: single document and batch. */
+    public static final Set<String> GENERATE_ACTION_KEYS =
+            Set.of(GENERATE_DOCUMENT_ACTION_KEY, "epistola-generate-documents");
+
+    private final ProcessLinkService processLinkService;
+    private final Duration maxAge;
+    private final boolean caching;
+    private final Clock clock;
+    /** Synchronized on together with {@link #generation}, so a load that raced an invalidation is dropped. */
+    private final BoundedLruCache<String, DefinitionLinks> byDefinitionId;
+
+    /** Bumped on every invalidation, so a load that raced one is not cached. */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param maxAge               how long a definition's links are served before they are read again
+     * @param maxCachedDefinitions process-definition versions kept; {@code 0} disables caching
+     */
+    public EpistolaProcessLinkIndex(ProcessLinkService processLinkService, Duration maxAge, int maxCachedDefinitions) {
+        this(processLinkService, maxAge, maxCachedDefinitions, Clock.systemUTC());
+    }
+
+    EpistolaProcessLinkIndex(ProcessLinkService processLinkService, Duration maxAge, int maxCachedDefinitions,
+                             Clock clock) {
+        this.processLinkService = processLinkService;
+        this.maxAge = maxAge;
+        this.caching = maxCachedDefinitions > 0 && maxAge.isPositive();
+        this.clock = clock;
+        this.byDefinitionId = new BoundedLruCache<>(maxCachedDefinitions);
+    }
+
+    /** An index that reads through to the {@link ProcessLinkService} on every lookup. */
+    public static EpistolaProcessLinkIndex uncached(ProcessLinkService processLinkService) {
+        return new EpistolaProcessLinkIndex(processLinkService, Duration.ZERO, 0);
+    }
+
+    /** The plugin process links of a process-definition version, in {@link ProcessLinkService} order. */
+    public List<IndexedProcessLink> pluginLinks(String processDefinitionId) {
+        if (!caching) {
+            return toIndexed(processLinkService.getProcessLinks(processDefinitionId));
+        }
+        return definition(processDefinitionId).links();
+    }
+
+    /** The plugin process links on one activity of a process-definition version. */
+    public List<IndexedProcessLink> pluginLinks(String processDefinitionId, String activityId) {
+        if (!caching) {
+            return toIndexed(processLinkService.getProcessLinks(processDefinitionId, activityId));
+        }
+        return definition(processDefinitionId).byActivity().getOrDefault(activityId, List.of());
+    }
+
+    /** The first plugin process link on an activity, or {@code null} when it has none. */
+    public IndexedProcessLink pluginLink(String processDefinitionId, String activityId) {
+        List<IndexedProcessLink> links = pluginLinks(processDefinitionId, activityId);
+        return links.isEmpty() ? null : links.get(0);
+    }
+
+    /** The plugin process links of a process-definition version whose action is one of {@code actionKeys}. */
+    public List<IndexedProcessLink> linksWithAction(String processDefinitionId, Collection<String> actionKeys) {
+        return pluginLinks(processDefinitionId).stream()
+                .filter(link -> actionKeys.contains(link.actionKey()))
+                .toList();
+    }
+
+    /** The {@code generate-document} process links of a process-definition version. */
+    public List<IndexedProcessLink> generateDocumentLinks(String processDefinitionId) {
+        return linksWithAction(processDefinitionId, List.of(GENERATE_DOCUMENT_ACTION_KEY));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProcessLinksChanged(EpistolaProcessLinksChangedEvent event) {
+        if (event.affectsAllDefinitions()) {
+            invalidateAll();
+            return;
+        }
+        synchronized (byDefinitionId) {
+            generation.incrementAndGet();
+            byDefinitionId.removeAll(event.processDefinitionIds());
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProcessDeployed(EpistolaProcessDeployedEvent event) {
+        // Definition ids are "key:version:deploymentId"; drop every cached version of the key.
+        String prefix = event.processDefinitionKey() + ":";
+        synchronized (byDefinitionId) {
+            generation.incrementAndGet();
+            byDefinitionId.removeIf(id -> id.startsWith(prefix));
+        }
+    }
+
+    /** Drop every cached definition, so the next lookups read the links again. */
+    public void invalidateAll() {
+        synchronized (byDefinitionId) {
+            generation.incrementAndGet();
+            byDefinitionId.clear();
+        }
+    }
+
+    private DefinitionLinks definition(String processDefinitionId) {
+        Instant now = clock.instant();
+        long loadGeneration;
+        synchronized (byDefinitionId) {
+            DefinitionLinks cached = byDefinitionId.get(processDefinitionId);
+            if (cached != null && cached.loadedAt().plus(maxAge).isAfter(now)) {
+                return cached;
+            }
+            loadGeneration = generation.get();
+        }
+
+        List<IndexedProcessLink> links = toIndexed(processLinkService.getProcessLinks(processDefinitionId));
+        Map<String, List<IndexedProcessLink>> byActivity = links.stream()
+                .collect(Collectors.groupingBy(IndexedProcessLink::activityId, LinkedHashMap::new,
+                        Collectors.toUnmodifiableList()));
+        DefinitionLinks loaded = new DefinitionLinks(links, byActivity, now);
+        log.debug("Indexed {} plugin process link(s) for process definition '{}'", links.size(), processDefinitionId);
+
+        synchronized (byDefinitionId) {
+            if (generation.get() == loadGeneration) {
+                byDefinitionId.put(processDefinitionId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private static List<IndexedProcessLink> toIndexed(List<ProcessLink> links) {
+        return links.stream()
+                .filter(PluginProcessLink.class::isInstance)
+                .map(PluginProcessLink.class::cast)
+                .map(IndexedProcessLink::new)
+                .toList();
+    }
+
+    private record DefinitionLinks(List<IndexedProcessLink> links,
+                                   Map<String, List<IndexedProcessLink>> byActivity,
+                                   Instant loadedAt) {
+    }
+}
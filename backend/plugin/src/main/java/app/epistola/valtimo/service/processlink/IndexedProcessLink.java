@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.processlink;
+
+import app.epistola.valtimo.action.generate.GenerateDocumentActionConfiguration;
+import app.epistola.valtimo.action.generate.GenerateDocumentActionConfigurationRegistry;
+import com.ritense.plugin.domain.PluginProcessLink;
+
+/**
+ * A plugin process link as held by {@link EpistolaProcessLinkIndex}, together with its parsed
+ * {@code generate-document} action configuration.
+ * <p>
+ * Generate-document links are parsed once when the index loads them; other links are parsed on the
+ * first {@link #configuration()} call. A malformed configuration is remembered as well, so every
+ * caller gets the same exception without re-parsing.
+ */
+public final class IndexedProcessLink {
+
+    private final PluginProcessLink link;
+    private volatile GenerateDocumentActionConfiguration configuration;
+    private volatile RuntimeException configurationError;
+
+    IndexedProcessLink(PluginProcessLink link) {
+        this.link = link;
+        if (isGenerateDocument()) {
+            parse();
+        }
+    }
+
+    public PluginProcessLink link() {
+        return link;
+    }
+
+    public String activityId() {
+        return link.getActivityId();
+    }
+
+    public String actionKey() {
+        return link.getPluginActionDefinitionKey();
+    }
+
+    public boolean isGenerateDocument() {
+        return EpistolaProcessLinkIndex.GENERATE_DOCUMENT_ACTION_KEY.equals(actionKey());
+    }
+
+    /**
+     * The link's action properties parsed as a {@code generate-document} configuration.
+     *
+     * @throws IllegalArgumentException when the action properties are not a valid configuration
+     */
+    public GenerateDocumentActionConfiguration configuration() {
+        if (configuration == null && configurationError == null) {
+            parse();
+        }
+        if (configurationError != null) {
+            throw configurationError;
+        }
+        return configuration;
+    }
+
+    private void parse() {
+        try {
+            configuration = GenerateDocumentActionConfigurationRegistry.parse(link.getActionProperties());
+        } catch (RuntimeException e) {
+            configurationError = e;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bulkhead capping the number of concurrent calls to one Epistola connection, so a slow
+ * installation can hold at most {@code maxConcurrentCalls} job-executor threads.
+ *
+ * <p>Calls are split into {@link EpistolaTrafficClass} lanes, each with its own cap inside
+ * the connection total. Keeping the {@link EpistolaTrafficClass#BULK} cap below the total
+ * reserves slots that a mass campaign can never occupy. When the connection is saturated,
+ * a freed slot goes to the highest-priority lane that has a waiter and room under its cap.
+ */
+public class EpistolaBulkhead {
+
+    private final int maxConcurrentCalls;
+    private final Map<EpistolaTrafficClass, Integer> laneLimits;
+    private final Duration maxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private final int[] activeByLane = new int[EpistolaTrafficClass.values().length];
+    private final int[] waitingByLane = new int[EpistolaTrafficClass.values().length];
+    private int active;
+
+    /**
+     * @param laneLimits per-lane caps; a missing lane (or a cap above the total) may use
+     *                   every slot of the connection
+     */
+    public EpistolaBulkhead(int maxConcurrentCalls, Map<EpistolaTrafficClass, Integer> laneLimits, Duration maxWait) {
+        if (maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be at least 1");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.laneLimits = new EnumMap<>(EpistolaTrafficClass.class);
+        for (EpistolaTrafficClass lane : EpistolaTrafficClass.values()) {
+            int limit = laneLimits.getOrDefault(lane, maxConcurrentCalls);
+            this.laneLimits.put(lane, Math.max(1, Math.min(limit, maxConcurrentCalls)));
+        }
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Wait up to the configured {@code maxWait} for a free slot in {@code lane}.
+     *
+     * @return {@code true} when a slot was acquired; the caller must {@link #release} it
+     */
+    public boolean tryAcquire(EpistolaTrafficClass lane) throws InterruptedException {
+        int i = lane.ordinal();
+        long remaining = maxWait.toNanos();
+        lock.lockInterruptibly();
+        waitingByLane[i]++;
+        try {
+            while (!canEnter(lane)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = slotFreed.awaitNanos(remaining);
+            }
+            active++;
+            activeByLane[i]++;
+            return true;
+        } finally {
+            waitingByLane[i]--;
+            // Our leaving the queue may unblock a lower-priority waiter.
+            slotFreed.signalAll();
+            lock.unlock();
+        }
+    }
+
+    public void release(EpistolaTrafficClass lane) {
+        lock.lock();
+        try {
+            active--;
+            activeByLane[lane.ordinal()]--;
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getMaxConcurrentCalls(EpistolaTrafficClass lane) {
+        return laneLimits.get(lane);
+    }
+
+    public int getActiveCalls() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveCalls(EpistolaTrafficClass lane) {
+        lock.lock();
+        try {
+            return activeByLane[lane.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaitingCalls() {
+        lock.lock();
+        try {
+            int waiting = 0;
+            for (int w : waitingByLane) {
+                waiting += w;
+            }
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canEnter(EpistolaTrafficClass lane) {
+        if (active >= maxConcurrentCalls || activeByLane[lane.ordinal()] >= laneLimits.get(lane)) {
+            return false;
+        }
+        // Yield to a higher-priority lane that is waiting and could take the slot itself.
+        for (EpistolaTrafficClass higher : EpistolaTrafficClass.values()) {
+            if (higher == lane) {
+                return true;
+            }
+            if (waitingByLane[higher.ordinal()] > 0
+                    && activeByLane[higher.ordinal()] < laneLimits.get(higher)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
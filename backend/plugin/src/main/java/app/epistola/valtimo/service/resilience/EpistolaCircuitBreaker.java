@@ -0,0 +1,235 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Count-based circuit breaker for a single Epistola connection.
+ *
+ * <p>In {@link State#CLOSED} the outcome of the last {@code slidingWindowSize} calls is kept
+ * in a ring buffer. Once at least {@code minimumNumberOfCalls} are buffered and either the
+ * failure rate or the slow-call rate reaches its threshold, the breaker moves to
+ * {@link State#OPEN} and rejects every call for {@code waitDurationInOpenState}. The first
+ * call after that wait moves it to {@link State#HALF_OPEN}, which lets
+ * {@code permittedCallsInHalfOpenState} probe calls through: if their rates stay below the
+ * thresholds the breaker closes again, otherwise it re-opens for another wait.
+ *
+ * <p>All state transitions are {@code synchronized}; the critical sections are a handful of
+ * field updates, far cheaper than the HTTP call they guard.
+ */
+@Slf4j
+public class EpistolaCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Tuning for one breaker. Rates are percentages in {@code [1, 100]}.
+     */
+    public record Config(
+            float failureRateThreshold,
+            float slowCallRateThreshold,
+            Duration slowCallDuration,
+            int slidingWindowSize,
+            int minimumNumberOfCalls,
+            Duration waitDurationInOpenState,
+            int permittedCallsInHalfOpenState
+    ) {
+        public Config {
+            if (slidingWindowSize < 1) {
+                throw new IllegalArgumentException("slidingWindowSize must be at least 1");
+            }
+            if (permittedCallsInHalfOpenState < 1) {
+                throw new IllegalArgumentException("permittedCallsInHalfOpenState must be at least 1");
+            }
+            minimumNumberOfCalls = Math.max(1, Math.min(minimumNumberOfCalls, slidingWindowSize));
+            permittedCallsInHalfOpenState = Math.min(permittedCallsInHalfOpenState, slidingWindowSize);
+        }
+    }
+
+    /**
+     * Point-in-time view for the admin health endpoint. Rates are {@code -1} until enough
+     * calls are buffered to evaluate them.
+     */
+    public record Snapshot(
+            State state,
+            int bufferedCalls,
+            float failureRate,
+            float slowCallRate,
+            Instant openedAt
+    ) {}
+
+    private final String name;
+    private final Config config;
+    private final Clock clock;
+
+    // Ring buffer of the last bufferedCalls outcomes; next is the slot to overwrite.
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int bufferedCalls;
+    private int failedCalls;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private Instant openedAt;
+    private int halfOpenPermitsIssued;
+
+    public EpistolaCircuitBreaker(String name, Config config, Clock clock) {
+        this.name = name;
+        this.config = config;
+        this.clock = clock;
+        this.failed = new boolean[config.slidingWindowSize()];
+        this.slow = new boolean[config.slidingWindowSize()];
+    }
+
+    /**
+     * Try to obtain permission for one call.
+     *
+     * @return {@link Duration#ZERO} when the call may proceed, otherwise the remaining time
+     *         until the breaker will let a probe through (a positive duration).
+     */
+    public synchronized Duration tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return Duration.ZERO;
+            case OPEN: {
+                Duration remaining = remainingOpenTime();
+                if (!remaining.isZero() && !remaining.isNegative()) {
+                    return remaining;
+                }
+                transitionTo(State.HALF_OPEN);
+                halfOpenPermitsIssued = 1;
+                return Duration.ZERO;
+            }
+            case HALF_OPEN:
+            default:
+                if (halfOpenPermitsIssued < config.permittedCallsInHalfOpenState()) {
+                    halfOpenPermitsIssued++;
+                    return Duration.ZERO;
+                }
+                // All probe slots are taken; the probes settle within roughly one slow-call duration.
+                return config.slowCallDuration().isPositive() ? config.slowCallDuration() : Duration.ofSeconds(1);
+        }
+    }
+
+    /**
+     * Hand back a permission that was acquired but never used for a call (e.g. the bulkhead
+     * rejected it), so a half-open breaker does not wait on a probe that never happens.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermitsIssued > 0) {
+            halfOpenPermitsIssued--;
+        }
+    }
+
+    /** Record a call that reached Epistola and got a usable answer (including a 4xx). */
+    public void onSuccess(Duration duration) {
+        record(false, duration);
+    }
+
+    /** Record a call that failed because Epistola was unreachable, timed out or answered 5xx. */
+    public void onFailure(Duration duration) {
+        record(true, duration);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Snapshot snapshot() {
+        boolean evaluable = bufferedCalls >= requiredCalls();
+        return new Snapshot(
+                state,
+                bufferedCalls,
+                evaluable ? rate(failedCalls) : -1f,
+                evaluable ? rate(slowCalls) : -1f,
+                openedAt);
+    }
+
+    private synchronized void record(boolean failure, Duration duration) {
+        if (state == State.OPEN) {
+            // A call that was permitted before the breaker opened; its outcome is stale.
+            return;
+        }
+        boolean slowCall = duration.compareTo(config.slowCallDuration()) >= 0;
+        int size = failed.length;
+        if (bufferedCalls == size) {
+            if (failed[next]) failedCalls--;
+            if (slow[next]) slowCalls--;
+        } else {
+            bufferedCalls++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        if (failure) failedCalls++;
+        if (slowCall) slowCalls++;
+        next = (next + 1) % size;
+
+        if (bufferedCalls < requiredCalls()) {
+            return;
+        }
+        boolean tripped = rate(failedCalls) >= config.failureRateThreshold()
+                || rate(slowCalls) >= config.slowCallRateThreshold();
+        if (state == State.HALF_OPEN) {
+            transitionTo(tripped ? State.OPEN : State.CLOSED);
+        } else if (tripped) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private int requiredCalls() {
+        return state == State.HALF_OPEN
+                ? config.permittedCallsInHalfOpenState()
+                : config.minimumNumberOfCalls();
+    }
+
+    private float rate(int count) {
+        return bufferedCalls == 0 ? 0f : count * 100f / bufferedCalls;
+    }
+
+    private Duration remainingOpenTime() {
+        Instant reopenAt = openedAt.plus(config.waitDurationInOpenState());
+        return Duration.between(clock.instant(), reopenAt);
+    }
+
+    private void transitionTo(State newState) {
+        State old = state;
+        state = newState;
+        resetWindow();
+        halfOpenPermitsIssued = 0;
+        openedAt = newState == State.OPEN ? clock.instant() : null;
+        if (newState == State.OPEN) {
+            log.warn("Epistola circuit breaker '{}' {} -> OPEN; failing fast for {}",
+                    name, old, config.waitDurationInOpenState());
+        } else {
+            log.info("Epistola circuit breaker '{}' {} -> {}", name, old, newState);
+        }
+    }
+
+    private void resetWindow() {
+        next = 0;
+        bufferedCalls = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+    }
+}
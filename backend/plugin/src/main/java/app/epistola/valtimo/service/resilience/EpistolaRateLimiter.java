@@ -0,0 +1,180 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive token bucket for one Epistola connection.
+ *
+ * <p>Tokens refill at the current rate up to {@code burst}. The rate starts at
+ * {@code permitsPerSecond} and follows AIMD: every 429 multiplies it by
+ * {@code decreaseFactor} (never below {@code minPermitsPerSecond}) and every successful
+ * call adds {@code increasePerSuccess} back (never above {@code permitsPerSecond}). A
+ * {@code Retry-After} additionally blocks all permits until that moment; no tokens accrue
+ * while blocked, and callers queued behind the block are released one token interval
+ * apart after it, not all at once.
+ *
+ * <p>Callers without a free token reserve one and sleep until it is due — a short queue
+ * rather than an immediate failure. A caller is rejected when {@code maxQueueSize}
+ * callers are already waiting or the wait would exceed {@code maxWait}.
+ */
+@Slf4j
+public class EpistolaRateLimiter {
+
+    /** Tuning for one limiter. */
+    public record Config(
+            double permitsPerSecond,
+            double minPermitsPerSecond,
+            int burst,
+            double increasePerSuccess,
+            double decreaseFactor,
+            int maxQueueSize,
+            Duration maxWait
+    ) {
+        public Config {
+            if (permitsPerSecond <= 0) {
+                throw new IllegalArgumentException("permitsPerSecond must be positive");
+            }
+            if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+                throw new IllegalArgumentException("decreaseFactor must be between 0 and 1 (exclusive)");
+            }
+            minPermitsPerSecond = Math.max(Math.min(minPermitsPerSecond, permitsPerSecond), 0.01);
+            burst = Math.max(1, burst);
+            maxQueueSize = Math.max(0, maxQueueSize);
+        }
+    }
+
+    /**
+     * Outcome of {@link #reserve()}: either a delay (possibly zero) after which the caller
+     * holds a permit, or a rejection with the delay it would have needed.
+     */
+    public record Reservation(boolean granted, Duration delay) {}
+
+    private final String name;
+    private final Config config;
+    private final Clock clock;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private double rate;
+    private double tokens;
+    private Instant lastRefill;
+    private Instant blockedUntil;
+
+    public EpistolaRateLimiter(String name, Config config, Clock clock) {
+        this.name = name;
+        this.config = config;
+        this.clock = clock;
+        this.rate = config.permitsPerSecond();
+        this.tokens = config.burst();
+        this.lastRefill = clock.instant();
+    }
+
+    /**
+     * Take a permit now or reserve the next one. A granted reservation with a positive
+     * wait counts towards the queue until the caller calls {@link #leaveQueue()}.
+     */
+    public synchronized Reservation reserve() {
+        Instant now = clock.instant();
+        refill(now);
+        Duration blocked = blockedUntil != null && blockedUntil.isAfter(now)
+                ? Duration.between(now, blockedUntil)
+                : Duration.ZERO;
+        Duration wait = tokens >= 1 ? Duration.ZERO : nanosFor(1 - tokens);
+        if (blocked.isPositive()) {
+            wait = blocked.plus(wait);
+        }
+        if (wait.isZero()) {
+            tokens -= 1;
+            return new Reservation(true, Duration.ZERO);
+        }
+        if (queued.get() >= config.maxQueueSize() || wait.compareTo(config.maxWait()) > 0) {
+            return new Reservation(false, wait);
+        }
+        tokens -= 1;
+        queued.incrementAndGet();
+        return new Reservation(true, wait);
+    }
+
+    /** Called by a queued caller once its wait is over (or was interrupted). */
+    public void leaveQueue() {
+        queued.decrementAndGet();
+    }
+
+    /** Give back a reserved permit that will not be used (e.g. the waiting caller was interrupted). */
+    public synchronized void cancel() {
+        tokens = Math.min(config.burst(), tokens + 1);
+    }
+
+    /** Additive increase after a call Epistola accepted. */
+    public synchronized void onSuccess() {
+        if (rate < config.permitsPerSecond()) {
+            refill(clock.instant());
+            rate = Math.min(config.permitsPerSecond(), rate + config.increasePerSuccess());
+        }
+    }
+
+    /**
+     * Multiplicative decrease after a 429, honouring the server's {@code Retry-After}
+     * (may be {@code null}) by blocking every permit until it has passed.
+     */
+    public synchronized void onThrottled(Duration retryAfter) {
+        Instant now = clock.instant();
+        refill(now);
+        double previous = rate;
+        rate = Math.max(config.minPermitsPerSecond(), rate * config.decreaseFactor());
+        // Drop any burst credit: the server just said we are going too fast.
+        tokens = Math.min(tokens, 0);
+        if (retryAfter != null && retryAfter.isPositive()) {
+            Instant until = now.plus(retryAfter);
+            if (blockedUntil == null || until.isAfter(blockedUntil)) {
+                blockedUntil = until;
+            }
+        }
+        log.warn("Epistola rate limiter '{}' throttled by server: {} -> {} permits/s{}",
+                name, String.format("%.2f", previous), String.format("%.2f", rate),
+                retryAfter != null ? " (Retry-After " + retryAfter.toSeconds() + "s)" : "");
+    }
+
+    public synchronized double getPermitsPerSecond() {
+        return rate;
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    private void refill(Instant now) {
+        // Tokens only accrue once a Retry-After block has passed.
+        Instant since = blockedUntil != null && blockedUntil.isAfter(lastRefill) ? blockedUntil : lastRefill;
+        long elapsedNanos = Duration.between(since, now).toNanos();
+        if (elapsedNanos > 0) {
+            tokens = Math.min(config.burst(), tokens + elapsedNanos * rate / 1_000_000_000d);
+            lastRefill = now;
+        }
+    }
+
+    private Duration nanosFor(double missingTokens) {
+        return Duration.ofNanos((long) Math.ceil(missingTokens / rate * 1_000_000_000d));
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import app.epistola.valtimo.config.EpistolaProperties;
+import app.epistola.valtimo.service.EpistolaApiException;
+import app.epistola.valtimo.service.EpistolaBulkheadFullException;
+import app.epistola.valtimo.service.EpistolaCircuitOpenException;
+import app.epistola.valtimo.service.EpistolaRateLimitedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds one {@link EpistolaCircuitBreaker} and one {@link EpistolaBulkhead} per Epistola
+ * connection (base URL + tenant) and runs calls through them.
+ *
+ * <p>A call first asks the breaker for permission — an open circuit fails fast with
+ * {@link EpistolaCircuitOpenException} without touching the bulkhead — then waits for a
+ * bulkhead slot, failing with {@link EpistolaBulkheadFullException} when none frees up in
+ * time. Only dependency failures (connect/read timeouts, connection errors, 5xx) count
+ * against the breaker; a 4xx is a definitive answer from a healthy server.
+ *
+ * <p>The bulkhead is split into {@link EpistolaTrafficClass} lanes so bulk BPMN traffic cannot
+ * take every slot from caseworkers waiting on a preview. Every guarded call is timed as
+ * {@code epistola.client.requests}, tagged with its traffic class, operation and outcome.
+ *
+ * <p>Generation submissions additionally pass an adaptive {@link EpistolaRateLimiter}
+ * first (see {@link #executeRateLimited}), so bulk runs slow down on 429s instead of turning
+ * every rejection into a failed job. Its queue depth, current rate, rejections and 429s
+ * are exported as {@code epistola.client.rate-limiter.*} meters.
+ *
+ * <p>Guards are created lazily on first use, so configurations added at runtime are covered
+ * without a restart.
+ */
+@Slf4j
+public class EpistolaResilienceRegistry {
+
+    /** Identity of one Epistola connection. The API key is deliberately not part of it. */
+    public record ConnectionKey(String baseUrl, String tenantId) {}
+
+    /** Point-in-time view of one connection's guards, for the admin health endpoint. */
+    public record ConnectionResilience(
+            ConnectionKey connection,
+            EpistolaCircuitBreaker.Snapshot circuitBreaker,
+            int activeCalls,
+            int waitingCalls,
+            int maxConcurrentCalls
+    ) {}
+
+    private final EpistolaProperties.Client.CircuitBreaker circuitBreakerProperties;
+    private final EpistolaProperties.Client.Bulkhead bulkheadProperties;
+    private final EpistolaProperties.Client.RateLimiter rateLimiterProperties;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<ConnectionKey, ConnectionGuard> guards = new ConcurrentHashMap<>();
+
+    public EpistolaResilienceRegistry(EpistolaProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC());
+    }
+
+    EpistolaResilienceRegistry(EpistolaProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.circuitBreakerProperties = properties.getClient().getCircuitBreaker();
+        this.bulkheadProperties = properties.getClient().getBulkhead();
+        this.rateLimiterProperties = properties.getClient().getRateLimiter();
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Like {@link #execute}, but first obtains a permit from the connection's rate limiter,
+     * waiting briefly when none is free. A 429 response tightens the limiter (honouring
+     * {@code Retry-After}); every other response from Epistola, successful or 4xx, relaxes it.
+     *
+     * @throws EpistolaRateLimitedException when the queue is full or the wait would exceed
+     *                                      {@code epistola.client.rate-limiter.max-wait-ms}
+     */
+    public <T> T executeRateLimited(String baseUrl, String tenantId, EpistolaTrafficClass lane, String operation,
+                                    Supplier<T> call) {
+        if (!rateLimiterProperties.isEnabled()) {
+            return execute(baseUrl, tenantId, lane, operation, true, call);
+        }
+        ConnectionKey key = new ConnectionKey(baseUrl, tenantId);
+        EpistolaRateLimiter limiter = guards.computeIfAbsent(key, this::createGuard).rateLimiter();
+        acquirePermit(key, limiter, operation);
+        try {
+            T result = execute(baseUrl, tenantId, lane, operation, true, call);
+            limiter.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            HttpStatusCodeException throttled = findThrottled(e);
+            if (throttled != null) {
+                Duration retryAfter = parseRetryAfter(throttled.getResponseHeaders(), clock.instant());
+                limiter.onThrottled(retryAfter);
+                Counter.builder("epistola.client.rate-limiter.throttled")
+                        .description("Calls Epistola answered with 429 Too Many Requests")
+                        .tags(tags(key))
+                        .register(meterRegistry)
+                        .increment();
+            } else if (isClientError(e)) {
+                // Epistola answered (e.g. a 4xx validation error), so the rate was acceptable. Local
+                // rejections (open circuit, full bulkhead) never reached Epistola and say nothing about it.
+                limiter.onSuccess();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Run {@code call} against the connection's circuit breaker and the bulkhead lane of
+     * {@code lane}.
+     *
+     * @param operation        short name used in log and exception messages and as a meter tag
+     * @param slowCallEligible {@code false} for transfers that are legitimately long (preview,
+     *                         download, catalog import) so they never count as slow calls
+     */
+    public <T> T execute(String baseUrl, String tenantId, EpistolaTrafficClass lane, String operation,
+                         boolean slowCallEligible, Supplier<T> call) {
+        if (!circuitBreakerProperties.isEnabled() && !bulkheadProperties.isEnabled()) {
+            return timed(lane, operation, call);
+        }
+        ConnectionGuard guard = guards.computeIfAbsent(new ConnectionKey(baseUrl, tenantId), this::createGuard);
+        EpistolaCircuitBreaker breaker = guard.circuitBreaker();
+        EpistolaBulkhead bulkhead = guard.bulkhead();
+
+        if (breaker != null) {
+            Duration retryAfter = breaker.tryAcquirePermission();
+            if (retryAfter.isPositive()) {
+                throw new EpistolaCircuitOpenException(
+                        "Epistola circuit for tenant '" + tenantId + "' is " + breaker.getState()
+                                + "; " + operation + " rejected without calling Epistola (retry after "
+                                + retryAfter.toSeconds() + "s)",
+                        tenantId, retryAfter);
+            }
+        }
+
+        if (bulkhead != null) {
+            boolean acquired;
+            try {
+                acquired = bulkhead.tryAcquire(lane);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                releasePermission(breaker);
+                throw new EpistolaApiException("Interrupted while waiting for an Epistola call slot for " + operation, e);
+            }
+            if (!acquired) {
+                releasePermission(breaker);
+                throw new EpistolaBulkheadFullException(
+                        "No free " + lane + " Epistola call slot for tenant '" + tenantId + "' ("
+                                + bulkhead.getActiveCalls(lane) + "/" + bulkhead.getMaxConcurrentCalls(lane)
+                                + " in lane, " + bulkhead.getActiveCalls() + "/" + bulkhead.getMaxConcurrentCalls()
+                                + " in total); " + operation + " rejected", tenantId);
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            recordOutcome(breaker, false, start, slowCallEligible);
+            recordLatency(lane, operation, "success", start);
+            return result;
+        } catch (RuntimeException e) {
+            boolean failure = isDependencyFailure(e);
+            recordOutcome(breaker, failure, start, slowCallEligible);
+            recordLatency(lane, operation, failure ? "failure" : "error", start);
+            throw e;
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release(lane);
+            }
+        }
+    }
+
+    /** Snapshot of every connection that has made at least one call, ordered by tenant. */
+    public List<ConnectionResilience> snapshot() {
+        return guards.entrySet().stream()
+                .map(entry -> toResilience(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(r -> String.valueOf(r.connection().tenantId())))
+                .toList();
+    }
+
+    /** Snapshot for one connection, empty when it has not made a guarded call yet. */
+    public Optional<ConnectionResilience> statusFor(String baseUrl, String tenantId) {
+        ConnectionKey key = new ConnectionKey(baseUrl, tenantId);
+        ConnectionGuard guard = guards.get(key);
+        return guard == null ? Optional.empty() : Optional.of(toResilience(key, guard));
+    }
+
+    /**
+     * Whether a failure means Epistola itself is unhealthy: a timeout or connection error
+     * ({@link ResourceAccessException}) or a 5xx, anywhere in the cause chain.
+     */
+    static boolean isDependencyFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ResourceAccessException || t instanceof HttpServerErrorException) {
+                return true;
+            }
+            if (t instanceof EpistolaApiException api && api.getHttpStatus() != null
+                    && api.getHttpStatus() >= 500) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether Epistola answered with a 4xx response, anywhere in the cause chain.
+     */
+    static boolean isClientError(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpStatusCodeException http && http.getStatusCode().is4xxClientError()) {
+                return true;
+            }
+            if (t instanceof EpistolaApiException api && api.isClientError()) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The 429 response anywhere in the cause chain, or {@code null}.
+     */
+    static HttpStatusCodeException findThrottled(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpStatusCodeException http && http.getStatusCode().value() == 429) {
+                return http;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse a {@code Retry-After} header in either delta-seconds or HTTP-date form.
+     * Returns {@code null} when absent or unparseable.
+     */
+    static Duration parseRetryAfter(HttpHeaders headers, Instant now) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        value = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException ignored) {
+            // Not delta-seconds; try HTTP-date below.
+        }
+        try {
+            Instant at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return at.isAfter(now) ? Duration.between(now, at) : Duration.ZERO;
+        } catch (DateTimeParseException e) {
+            log.debug("Ignoring unparseable Retry-After header '{}'", value);
+            return null;
+        }
+    }
+
+    private void acquirePermit(ConnectionKey key, EpistolaRateLimiter limiter, String operation) {
+        EpistolaRateLimiter.Reservation reservation = limiter.reserve();
+        if (!reservation.granted()) {
+            Counter.builder("epistola.client.rate-limiter.rejections")
+                    .description("Calls rejected by the client-side rate limiter without contacting Epistola")
+                    .tags(tags(key))
+                    .register(meterRegistry)
+                    .increment();
+            throw new EpistolaRateLimitedException(
+                    "Epistola rate limit for tenant '" + key.tenantId() + "' reached; " + operation
+                            + " rejected without calling Epistola (retry after "
+                            + reservation.delay().toSeconds() + "s)",
+                    key.tenantId(), reservation.delay());
+        }
+        if (!reservation.delay().isPositive()) {
+            return;
+        }
+        try {
+            Thread.sleep(reservation.delay());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            limiter.cancel();
+            throw new EpistolaApiException("Interrupted while waiting for an Epistola rate-limit permit for " + operation, e);
+        } finally {
+            limiter.leaveQueue();
+        }
+    }
+
+    private static Tags tags(ConnectionKey key) {
+        return Tags.of("tenant", String.valueOf(key.tenantId()), "base.url", String.valueOf(key.baseUrl()));
+    }
+
+    private <T> T timed(EpistolaTrafficClass lane, String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            recordLatency(lane, operation, "success", start);
+            return result;
+        } catch (RuntimeException e) {
+            recordLatency(lane, operation, isDependencyFailure(e) ? "failure" : "error", start);
+            throw e;
+        }
+    }
+
+    /**
+     * Tenant is deliberately not a tag here: latency per lane is the signal, and operation x
+     * outcome x lane already gives a bounded but useful breakdown.
+     */
+    private void recordLatency(EpistolaTrafficClass lane, String operation, String outcome, long startNanos) {
+        Timer.builder("epistola.client.requests")
+                .description("Latency of Epistola API calls per traffic class")
+                .tags("traffic.class", lane.name().toLowerCase(), "operation", operation, "outcome", outcome)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    private void recordOutcome(EpistolaCircuitBreaker breaker, boolean failure, long startNanos,
+                               boolean slowCallEligible) {
+        if (breaker == null) {
+            return;
+        }
+        Duration elapsed = slowCallEligible ? Duration.ofNanos(System.nanoTime() - startNanos) : Duration.ZERO;
+        if (failure) {
+            breaker.onFailure(elapsed);
+        } else {
+            breaker.onSuccess(elapsed);
+        }
+    }
+
+    private static void releasePermission(EpistolaCircuitBreaker breaker) {
+        if (breaker != null) {
+            breaker.releasePermission();
+        }
+    }
+
+    private ConnectionGuard createGuard(ConnectionKey key) {
+        EpistolaCircuitBreaker breaker = null;
+        if (circuitBreakerProperties.isEnabled()) {
+            breaker = new EpistolaCircuitBreaker(
+                    key.tenantId() + "@" + key.baseUrl(),
+                    new EpistolaCircuitBreaker.Config(
+                            circuitBreakerProperties.getFailureRateThreshold(),
+                            circuitBreakerProperties.getSlowCallRateThreshold(),
+                            Duration.ofMillis(circuitBreakerProperties.getSlowCallDurationMs()),
+                            circuitBreakerProperties.getSlidingWindowSize(),
+                            circuitBreakerProperties.getMinimumNumberOfCalls(),
+                            Duration.ofMillis(circuitBreakerProperties.getWaitDurationInOpenStateMs()),
+                            circuitBreakerProperties.getPermittedCallsInHalfOpenState()),
+                    clock);
+        }
+        EpistolaBulkhead bulkhead = null;
+        if (bulkheadProperties.isEnabled()) {
+            Map<EpistolaTrafficClass, Integer> laneLimits = new EnumMap<>(EpistolaTrafficClass.class);
+            laneLimits.put(EpistolaTrafficClass.INTERACTIVE, bulkheadProperties.getInteractiveMaxConcurrentCalls());
+            laneLimits.put(EpistolaTrafficClass.ADMIN, bulkheadProperties.getAdminMaxConcurrentCalls());
+            laneLimits.put(EpistolaTrafficClass.BULK, bulkheadProperties.getBulkMaxConcurrentCalls());
+            bulkhead = new EpistolaBulkhead(bulkheadProperties.getMaxConcurrentCalls(), laneLimits,
+                    Duration.ofMillis(bulkheadProperties.getMaxWaitMs()));
+        }
+        EpistolaRateLimiter rateLimiter = rateLimiterProperties.isEnabled() ? createRateLimiter(key) : null;
+        log.debug("Created Epistola resilience guards for tenant '{}' at {}", key.tenantId(), key.baseUrl());
+        return new ConnectionGuard(breaker, bulkhead, rateLimiter);
+    }
+
+    private EpistolaRateLimiter createRateLimiter(ConnectionKey key) {
+        EpistolaRateLimiter limiter = new EpistolaRateLimiter(
+                key.tenantId() + "@" + key.baseUrl(),
+                new EpistolaRateLimiter.Config(
+                        rateLimiterProperties.getPermitsPerSecond(),
+                        rateLimiterProperties.getMinPermitsPerSecond(),
+                        rateLimiterProperties.getBurst(),
+                        rateLimiterProperties.getIncreasePerSuccess(),
+                        rateLimiterProperties.getDecreaseFactor(),
+                        rateLimiterProperties.getMaxQueueSize(),
+                        Duration.ofMillis(rateLimiterProperties.getMaxWaitMs())),
+                clock);
+        Gauge.builder("epistola.client.rate-limiter.queue-depth", limiter, EpistolaRateLimiter::getQueueDepth)
+                .description("Callers waiting for a client-side rate-limit permit")
+                .tags(tags(key))
+                .register(meterRegistry);
+        Gauge.builder("epistola.client.rate-limiter.permits-per-second", limiter, EpistolaRateLimiter::getPermitsPerSecond)
+                .description("Current adaptive rate of the client-side rate limiter")
+                .tags(tags(key))
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private static ConnectionResilience toResilience(ConnectionKey key, ConnectionGuard guard) {
+        EpistolaBulkhead bulkhead = guard.bulkhead();
+        return new ConnectionResilience(
+                key,
+                guard.circuitBreaker() != null ? guard.circuitBreaker().snapshot() : null,
+                bulkhead != null ? bulkhead.getActiveCalls() : 0,
+                bulkhead != null ? bulkhead.getWaitingCalls() : 0,
+                bulkhead != null ? bulkhead.getMaxConcurrentCalls() : 0);
+    }
+
+    /** A member is {@code null} when that guard is disabled by configuration. */
+    private record ConnectionGuard(
+            EpistolaCircuitBreaker circuitBreaker,
+            EpistolaBulkhead bulkhead,
+            EpistolaRateLimiter rateLimiter
+    ) {}
+}
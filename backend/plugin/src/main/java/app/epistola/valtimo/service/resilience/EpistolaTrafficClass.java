@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import java.util.function.Supplier;
+
+/**
+ * Priority lane of an Epistola call. Declaration order is priority order: when a
+ * connection's bulkhead is saturated, a freed slot goes to a waiting
+ * {@link #INTERACTIVE} call before an {@link #ADMIN} call, and to either before a
+ * {@link #BULK} call.
+ *
+ * <p>{@link ResilientEpistolaService} picks a default per operation (previews and
+ * template pickers are interactive, submissions and status polls are bulk, catalog
+ * import is admin). Callers whose context says otherwise — a BPMN download action,
+ * the admin health check — override it for the duration of a call with
+ * {@link #callAs(EpistolaTrafficClass, Supplier)}.
+ */
+public enum EpistolaTrafficClass {
+
+    /** A caseworker is waiting on the response: previews, template pickers, user downloads. */
+    INTERACTIVE,
+
+    /** Administrative work: health checks, reconcile, catalog import. */
+    ADMIN,
+
+    /** BPMN-driven work that can tolerate queueing: submissions, status polls, mass campaigns. */
+    BULK;
+
+    private static final ThreadLocal<EpistolaTrafficClass> OVERRIDE = new ThreadLocal<>();
+
+    /** Run {@code call} with every Epistola call on this thread classified as {@code trafficClass}. */
+    public static <T> T callAs(EpistolaTrafficClass trafficClass, Supplier<T> call) {
+        EpistolaTrafficClass previous = OVERRIDE.get();
+        OVERRIDE.set(trafficClass);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                OVERRIDE.remove();
+            } else {
+                OVERRIDE.set(previous);
+            }
+        }
+    }
+
+    /** The class set by an enclosing {@link #callAs}, or {@code defaultClass} when there is none. */
+    public static EpistolaTrafficClass currentOr(EpistolaTrafficClass defaultClass) {
+        EpistolaTrafficClass override = OVERRIDE.get();
+        return override != null ? override : defaultClass;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import app.epistola.client.model.VariantSelectionAttribute;
+import app.epistola.valtimo.domain.AttributeDefinition;
+import app.epistola.valtimo.domain.CatalogInfo;
+import app.epistola.valtimo.domain.EnvironmentInfo;
+import app.epistola.valtimo.domain.FileFormat;
+import app.epistola.valtimo.domain.GenerationJobDetail;
+import app.epistola.valtimo.domain.GenerationJobResult;
+import app.epistola.valtimo.domain.TemplateDetails;
+import app.epistola.valtimo.domain.TemplateInfo;
+import app.epistola.valtimo.domain.VariantInfo;
+import app.epistola.valtimo.service.EpistolaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EpistolaService} decorator that runs every tenant-scoped call through the
+ * connection's circuit breaker and bulkhead (see {@link EpistolaResilienceRegistry}).
+ * Generation submissions are additionally rate limited per connection.
+ * <p>
+ * Each operation has a default {@link EpistolaTrafficClass}; an enclosing
+ * {@link EpistolaTrafficClass#callAs} overrides it.
+ * <p>
+ * {@link #getSystemInfo} is passed through unguarded: it has no tenant, and as the
+ * admin health probe it must keep reporting the real server state while a circuit is open.
+ */
+@RequiredArgsConstructor
+public class ResilientEpistolaService implements EpistolaService {
+
+    private final EpistolaService delegate;
+    private final EpistolaResilienceRegistry registry;
+
+    @Override
+    public List<CatalogInfo> getCatalogs(String baseUrl, String apiKey, String tenantId) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.INTERACTIVE), "getCatalogs", true,
+                () -> delegate.getCatalogs(baseUrl, apiKey, tenantId));
+    }
+
+    @Override
+    public SystemInfo getSystemInfo(String baseUrl, String apiKey) {
+        return delegate.getSystemInfo(baseUrl, apiKey);
+    }
+
+    @Override
+    public List<TemplateInfo> getTemplates(String baseUrl, String apiKey, String tenantId, String catalogId) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.INTERACTIVE), "getTemplates", true,
+                () -> delegate.getTemplates(baseUrl, apiKey, tenantId, catalogId));
+    }
+
+    @Override
+    public TemplateDetails getTemplateDetails(String baseUrl, String apiKey, String tenantId,
+                                              String catalogId, String templateId) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.INTERACTIVE), "getTemplateDetails", true,
+                () -> delegate.getTemplateDetails(baseUrl, apiKey, tenantId, catalogId, templateId));
+    }
+
+    @Override
+    public List<AttributeDefinition> getAttributes(String baseUrl, String apiKey, String tenantId, String catalogId) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.INTERACTIVE), "getAttributes", true,
+                () -> delegate.getAttributes(baseUrl, apiKey, tenantId, catalogId));
+    }
+
+    @Override
+    public List<EnvironmentInfo> getEnvironments(String baseUrl, String apiKey, String tenantId) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.INTERACTIVE), "getEnvironments", true,
+                () -> delegate.getEnvironments(baseUrl, apiKey, tenantId));
+    }
+
+    @Override
+    public List<VariantInfo> getVariants(String baseUrl, String apiKey, String tenantId,
+                                         String catalogId, String templateId) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.INTERACTIVE), "getVariants", true,
+                () -> delegate.getVariants(baseUrl, apiKey, tenantId, catalogId, templateId));
+    }
+
+    @Override
+    public GenerationJobResult submitGenerationJob(
+            String baseUrl,
+            String apiKey,
+            String tenantId,
+            String catalogId,
+            String templateId,
+            String variantId,
+            List<VariantSelectionAttribute> variantAttributes,
+            String environmentId,
+            Map<String, Object> data,
+            FileFormat format,
+            String filename,
+            String correlationId,
+            String routingKey
+    ) {
+        return registry.executeRateLimited(baseUrl, tenantId, lane(EpistolaTrafficClass.BULK), "submitGenerationJob",
+                () -> delegate.submitGenerationJob(baseUrl, apiKey, tenantId, catalogId, templateId,
+                        variantId, variantAttributes, environmentId, data, format, filename,
+                        correlationId, routingKey));
+    }
+
+    @Override
+    public GenerationJobDetail getJobStatus(String baseUrl, String apiKey, String tenantId, String requestId) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.BULK), "getJobStatus", true,
+                () -> delegate.getJobStatus(baseUrl, apiKey, tenantId, requestId));
+    }
+
+    @Override
+    public byte[] downloadDocument(String baseUrl, String apiKey, String tenantId, String documentId) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.INTERACTIVE), "downloadDocument", false,
+                () -> delegate.downloadDocument(baseUrl, apiKey, tenantId, documentId));
+    }
+
+    @Override
+    public ImportCatalogResult importCatalog(String baseUrl, String apiKey, String tenantId,
+                                             byte[] zipBytes, String catalogType) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.ADMIN), "importCatalog", false,
+                () -> delegate.importCatalog(baseUrl, apiKey, tenantId, zipBytes, catalogType));
+    }
+
+    @Override
+    public ImportCatalogResult importCatalog(String baseUrl, String apiKey, String tenantId,
+                                             Resource archive, String catalogType) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.ADMIN), "importCatalog", false,
+                () -> delegate.importCatalog(baseUrl, apiKey, tenantId, archive, catalogType));
+    }
+
+    @Override
+    public InputStream previewDocument(String baseUrl, String apiKey, String tenantId, String catalogId,
+                                       String templateId, String variantId, String environmentId,
+                                       Map<String, Object> data) {
+        return registry.execute(baseUrl, tenantId, lane(EpistolaTrafficClass.INTERACTIVE), "previewDocument", false,
+                () -> delegate.previewDocument(baseUrl, apiKey, tenantId, catalogId, templateId,
+                        variantId, environmentId, data));
+    }
+
+    private static EpistolaTrafficClass lane(EpistolaTrafficClass defaultClass) {
+        return EpistolaTrafficClass.currentOr(defaultClass);
+    }
+}
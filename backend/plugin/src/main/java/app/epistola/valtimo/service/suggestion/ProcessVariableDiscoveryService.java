@@ -18,22 +18,29 @@
 package app.epistola.valtimo.service.suggestion;
 
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
-import com.ritense.plugin.domain.PluginProcessLink;
-import com.ritense.processlink.service.ProcessLinkService;
-import lombok.RequiredArgsConstructor;
+import app.epistola.valtimo.service.BoundedLruCache;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.HistoryService;
 import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.history.HistoricProcessInstance;
+import org.operaton.bpm.engine.history.HistoricVariableInstance;
 import org.operaton.bpm.engine.repository.ProcessDefinition;
 import org.operaton.bpm.model.bpmn.BpmnModelInstance;
 import org.operaton.bpm.model.bpmn.instance.operaton.OperatonInputParameter;
 import org.operaton.bpm.model.bpmn.instance.operaton.OperatonOutputParameter;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -44,13 +51,18 @@ import java.util.stream.Collectors;
  *   <li><strong>Plugin process links</strong>: Known output shapes written by Epistola actions</li>
  * </ol>
  * Results are merged and deduplicated.
+ * <p>
+ * History is read from the most recent {@code historyWindow} process instances only, in pages of
+ * {@code pageSize} rows without values; at most {@code samplesPerName} values per object variable
+ * are then loaded to find nested paths. What was found is cached per process definition key. A
+ * cached entry older than {@code refreshInterval} is still answered, while a background refresh
+ * reads the instances that entered the window since the last scan and those still running then,
+ * which may have written variables since.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class ProcessVariableDiscoveryService {
 
     private static final int MAX_NESTED_DEPTH = 8;
-    private static final String GENERATE_DOCUMENT_ACTION_KEY = "epistola-generate-document";
     private static final String RESULT_PROCESS_VARIABLE_PROPERTY = "resultProcessVariable";
     private static final List<String> RESULT_CHILDREN = List.of(
             EpistolaProcessVariables.RESULT_KEY_REQUEST_ID,
@@ -60,9 +72,67 @@ public class ProcessVariableDiscoveryService {
             EpistolaProcessVariables.RESULT_KEY_JOB_PATH
     );
 
+    /** Variable types whose values never have nested paths, so they are not sampled. */
+    private static final Set<String> SCALAR_TYPES = Set.of(
+            "null", "string", "boolean", "short", "integer", "long", "double", "date", "bytes", "file");
+
+    /**
+     * What the history of one process definition key yielded, and the finished instances it covered:
+     * those write no more variables, so they are not read again.
+     */
+    private record HistorySnapshot(Set<String> variables, Map<String, Integer> samplesByName,
+                                   Set<String> finishedInstanceIds, Instant refreshedAt) {
+
+        static final HistorySnapshot EMPTY = new HistorySnapshot(Set.of(), Map.of(), Set.of(), Instant.MIN);
+    }
+
     private final HistoryService historyService;
     private final RepositoryService repositoryService;
-    private final ProcessLinkService processLinkService;
+    private final EpistolaProcessLinkIndex processLinkIndex;
+    private final int historyWindow;
+    private final int pageSize;
+    private final int samplesPerName;
+    private final Duration refreshInterval;
+    private final Executor refreshExecutor;
+    private final Clock clock;
+    private final BoundedLruCache<String, HistorySnapshot> historyCache;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public ProcessVariableDiscoveryService(HistoryService historyService,
+                                           RepositoryService repositoryService,
+                                           EpistolaProcessLinkIndex processLinkIndex,
+                                           int historyWindow,
+                                           int pageSize,
+                                           int samplesPerName,
+                                           Duration refreshInterval,
+                                           int maxCachedDefinitions) {
+        this(historyService, repositoryService, processLinkIndex, historyWindow, pageSize, samplesPerName,
+                refreshInterval, maxCachedDefinitions,
+                task -> Thread.ofVirtual().name("epistola-variable-discovery").start(task),
+                Clock.systemUTC());
+    }
+
+    ProcessVariableDiscoveryService(HistoryService historyService,
+                                    RepositoryService repositoryService,
+                                    EpistolaProcessLinkIndex processLinkIndex,
+                                    int historyWindow,
+                                    int pageSize,
+                                    int samplesPerName,
+                                    Duration refreshInterval,
+                                    int maxCachedDefinitions,
+                                    Executor refreshExecutor,
+                                    Clock clock) {
+        this.historyService = historyService;
+        this.repositoryService = repositoryService;
+        this.processLinkIndex = processLinkIndex;
+        this.historyWindow = Math.max(1, historyWindow);
+        this.pageSize = Math.max(1, pageSize);
+        this.samplesPerName = Math.max(0, samplesPerName);
+        this.refreshInterval = refreshInterval;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.historyCache = new BoundedLruCache<>(maxCachedDefinitions);
+    }
 
     /**
      * Discover process variable names for a given process definition key.
@@ -83,39 +153,119 @@ public class ProcessVariableDiscoveryService {
     }
 
     private Set<String> discoverFromHistory(String processDefinitionKey) {
-        try {
-            Set<String> variables = new LinkedHashSet<>();
-            Set<String> sampledVariables = new LinkedHashSet<>();
+        HistorySnapshot cached = historyCache.get(processDefinitionKey);
+        if (cached == null) {
+            return refreshHistory(processDefinitionKey, HistorySnapshot.EMPTY).variables();
+        }
+        if (cached.refreshedAt().plus(refreshInterval).isBefore(clock.instant())
+                && refreshing.add(processDefinitionKey)) {
+            try {
+                refreshExecutor.execute(() -> {
+                    try {
+                        refreshHistory(processDefinitionKey, cached);
+                    } finally {
+                        refreshing.remove(processDefinitionKey);
+                    }
+                });
+            } catch (RuntimeException e) {
+                refreshing.remove(processDefinitionKey);
+                log.debug("Could not schedule variable discovery refresh for '{}': {}",
+                        processDefinitionKey, e.getMessage());
+            }
+        }
+        return cached.variables();
+    }
 
-            historyService.createHistoricVariableInstanceQuery()
-                    .processDefinitionKey(processDefinitionKey)
-                    .list()
-                    .forEach(variable -> {
-                        String name = variable.getName();
-                        variables.add(name);
-
-                        // A process variable may hold a JSON-like object. Sample one non-null
-                        // historic value per variable name and expose its children as dotted
-                        // paths (for example epistolaResult.documentId).
-                        if (!sampledVariables.contains(name)) {
-                            try {
-                                Object value = variable.getValue();
-                                if (value != null) {
-                                    sampledVariables.add(name);
-                                    extractNestedPaths(value, name, variables, 0);
-                                }
-                            } catch (Exception e) {
-                                log.debug("Could not inspect historic value for process variable '{}': {}",
-                                        name, e.getMessage());
-                            }
-                        }
-                    });
-            return variables;
+    private HistorySnapshot refreshHistory(String processDefinitionKey, HistorySnapshot previous) {
+        try {
+            HistorySnapshot snapshot = scanHistory(processDefinitionKey, previous);
+            historyCache.put(processDefinitionKey, snapshot);
+            return snapshot;
         } catch (Exception e) {
             log.warn("Failed to discover variables from history for process definition '{}': {}",
                     processDefinitionKey, e.getMessage());
-            return Set.of();
+            return previous;
+        }
+    }
+
+    /**
+     * Extend {@code previous} with the variables of the recent process instances it has not covered
+     * yet: new ones, and running ones, which may have written variables since they were read.
+     * Instances that left the window are forgotten, but the names found in them are kept.
+     */
+    private HistorySnapshot scanHistory(String processDefinitionKey, HistorySnapshot previous) {
+        List<HistoricProcessInstance> recentInstances = historyService.createHistoricProcessInstanceQuery()
+                .processDefinitionKey(processDefinitionKey)
+                .orderByProcessInstanceStartTime().desc()
+                .listPage(0, historyWindow);
+        String[] newInstanceIds = recentInstances.stream()
+                .map(HistoricProcessInstance::getId)
+                .filter(id -> !previous.finishedInstanceIds().contains(id))
+                .toArray(String[]::new);
+        Set<String> finishedInstanceIds = recentInstances.stream()
+                .filter(instance -> instance.getEndTime() != null)
+                .map(HistoricProcessInstance::getId)
+                .collect(Collectors.toUnmodifiableSet());
+
+        Set<String> variables = new LinkedHashSet<>(previous.variables());
+        Map<String, Integer> samplesByName = new HashMap<>(previous.samplesByName());
+        if (newInstanceIds.length > 0) {
+            Set<String> objectNames = new LinkedHashSet<>();
+            // Ordered by name so that every name keeps a contiguous run of rows across pages.
+            for (int first = 0; ; first += pageSize) {
+                List<HistoricVariableInstance> page = historyService.createHistoricVariableInstanceQuery()
+                        .processInstanceIdIn(newInstanceIds)
+                        .disableBinaryFetching()
+                        .disableCustomObjectDeserialization()
+                        .orderByVariableName().asc()
+                        .listPage(first, pageSize);
+                for (HistoricVariableInstance variable : page) {
+                    variables.add(variable.getName());
+                    if (!SCALAR_TYPES.contains(variable.getTypeName())) {
+                        objectNames.add(variable.getName());
+                    }
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+            for (String name : objectNames) {
+                int wanted = samplesPerName - samplesByName.getOrDefault(name, 0);
+                if (wanted > 0) {
+                    samplesByName.merge(name, sampleValues(name, newInstanceIds, wanted, variables), Integer::sum);
+                }
+            }
+        }
+        return new HistorySnapshot(Set.copyOf(variables), Map.copyOf(samplesByName),
+                finishedInstanceIds, clock.instant());
+    }
+
+    /**
+     * A process variable may hold a JSON-like object. Load up to {@code limit} historic values of
+     * {@code name} and expose their children as dotted paths (for example epistolaResult.documentId).
+     *
+     * @return the number of non-null values inspected
+     */
+    private int sampleValues(String name, String[] processInstanceIds, int limit, Set<String> variables) {
+        int sampled = 0;
+        List<HistoricVariableInstance> values = historyService.createHistoricVariableInstanceQuery()
+                .processInstanceIdIn(processInstanceIds)
+                .variableName(name)
+                .disableBinaryFetching()
+                .listPage(0, limit);
+        for (HistoricVariableInstance variable : values) {
+            try {
+                Object value = variable.getValue();
+                if (value != null) {
+                    sampled++;
+                    extractNestedPaths(value, name, variables, 0);
+                }
+            } catch (Exception e) {
+                log.debug("Could not inspect historic value for process variable '{}': {}",
+                        name, e.getMessage());
+            }
         }
+        return sampled;
     }
 
     private void extractNestedPaths(Object value, String prefix, Set<String> paths, int depth) {
@@ -196,11 +346,8 @@ public class ProcessVariableDiscoveryService {
     private Set<String> discoverEpistolaResultPaths(ProcessDefinition processDefinition) {
         try {
             Set<String> variables = new LinkedHashSet<>();
-            processLinkService.getProcessLinks(processDefinition.getId()).stream()
-                    .filter(PluginProcessLink.class::isInstance)
-                    .map(PluginProcessLink.class::cast)
-                    .filter(link -> GENERATE_DOCUMENT_ACTION_KEY.equals(link.getPluginActionDefinitionKey()))
-                    .map(PluginProcessLink::getActionProperties)
+            processLinkIndex.generateDocumentLinks(processDefinition.getId()).stream()
+                    .map(link -> link.link().getActionProperties())
                     .filter(properties -> properties != null
                             && properties.hasNonNull(RESULT_PROCESS_VARIABLE_PROPERTY))
                     .map(properties -> properties.get(RESULT_PROCESS_VARIABLE_PROPERTY).asText())
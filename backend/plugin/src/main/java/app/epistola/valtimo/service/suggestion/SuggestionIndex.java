@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.suggestion;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable set of suggestion paths that answers prefix queries by binary search over a sorted
+ * array. Matching ignores case; matches are returned in case-insensitive alphabetical order.
+ */
+public final class SuggestionIndex {
+
+    public static final SuggestionIndex EMPTY = new SuggestionIndex(List.of());
+
+    private final List<String> paths;
+    private final String[] sortedKeys;
+    private final String[] sortedPaths;
+
+    private SuggestionIndex(List<String> paths) {
+        this.paths = paths;
+        List<String> sorted = paths.stream()
+                .distinct()
+                .sorted(Comparator.comparing((String path) -> path.toLowerCase(Locale.ROOT))
+                        .thenComparing(Comparator.naturalOrder()))
+                .toList();
+        this.sortedPaths = sorted.toArray(String[]::new);
+        this.sortedKeys = sorted.stream().map(path -> path.toLowerCase(Locale.ROOT)).toArray(String[]::new);
+    }
+
+    /**
+     * @param paths the suggestion paths, in the order {@link #all()} should return them
+     */
+    public static SuggestionIndex of(Collection<String> paths) {
+        return paths.isEmpty() ? EMPTY : new SuggestionIndex(List.copyOf(paths));
+    }
+
+    /** Every path, in the order the index was built from. */
+    public List<String> all() {
+        return paths;
+    }
+
+    /**
+     * The first {@code limit} paths starting with {@code prefix}, ignoring case.
+     */
+    public List<String> withPrefix(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(key); i < sortedKeys.length && matches.size() < limit; i++) {
+            if (!sortedKeys[i].startsWith(key)) {
+                break;
+            }
+            matches.add(sortedPaths[i]);
+        }
+        return matches;
+    }
+
+    public int size() {
+        return sortedPaths.length;
+    }
+
+    /** Index of the first key that is not less than {@code key}. */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedKeys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
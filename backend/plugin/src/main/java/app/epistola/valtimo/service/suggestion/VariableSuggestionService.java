@@ -17,14 +17,17 @@
  */
 package app.epistola.valtimo.service.suggestion;
 
-import app.epistola.valtimo.service.EpistolaService;
-
+import app.epistola.valtimo.deployment.EpistolaProcessDeployedEvent;
+import app.epistola.valtimo.deployment.EpistolaProcessLinksChangedEvent;
+import app.epistola.valtimo.service.BoundedLruCache;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.ritense.document.domain.DocumentDefinition;
 import com.ritense.document.service.DocumentDefinitionService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -33,13 +36,51 @@ import java.util.Map;
 /**
  * Discovers available variables for JSONata autocompletion.
  * Returns paths grouped by source ($doc, $pv, $case).
+ * <p>
+ * The paths of each case and process definition are kept in a {@link SuggestionIndex}, so the
+ * editor can ask for the few paths matching what was typed instead of every path on every
+ * keystroke. A process index is dropped when its definition is deployed or process links change;
+ * both indexes are re-checked after {@code refreshInterval}, a document index being rebuilt only
+ * when the schema of the active document definition changed. At most {@code maxCachedDefinitions}
+ * indexes of each kind are kept, the least recently used being evicted first; keys without a
+ * definition are never cached.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class VariableSuggestionService {
 
+    /** Largest {@code limit} a prefix query may ask for. */
+    public static final int MAX_LIMIT = 200;
+
+    /** An index with what it was built from, and when that was last checked. */
+    private record CachedIndex(SuggestionIndex index, JsonNode schema, Instant checkedAt) {}
+
     private final DocumentDefinitionService documentDefinitionService;
     private final ProcessVariableDiscoveryService processVariableDiscoveryService;
+    private final Duration refreshInterval;
+    private final Clock clock;
+    private final BoundedLruCache<String, CachedIndex> documentIndexes;
+    private final BoundedLruCache<String, CachedIndex> processIndexes;
+
+    public VariableSuggestionService(DocumentDefinitionService documentDefinitionService,
+                                     ProcessVariableDiscoveryService processVariableDiscoveryService,
+                                     Duration refreshInterval,
+                                     int maxCachedDefinitions) {
+        this(documentDefinitionService, processVariableDiscoveryService, refreshInterval, maxCachedDefinitions,
+                Clock.systemUTC());
+    }
+
+    VariableSuggestionService(DocumentDefinitionService documentDefinitionService,
+                              ProcessVariableDiscoveryService processVariableDiscoveryService,
+                              Duration refreshInterval,
+                              int maxCachedDefinitions,
+                              Clock clock) {
+        this.documentDefinitionService = documentDefinitionService;
+        this.processVariableDiscoveryService = processVariableDiscoveryService;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+        this.documentIndexes = new BoundedLruCache<>(maxCachedDefinitions);
+        this.processIndexes = new BoundedLruCache<>(maxCachedDefinitions);
+    }
 
     /**
      * Get all available variable suggestions for a given case definition.
@@ -49,43 +90,106 @@ public class VariableSuggestionService {
      * @return grouped variable paths
      */
     public VariableSuggestions getSuggestions(String caseDefinitionKey, String processDefinitionKey) {
-        List<String> docPaths = discoverDocumentFields(caseDefinitionKey);
-        List<String> pvNames = discoverProcessVariables(processDefinitionKey);
+        List<String> docPaths = documentIndex(caseDefinitionKey).all();
+        List<String> pvNames = processIndex(processDefinitionKey).all();
         return new VariableSuggestions(docPaths, pvNames);
     }
 
-    private List<String> discoverDocumentFields(String caseDefinitionKey) {
+    /**
+     * Get at most {@code limit} suggestions per source whose path starts with {@code prefix},
+     * ignoring case, in alphabetical order.
+     *
+     * @param caseDefinitionKey    the case definition key (used to find the document schema)
+     * @param processDefinitionKey the process definition key (used to discover process variables)
+     * @param prefix               the typed prefix; empty matches every path
+     * @param limit                the maximum number of paths per source, capped at {@link #MAX_LIMIT}
+     * @return grouped variable paths
+     */
+    public VariableSuggestions getSuggestions(String caseDefinitionKey, String processDefinitionKey,
+                                              String prefix, int limit) {
+        int effectiveLimit = Math.clamp(limit, 1, MAX_LIMIT);
+        return new VariableSuggestions(
+                documentIndex(caseDefinitionKey).withPrefix(prefix, effectiveLimit),
+                processIndex(processDefinitionKey).withPrefix(prefix, effectiveLimit));
+    }
+
+    @EventListener
+    public void onProcessDeployed(EpistolaProcessDeployedEvent event) {
+        processIndexes.remove(event.processDefinitionKey());
+    }
+
+    @EventListener
+    public void onProcessLinksChanged(EpistolaProcessLinksChangedEvent event) {
+        // Links add the known result paths of generate-document actions.
+        if (event.affectsAllDefinitions()) {
+            processIndexes.clear();
+        } else {
+            processIndexes.removeAll(event.processDefinitionKeys());
+        }
+    }
+
+    private SuggestionIndex documentIndex(String caseDefinitionKey) {
         if (caseDefinitionKey == null || caseDefinitionKey.isBlank()) {
-            return List.of();
+            return SuggestionIndex.EMPTY;
+        }
+        CachedIndex cached = documentIndexes.get(caseDefinitionKey);
+        Instant now = clock.instant();
+        if (cached != null && isFresh(cached, now)) {
+            return cached.index();
         }
         try {
             var definition = documentDefinitionService.findActiveByName(caseDefinitionKey);
             if (definition.isEmpty()) {
                 log.debug("No document definition found for case '{}'", caseDefinitionKey);
-                return List.of();
+                documentIndexes.remove(caseDefinitionKey);
+                return SuggestionIndex.EMPTY;
             }
             JsonNode schema = definition.get().schema();
-            List<String> paths = new ArrayList<>();
-            extractPaths(schema, "", paths);
-            return paths;
+            SuggestionIndex index;
+            if (cached != null && schema.equals(cached.schema())) {
+                index = cached.index();
+            } else {
+                List<String> paths = new ArrayList<>();
+                extractPaths(schema, "", paths);
+                index = SuggestionIndex.of(paths);
+            }
+            documentIndexes.put(caseDefinitionKey, new CachedIndex(index, schema, now));
+            return index;
         } catch (Exception e) {
             log.warn("Failed to discover document fields for '{}': {}", caseDefinitionKey, e.getMessage());
-            return List.of();
+            return SuggestionIndex.EMPTY;
         }
     }
 
-    private List<String> discoverProcessVariables(String processDefinitionKey) {
+    private SuggestionIndex processIndex(String processDefinitionKey) {
         if (processDefinitionKey == null || processDefinitionKey.isBlank()) {
-            return List.of();
+            return SuggestionIndex.EMPTY;
+        }
+        CachedIndex cached = processIndexes.get(processDefinitionKey);
+        Instant now = clock.instant();
+        if (cached != null && isFresh(cached, now)) {
+            return cached.index();
         }
         try {
-            return processVariableDiscoveryService.discoverVariables(processDefinitionKey);
+            List<String> variables = processVariableDiscoveryService.discoverVariables(processDefinitionKey);
+            if (variables.isEmpty()) {
+                // Nothing deployed or run under this key (yet): do not let unknown keys fill the cache.
+                processIndexes.remove(processDefinitionKey);
+                return SuggestionIndex.EMPTY;
+            }
+            SuggestionIndex index = SuggestionIndex.of(variables);
+            processIndexes.put(processDefinitionKey, new CachedIndex(index, null, now));
+            return index;
         } catch (Exception e) {
             log.warn("Failed to discover process variables for '{}': {}", processDefinitionKey, e.getMessage());
-            return List.of();
+            return SuggestionIndex.EMPTY;
         }
     }
 
+    private boolean isFresh(CachedIndex cached, Instant now) {
+        return cached.checkedAt().plus(refreshInterval).isAfter(now);
+    }
+
     /**
      * Recursively extract dot-notation paths from a JSON Schema.
      */
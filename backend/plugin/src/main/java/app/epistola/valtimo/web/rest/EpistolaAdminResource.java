@@ -19,14 +19,22 @@ package app.epistola.valtimo.web.rest;
 
 import app.epistola.valtimo.authorization.EpistolaAdministration;
 import app.epistola.valtimo.authorization.EpistolaAdministrationActionProvider;
+import app.epistola.valtimo.mapping.ExpressionFunctionResultCache;
 import app.epistola.valtimo.service.admin.EpistolaAdminService;
 import app.epistola.valtimo.service.admin.EpistolaLegacyOverrideScanService;
+import app.epistola.valtimo.service.admin.PluginUsageIndex;
+import app.epistola.valtimo.service.mailmerge.MailMergeDefinition;
+import app.epistola.valtimo.service.mailmerge.MailMergeService;
 import app.epistola.valtimo.web.rest.dto.BpmnValidationReport;
+import app.epistola.valtimo.web.rest.dto.BulkReconcileProgress;
+import app.epistola.valtimo.web.rest.dto.BulkReconcileSummary;
 import app.epistola.valtimo.web.rest.dto.CatalogRedeployResult;
 import app.epistola.valtimo.web.rest.dto.ChangelogRelease;
 import app.epistola.valtimo.web.rest.dto.ClasspathCatalog;
 import app.epistola.valtimo.web.rest.dto.ConnectionStatus;
+import app.epistola.valtimo.web.rest.dto.MailMergeProgress;
 import app.epistola.valtimo.web.rest.dto.PendingJob;
+import app.epistola.valtimo.web.rest.dto.PendingJobSummary;
 import app.epistola.valtimo.web.rest.dto.PluginUsageEntry;
 import app.epistola.valtimo.web.rest.dto.ProcessLinkExport;
 import app.epistola.valtimo.web.rest.dto.ReconcileResult;
@@ -34,8 +42,10 @@ import app.epistola.valtimo.web.rest.dto.VersionInfo;
 import com.ritense.authorization.AuthorizationService;
 import com.ritense.authorization.request.EntityAuthorizationRequest;
 import com.ritense.valtimo.contract.annotation.SkipComponentScan;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -44,9 +54,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 
@@ -62,13 +77,44 @@ import java.util.UUID;
 @RestController
 @RequestMapping("/api/v1/plugin/epistola/admin")
 @SkipComponentScan
-@RequiredArgsConstructor
 public class EpistolaAdminResource {
 
+    /** Upper bound on one bulk reconcile stream; a run that takes longer still finishes server-side. */
+    private static final Duration BULK_RECONCILE_TIMEOUT = Duration.ofMinutes(30);
+
     private final EpistolaAdminService adminService;
     private final AuthorizationService authorizationService;
     // TEMPORARY: detect forms still using the legacy override-mapping object format.
     private final EpistolaLegacyOverrideScanService legacyOverrideScanService;
+    private final MailMergeService mailMergeService;
+    private final PluginUsageIndex pluginUsageIndex;
+    private final ExpressionFunctionResultCache expressionFunctionResultCache;
+
+    /**
+     * @param mailMergeService              mail-merge runs; {@code null} when {@code epistola.mail-merge}
+     *                                      is disabled, in which case the mail-merge endpoints answer 404
+     * @param pluginUsageIndex              the maintained plugin-usage index; {@code null} when
+     *                                      {@code epistola.usage-index} is disabled, in which case the
+     *                                      usage overview is computed on every request
+     * @param expressionFunctionResultCache results expression functions share across evaluations;
+     *                                      {@code null} when the host replaced the mapping service,
+     *                                      in which case the cache endpoints answer 404
+     */
+    public EpistolaAdminResource(
+            EpistolaAdminService adminService,
+            AuthorizationService authorizationService,
+            EpistolaLegacyOverrideScanService legacyOverrideScanService,
+            MailMergeService mailMergeService,
+            PluginUsageIndex pluginUsageIndex,
+            ExpressionFunctionResultCache expressionFunctionResultCache
+    ) {
+        this.adminService = adminService;
+        this.authorizationService = authorizationService;
+        this.legacyOverrideScanService = legacyOverrideScanService;
+        this.mailMergeService = mailMergeService;
+        this.pluginUsageIndex = pluginUsageIndex;
+        this.expressionFunctionResultCache = expressionFunctionResultCache;
+    }
 
     /**
      * Check connectivity to Epistola for all plugin configurations.
@@ -103,13 +149,44 @@ public class EpistolaAdminResource {
     }
 
     /**
-     * Get an overview of all Epistola plugin usages across process definitions.
+     * Get an overview of all Epistola plugin usages across process definitions. Served from the
+     * usage index when enabled; {@code Last-Modified} then tells when the index last changed.
      */
     @GetMapping("/usage")
     public ResponseEntity<List<PluginUsageEntry>> getPluginUsage() {
         requireManagePermission();
         log.debug("Fetching Epistola plugin usage overview");
-        return ResponseEntity.ok(adminService.getPluginUsage());
+        return pluginUsageResponse();
+    }
+
+    /**
+     * Rebuild the plugin usage overview now, re-checking every referenced catalog, template and
+     * variant in Epistola, and return it.
+     */
+    @PostMapping("/usage/refresh")
+    public ResponseEntity<List<PluginUsageEntry>> refreshPluginUsage() {
+        requireManagePermission();
+        log.info("Rebuilding Epistola plugin usage overview");
+        if (pluginUsageIndex == null) {
+            return ResponseEntity.ok(adminService.getPluginUsage());
+        }
+        pluginUsageIndex.requestRebuild();
+        pluginUsageIndex.refresh();
+        return pluginUsageResponse();
+    }
+
+    /**
+     * The usage overview from the index, or computed directly when the index is disabled or has never
+     * been built successfully.
+     */
+    private ResponseEntity<List<PluginUsageEntry>> pluginUsageResponse() {
+        PluginUsageIndex.Snapshot snapshot = pluginUsageIndex != null ? pluginUsageIndex.snapshot() : null;
+        if (snapshot == null) {
+            return ResponseEntity.ok(adminService.getPluginUsage());
+        }
+        return ResponseEntity.ok()
+                .lastModified(snapshot.refreshedAt())
+                .body(snapshot.entries());
     }
 
     /**
@@ -122,6 +199,31 @@ public class EpistolaAdminResource {
         return ResponseEntity.ok(adminService.getPendingJobs());
     }
 
+    /**
+     * Get one page of the process instances waiting for an Epistola result, for installations with
+     * too many waiting instances to list at once. Sortable by {@code waitingSince} only (oldest first
+     * by default); the page size is capped at 500. Returns 400 (via Valtimo's global advice) for any
+     * other sort property.
+     */
+    @GetMapping("/pending/page")
+    public ResponseEntity<Page<PendingJob>> getPendingJobPage(
+            @PageableDefault(size = 50, sort = "waitingSince") Pageable pageable) {
+        requireManagePermission();
+        log.debug("Fetching pending Epistola jobs page {}", pageable);
+        return ResponseEntity.ok(adminService.getPendingJobPage(pageable));
+    }
+
+    /**
+     * Get the number of process instances waiting for an Epistola result, per tenant and per
+     * catch-event activity.
+     */
+    @GetMapping("/pending/summary")
+    public ResponseEntity<PendingJobSummary> getPendingJobSummary() {
+        requireManagePermission();
+        log.debug("Fetching pending Epistola jobs summary");
+        return ResponseEntity.ok(adminService.getPendingJobSummary());
+    }
+
     /**
      * Get the latest BPMN race-safety validation report across all deployed process
      * definitions: the violation snapshot (empty = healthy) plus when it was last
@@ -159,6 +261,42 @@ public class EpistolaAdminResource {
         return ResponseEntity.status(status).body(result);
     }
 
+    /**
+     * Reconcile every stuck Epistola catch event at once, optionally only those of one tenant. The
+     * outcome of each execution is streamed as a server-sent {@code progress} event carrying a
+     * {@link BulkReconcileProgress} while the run goes on, followed by one {@code summary} event with
+     * the {@link BulkReconcileSummary}. The run continues when the client disconnects.
+     */
+    @PostMapping(value = "/pending/reconcile", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter reconcileAllPending(@RequestParam(required = false) String tenantId) {
+        requireManagePermission();
+        log.info("Bulk reconcile requested for {}", tenantId != null ? "tenant " + tenantId : "all tenants");
+        SseEmitter emitter = new SseEmitter(BULK_RECONCILE_TIMEOUT.toMillis());
+        Thread.ofVirtual()
+                .name("epistola-bulk-reconcile")
+                .start(() -> {
+                    try {
+                        BulkReconcileSummary summary = adminService.reconcileAll(tenantId,
+                                progress -> sendQuietly(emitter, "progress", progress));
+                        sendQuietly(emitter, "summary", summary);
+                        emitter.complete();
+                    } catch (Exception e) {
+                        log.warn("Bulk reconcile failed: {}", e.getMessage(), e);
+                        emitter.completeWithError(e);
+                    }
+                });
+        return emitter;
+    }
+
+    /** A client that went away must not abort the reconcile; its remaining events are dropped. */
+    private static void sendQuietly(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Bulk reconcile: dropping {} event, client no longer listening: {}", name, e.getMessage());
+        }
+    }
+
     /**
      * List the classpath catalogs available to manually redeploy for a plugin
      * configuration, each annotated with the version last deployed in this process.
@@ -233,6 +371,96 @@ public class EpistolaAdminResource {
         return ResponseEntity.ok(legacyOverrideScanService.findLegacyForms());
     }
 
+    /**
+     * Schedule a mail merge: one document per case document of a case definition. Returns 201 with
+     * the new run; 400 (via Valtimo's global advice) when the definition is invalid.
+     */
+    @PostMapping("/mail-merge")
+    public ResponseEntity<MailMergeProgress> startMailMerge(@RequestBody MailMergeDefinition definition) {
+        requireManagePermission();
+        if (mailMergeService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("Mail merge requested for case definition {}", definition.caseDefinitionKey());
+        return ResponseEntity.status(HttpStatus.CREATED).body(mailMergeService.start(definition));
+    }
+
+    /**
+     * List the most recent mail-merge runs with their throughput and estimated completion.
+     */
+    @GetMapping("/mail-merge")
+    public ResponseEntity<List<MailMergeProgress>> listMailMerges() {
+        requireManagePermission();
+        if (mailMergeService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(mailMergeService.list());
+    }
+
+    /**
+     * Get the progress of one mail-merge run.
+     */
+    @GetMapping("/mail-merge/{runId}")
+    public ResponseEntity<MailMergeProgress> getMailMerge(@PathVariable UUID runId) {
+        requireManagePermission();
+        if (mailMergeService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(mailMergeService.get(runId));
+    }
+
+    /**
+     * Cancel a scheduled or running mail merge. Returns 200 with the run, or 409 when it had
+     * already finished.
+     */
+    @PostMapping("/mail-merge/{runId}/cancel")
+    public ResponseEntity<MailMergeProgress> cancelMailMerge(@PathVariable UUID runId) {
+        requireManagePermission();
+        if (mailMergeService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("Mail merge cancel requested for run {}", runId);
+        HttpStatus status = mailMergeService.cancel(runId) ? HttpStatus.OK : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(mailMergeService.get(runId));
+    }
+
+    /**
+     * Size, hit rate and evictions of each expression function that caches results across
+     * evaluations.
+     */
+    @GetMapping("/expression-function-cache")
+    public ResponseEntity<List<ExpressionFunctionResultCache.FunctionCacheStatistics>> getExpressionFunctionCache() {
+        requireManagePermission();
+        if (expressionFunctionResultCache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(expressionFunctionResultCache.statistics());
+    }
+
+    /**
+     * Drop cached expression-function results, e.g. after a correction in an upstream registry:
+     * those of {@code function} only, or all when omitted. Returns 404 for a function that caches
+     * nothing across evaluations.
+     */
+    @PostMapping("/expression-function-cache/flush")
+    public ResponseEntity<List<ExpressionFunctionResultCache.FunctionCacheStatistics>> flushExpressionFunctionCache(
+            @RequestParam(required = false) String function
+    ) {
+        requireManagePermission();
+        if (expressionFunctionResultCache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (function == null || function.isBlank()) {
+            log.info("Flushing all cached expression-function results");
+            expressionFunctionResultCache.flush();
+        } else if (expressionFunctionResultCache.flush(function)) {
+            log.info("Flushed cached results of expression function '{}'", function);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(expressionFunctionResultCache.statistics());
+    }
+
     private void requireManagePermission() {
         authorizationService.requirePermission(
                 new EntityAuthorizationRequest<>(
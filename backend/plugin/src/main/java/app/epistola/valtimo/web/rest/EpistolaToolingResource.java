@@ -77,18 +77,28 @@ public class EpistolaToolingResource {
     /**
      * Get all available variable suggestions for autocompletion in JSONata expressions.
      * Returns document fields (from JSON Schema) and process variables grouped by source.
+     * With {@code prefix}, returns only the first {@code limit} paths per source that start with it.
      *
      * @param caseDefinitionKey    The case definition key (for document schema)
      * @param processDefinitionKey The process definition key (for process variables)
+     * @param prefix               Optional typed prefix, matched ignoring case
+     * @param limit                Maximum paths per source in prefix mode (default 20)
      * @return Variable paths grouped by source ($doc, $pv)
      */
     @GetMapping("/variable-suggestions")
     public ResponseEntity<VariableSuggestionService.VariableSuggestions> getVariableSuggestions(
             @RequestParam(value = "caseDefinitionKey", required = false) String caseDefinitionKey,
-            @RequestParam(value = "processDefinitionKey", required = false) String processDefinitionKey
+            @RequestParam(value = "processDefinitionKey", required = false) String processDefinitionKey,
+            @RequestParam(value = "prefix", required = false) String prefix,
+            @RequestParam(value = "limit", defaultValue = "20") int limit
     ) {
-        log.debug("Fetching variable suggestions for case={}, process={}", caseDefinitionKey, processDefinitionKey);
-        return ResponseEntity.ok(variableSuggestionService.getSuggestions(caseDefinitionKey, processDefinitionKey));
+        log.debug("Fetching variable suggestions for case={}, process={}, prefix={}",
+                caseDefinitionKey, processDefinitionKey, prefix);
+        if (prefix == null) {
+            return ResponseEntity.ok(variableSuggestionService.getSuggestions(caseDefinitionKey, processDefinitionKey));
+        }
+        return ResponseEntity.ok(variableSuggestionService.getSuggestions(
+                caseDefinitionKey, processDefinitionKey, prefix, limit));
     }
 
     /**
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.web.rest.dto;
+
+/**
+ * One step of a bulk reconcile, streamed to the admin UI as it happens.
+ *
+ * <p>{@code result} holds the outcome for the execution, as a single reconcile would return it;
+ * {@code error} is set instead when the execution could not be reconciled (no plugin
+ * configuration for its tenant, Epistola unreachable, ...). {@code processed} counts the
+ * executions handled so far out of {@code total}.
+ */
+public record BulkReconcileProgress(
+        int processed,
+        int total,
+        String executionId,
+        ReconcileResult result,
+        String error
+) {}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.web.rest.dto;
+
+/**
+ * Totals of a bulk reconcile, sent as the last event of the stream. {@code stillPending} counts the
+ * executions whose job Epistola reports as not yet finished; {@code failed} those that could not be
+ * reconciled at all.
+ */
+public record BulkReconcileSummary(
+        int total,
+        int correlated,
+        int stillPending,
+        int failed,
+        long durationMs
+) {}
@@ -19,7 +19,8 @@ package app.epistola.valtimo.web.rest.dto;
 
 /**
  * Connection health check result for a single Epistola plugin configuration.
- * Includes the server version if the connection was successful.
+ * Includes the server version if the connection was successful, and the client-side
+ * circuit breaker / bulkhead state ({@code null} until the connection made a call).
  */
 public record ConnectionStatus(
         String configurationId,
@@ -31,5 +32,6 @@ public record ConnectionStatus(
         String serverVersion,
         String contractVersion,
         String serverContractVersion,
-        ContractCompatibilitySeverity contractCompatibilitySeverity
+        ContractCompatibilitySeverity contractCompatibilitySeverity,
+        ResilienceStatus resilience
 ) {}
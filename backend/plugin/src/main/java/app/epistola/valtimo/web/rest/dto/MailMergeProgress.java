@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.web.rest.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Progress of one mail-merge run for the admin API. {@code documentsPerSecond} is the average
+ * number of case documents processed per second since the run started ({@code null} before the
+ * first checkpoint); {@code estimatedCompletionAt} extrapolates it over the documents that remain
+ * of {@code estimatedTotal} and is only set while the run is {@code RUNNING}.
+ */
+public record MailMergeProgress(
+        UUID id,
+        String name,
+        String caseDefinitionKey,
+        String templateId,
+        String status,
+        Long estimatedTotal,
+        long scanned,
+        long submitted,
+        long skipped,
+        long failed,
+        long rendered,
+        long renderFailed,
+        Double documentsPerSecond,
+        Instant estimatedCompletionAt,
+        Instant startAt,
+        Instant createdAt,
+        Instant startedAt,
+        Instant updatedAt,
+        Instant finishedAt,
+        String lastError
+) {}
@@ -17,6 +17,8 @@
  */
 package app.epistola.valtimo.web.rest.dto;
 
+import java.time.Instant;
+
 /**
  * Describes a process instance currently parked on an {@code EpistolaDocumentGenerated} wait.
  *
@@ -30,6 +32,8 @@ package app.epistola.valtimo.web.rest.dto;
  *       is best-effort (from the standalone {@code epistolaTenantId} variable) and {@code requestId} is
  *       {@code null}. Reconcile cannot recover an unwired wait — there is no jobPath to resolve.</li>
  * </ul>
+ *
+ * <p>{@link #waitingSince} is when the catch event subscribed; only the paginated view fills it in.
  */
 public record PendingJob(
         String executionId,
@@ -41,7 +45,8 @@ public record PendingJob(
         String tenantId,
         String requestId,
         String configurationTitle,
-        String status
+        String status,
+        Instant waitingSince
 ) {
     public static final String STATUS_WAITING = "WAITING";
     public static final String STATUS_UNWIRED = "UNWIRED";
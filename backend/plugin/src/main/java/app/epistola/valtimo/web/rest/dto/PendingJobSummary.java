@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.web.rest.dto;
+
+import java.util.List;
+
+/**
+ * Aggregate counts over every process instance waiting for an Epistola result, for the header of
+ * the paginated pending-jobs view. {@code unwired} counts the waits without a correlation token
+ * (see {@link PendingJob#STATUS_UNWIRED}); they are included in {@code total} and in the per-tenant
+ * and per-activity counts.
+ */
+public record PendingJobSummary(
+        long total,
+        long unwired,
+        List<TenantCount> byTenant,
+        List<ActivityCount> byActivity
+) {
+
+    /** Waiting instances of one Epistola tenant; {@code tenantId} is {@code null} when it is unknown. */
+    public record TenantCount(String tenantId, String configurationTitle, long count) {}
+
+    /** Waiting instances at one catch event, across all versions of its process definition. */
+    public record ActivityCount(
+            String processDefinitionKey,
+            String processDefinitionName,
+            String activityId,
+            String activityName,
+            long count
+    ) {}
+}
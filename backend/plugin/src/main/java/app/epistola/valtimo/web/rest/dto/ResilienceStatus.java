@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.web.rest.dto;
+
+import java.time.Instant;
+
+/**
+ * Client-side circuit breaker and bulkhead state for one Epistola connection.
+ * {@code circuitState} is {@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}, or
+ * {@code null} when the breaker is disabled. The rates are percentages, {@code -1}
+ * until enough calls were made to evaluate them.
+ */
+public record ResilienceStatus(
+        String circuitState,
+        float failureRatePercent,
+        float slowCallRatePercent,
+        int bufferedCalls,
+        Instant openedAt,
+        int activeCalls,
+        int waitingCalls,
+        int maxConcurrentCalls
+) {}
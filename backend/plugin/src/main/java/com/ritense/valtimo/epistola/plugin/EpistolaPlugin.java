@@ -27,10 +27,14 @@ import app.epistola.valtimo.domain.GenerationJobResult;
 import app.epistola.valtimo.domain.GenerationJobDetail;
 import app.epistola.valtimo.mapping.JsonataMappingService;
 import app.epistola.valtimo.service.completion.EpistolaMessageCorrelationService;
+import app.epistola.valtimo.service.bulk.BatchResults;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.service.dedup.GenerationDeduplicator;
 import app.epistola.valtimo.service.download.DocumentStorageStrategy;
 
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.resilience.EpistolaTrafficClass;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ritense.plugin.annotation.*;
@@ -38,10 +42,14 @@ import com.ritense.plugin.domain.EventType;
 import com.ritense.processlink.domain.ActivityTypeWithEventName;
 import lombok.extern.slf4j.Slf4j;
 import org.operaton.bpm.engine.delegate.DelegateExecution;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.regex.Pattern;
 
 // Placed here because Valtimo by default only scans com.ritense.valtimo package
@@ -70,14 +78,23 @@ public class EpistolaPlugin {
     private final com.ritense.document.service.DocumentService documentService;
     private final EpistolaResultCollectorRunner resultCollectorRunner;
     private final Map<DocumentStorageTarget, DocumentStorageStrategy> storageStrategies;
+    private final GenerationDeduplicator deduplicator;
+    private final BulkSubmitter bulkSubmitter;
 
+    /**
+     * @param deduplicator  generation dedup index, or {@code null} when {@code epistola.generation-dedup}
+     *                      is disabled
+     * @param bulkSubmitter fan-out for the submissions of {@code epistola-generate-documents}
+     */
     public EpistolaPlugin(
             EpistolaService epistolaService,
             ObjectMapper objectMapper,
             JsonataMappingService jsonataMappingService,
             com.ritense.document.service.DocumentService documentService,
             EpistolaResultCollectorRunner resultCollectorRunner,
-            Map<DocumentStorageTarget, DocumentStorageStrategy> storageStrategies
+            Map<DocumentStorageTarget, DocumentStorageStrategy> storageStrategies,
+            GenerationDeduplicator deduplicator,
+            BulkSubmitter bulkSubmitter
     ) {
         this.epistolaService = epistolaService;
         this.objectMapper = objectMapper;
@@ -85,6 +102,8 @@ public class EpistolaPlugin {
         this.documentService = documentService;
         this.resultCollectorRunner = resultCollectorRunner;
         this.storageStrategies = storageStrategies;
+        this.deduplicator = deduplicator;
+        this.bulkSubmitter = bulkSubmitter;
     }
 
     /**
@@ -314,6 +333,7 @@ public class EpistolaPlugin {
                 rawEditedData != null ? rawEditedData.getClass().getSimpleName() : "null",
                 editedDataJson != null ? editedDataJson.substring(0, Math.min(200, editedDataJson.length())) : "null");
 
+        var scalarEvalContext = buildEvalCtx(execution, null);
         Map<String, Object> resolvedData;
         if (isRetry) {
             log.debug("Retry detected: using edited data from '{}' process variable", EpistolaProcessVariables.EDITED_DATA);
@@ -327,19 +347,10 @@ public class EpistolaPlugin {
             execution.removeVariable(EpistolaProcessVariables.EDITED_DATA);
         } else {
             // Evaluate JSONata expression to produce the template data
-            var evalCtx = app.epistola.valtimo.mapping.EvaluationContext.builder()
-                    .expression(actionConfig.dataMapping())
-                    .documentResolver(this::loadDocumentContent)
-                    .processVariableResolver(execution::getVariable)
-                    .processVariableEnumerator(execution::getVariables)
-                    .execution(execution)
-                    .documentId(execution.getBusinessKey())
-                    .operation("execution")
-                    .build();
+            var evalCtx = scalarEvalContext.withExpression(actionConfig.dataMapping());
             resolvedData = actionConfig.evaluateDataMapping(jsonataMappingService, evalCtx);
         }
 
-        var scalarEvalContext = buildEvalCtx(execution, null);
         String resolvedOutputFormat = actionConfig.outputFormat().resolve(jsonataMappingService, scalarEvalContext);
         FileFormat effectiveOutputFormat;
         try {
@@ -390,6 +401,21 @@ public class EpistolaPlugin {
                 : java.util.UUID.randomUUID().toString();
         String routingKey = resultCollectorRunner.routingKeyFor(baseUrl, apiKey, tenantId, baseRoutingKey);
 
+        // With generation dedup enabled, an identical request within the window reuses the earlier
+        // job (its document, or the job itself while it is still rendering) instead of submitting.
+        GenerationDeduplicator.Lead dedupLead = null;
+        if (deduplicator != null) {
+            String fingerprint = deduplicator.fingerprint(baseUrl, tenantId, actionConfig.catalogId(),
+                    actionConfig.templateId(), resolvedVariantId, resolvedAttributes, effectiveEnvironmentId,
+                    effectiveOutputFormat, resolvedFilename, resolvedData);
+            GenerationDeduplicator.Claim claim = deduplicator.claim(fingerprint);
+            if (claim instanceof GenerationDeduplicator.Reuse reuse) {
+                storeDeduplicatedResult(execution, configuredResultVariable, reuse.job());
+                return;
+            }
+            dedupLead = (GenerationDeduplicator.Lead) claim;
+        }
+
         // Submit the document generation request
         GenerationJobResult result;
         try {
@@ -409,6 +435,9 @@ public class EpistolaPlugin {
                     routingKey
             );
         } catch (Exception e) {
+            if (dedupLead != null) {
+                dedupLead.abandon();
+            }
             // Submit-time failure: write a FAILED rich object on resultProcessVariable so
             // downstream BPMN (or a Formio retry form) can read the error via
             // ${<resultProcessVariable>.errorMessage} just like a post-submit failure.
@@ -432,6 +461,9 @@ public class EpistolaPlugin {
         // with ${<resultVar>.jobPath} (no engine internals needed) — see the EpistolaDocumentGenerated
         // catch event pattern in docs/async.md.
         String jobPath = EpistolaMessageCorrelationService.buildJobPath(tenantId, result.getRequestId());
+        if (dedupLead != null) {
+            dedupLead.submitted(tenantId, result.getRequestId());
+        }
 
         Map<String, Object> resultData = new LinkedHashMap<>();
         resultData.put(EpistolaProcessVariables.RESULT_KEY_REQUEST_ID, result.getRequestId());
@@ -463,11 +495,208 @@ public class EpistolaPlugin {
                 jobPath, configuredResultVariable);
     }
 
+    /**
+     * Write the rich result for a request deduplicated onto an earlier identical job, exactly as a
+     * submission would, but with the job's current state: {@code COMPLETED} with its documentId when it
+     * has finished, {@code PENDING} while it is still rendering. The jobPath locator makes the
+     * collector deliver the job's result to this instance too; a catch event on an already-completed
+     * job is woken by the catch event's self-heal.
+     */
+    private void storeDeduplicatedResult(DelegateExecution execution, String resultVariable,
+                                         GenerationDeduplicator.Job job) {
+        String jobPath = job.jobPath();
+        Map<String, Object> resultData = new LinkedHashMap<>();
+        resultData.put(EpistolaProcessVariables.RESULT_KEY_REQUEST_ID, job.requestId());
+        resultData.put(EpistolaProcessVariables.RESULT_KEY_STATUS, job.status());
+        resultData.put(EpistolaProcessVariables.RESULT_KEY_DOCUMENT_ID, job.documentId());
+        resultData.put(EpistolaProcessVariables.RESULT_KEY_ERROR_MESSAGE, job.errorMessage());
+        resultData.put(EpistolaProcessVariables.RESULT_KEY_JOB_PATH, jobPath);
+        execution.setVariable(resultVariable, resultData);
+        execution.setVariable(EpistolaProcessVariables.TENANT_ID, job.tenantId());
+        if (job.isFinished()) {
+            // Nothing left to deliver, so no locator: a catch event after this task self-heals from
+            // the result variable its link names.
+            log.debug("Reused finished document generation job. jobPath={}, status={}, resultVar={}",
+                    jobPath, job.status(), resultVariable);
+            return;
+        }
+        execution.setVariable(jobPath, resultVariable);
+
+        // The job may finish between the claim and this transaction's commit, in which case the
+        // collector delivered its result before our locator was visible. Re-check once committed.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    resultCollectorRunner.redeliverFinishedResult(job.tenantId(), job.requestId());
+                }
+            });
+        }
+
+        log.debug("Deduplicated document generation onto existing job. jobPath={}, status={}, resultVar={}",
+                jobPath, job.status(), resultVariable);
+    }
+
+    /**
+     * Generate one document per item of a JSONata array, e.g. a letter per recipient.
+     * <p>
+     * The items expression and the per-item filename are evaluated up front on the engine thread;
+     * only the Epistola submissions run concurrently, on virtual threads, with at most
+     * {@code maxParallelism} in flight (see {@link BulkSubmitter}). The result variable receives one
+     * aggregate result (see {@link BatchResults}) whose {@code jobPath} an
+     * {@code EpistolaDocumentGenerated} catch event can wait for: it is woken once every item has
+     * finished. The result collector records each item's result separately and builds the aggregate
+     * once, when the last item finishes.
+     * <p>
+     * A submission that fails is recorded as a {@code FAILED} item and the others proceed; only when
+     * every submission fails does the action fail (and the job retry), like {@code generate-document}.
+     * The action always renders PDF.
+     *
+     * @param execution             The process execution context
+     * @param catalogId             The ID of the catalog containing the template
+     * @param templateId            The ID of the template used for every item
+     * @param variantId             The ID of the template variant (optional — omit to use the default variant)
+     * @param environmentId         The environment ID (optional, uses the plugin default when not specified)
+     * @param itemsMapping          JSONata expression that produces an array of template data payloads, one
+     *                              per document. Has access to $doc, $pv and $case.
+     * @param filename              JSONata expression for each document's filename, evaluated with the item
+     *                              as input (so {@code "letter-" & recipient.id & ".pdf"} addresses item fields)
+     * @param maxParallelism        Maximum number of concurrent submissions (optional; capped by
+     *                              {@code epistola.bulk-generation.max-parallelism})
+     * @param resultProcessVariable The name of the process variable to store the batch result in
+     */
+    @PluginAction(
+            key = "epistola-generate-documents",
+            title = "Generate Documents",
+            description = "Submit one document generation request per item of a JSONata array, concurrently. The batch result, with the request ID and status of every item, is stored in the specified process variable.",
+            activityTypes = {ActivityTypeWithEventName.SERVICE_TASK_START, ActivityTypeWithEventName.TASK_START}
+    )
+    public void generateDocuments(
+            DelegateExecution execution,
+            @PluginActionProperty String catalogId,
+            @PluginActionProperty String templateId,
+            @PluginActionProperty String variantId,
+            @PluginActionProperty String environmentId,
+            @PluginActionProperty String itemsMapping,
+            @PluginActionProperty String filename,
+            @PluginActionProperty Integer maxParallelism,
+            @PluginActionProperty String resultProcessVariable
+    ) {
+        validateProcessVariableName("resultProcessVariable", resultProcessVariable);
+        if (catalogId == null || catalogId.isBlank() || templateId == null || templateId.isBlank()) {
+            throw new IllegalArgumentException("'catalogId' and 'templateId' are required");
+        }
+        if (filename == null || filename.isBlank()) {
+            throw new IllegalArgumentException("'filename' is required");
+        }
+
+        var itemsContext = buildEvalCtx(execution, itemsMapping);
+        List<Map<String, Object>> items = jsonataMappingService.evaluateList(itemsContext);
+        if (items.size() > bulkSubmitter.getMaxItems()) {
+            throw new IllegalArgumentException(String.format(
+                    "itemsMapping produced %d items, more than the maximum of %d per batch "
+                            + "(epistola.bulk-generation.max-items)", items.size(), bulkSubmitter.getMaxItems()));
+        }
+
+        String resolvedVariantId = variantId != null && !variantId.isBlank() ? variantId : null;
+        String effectiveEnvironmentId = environmentId != null && !environmentId.isBlank()
+                ? environmentId
+                : defaultEnvironmentId;
+
+        // Everything that touches the engine or JSONata happens here, on the engine thread.
+        var filenameContext = itemsContext.withExpression(filename);
+        List<BulkItem> requests = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            String routingKey = resultCollectorRunner.routingKeyFor(baseUrl, apiKey, tenantId,
+                    UUID.randomUUID().toString());
+            requests.add(new BulkItem(item, jsonataMappingService.evaluateScalar(filenameContext, item), routingKey));
+        }
+
+        int parallelism = bulkSubmitter.parallelism(maxParallelism);
+        log.debug("Submitting batch of {} documents: catalogId={}, templateId={}, parallelism={}",
+                requests.size(), catalogId, templateId, parallelism);
+        List<BulkSubmitter.Outcome<GenerationJobResult>> outcomes = bulkSubmitter.submitAll(requests, parallelism,
+                request -> epistolaService.submitGenerationJob(
+                        baseUrl,
+                        apiKey,
+                        tenantId,
+                        catalogId,
+                        templateId,
+                        resolvedVariantId,
+                        null,
+                        effectiveEnvironmentId,
+                        request.data(),
+                        FileFormat.PDF,
+                        request.filename(),
+                        null,
+                        request.routingKey()));
+
+        List<BatchResults.Item> batchItems = new ArrayList<>(outcomes.size());
+        Throwable lastFailure = null;
+        for (int i = 0; i < outcomes.size(); i++) {
+            BulkSubmitter.Outcome<GenerationJobResult> outcome = outcomes.get(i);
+            if (outcome.succeeded()) {
+                batchItems.add(new BatchResults.Item(i, outcome.value().getRequestId(), "PENDING", null));
+            } else {
+                lastFailure = outcome.error();
+                log.warn("Batch item {} could not be submitted: {}", i, outcome.error().getMessage());
+                batchItems.add(new BatchResults.Item(i, null, "FAILED",
+                        "Document generation request failed: " + outcome.error().getMessage()));
+            }
+        }
+        if (!batchItems.isEmpty() && batchItems.stream().allMatch(item -> item.requestId() == null)) {
+            throw new RuntimeException("Failed to submit any document generation request of the batch to Epistola",
+                    lastFailure);
+        }
+
+        String batchId = UUID.randomUUID().toString();
+        Map<String, Object> batchResult = BatchResults.create(tenantId, batchId, batchItems);
+        String batchPath = (String) batchResult.get(EpistolaProcessVariables.RESULT_KEY_JOB_PATH);
+        execution.setVariable(resultProcessVariable, batchResult);
+        execution.setVariable(EpistolaProcessVariables.TENANT_ID, tenantId);
+
+        // The batch locator lets the collector and a catch event's self-heal find the aggregate; each
+        // item's jobPath locator points the collector at the batch, and the submitted count tells it when
+        // the last item is in. See EpistolaMessageCorrelationService.
+        execution.setVariable(batchPath, resultProcessVariable);
+        List<String> submittedRequestIds = new ArrayList<>(batchItems.size());
+        for (BatchResults.Item item : batchItems) {
+            if (item.requestId() != null) {
+                execution.setVariable(EpistolaMessageCorrelationService.buildJobPath(tenantId, item.requestId()),
+                        EpistolaProcessVariables.BATCH_ITEM_LOCATOR_PREFIX + batchPath);
+                submittedRequestIds.add(item.requestId());
+            }
+        }
+        execution.setVariable(BatchResults.submittedCountVariable(batchPath), submittedRequestIds.size());
+
+        // Items can finish before this transaction commits, in which case the collector delivered
+        // their results before the locators were visible. Re-check them once committed.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submittedRequestIds.forEach(requestId ->
+                            resultCollectorRunner.redeliverFinishedResult(tenantId, requestId));
+                }
+            });
+        }
+
+        resultCollectorRunner.kickFor(baseUrl, apiKey, tenantId);
+
+        log.debug("Document generation batch submitted. batchPath={}, items={}, failedAtSubmit={}, resultVar={}",
+                batchPath, batchItems.size(), batchResult.get(EpistolaProcessVariables.RESULT_KEY_FAILED),
+                resultProcessVariable);
+    }
+
+    /** One prepared request of a bulk generation. */
+    private record BulkItem(Map<String, Object> data, String filename, String routingKey) {}
+
     /**
      * Check the status of a document generation job.
      * <p>
      * This action retrieves the current status of a generation request. It can be used
-     * in a polling pattern to wait for document generation to complete.
+     * in a polling pattern to wait for document generation to complete. Results the result
+     * collector already received are answered locally; only other jobs are looked up at Epistola.
      *
      * @param execution               The process execution context
      * @param requestIdVariable       The name of the process variable containing the request ID
@@ -512,7 +741,10 @@ public class EpistolaPlugin {
             throw new IllegalArgumentException("Request ID variable '" + requestIdVariable + "' is null or empty");
         }
 
-        GenerationJobDetail jobDetail = epistolaService.getJobStatus(baseUrl, apiKey, tenantId, requestId);
+        // A finished job's result was usually streamed in by the collector already; only ask
+        // Epistola for jobs that are still running or unknown locally.
+        GenerationJobDetail jobDetail = resultCollectorRunner.findResult(tenantId, requestId)
+                .orElseGet(() -> epistolaService.getJobStatus(baseUrl, apiKey, tenantId, requestId));
 
         // Store the status
         execution.setVariable(statusVariable, jobDetail.getStatus().name());
@@ -600,7 +832,9 @@ public class EpistolaPlugin {
                     + " is not available — its backend is not configured in this environment");
         }
 
-        byte[] content = epistolaService.downloadDocument(baseUrl, apiKey, tenantId, documentId);
+        // A BPMN download is bulk work; the interactive lane is reserved for caseworker downloads.
+        byte[] content = EpistolaTrafficClass.callAs(EpistolaTrafficClass.BULK,
+                () -> epistolaService.downloadDocument(baseUrl, apiKey, tenantId, documentId));
         strategy.store(execution, documentId, content, outputVariable);
 
         log.debug("Document {} downloaded successfully ({} bytes, target={}, outputVariable={})",
@@ -641,6 +875,12 @@ public class EpistolaPlugin {
                 .execution(execution)
                 .documentId(execution.getBusinessKey())
                 .operation("execution")
+                .processDefinitionId(execution.getProcessDefinitionId())
+                .processDefinitionKey(execution.getProcessEngineServices().getRepositoryService()
+                        .getProcessDefinition(execution.getProcessDefinitionId()).getKey())
+                .processInstanceId(execution.getProcessInstanceId())
+                .activityId(execution.getCurrentActivityId())
+                .tenantId(tenantId)
                 .build();
     }
 
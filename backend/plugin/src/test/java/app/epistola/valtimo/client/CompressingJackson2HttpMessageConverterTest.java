@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressingJackson2HttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCompression compression = new RequestCompression(true, 1024, List.of(), meterRegistry);
+    private final CompressingJackson2HttpMessageConverter converter =
+            new CompressingJackson2HttpMessageConverter(objectMapper, compression);
+
+    @Test
+    void smallBodiesAreSentUncompressed() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        converter.write(Map.of("name", "Jan"), MediaType.APPLICATION_JSON, message);
+
+        assertThat(message.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(message.getBodyAsString()).isEqualTo("{\"name\":\"Jan\"}");
+        assertThat(meterRegistry.find("epistola.client.compression.requests").counter().count()).isZero();
+    }
+
+    @Test
+    void largeBodiesAreGzippedAndRoundTrip() throws IOException {
+        Map<String, Object> payload = largePayload();
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        converter.write(payload, MediaType.APPLICATION_JSON, message);
+
+        assertThat(message.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        byte[] sent = message.getBodyAsBytes();
+        byte[] json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(sent))) {
+            json = in.readAllBytes();
+        }
+        assertThat(objectMapper.readTree(json)).isEqualTo(objectMapper.valueToTree(payload));
+
+        assertThat(meterRegistry.get("epistola.client.compression.uncompressed").counter().count())
+                .isEqualTo(json.length);
+        assertThat(meterRegistry.get("epistola.client.compression.compressed").counter().count())
+                .isEqualTo(sent.length);
+        assertThat(meterRegistry.get("epistola.client.compression.saved").counter().count())
+                .isEqualTo(json.length - sent.length);
+    }
+
+    @Test
+    void appliesOnlyToConfiguredBaseUrls() {
+        RequestCompression scoped = new RequestCompression(true, 1024, List.of("https://epistola.example/"), null);
+
+        assertThat(scoped.appliesTo("https://epistola.example")).isTrue();
+        assertThat(scoped.appliesTo("https://other.example")).isFalse();
+        assertThat(RequestCompression.disabled().appliesTo("https://epistola.example")).isFalse();
+    }
+
+    private static Map<String, Object> largePayload() {
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            lines.add(Map.of("description", "Invoice line " + i, "amount", i * 10));
+        }
+        return Map.of("customer", "Gemeente Voorbeeld", "lines", lines);
+    }
+}
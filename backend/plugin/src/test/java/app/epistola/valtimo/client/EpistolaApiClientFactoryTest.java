@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.client;
+
+import app.epistola.client.identity.ClientIdentity;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EpistolaApiClientFactoryTest {
+
+    @Test
+    void appliesTheContractIdentityHeadersBeforeTheRequestIsSent() {
+        ClientHttpRequestInterceptor interceptor = ClientIdentity.Companion.builder()
+                .product("valtimo-epistola-plugin", "1.2.3")
+                .build()
+                .interceptor();
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://epistola/jobs"));
+
+        assertThat(EpistolaApiClientFactory.appliesIdentityWithoutExecuting(interceptor)).isTrue();
+        EpistolaApiClientFactory.applyIdentity(interceptor, request);
+
+        assertThat(request.getHeaders().getFirst(HttpHeaders.USER_AGENT))
+                .startsWith("epistola-contract/")
+                .contains("valtimo-epistola-plugin/1.2.3");
+        assertThat(request.getHeaders().getFirst("X-EP-Node-Id")).isNotBlank();
+        assertThat(request.isExecuted()).isFalse();
+    }
+
+    @Test
+    void runsTheInterceptorForEveryRequest() {
+        AtomicInteger calls = new AtomicInteger();
+        ClientHttpRequestInterceptor counting = (request, body, execution) -> {
+            request.getHeaders().set("X-EP-Node-Id", "node-" + calls.incrementAndGet());
+            return execution.execute(request, body);
+        };
+        MockClientHttpRequest first = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://epistola/jobs"));
+        MockClientHttpRequest second = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://epistola/jobs"));
+
+        EpistolaApiClientFactory.applyIdentity(counting, first);
+        EpistolaApiClientFactory.applyIdentity(counting, second);
+
+        assertThat(first.getHeaders().getFirst("X-EP-Node-Id")).isEqualTo("node-1");
+        assertThat(second.getHeaders().getFirst("X-EP-Node-Id")).isEqualTo("node-2");
+    }
+
+    @Test
+    void fallsBackToTheInterceptorWhenItCannotBeAppliedUpFront() {
+        ClientHttpRequestInterceptor failing = (request, body, execution) -> {
+            throw new IOException("boom");
+        };
+        ClientHttpRequestInterceptor swallowing = (request, body, execution) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+
+        assertThat(EpistolaApiClientFactory.appliesIdentityWithoutExecuting(failing)).isFalse();
+        assertThat(EpistolaApiClientFactory.appliesIdentityWithoutExecuting(swallowing)).isFalse();
+    }
+}
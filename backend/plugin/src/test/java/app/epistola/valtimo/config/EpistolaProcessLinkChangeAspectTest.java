@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.config;
+
+import app.epistola.valtimo.deployment.EpistolaProcessLinksChangedEvent;
+import com.ritense.processlink.domain.ProcessLink;
+import com.ritense.processlink.service.ProcessLinkService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EpistolaProcessLinkChangeAspectTest {
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ProcessLinkService processLinkService = mock(ProcessLinkService.class);
+    private final RepositoryService repositoryService = mock(RepositoryService.class);
+    private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+    private EpistolaProcessLinkChangeAspect aspect;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<ProcessLinkService> processLinks = mock(ObjectProvider.class);
+        when(processLinks.getIfAvailable()).thenReturn(processLinkService);
+        ObjectProvider<RepositoryService> repository = mock(ObjectProvider.class);
+        when(repository.getIfAvailable()).thenReturn(repositoryService);
+        aspect = new EpistolaProcessLinkChangeAspect(eventPublisher, processLinks, repository);
+        ProcessDefinition definition = mock(ProcessDefinition.class);
+        when(definition.getKey()).thenReturn("invoice");
+        when(repositoryService.getProcessDefinition("invoice:1:d1")).thenReturn(definition);
+    }
+
+    @Test
+    void publishesRightAwayOutsideATransaction() throws Throwable {
+        when(joinPoint.getArgs()).thenReturn(new Object[]{link("invoice:1:d1")});
+
+        aspect.publishProcessLinksChanged(joinPoint);
+
+        EpistolaProcessLinksChangedEvent event = publishedEvent();
+        assertThat(event.processDefinitionIds()).containsExactly("invoice:1:d1");
+        assertThat(event.processDefinitionKeys()).containsExactly("invoice");
+        assertThat(event.affectsAllDefinitions()).isFalse();
+    }
+
+    @Test
+    void publishesOnlyOnceTheTransactionHasCommitted() throws Throwable {
+        when(joinPoint.getArgs()).thenReturn(new Object[]{link("invoice:1:d1")});
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            aspect.publishProcessLinksChanged(joinPoint);
+            verify(eventPublisher, never()).publishEvent(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(eventPublisher).publishEvent(any(EpistolaProcessLinksChangedEvent.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void looksUpTheDefinitionOfALinkIdBeforeTheCallProceeds() throws Throwable {
+        UUID linkId = UUID.randomUUID();
+        ProcessLink link = link("invoice:1:d1");
+        when(processLinkService.getProcessLink(linkId, ProcessLink.class)).thenReturn(link);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{linkId});
+
+        aspect.publishProcessLinksChanged(joinPoint);
+
+        InOrder order = inOrder(processLinkService, joinPoint);
+        order.verify(processLinkService).getProcessLink(linkId, ProcessLink.class);
+        order.verify(joinPoint).proceed();
+        assertThat(publishedEvent().processDefinitionIds()).containsExactly("invoice:1:d1");
+    }
+
+    @Test
+    void readsTheDefinitionIdOfARequest() throws Throwable {
+        when(joinPoint.getArgs()).thenReturn(new Object[]{List.of(new CreateRequest("invoice:1:d1"))});
+
+        aspect.publishProcessLinksChanged(joinPoint);
+
+        assertThat(publishedEvent().processDefinitionKeys()).containsExactly("invoice");
+    }
+
+    @Test
+    void affectsAllDefinitionsWhenAnArgumentCannotBeResolved() throws Throwable {
+        when(joinPoint.getArgs()).thenReturn(new Object[]{link("invoice:1:d1"), "deployment.zip"});
+
+        aspect.publishProcessLinksChanged(joinPoint);
+
+        assertThat(publishedEvent().affectsAllDefinitions()).isTrue();
+        assertThat(publishedEvent().processDefinitionIds()).isEqualTo(Set.of());
+    }
+
+    private EpistolaProcessLinksChangedEvent publishedEvent() {
+        ArgumentCaptor<EpistolaProcessLinksChangedEvent> event =
+                ArgumentCaptor.forClass(EpistolaProcessLinksChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        return event.getValue();
+    }
+
+    private static ProcessLink link(String processDefinitionId) {
+        ProcessLink link = mock(ProcessLink.class);
+        when(link.getProcessDefinitionId()).thenReturn(processDefinitionId);
+        return link;
+    }
+
+    public static class CreateRequest {
+        private final String processDefinitionId;
+
+        CreateRequest(String processDefinitionId) {
+            this.processDefinitionId = processDefinitionId;
+        }
+
+        public String getProcessDefinitionId() {
+            return processDefinitionId;
+        }
+    }
+}
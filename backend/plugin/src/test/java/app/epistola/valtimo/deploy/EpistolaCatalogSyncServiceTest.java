@@ -19,6 +19,7 @@ package app.epistola.valtimo.deploy;
 
 import app.epistola.valtimo.service.EpistolaApiException;
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -26,11 +27,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -62,7 +72,8 @@ class EpistolaCatalogSyncServiceTest {
     @BeforeEach
     void setUp() {
         scanner = new CatalogScanner(new ObjectMapper());
-        syncService = new EpistolaCatalogSyncService(scanner, epistolaService);
+        syncService = new EpistolaCatalogSyncService(scanner, epistolaService, new InMemoryCatalogSyncStateStore(),
+                new BulkSubmitter(4, 16, 1000), BulkSubmitter.DEFAULT_PARALLELISM, Duration.ofMinutes(10), Clock.systemUTC());
     }
 
     @Nested
@@ -136,6 +147,32 @@ class EpistolaCatalogSyncServiceTest {
             assertThat(templateNode.path("resource").path("slug").asText()).isEqualTo("test-template");
         }
 
+        @Test
+        void contentHashIsStableAcrossBuilds() throws IOException {
+            CatalogScanner.CatalogOnClasspath testCatalog = scanner.scan().stream()
+                    .filter(c -> "test-catalog".equals(c.slug()))
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError("test-catalog not found on classpath"));
+
+            String first = syncService.buildCatalog(testCatalog).contentHash();
+            String second = syncService.buildCatalog(testCatalog).contentHash();
+
+            assertThat(first).hasSize(64).isEqualTo(second);
+        }
+
+        @Test
+        void contentHashCoversEntryNamesAndContentsInNameOrder() throws Exception {
+            // The packageEpistolaCatalogs Gradle task hashes packaged archives with this scheme.
+            CatalogScanner.CatalogOnClasspath testCatalog = scanner.scan().stream()
+                    .filter(c -> "test-catalog".equals(c.slug()))
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError("test-catalog not found on classpath"));
+
+            EpistolaCatalogSyncService.BuiltCatalog built = syncService.buildCatalog(testCatalog);
+
+            assertThat(built.contentHash()).isEqualTo(entriesHash(built.zipBytes()));
+        }
+
         @Test
         void bundledCatalogIsAtCurrentWireSchema() throws IOException {
             // Regression guard for issue #71: the bundled catalog (manifest + every resource
@@ -316,6 +353,107 @@ class EpistolaCatalogSyncServiceTest {
         }
     }
 
+    @Nested
+    class SharedSyncState {
+
+        private final InMemoryCatalogSyncStateStore store = new InMemoryCatalogSyncStateStore();
+
+        private EpistolaCatalogSyncService node() {
+            return new EpistolaCatalogSyncService(scanner, epistolaService, store, new BulkSubmitter(4, 16, 1000),
+                    2, Duration.ofMinutes(10), Clock.systemUTC());
+        }
+
+        @Test
+        void catalogImportedByOneNodeIsSkippedByAnother() {
+            when(epistolaService.importCatalog(anyString(), anyString(), anyString(), any(byte[].class), anyString()))
+                    .thenReturn(new EpistolaService.ImportCatalogResult("test-catalog", "Test Catalog", 1, 0, 0, 1));
+
+            node().syncCatalogs(CONFIG_ID, BASE_URL, API_KEY, TENANT_ID, CATALOG_TYPE);
+            org.mockito.Mockito.reset(epistolaService);
+            EpistolaCatalogSyncService.SyncResult result = node().syncCatalogs(CONFIG_ID, BASE_URL, API_KEY, TENANT_ID, CATALOG_TYPE);
+
+            assertThat(result.successCount()).isZero();
+            assertThat(store.deployedHashes(CONFIG_ID)).containsKey("test-catalog");
+            verify(epistolaService, never()).importCatalog(anyString(), anyString(), anyString(), any(byte[].class), anyString());
+        }
+
+        @Test
+        void skipsWhileAnotherNodeHoldsTheLease() {
+            Instant now = Instant.now();
+            store.tryLease(CONFIG_ID, "other-node", now, now.plus(Duration.ofMinutes(5)));
+
+            EpistolaCatalogSyncService.SyncResult result = node().syncCatalogs(CONFIG_ID, BASE_URL, API_KEY, TENANT_ID, CATALOG_TYPE);
+
+            assertThat(result.successCount()).isZero();
+            assertThat(result.failCount()).isZero();
+            verify(epistolaService, never()).importCatalog(anyString(), anyString(), anyString(), any(byte[].class), anyString());
+        }
+
+        @Test
+        void takesOverAnExpiredLease() {
+            Instant now = Instant.now();
+            store.tryLease(CONFIG_ID, "stopped-node", now.minus(Duration.ofHours(1)), now.minus(Duration.ofMinutes(1)));
+            when(epistolaService.importCatalog(anyString(), anyString(), anyString(), any(byte[].class), anyString()))
+                    .thenReturn(new EpistolaService.ImportCatalogResult("test-catalog", "Test Catalog", 1, 0, 0, 1));
+
+            EpistolaCatalogSyncService.SyncResult result = node().syncCatalogs(CONFIG_ID, BASE_URL, API_KEY, TENANT_ID, CATALOG_TYPE);
+
+            assertThat(result.successCount()).isGreaterThanOrEqualTo(1);
+            assertThat(store.tryLease(CONFIG_ID, "other-node", now, now.plusSeconds(60)))
+                    .as("the lease is released after the sync")
+                    .isTrue();
+        }
+    }
+
+    @Nested
+    class PackagedArchives {
+
+        private final CatalogScanner.CatalogOnClasspath packaged = new CatalogScanner.CatalogOnClasspath(
+                "packaged-demo", "1.0.0", "packaged-catalogs/packaged-demo");
+
+        @Test
+        void streamsThePackagedArchiveWithItsBuildTimeHash() throws Exception {
+            CatalogScanner packagedScanner = new CatalogScanner(new ObjectMapper()) {
+                @Override
+                public List<CatalogOnClasspath> scan() {
+                    return List.of(packaged);
+                }
+            };
+            InMemoryCatalogSyncStateStore store = new InMemoryCatalogSyncStateStore();
+            EpistolaCatalogSyncService service = new EpistolaCatalogSyncService(packagedScanner, epistolaService,
+                    store, new BulkSubmitter(4, 16, 1000), 2, Duration.ofMinutes(10), Clock.systemUTC());
+            when(epistolaService.importCatalog(anyString(), anyString(), anyString(), any(Resource.class), anyString()))
+                    .thenReturn(new EpistolaService.ImportCatalogResult("packaged-demo", "Packaged demo", 0, 0, 0, 0));
+
+            EpistolaCatalogSyncService.SyncResult result = service.syncCatalogs(CONFIG_ID, BASE_URL, API_KEY, TENANT_ID, CATALOG_TYPE);
+
+            String buildTimeHash = new String(getClass().getClassLoader()
+                    .getResourceAsStream("packaged-catalogs/packaged-demo/catalog.zip.sha256")
+                    .readAllBytes(), StandardCharsets.UTF_8).trim();
+            byte[] packagedArchive = getClass().getClassLoader()
+                    .getResourceAsStream("packaged-catalogs/packaged-demo/catalog.zip")
+                    .readAllBytes();
+            // The fixture must carry the hash the packaging task computes for its archive.
+            assertThat(buildTimeHash).isEqualTo(entriesHash(packagedArchive));
+            assertThat(result.successCount()).isEqualTo(1);
+            assertThat(store.deployedHashes(CONFIG_ID)).containsEntry("packaged-demo", buildTimeHash);
+            verify(epistolaService, never()).importCatalog(anyString(), anyString(), anyString(), any(byte[].class), anyString());
+        }
+
+        @Test
+        void assemblesTheArchiveWhenNoneIsPackaged() throws IOException {
+            CatalogScanner.CatalogOnClasspath testCatalog = scanner.scan().stream()
+                    .filter(c -> "test-catalog".equals(c.slug()))
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError("test-catalog not found on classpath"));
+
+            EpistolaCatalogSyncService.BuiltCatalog built = syncService.prepareCatalog(testCatalog);
+
+            assertThat(built.packagedArchive()).isNull();
+            assertThat(built.zipBytes()).isNotEmpty();
+        }
+    }
+
     @Nested
     class ListClasspathCatalogs {
 
@@ -334,6 +472,17 @@ class EpistolaCatalogSyncServiceTest {
 
     // ---- Helpers ----
 
+    /** The catalog content hash: the name, a zero byte and the content of every entry, in name order. */
+    private String entriesHash(byte[] zipBytes) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (Map.Entry<String, byte[]> entry : new TreeMap<>(readZipEntries(zipBytes)).entrySet()) {
+            digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(entry.getValue());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
     private Map<String, byte[]> readZipEntries(byte[] zipBytes) throws IOException {
         Map<String, byte[]> entries = new HashMap<>();
         try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zipBytes))) {
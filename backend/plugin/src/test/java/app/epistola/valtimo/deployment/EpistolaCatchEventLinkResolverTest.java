@@ -17,6 +17,7 @@
  */
 package app.epistola.valtimo.deployment;
 
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ritense.plugin.domain.PluginProcessLink;
@@ -24,6 +25,8 @@ import com.ritense.processlink.domain.ProcessLink;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.operaton.bpm.engine.repository.ProcessDefinitionQuery;
 import org.operaton.bpm.model.bpmn.Bpmn;
 import org.operaton.bpm.model.bpmn.BpmnModelInstance;
 import com.ritense.processlink.service.ProcessLinkService;
@@ -31,9 +34,13 @@ import com.ritense.processlink.service.ProcessLinkService;
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -101,7 +108,9 @@ class EpistolaCatchEventLinkResolverTest {
     void setUp() {
         repositoryService = mock(RepositoryService.class);
         processLinkService = mock(ProcessLinkService.class);
-        resolver = new EpistolaCatchEventLinkResolver(repositoryService, processLinkService);
+        resolver = new EpistolaCatchEventLinkResolver(repositoryService,
+                EpistolaProcessLinkIndex.uncached(processLinkService), null,
+                EpistolaCatchEventLinkResolver.DEFAULT_MAX_CACHED_DEFINITIONS);
 
         BpmnModelInstance model = Bpmn.readModelFromStream(new ByteArrayInputStream(BPMN.getBytes(StandardCharsets.UTF_8)));
         when(repositoryService.getBpmnModelInstance(DEF_ID)).thenReturn(model);
@@ -156,6 +165,108 @@ class EpistolaCatchEventLinkResolverTest {
         assertThat(resolver.resultVariableFor(DEF_ID, "wait-doc1")).isEqualTo("requestId1");
     }
 
+    @Test
+    void precomputesTheMappingWhenADefinitionIsDeployed() {
+        PluginProcessLink link = generateDocumentLink("generate-doc1", "requestId1");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(link));
+        stubLatestVersion("process-def", DEF_ID);
+
+        resolver.onProcessDeployed(new EpistolaProcessDeployedEvent("process-def"));
+        assertThat(resolver.resultVariableFor(DEF_ID, "wait-doc1")).isEqualTo("requestId1");
+
+        // The catch event found the precomputed mapping: the model was loaded once, at deployment.
+        verify(repositoryService, times(1)).getBpmnModelInstance(DEF_ID);
+    }
+
+    @Test
+    void buildsANotYetReadyMappingOnceTheProcessLinksArrive() {
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.of());
+        stubLatestVersion("process-def", DEF_ID);
+        resolver.onProcessDeployed(new EpistolaProcessDeployedEvent("process-def"));
+
+        PluginProcessLink link = generateDocumentLink("generate-doc1", "requestId1");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(link));
+        resolver.onProcessLinksChanged(EpistolaProcessLinksChangedEvent.ofAllDefinitions());
+        assertThat(resolver.resultVariableFor(DEF_ID, "wait-doc1")).isEqualTo("requestId1");
+
+        verify(repositoryService, times(2)).getBpmnModelInstance(DEF_ID);
+    }
+
+    @Test
+    void processLinkChangeReplacesACachedMapping() {
+        PluginProcessLink link = generateDocumentLink("generate-doc1", "requestId1");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(link));
+        assertThat(resolver.resultVariableFor(DEF_ID, "wait-doc1")).isEqualTo("requestId1");
+
+        PluginProcessLink edited = generateDocumentLink("generate-doc1", "letterRequest");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(edited));
+        resolver.onProcessLinksChanged(EpistolaProcessLinksChangedEvent.ofAllDefinitions());
+
+        assertThat(resolver.resultVariableFor(DEF_ID, "wait-doc1")).isEqualTo("letterRequest");
+    }
+
+    @Test
+    void processLinkChangeRebuildsACachedMappingOnlyOnItsNextLookup() {
+        PluginProcessLink link = generateDocumentLink("generate-doc1", "requestId1");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(link));
+        resolver.resultVariableFor(DEF_ID, "wait-doc1");
+
+        resolver.onProcessLinksChanged(EpistolaProcessLinksChangedEvent.ofAllDefinitions());
+        verify(repositoryService, times(1)).getBpmnModelInstance(DEF_ID);
+
+        resolver.resultVariableFor(DEF_ID, "wait-doc1");
+        verify(repositoryService, times(2)).getBpmnModelInstance(DEF_ID);
+    }
+
+    @Test
+    void processLinkChangeOfAKnownDefinitionKeepsTheOtherMappings() {
+        BpmnModelInstance otherModel = Bpmn.readModelFromStream(
+                new ByteArrayInputStream(RECEIVE_TASK_BPMN.getBytes(StandardCharsets.UTF_8)));
+        when(repositoryService.getBpmnModelInstance(RT_DEF_ID)).thenReturn(otherModel);
+        PluginProcessLink link = generateDocumentLink("generate-doc1", "requestId1");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(link));
+        when(processLinkService.getProcessLinks(RT_DEF_ID)).thenReturn(List.<ProcessLink>of(link));
+        resolver.resultVariableFor(DEF_ID, "wait-doc1");
+        resolver.resultVariableFor(RT_DEF_ID, "recv-doc1");
+
+        PluginProcessLink edited = generateDocumentLink("generate-doc1", "letterRequest");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(edited));
+        resolver.onProcessLinksChanged(new EpistolaProcessLinksChangedEvent(Set.of(DEF_ID), Set.of("process-def")));
+
+        assertThat(resolver.resultVariableFor(DEF_ID, "wait-doc1")).isEqualTo("letterRequest");
+        assertThat(resolver.resultVariableFor(RT_DEF_ID, "recv-doc1")).isEqualTo("requestId1");
+        verify(repositoryService, times(1)).getBpmnModelInstance(RT_DEF_ID);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedDefinitionBeyondTheBound() {
+        EpistolaCatchEventLinkResolver bounded =
+                new EpistolaCatchEventLinkResolver(repositoryService,
+                        EpistolaProcessLinkIndex.uncached(processLinkService), null, 1);
+        BpmnModelInstance otherModel = Bpmn.readModelFromStream(
+                new ByteArrayInputStream(RECEIVE_TASK_BPMN.getBytes(StandardCharsets.UTF_8)));
+        when(repositoryService.getBpmnModelInstance(RT_DEF_ID)).thenReturn(otherModel);
+        PluginProcessLink link = generateDocumentLink("generate-doc1", "requestId1");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(link));
+        when(processLinkService.getProcessLinks(RT_DEF_ID)).thenReturn(List.<ProcessLink>of(link));
+
+        bounded.resultVariableFor(DEF_ID, "wait-doc1");
+        bounded.resultVariableFor(RT_DEF_ID, "recv-doc1");
+        bounded.resultVariableFor(DEF_ID, "wait-doc1");
+
+        verify(repositoryService, times(2)).getBpmnModelInstance(DEF_ID);
+        verify(repositoryService, times(1)).getBpmnModelInstance(RT_DEF_ID);
+    }
+
+    private void stubLatestVersion(String key, String definitionId) {
+        ProcessDefinition definition = mock(ProcessDefinition.class);
+        when(definition.getId()).thenReturn(definitionId);
+        ProcessDefinitionQuery query = mock(ProcessDefinitionQuery.class, RETURNS_SELF);
+        when(repositoryService.createProcessDefinitionQuery()).thenReturn(query);
+        when(query.processDefinitionKey(key)).thenReturn(query);
+        when(query.singleResult()).thenReturn(definition);
+    }
+
     private PluginProcessLink generateDocumentLink(String activityId, String resultProcessVariable) {
         ObjectNode props = JsonNodeFactory.instance.objectNode();
         props.put("resultProcessVariable", resultProcessVariable);
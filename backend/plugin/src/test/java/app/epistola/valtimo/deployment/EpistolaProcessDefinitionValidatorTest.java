@@ -17,6 +17,7 @@
  */
 package app.epistola.valtimo.deployment;
 
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import app.epistola.valtimo.web.rest.dto.BpmnValidationViolation;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -39,11 +40,14 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -68,7 +72,8 @@ class EpistolaProcessDefinitionValidatorTest {
         processLinkService = mock(ProcessLinkService.class);
         taskScheduler = mock(TaskScheduler.class);
         validator = new EpistolaProcessDefinitionValidator(
-                repositoryService, processLinkService, taskScheduler, EVERY_10_MIN_CRON, "UTC");
+                repositoryService, EpistolaProcessLinkIndex.uncached(processLinkService),
+                taskScheduler, EVERY_10_MIN_CRON, "UTC");
 
         ProcessDefinition def = mock(ProcessDefinition.class);
         lenient().when(def.getId()).thenReturn(DEFINITION_ID);
@@ -304,14 +309,16 @@ class EpistolaProcessDefinitionValidatorTest {
     @Test
     void refreshIntervalMs_isDerivedFromTheCronSchedule() {
         EpistolaProcessDefinitionValidator fiveMin = new EpistolaProcessDefinitionValidator(
-                repositoryService, processLinkService, taskScheduler, "0 */5 * * * *", "UTC");
+                repositoryService, EpistolaProcessLinkIndex.uncached(processLinkService),
+                taskScheduler, "0 */5 * * * *", "UTC");
         assertThat(fiveMin.getRefreshIntervalMs()).isEqualTo(300_000L);
     }
 
     @Test
     void invalidCron_fallsBackToTenMinutes() {
         EpistolaProcessDefinitionValidator bad = new EpistolaProcessDefinitionValidator(
-                repositoryService, processLinkService, taskScheduler, "not-a-cron", "UTC");
+                repositoryService, EpistolaProcessLinkIndex.uncached(processLinkService),
+                taskScheduler, "not-a-cron", "UTC");
         assertThat(bad.getRefreshIntervalMs()).isEqualTo(INTERVAL_MS);
     }
 
@@ -405,6 +412,102 @@ class EpistolaProcessDefinitionValidatorTest {
         verify(repositoryService, times(2)).getBpmnModelInstance(DEFINITION_ID);
     }
 
+    @Test
+    void deployment_revalidatesOnlyTheDeployedKeyAfterTheDebounce() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Instant> runAt = ArgumentCaptor.forClass(Instant.class);
+        Instant before = Instant.now();
+        BpmnModelInstance model = simpleModel("EpistolaDocumentGenerated");
+        ServiceTask serviceTask = model.getModelElementById("generate-confirmation");
+        serviceTask.setOperatonExpression("${null}");
+        serviceTask.setOperatonAsyncAfter(true);
+        installBpmn(model);
+        installLink("generate-confirmation");
+        ProcessDefinition def = query.list().get(0);
+        when(query.processDefinitionKey(PROCESS_KEY)).thenReturn(query);
+        when(query.singleResult()).thenReturn(def);
+        clearInvocations(query);
+
+        validator.onProcessDeployed(new EpistolaProcessDeployedEvent(PROCESS_KEY));
+        validator.onProcessDeployed(new EpistolaProcessDeployedEvent(PROCESS_KEY));
+
+        // Both events are coalesced into one deferred pass.
+        verify(taskScheduler, times(1)).schedule(task.capture(), runAt.capture());
+        assertThat(Duration.between(before, runAt.getValue()).toMillis())
+                .isBetween(ProcessChangeDebouncer.EVENT_DEBOUNCE_MS,
+                        ProcessChangeDebouncer.EVENT_DEBOUNCE_MS + 1_000L);
+        task.getValue().run();
+
+        assertThat(validator.getViolations()).singleElement()
+                .extracting(BpmnValidationViolation::code)
+                .isEqualTo(BpmnValidationViolation.CODE_PLATFORM_ASYNC_AFTER_ON_SERVICE_TASK);
+        verify(query, never()).list();
+        verify(repositoryService, times(1)).getBpmnModelInstance(DEFINITION_ID);
+    }
+
+    @Test
+    void deployment_keepsTheOtherKeysResults() {
+        BpmnModelInstance model = simpleModel("EpistolaDocumentGenerated");
+        ServiceTask serviceTask = model.getModelElementById("generate-confirmation");
+        serviceTask.setOperatonExpression("${null}");
+        serviceTask.setOperatonAsyncAfter(true);
+        installBpmn(model);
+        installLink("generate-confirmation");
+        validator.scan();
+
+        ProcessDefinition other = mock(ProcessDefinition.class);
+        lenient().when(other.getId()).thenReturn("other-process:1:xyz");
+        lenient().when(other.getKey()).thenReturn("other-process");
+        when(query.processDefinitionKey("other-process")).thenReturn(query);
+        when(query.singleResult()).thenReturn(other);
+        when(processLinkService.getProcessLinks("other-process:1:xyz")).thenReturn(List.<ProcessLink>of());
+        validator.onProcessDeployed(new EpistolaProcessDeployedEvent("other-process"));
+        validator.applyPendingChanges();
+
+        assertThat(validator.getViolations()).singleElement()
+                .extracting(BpmnValidationViolation::processDefinitionKey)
+                .isEqualTo(PROCESS_KEY);
+    }
+
+    @Test
+    void processLinkChange_rereadsEveryDefinitionButReparsesOnlyChangedOnes() {
+        installBpmn(simpleModel("EpistolaDocumentGenerated"));
+        installLink("generate-confirmation");
+        validator.scan();
+
+        validator.onProcessLinksChanged(EpistolaProcessLinksChangedEvent.ofAllDefinitions());
+        validator.applyPendingChanges();
+
+        verify(query, times(2)).list();
+        verify(repositoryService, times(1)).getBpmnModelInstance(DEFINITION_ID);
+
+        installLink("some-other-activity");
+        validator.onProcessLinksChanged(EpistolaProcessLinksChangedEvent.ofAllDefinitions());
+        validator.applyPendingChanges();
+
+        verify(repositoryService, times(2)).getBpmnModelInstance(DEFINITION_ID);
+    }
+
+    @Test
+    void processLinkChangeOfAKnownDefinition_revalidatesOnlyItsKey() {
+        installBpmn(simpleModel("EpistolaDocumentGenerated"));
+        installLink("generate-confirmation");
+        validator.scan();
+        ProcessDefinition def = query.list().get(0);
+        when(query.processDefinitionKey(PROCESS_KEY)).thenReturn(query);
+        when(query.singleResult()).thenReturn(def);
+        clearInvocations(query);
+
+        installLink("some-other-activity");
+        validator.onProcessLinksChanged(
+                new EpistolaProcessLinksChangedEvent(Set.of(DEFINITION_ID), Set.of(PROCESS_KEY)));
+        validator.applyPendingChanges();
+
+        verify(query, never()).list();
+        verify(query).processDefinitionKey(PROCESS_KEY);
+        verify(repositoryService, times(2)).getBpmnModelInstance(DEFINITION_ID);
+    }
+
     private void installBpmn(BpmnModelInstance model) {
         when(repositoryService.getBpmnModelInstance(DEFINITION_ID)).thenReturn(model);
     }
@@ -219,6 +219,50 @@ class ExpressionFunctionRegistryTest {
         assertTrue(exception.getMessage().contains(SchemaFunction.class.getName()));
     }
 
+    @Test
+    void shouldPairBatchMethodWithMatchingSingleArgumentOverload() throws Exception {
+        ExpressionFunctionRegistry batchRegistry = new ExpressionFunctionRegistry(List.of(new BatchFunction()));
+
+        var single = BatchFunction.class.getMethod("execute", ExpressionContext.class, String.class);
+        var pair = BatchFunction.class.getMethod("execute", ExpressionContext.class, String.class, String.class);
+        var numeric = BatchFunction.class.getMethod("execute", ExpressionContext.class, int.class);
+
+        assertEquals(BatchFunction.class.getMethod("executeBatch", ExpressionContext.class, List.class),
+                batchRegistry.findBatchMethod(single));
+        assertNull(batchRegistry.findBatchMethod(pair));
+        assertNull(batchRegistry.findBatchMethod(numeric));
+        assertTrue(batchRegistry.hasBatchMethod("batch"));
+        assertFalse(registry.hasBatchMethod("formatDate"));
+    }
+
+    static class BatchFunction implements EpistolaExpressionFunction {
+        @Override
+        public String name() {
+            return "batch";
+        }
+
+        @Override
+        public String description() {
+            return "Batch fixture";
+        }
+
+        public String execute(ExpressionContext context, String id) {
+            return id;
+        }
+
+        public String execute(ExpressionContext context, String id, String suffix) {
+            return id + suffix;
+        }
+
+        public String execute(ExpressionContext context, int id) {
+            return String.valueOf(id);
+        }
+
+        public List<String> executeBatch(ExpressionContext context, List<String> ids) {
+            return ids;
+        }
+    }
+
     static class SchemaFunction implements EpistolaExpressionFunction {
         private int invocations;
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.mapping;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EvaluationBudgetsTest {
+
+    private static final EvaluationBudget DEFAULT = new EvaluationBudget(Duration.ofSeconds(5), 100, 0);
+
+    @Test
+    void shouldUseDefaultOutsideAProcessAndForUnknownProcesses() {
+        var budgets = new EvaluationBudgets(DEFAULT, List.of(
+                new EvaluationBudgets.LinkBudget("invoice", null, Duration.ofSeconds(30), null, null)));
+
+        assertThat(budgets.forLink(null, null)).isEqualTo(DEFAULT);
+        assertThat(budgets.forLink("permit", "generate")).isEqualTo(DEFAULT);
+    }
+
+    @Test
+    void shouldInheritLimitsAnOverrideLeavesUnset() {
+        var budgets = new EvaluationBudgets(DEFAULT, List.of(
+                new EvaluationBudgets.LinkBudget("invoice", null, Duration.ofSeconds(30), null, null)));
+
+        assertThat(budgets.forLink("invoice", "generate"))
+                .isEqualTo(new EvaluationBudget(Duration.ofSeconds(30), 100, 0));
+    }
+
+    @Test
+    void shouldLetActivityOverrideWinOverProcessOverride() {
+        var budgets = new EvaluationBudgets(DEFAULT, List.of(
+                new EvaluationBudgets.LinkBudget("invoice", "generate", null, 20, 10_000L),
+                new EvaluationBudgets.LinkBudget("invoice", null, Duration.ofSeconds(30), 50, null)));
+
+        assertThat(budgets.forLink("invoice", "generate"))
+                .isEqualTo(new EvaluationBudget(Duration.ofSeconds(30), 20, 10_000));
+        assertThat(budgets.forLink("invoice", "archive"))
+                .isEqualTo(new EvaluationBudget(Duration.ofSeconds(30), 50, 0));
+    }
+
+    @Test
+    void shouldRejectInvalidLimits() {
+        assertThatThrownBy(() -> new EvaluationBudget(Duration.ZERO, 100, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("timeout");
+        assertThatThrownBy(() -> new EvaluationBudget(Duration.ofSeconds(1), 0, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("maxRecursionDepth");
+        assertThatThrownBy(() -> new EvaluationBudgets.LinkBudget(" ", null, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
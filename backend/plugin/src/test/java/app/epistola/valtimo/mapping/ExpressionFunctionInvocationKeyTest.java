@@ -19,13 +19,17 @@ package app.epistola.valtimo.mapping;
 
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class ExpressionFunctionInvocationKeyTest {
 
@@ -92,6 +96,75 @@ class ExpressionFunctionInvocationKeyTest {
         assertThat(key(cyclic)).isEqualTo(key(cyclic));
     }
 
+    @Test
+    void probeMatchesEqualSnapshotWithoutCopyingArguments() {
+        var stored = key(Map.of("bsn", "123", "children", List.of(Map.of("bsn", "456"))));
+        Map<String, Object> live = new LinkedHashMap<>();
+        live.put("children", new ArrayList<>(List.of(new HashMap<>(Map.of("bsn", "456")))));
+        live.put("bsn", "123");
+
+        var probe = probe(live);
+
+        assertThat(probe).isEqualTo(stored).hasSameHashCodeAs(stored);
+        assertThat(stored).isEqualTo(probe);
+        assertThat(probe.snapshot()).isEqualTo(stored).isNotSameAs(probe);
+    }
+
+    @Test
+    void probeDoesNotMatchDifferentValuesOrTypes() {
+        var stored = key(Map.of("bsn", "123", "age", 42));
+
+        assertThat(probe(Map.of("bsn", "124", "age", 42))).isNotEqualTo(stored);
+        assertThat(probe(Map.of("bsn", "123", "age", 42L))).isNotEqualTo(stored);
+        assertThat(probe(Map.of("bsn", "123"))).isNotEqualTo(stored);
+        assertThat(probe(List.of("123", 42))).isNotEqualTo(stored);
+    }
+
+    @Test
+    void probeMatchesCyclicContainerSnapshot() {
+        List<Object> cyclic = new ArrayList<>();
+        cyclic.add("value");
+        cyclic.add(cyclic);
+
+        assertThat(probe(cyclic)).isEqualTo(key(cyclic)).hasSameHashCodeAs(key(cyclic));
+    }
+
+    @Test
+    void probingAHitAllocatesFarLessThanSnapshotting() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+        List<Object> children = new ArrayList<>();
+        for (int index = 0; index < 50; index++) {
+            children.add(Map.of("bsn", "bsn-" + index, "tags", List.of("a", "b", "c")));
+        }
+        Map<String, Object> argument = Map.of("household", children, "city", "Utrecht");
+        Map<ExpressionFunctionInvocationKey, Object> cache = new HashMap<>();
+        cache.put(key(argument), "cached");
+
+        long probing = allocatedBytes(() -> cache.get(probe(argument)));
+        long snapshotting = allocatedBytes(() -> cache.get(key(argument)));
+
+        assertThat(cache.get(probe(argument))).isEqualTo("cached");
+        assertThat(probing * 2).isLessThan(snapshotting);
+    }
+
+    private static long allocatedBytes(Supplier<Object> lookup) {
+        var bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int warmup = 0; warmup < 20_000; warmup++) {
+            lookup.get();
+        }
+        long threadId = Thread.currentThread().threadId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int run = 0; run < 1_000; run++) {
+            lookup.get();
+        }
+        return bean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static ExpressionFunctionInvocationKey probe(Object argument) {
+        return ExpressionFunctionInvocationKey.probe("fixture", METHOD, new Object[]{argument});
+    }
+
     private static ExpressionFunctionInvocationKey key(Object argument) {
         return ExpressionFunctionInvocationKey.of("fixture", METHOD, new Object[]{argument});
     }
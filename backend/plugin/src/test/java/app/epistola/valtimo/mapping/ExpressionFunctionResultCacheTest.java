@@ -0,0 +1,201 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.mapping;
+
+import app.epistola.valtimo.expression.CacheResultAcrossEvaluations;
+import app.epistola.valtimo.expression.ExpressionContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ExpressionFunctionResultCacheTest {
+
+    private static final Method LOOKUP = method("lookup", String.class);
+    private static final Method COUNT = method("count", Integer.class);
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private ExpressionFunctionResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        cache = new ExpressionFunctionResultCache(meterRegistry, clock);
+    }
+
+    @Test
+    void shouldReturnStoredResultIncludingNull() {
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "a"), "A");
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "b"), null);
+
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a"))).isEqualTo("A");
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "b"))).isNull();
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "c")))
+                .isSameAs(ExpressionFunctionResultCache.MISS);
+    }
+
+    @Test
+    void shouldMatchEqualJsonLikeArguments() {
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, Map.of("bsn", "123")), "A");
+
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, Map.of("bsn", "123")))).isEqualTo("A");
+    }
+
+    @Test
+    void shouldScopeResultsByTenant() {
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "a"), "acme-A");
+
+        assertThat(cache.lookup("lookup", LOOKUP, "globex", key(LOOKUP, "a")))
+                .isSameAs(ExpressionFunctionResultCache.MISS);
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a"))).isEqualTo("acme-A");
+    }
+
+    @Test
+    void shouldExpireResultsAfterTtl() {
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "a"), "A");
+
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a"))).isEqualTo("A");
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a")))
+                .isSameAs(ExpressionFunctionResultCache.MISS);
+        assertThat(cache.statistics()).singleElement()
+                .satisfies(statistics -> {
+                    assertThat(statistics.size()).isZero();
+                    assertThat(statistics.evictions()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedResultBeyondMaxEntries() {
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "a"), "A");
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "b"), "B");
+        cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a"));
+
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "c"), "C");
+
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a"))).isEqualTo("A");
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "b")))
+                .isSameAs(ExpressionFunctionResultCache.MISS);
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "c"))).isEqualTo("C");
+    }
+
+    @Test
+    void shouldFlushOneFunctionOrAll() {
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "a"), "A");
+        cache.store("count", COUNT, "acme", key(COUNT, 1), 1);
+
+        assertThat(cache.flush("lookup")).isTrue();
+        assertThat(cache.flush("unknown")).isFalse();
+        assertThat(cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a")))
+                .isSameAs(ExpressionFunctionResultCache.MISS);
+        assertThat(cache.lookup("count", COUNT, "acme", key(COUNT, 1))).isEqualTo(1);
+
+        cache.flush();
+        assertThat(cache.lookup("count", COUNT, "acme", key(COUNT, 1)))
+                .isSameAs(ExpressionFunctionResultCache.MISS);
+    }
+
+    @Test
+    void shouldReportHitRatePerFunctionAndPublishMeters() {
+        cache.store("lookup", LOOKUP, "acme", key(LOOKUP, "a"), "A");
+        cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a"));
+        cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "a"));
+        cache.lookup("lookup", LOOKUP, "acme", key(LOOKUP, "b"));
+        cache.lookup("count", COUNT, "acme", key(COUNT, 1));
+
+        assertThat(cache.statistics()).extracting(
+                        ExpressionFunctionResultCache.FunctionCacheStatistics::function,
+                        ExpressionFunctionResultCache.FunctionCacheStatistics::size,
+                        ExpressionFunctionResultCache.FunctionCacheStatistics::hits,
+                        ExpressionFunctionResultCache.FunctionCacheStatistics::misses)
+                .containsExactly(
+                        tuple("count", 0, 0L, 1L),
+                        tuple("lookup", 1, 2L, 1L));
+        assertThat(cache.statistics().get(1).hitRate()).isEqualTo(2.0 / 3);
+        assertThat(meterRegistry.get("epistola.expression.cache.requests")
+                .tag("function", "lookup").tag("result", "hit").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("epistola.expression.cache.size")
+                .tag("function", "lookup").tag("overload", "String").gauge().value()).isEqualTo(1);
+    }
+
+    private static ExpressionFunctionInvocationKey key(Method method, Object argument) {
+        return ExpressionFunctionInvocationKey.of(method.getName(), method, new Object[]{argument});
+    }
+
+    private static Method method(String name, Class<?> argumentType) {
+        try {
+            return Functions.class.getMethod(name, ExpressionContext.class, argumentType);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Functions {
+
+        @CacheResultAcrossEvaluations(ttl = "1m", maxEntries = 2)
+        public String lookup(ExpressionContext context, String input) {
+            return input;
+        }
+
+        @CacheResultAcrossEvaluations
+        public Integer count(ExpressionContext context, Integer input) {
+            return input;
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -17,11 +17,14 @@
  */
 package app.epistola.valtimo.mapping;
 
+import app.epistola.valtimo.expression.CacheResultAcrossEvaluations;
 import app.epistola.valtimo.expression.CacheResultForEvaluation;
 import app.epistola.valtimo.expression.EpistolaExpressionFunction;
 import app.epistola.valtimo.expression.ExpressionContext;
 import app.epistola.valtimo.expression.ExpressionEvaluationException;
 import app.epistola.valtimo.expression.ExpressionFunctionRegistry;
+import app.epistola.valtimo.expression.PrefetchConcurrently;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -29,6 +32,9 @@ import org.springframework.aop.framework.ProxyFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -40,7 +46,7 @@ class JsonataMappingServiceTest {
     @BeforeEach
     void setUp() {
         ExpressionFunctionRegistry registry = new ExpressionFunctionRegistry(List.of());
-        service = new JsonataMappingService(registry);
+        service = mappingService(registry);
     }
 
     @Nested
@@ -392,7 +398,7 @@ class JsonataMappingServiceTest {
             };
 
             ExpressionFunctionRegistry registry = new ExpressionFunctionRegistry(List.of(greetFunc));
-            service = new JsonataMappingService(registry);
+            service = mappingService(registry);
         }
 
         @Test
@@ -410,7 +416,7 @@ class JsonataMappingServiceTest {
         @Test
         void shouldCacheAnnotatedFunctionResultsForOneEvaluation() {
             CachedLookupFunction function = new CachedLookupFunction();
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(function)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
 
             Map<String, Object> firstEvaluation = service.evaluate(
                     "{ \"first\": $lookup('same'), \"second\": $lookup('same'), \"other\": $lookup('other') }",
@@ -435,7 +441,7 @@ class JsonataMappingServiceTest {
             ProxyFactory proxyFactory = new ProxyFactory(target);
             proxyFactory.setProxyTargetClass(true);
             EpistolaExpressionFunction proxy = (EpistolaExpressionFunction) proxyFactory.getProxy();
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(proxy)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(proxy)));
 
             Map<String, Object> result = service.evaluate(
                     "{ \"first\": $lookup('same'), \"second\": $lookup('same') }",
@@ -450,7 +456,7 @@ class JsonataMappingServiceTest {
         @Test
         void shouldCallUnannotatedFunctionForEveryReference() {
             UncachedLookupFunction function = new UncachedLookupFunction();
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(function)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
 
             Map<String, Object> result = service.evaluate(
                     "{ \"first\": $lookup('same'), \"second\": $lookup('same') }",
@@ -465,7 +471,7 @@ class JsonataMappingServiceTest {
         @Test
         void shouldApplyCachingPerOverload() {
             PartiallyCachedFunction function = new PartiallyCachedFunction();
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(function)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
 
             service.evaluate(
                     "{ \"cachedOne\": $partial('same'), \"cachedTwo\": $partial('same'),"
@@ -479,7 +485,7 @@ class JsonataMappingServiceTest {
         @Test
         void shouldCacheAnnotatedFunctionResultsForScalarEvaluation() {
             CachedLookupFunction function = new CachedLookupFunction();
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(function)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
 
             String result = service.evaluateScalar(EvaluationContext.builder()
                     .expression("$lookup('same') & $lookup('same')")
@@ -492,7 +498,7 @@ class JsonataMappingServiceTest {
         @Test
         void shouldCacheNullFunctionResults() {
             CachedNullFunction function = new CachedNullFunction();
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(function)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
 
             service.evaluate(
                     "{ \"first\": $nullable(), \"second\": $nullable() }",
@@ -504,7 +510,7 @@ class JsonataMappingServiceTest {
         @Test
         void shouldNotCacheFunctionExceptions() {
             FailsOnceFunction function = new FailsOnceFunction();
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(function)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
 
             assertThatThrownBy(() -> service.evaluate(
                     "{ \"value\": $failsOnce() }", Map.of(), Map.of(), Map.of()))
@@ -517,6 +523,206 @@ class JsonataMappingServiceTest {
             assertThat(function.invocations).isEqualTo(2);
         }
 
+        @Test
+        void shouldShareAnnotatedFunctionResultsAcrossEvaluationsOfOneTenant() {
+            SharedLookupFunction function = new SharedLookupFunction();
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
+
+            assertThat(service.evaluateScalar(tenantContext("$lookup('same')", "acme"))).isEqualTo("same-1");
+            assertThat(service.evaluateScalar(tenantContext("$lookup('same')", "acme"))).isEqualTo("same-1");
+            assertThat(service.evaluateScalar(tenantContext("$lookup('same')", "globex"))).isEqualTo("same-2");
+            assertThat(function.invocations).isEqualTo(2);
+        }
+
+        @Test
+        void shouldNotShareFunctionResultsWithoutTenant() {
+            SharedLookupFunction function = new SharedLookupFunction();
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
+
+            assertThat(service.evaluateScalar(tenantContext("$lookup('same')", null))).isEqualTo("same-1");
+            assertThat(service.evaluateScalar(tenantContext("$lookup('same')", null))).isEqualTo("same-2");
+        }
+
+        @Test
+        void shouldInvokeSharedFunctionAgainAfterFlush() {
+            SharedLookupFunction function = new SharedLookupFunction();
+            ExpressionFunctionResultCache resultCache = new ExpressionFunctionResultCache(new SimpleMeterRegistry());
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)), resultCache);
+
+            service.evaluateScalar(tenantContext("$lookup('same')", "acme"));
+            resultCache.flush("lookup");
+
+            assertThat(service.evaluateScalar(tenantContext("$lookup('same')", "acme"))).isEqualTo("same-2");
+        }
+
+        @Test
+        void shouldCountEachSharedLookupOnceWhenTheExpressionIsRecorded() {
+            SharedLookupFunction function = new SharedLookupFunction();
+            ExpressionFunctionResultCache resultCache = new ExpressionFunctionResultCache(new SimpleMeterRegistry());
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function, new BatchLookupFunction())),
+                    resultCache);
+
+            service.evaluateScalar(tenantContext("$person('1') & $lookup('same')", "acme"));
+            service.evaluateScalar(tenantContext("$person('1') & $lookup('same')", "acme"));
+
+            assertThat(resultCache.statistics()).singleElement().satisfies(statistics -> {
+                assertThat(statistics.misses()).isEqualTo(1);
+                assertThat(statistics.hits()).isEqualTo(1);
+            });
+        }
+
+        @Test
+        void shouldRejectInvalidSharedCacheSettingsAtStartup() {
+            assertThatThrownBy(() -> new ExpressionFunctionRegistry(List.of(new InvalidTtlFunction())))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("invalidTtl");
+        }
+
+        private EvaluationContext tenantContext(String expression, String tenantId) {
+            return EvaluationContext.builder()
+                    .expression(expression)
+                    .tenantId(tenantId)
+                    .build();
+        }
+
+        @Test
+        void shouldServeCallsOfBatchCapableFunctionWithOneBatchCall() {
+            BatchLookupFunction function = new BatchLookupFunction();
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
+
+            Map<String, Object> result = service.evaluate(
+                    "{ \"names\": $map($doc.children, function($c) { $person($c.bsn) }), \"first\": $person('1') }",
+                    Map.of("children", List.of(Map.of("bsn", "1"), Map.of("bsn", "2"), Map.of("bsn", "3"))),
+                    Map.of(), Map.of());
+
+            assertThat(result).containsEntry("names", List.of("person-1", "person-2", "person-3"))
+                    .containsEntry("first", "person-1");
+            assertThat(function.batches).containsExactly(List.of("1", "2", "3"));
+            assertThat(function.singleCalls).isZero();
+        }
+
+        @Test
+        void shouldFallBackToSingleCallsWhenBatchFails() {
+            BatchLookupFunction function = new BatchLookupFunction();
+            function.failBatch = true;
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
+
+            Map<String, Object> result = service.evaluate(
+                    "{ \"names\": $map($doc.children, function($c) { $person($c.bsn) }) }",
+                    Map.of("children", List.of(Map.of("bsn", "1"), Map.of("bsn", "2"))),
+                    Map.of(), Map.of());
+
+            assertThat(result).containsEntry("names", List.of("person-1", "person-2"));
+            assertThat(function.singleCalls).isEqualTo(2);
+        }
+
+        @Test
+        void shouldOnlyCountWholeFunctionReferencesOutsideLiteralsAndComments() {
+            assertThat(JsonataMappingService.referencedVariables(
+                    "{ \"a\": $personal($doc.bsn), \"b\": '$person', \"c\": \"say \\\"$person\\\"\" }"
+                            + " /* $person */ ~> $lookup"))
+                    .containsExactlyInAnyOrder("personal", "doc", "lookup");
+            assertThat(JsonataMappingService.referencedVariables("$map($xs, function($x) { $person($x) })"))
+                    .contains("person");
+        }
+
+        @Test
+        void shouldNotInvokeOtherFunctionsWhileRecordingBatchCalls() {
+            BatchLookupFunction batchFunction = new BatchLookupFunction();
+            UncachedLookupFunction otherFunction = new UncachedLookupFunction();
+            service = mappingService(new ExpressionFunctionRegistry(List.of(batchFunction, otherFunction)));
+
+            Map<String, Object> result = service.evaluate(
+                    "{ \"person\": $person('1'), \"other\": $lookup('x') }", Map.of(), Map.of(), Map.of());
+
+            assertThat(result).containsEntry("person", "person-1").containsEntry("other", "x-1");
+            assertThat(otherFunction.invocations).isEqualTo(1);
+        }
+
+        @Test
+        void shouldNotBatchCallsWhoseArgumentComesFromAnotherCall() {
+            BatchLookupFunction batchFunction = new BatchLookupFunction();
+            UncachedLookupFunction otherFunction = new UncachedLookupFunction();
+            service = mappingService(new ExpressionFunctionRegistry(List.of(batchFunction, otherFunction)));
+
+            // While recording $lookup yields null; the batch must not receive that placeholder.
+            Map<String, Object> result = service.evaluate(
+                    "{ \"person\": $person($lookup('x')) }", Map.of(), Map.of(), Map.of());
+
+            assertThat(result).containsEntry("person", "person-x-1");
+            assertThat(batchFunction.batches).isEmpty();
+            assertThat(batchFunction.singleCalls).isEqualTo(1);
+        }
+
+        @Test
+        void shouldRunPrefetchedFunctionsConcurrently() {
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            ConcurrentFunction person = new ConcurrentFunction("person", bothStarted);
+            ConcurrentFunction company = new ConcurrentFunction("company", bothStarted);
+            service = mappingService(new ExpressionFunctionRegistry(List.of(person, company)));
+
+            Map<String, Object> result = service.evaluate(
+                    "{ \"person\": $person('1'), \"company\": $company('2') }", Map.of(), Map.of(), Map.of());
+
+            assertThat(result).containsEntry("person", "person-1-concurrent")
+                    .containsEntry("company", "company-2-concurrent");
+            assertThat(person.detachedContext).isTrue();
+        }
+
+        @Test
+        void shouldNotStartPrefetchedCallsWhoseArgumentComesFromAnotherCall() {
+            ConcurrentFunction person = new ConcurrentFunction("person", new CountDownLatch(0));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(person, new UncachedLookupFunction())));
+
+            // While recording $lookup yields null; no speculative call may be made with it.
+            String result = service.evaluateScalar(EvaluationContext.builder()
+                    .expression("$person($lookup('x'))")
+                    .build());
+
+            assertThat(result).isEqualTo("person-x-1-concurrent");
+            assertThat(person.inputs).containsExactly("x-1");
+        }
+
+        @Test
+        void shouldIgnoreFailureOfPrefetchedCallThatIsNotConsumed() {
+            ConcurrentFunction person = new ConcurrentFunction("person", new CountDownLatch(0));
+            ConcurrentFunction failing = new ConcurrentFunction("failing", new CountDownLatch(0));
+            failing.fail = true;
+            service = mappingService(new ExpressionFunctionRegistry(List.of(person, failing)));
+
+            // While recording $person yields null, so $failing starts speculatively but is never consumed.
+            String result = service.evaluateScalar(EvaluationContext.builder()
+                    .expression("$person('1') ? 'ok' : $failing('x')")
+                    .build());
+
+            assertThat(result).isEqualTo("ok");
+        }
+
+        @Test
+        void shouldSurfaceFailureOfConsumedPrefetchedCall() {
+            ConcurrentFunction failing = new ConcurrentFunction("failing", new CountDownLatch(0));
+            failing.fail = true;
+            service = mappingService(new ExpressionFunctionRegistry(List.of(failing)));
+
+            assertThatThrownBy(() -> service.evaluate(
+                    "{ \"x\": $failing('x') }", Map.of(), Map.of(), Map.of()))
+                    .isInstanceOf(ExpressionEvaluationException.class)
+                    .hasMessageContaining("failing")
+                    .hasRootCauseMessage("upstream down");
+        }
+
+        @Test
+        void shouldLimitConcurrentCallsPerOverload() {
+            SingleSlotFunction function = new SingleSlotFunction();
+            service = mappingService(new ExpressionFunctionRegistry(List.of(function)));
+
+            Map<String, Object> result = service.evaluate(
+                    "{ \"a\": $slot('1'), \"b\": $slot('2'), \"c\": $slot('3') }", Map.of(), Map.of(), Map.of());
+
+            assertThat(result).containsEntry("a", "1").containsEntry("b", "2").containsEntry("c", "3");
+            assertThat(function.maxInFlight.get()).isEqualTo(1);
+        }
+
         @Test
         void shouldRethrowCustomFunctionExceptionWithCause() {
             EpistolaExpressionFunction throwing = new EpistolaExpressionFunction() {
@@ -531,7 +737,7 @@ class JsonataMappingServiceTest {
                     throw new IllegalStateException("kaboom");
                 }
             };
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(throwing)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(throwing)));
 
             assertThatThrownBy(() -> service.evaluate(
                     "{ \"x\": $boom('hi') }", Map.of(), Map.of(), Map.of()))
@@ -555,7 +761,7 @@ class JsonataMappingServiceTest {
                     throw new RuntimeException("inner failure");
                 }
             };
-            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(throwing)));
+            service = mappingService(new ExpressionFunctionRegistry(List.of(throwing)));
 
             assertThatThrownBy(() -> service.evaluate(
                     "{ \"x\": $myCustomFunc('hi') }", Map.of(), Map.of(), Map.of()))
@@ -579,6 +785,109 @@ class JsonataMappingServiceTest {
             }
         }
 
+        private class SharedLookupFunction implements EpistolaExpressionFunction {
+            private int invocations;
+
+            @Override
+            public String name() { return "lookup"; }
+
+            @Override
+            public String description() { return "Shared lookup"; }
+
+            @CacheResultAcrossEvaluations(ttl = "10m", maxEntries = 10)
+            public String execute(ExpressionContext context, String input) {
+                invocations++;
+                return input + "-" + invocations;
+            }
+        }
+
+        private class BatchLookupFunction implements EpistolaExpressionFunction {
+            private final List<List<String>> batches = new java.util.ArrayList<>();
+            private int singleCalls;
+            private boolean failBatch;
+
+            @Override
+            public String name() { return "person"; }
+
+            @Override
+            public String description() { return "Batch-capable lookup"; }
+
+            public String execute(ExpressionContext context, String bsn) {
+                singleCalls++;
+                return "person-" + bsn;
+            }
+
+            public List<String> executeBatch(ExpressionContext context, List<String> bsns) {
+                if (failBatch) {
+                    throw new IllegalStateException("registry unavailable");
+                }
+                batches.add(List.copyOf(bsns));
+                return bsns.stream().map(bsn -> "person-" + bsn).toList();
+            }
+        }
+
+        private static class ConcurrentFunction implements EpistolaExpressionFunction {
+            private final String name;
+            private final CountDownLatch started;
+            private volatile boolean fail;
+            private volatile boolean detachedContext;
+            private final List<String> inputs = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+            ConcurrentFunction(String name, CountDownLatch started) {
+                this.name = name;
+                this.started = started;
+            }
+
+            @Override
+            public String name() { return name; }
+
+            @Override
+            public String description() { return "Concurrent lookup"; }
+
+            @PrefetchConcurrently
+            public String execute(ExpressionContext context, String input) throws InterruptedException {
+                inputs.add(String.valueOf(input));
+                detachedContext = context.getExecution() == null && context.getDocumentData().isEmpty();
+                if (fail) {
+                    throw new IllegalStateException("upstream down");
+                }
+                started.countDown();
+                return name + "-" + input + "-" + (started.await(2, TimeUnit.SECONDS) ? "concurrent" : "sequential");
+            }
+        }
+
+        private static class SingleSlotFunction implements EpistolaExpressionFunction {
+            private final AtomicInteger inFlight = new AtomicInteger();
+            private final AtomicInteger maxInFlight = new AtomicInteger();
+
+            @Override
+            public String name() { return "slot"; }
+
+            @Override
+            public String description() { return "Single-slot lookup"; }
+
+            @PrefetchConcurrently(maxConcurrency = 1)
+            public String execute(ExpressionContext context, String input) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                inFlight.decrementAndGet();
+                return input;
+            }
+        }
+
+        private class InvalidTtlFunction implements EpistolaExpressionFunction {
+            @Override
+            public String name() { return "invalidTtl"; }
+
+            @Override
+            public String description() { return "Invalid ttl"; }
+
+            @CacheResultAcrossEvaluations(ttl = "soon")
+            public String execute(ExpressionContext context) {
+                return "never";
+            }
+        }
+
         private class UncachedLookupFunction implements EpistolaExpressionFunction {
             private int invocations;
 
@@ -651,4 +960,107 @@ class JsonataMappingServiceTest {
             }
         }
     }
+
+    @Nested
+    class BudgetsAndMetrics {
+
+        private static final String RECURSIVE = "($count := function($n) { $n <= 0 ? 0 : 1 + $count($n - 1) }; $count(3))";
+
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        @Test
+        void shouldApplyRecursionBudgetOfOverriddenLinkOnly() {
+            service = serviceWith(new EvaluationBudgets.LinkBudget("invoice", "generate", null, 5, null));
+
+            assertThat(service.evaluateScalar(linkContext(RECURSIVE, "invoice", "other"))).isEqualTo("3");
+            assertThatThrownBy(() -> service.evaluateScalar(linkContext(RECURSIVE, "invoice", "generate")))
+                    .isInstanceOf(RuntimeException.class);
+        }
+
+        @Test
+        void shouldRejectOutputLargerThanBudget() {
+            service = serviceWith(new EvaluationBudgets.LinkBudget("invoice", null, null, null, 20L));
+
+            assertThat(service.evaluate(linkContext("{ \"a\": \"short\" }", "invoice", "generate")))
+                    .containsEntry("a", "short");
+            assertThatThrownBy(() -> service.evaluate(
+                    linkContext("{ \"a\": \"a value well over twenty characters\" }", "invoice", "generate")))
+                    .isInstanceOf(ExpressionEvaluationException.class)
+                    .hasMessageContaining("maximum output size of 20");
+        }
+
+        @Test
+        void shouldTimeEvaluationDocumentLoadAndFunctionsPerLink() {
+            EpistolaExpressionFunction upper = new EpistolaExpressionFunction() {
+                @Override
+                public String name() { return "upper"; }
+
+                @Override
+                public String description() { return "Upper case"; }
+
+                @SuppressWarnings("unused")
+                public String execute(ExpressionContext ctx, String input) {
+                    return input.toUpperCase();
+                }
+            };
+            service = new JsonataMappingService(new ExpressionFunctionRegistry(List.of(upper)),
+                    new ExpressionFunctionResultCache(new SimpleMeterRegistry()), new EvaluationBudgets(), meterRegistry);
+
+            EvaluationContext context = EvaluationContext.builder()
+                    .expression("{ \"name\": $upper($doc.name) }")
+                    .documentResolver(id -> Map.of("name", "jane"))
+                    .documentId("doc-1")
+                    .operation("execution")
+                    .processDefinitionId("6f1c2a9e-55b4-4d7e-9a57-0c4f3e2d1b8a")
+                    .processDefinitionKey("invoice")
+                    .activityId("generate")
+                    .build();
+
+            assertThat(service.evaluate(context)).containsEntry("name", "JANE");
+            assertThat(meterRegistry.get("epistola.expression.evaluation")
+                    .tags("process.definition.key", "invoice", "activity.id", "generate", "outcome", "success")
+                    .timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("epistola.expression.document-load")
+                    .tags("process.definition.key", "invoice", "activity.id", "generate")
+                    .timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("epistola.expression.function")
+                    .tags("process.definition.key", "invoice", "function", "upper")
+                    .timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        void shouldCountFailedEvaluationsSeparately() {
+            service = serviceWith(new EvaluationBudgets.LinkBudget("invoice", null, null, null, 5L));
+
+            assertThatThrownBy(() -> service.evaluate(linkContext("{ \"a\": \"too long\" }", "invoice", "generate")))
+                    .isInstanceOf(ExpressionEvaluationException.class);
+            assertThat(meterRegistry.get("epistola.expression.evaluation")
+                    .tags("process.definition.key", "invoice", "outcome", "failure")
+                    .timer().count()).isEqualTo(1);
+        }
+
+        private JsonataMappingService serviceWith(EvaluationBudgets.LinkBudget override) {
+            return new JsonataMappingService(new ExpressionFunctionRegistry(List.of()),
+                    new ExpressionFunctionResultCache(new SimpleMeterRegistry()),
+                    new EvaluationBudgets(EvaluationBudget.DEFAULT, List.of(override)),
+                    meterRegistry);
+        }
+
+        private EvaluationContext linkContext(String expression, String processDefinitionKey, String activityId) {
+            return EvaluationContext.builder()
+                    .expression(expression)
+                    .processDefinitionKey(processDefinitionKey)
+                    .activityId(activityId)
+                    .build();
+        }
+    }
+
+    private static JsonataMappingService mappingService(ExpressionFunctionRegistry registry) {
+        return mappingService(registry, new ExpressionFunctionResultCache(new SimpleMeterRegistry()));
+    }
+
+    private static JsonataMappingService mappingService(ExpressionFunctionRegistry registry,
+                                                        ExpressionFunctionResultCache resultCache) {
+        return new JsonataMappingService(registry, resultCache, new EvaluationBudgets(), new SimpleMeterRegistry());
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedLruCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryBeyondTheBound() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+
+        cache.put("c", 3);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("c")).isEqualTo(3);
+    }
+
+    @Test
+    void removesEntriesByKey() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(10);
+        cache.put("letter:1", 1);
+        cache.put("letter:2", 2);
+        cache.put("invoice:1", 3);
+        cache.put("permit:1", 4);
+
+        cache.removeIf(key -> key.startsWith("letter:"));
+        cache.removeAll(List.of("permit:1"));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("invoice:1")).isEqualTo(3);
+    }
+
+    @Test
+    void keepsAtLeastOneEntry() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(0);
+        cache.put("a", 1);
+
+        assertThat(cache.get("a")).isEqualTo(1);
+    }
+}
@@ -16,12 +16,18 @@
  * SPDX-License-Identifier: EUPL-1.2
  */
 package app.epistola.valtimo.service.admin;
+import app.epistola.valtimo.config.EpistolaProperties;
 import app.epistola.valtimo.deploy.CatalogScanner;
 import app.epistola.valtimo.deploy.EpistolaCatalogSyncService;
 import app.epistola.valtimo.deployment.EpistolaProcessDefinitionValidator;
 import app.epistola.valtimo.service.admin.EpistolaAdminService;
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import app.epistola.valtimo.service.completion.EpistolaMessageCorrelationService;
+import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
+import app.epistola.valtimo.service.resilience.EpistolaResilienceRegistry;
+import app.epistola.valtimo.service.resilience.EpistolaTrafficClass;
 import app.epistola.valtimo.service.versioncheck.VersionCheckService;
 
 import app.epistola.valtimo.domain.CatalogInfo;
@@ -31,11 +37,14 @@ import app.epistola.valtimo.domain.TemplateInfo;
 import app.epistola.valtimo.domain.VariantInfo;
 import app.epistola.valtimo.web.rest.dto.BpmnValidationReport;
 import app.epistola.valtimo.web.rest.dto.BpmnValidationViolation;
+import app.epistola.valtimo.web.rest.dto.BulkReconcileProgress;
+import app.epistola.valtimo.web.rest.dto.BulkReconcileSummary;
 import app.epistola.valtimo.web.rest.dto.CatalogRedeployResult;
 import app.epistola.valtimo.web.rest.dto.ClasspathCatalog;
 import app.epistola.valtimo.web.rest.dto.ConnectionStatus;
 import app.epistola.valtimo.web.rest.dto.ContractCompatibilitySeverity;
 import app.epistola.valtimo.web.rest.dto.PendingJob;
+import app.epistola.valtimo.web.rest.dto.PendingJobSummary;
 import app.epistola.valtimo.web.rest.dto.PluginUsageEntry;
 import app.epistola.valtimo.web.rest.dto.ProcessLinkExport;
 import app.epistola.valtimo.web.rest.dto.ReconcileResult;
@@ -51,6 +60,7 @@ import com.ritense.processlink.domain.ActivityTypeWithEventName;
 import com.ritense.processlink.domain.ProcessLink;
 import com.ritense.processlink.service.ProcessLinkService;
 import com.ritense.valtimo.epistola.plugin.EpistolaPlugin;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -62,16 +72,24 @@ import org.operaton.bpm.engine.runtime.Execution;
 import org.operaton.bpm.engine.runtime.ExecutionQuery;
 import org.operaton.bpm.model.bpmn.BpmnModelInstance;
 import org.operaton.bpm.model.bpmn.instance.FlowElement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
@@ -103,6 +121,9 @@ class EpistolaAdminServiceTest {
     private EpistolaProcessDefinitionValidator processDefinitionValidator;
     private EpistolaCatalogSyncService catalogSyncService;
     private VersionCheckService versionCheckService;
+    private EpistolaResilienceRegistry resilienceRegistry;
+    private EpistolaResultCollectorRunner resultCollectorRunner;
+    private PendingJobQuery pendingJobQuery;
     private EpistolaAdminService adminService;
 
     @BeforeEach
@@ -117,10 +138,15 @@ class EpistolaAdminServiceTest {
         processDefinitionValidator = mock(EpistolaProcessDefinitionValidator.class);
         catalogSyncService = mock(EpistolaCatalogSyncService.class);
         versionCheckService = mock(VersionCheckService.class);
+        resilienceRegistry = new EpistolaResilienceRegistry(new EpistolaProperties(), new SimpleMeterRegistry());
+        resultCollectorRunner = mock(EpistolaResultCollectorRunner.class);
+        pendingJobQuery = mock(PendingJobQuery.class);
         adminService = new EpistolaAdminService(
                 pluginService, epistolaService, correlationService, processLinkService, repositoryService,
                 runtimeService, processDefinitionCaseDefinitionService, processDefinitionValidator,
-                catalogSyncService, versionCheckService);
+                catalogSyncService, versionCheckService, resilienceRegistry, resultCollectorRunner,
+                new BulkSubmitter(4, 16, 1000), pendingJobQuery,
+                EpistolaProcessLinkIndex.uncached(processLinkService));
     }
 
     @Nested
@@ -242,6 +268,23 @@ class EpistolaAdminServiceTest {
                     .isEqualTo(ContractCompatibilitySeverity.UNKNOWN);
         }
 
+        @Test
+        void shouldAttachCircuitBreakerStateOnceConnectionWasUsed() {
+            mockSinglePluginConfiguration();
+            when(epistolaService.getCatalogs(BASE_URL, API_KEY, TENANT_ID))
+                    .thenReturn(List.of());
+
+            assertThat(adminService.checkConnections().get(0).resilience()).isNull();
+
+            resilienceRegistry.execute(BASE_URL, TENANT_ID, EpistolaTrafficClass.ADMIN, "getCatalogs", true, List::of);
+            ConnectionStatus status = adminService.checkConnections().get(0);
+
+            assertThat(status.resilience()).isNotNull();
+            assertThat(status.resilience().circuitState()).isEqualTo("CLOSED");
+            assertThat(status.resilience().bufferedCalls()).isEqualTo(1);
+            assertThat(status.resilience().maxConcurrentCalls()).isEqualTo(8);
+        }
+
         @Test
         void shouldReturnEmptyWhenNoConfigurations() {
             when(pluginService.findPluginConfigurations(eq(EpistolaPlugin.class), any()))
@@ -953,6 +996,79 @@ class EpistolaAdminServiceTest {
         }
     }
 
+    @Nested
+    class GetPendingJobPage {
+
+        private static final Instant WAITING_SINCE = Instant.parse("2026-03-01T08:00:00Z");
+
+        @Test
+        void shouldMapRowsOfTheRequestedPage() {
+            mockSinglePluginConfiguration();
+            when(pendingJobQuery.count()).thenReturn(120L);
+            when(pendingJobQuery.page(50, 50, true)).thenReturn(List.of(
+                    new PendingJobQuery.Row("exec-1", "pi-1", "my-process", "My Process", "wait", "Wait",
+                            "epistola:job:" + TENANT_ID + "/req-1", null, WAITING_SINCE),
+                    new PendingJobQuery.Row("exec-2", "pi-2", "my-process", "My Process", "wait", "Wait",
+                            null, TENANT_ID, WAITING_SINCE)));
+
+            Page<PendingJob> page = adminService.getPendingJobPage(
+                    PageRequest.of(1, 50, Sort.by(Sort.Direction.DESC, "waitingSince")));
+
+            assertThat(page.getTotalElements()).isEqualTo(120);
+            assertThat(page.getContent()).hasSize(2);
+            PendingJob waiting = page.getContent().get(0);
+            assertThat(waiting.status()).isEqualTo(PendingJob.STATUS_WAITING);
+            assertThat(waiting.tenantId()).isEqualTo(TENANT_ID);
+            assertThat(waiting.requestId()).isEqualTo("req-1");
+            assertThat(waiting.configurationTitle()).isEqualTo(CONFIG_TITLE);
+            assertThat(waiting.waitingSince()).isEqualTo(WAITING_SINCE);
+            PendingJob unwired = page.getContent().get(1);
+            assertThat(unwired.status()).isEqualTo(PendingJob.STATUS_UNWIRED);
+            assertThat(unwired.tenantId()).isEqualTo(TENANT_ID);
+            assertThat(unwired.requestId()).isNull();
+            verify(runtimeService, never()).getVariable(anyString(), anyString());
+        }
+
+        @Test
+        void shouldCapThePageSizeAndSkipQueryingPastTheEnd() {
+            when(pendingJobQuery.count()).thenReturn(10L);
+
+            Page<PendingJob> page = adminService.getPendingJobPage(PageRequest.of(3, 5000));
+
+            assertThat(page.getSize()).isEqualTo(500);
+            assertThat(page.getContent()).isEmpty();
+            verify(pendingJobQuery, never()).page(anyInt(), anyInt(), anyBoolean());
+        }
+
+        @Test
+        void shouldRejectOtherSortProperties() {
+            assertThatThrownBy(() -> adminService.getPendingJobPage(
+                    PageRequest.of(0, 50, Sort.by("processDefinitionKey"))))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("waitingSince");
+        }
+
+        @Test
+        void shouldSummarizePerTenantWithConfigurationTitles() {
+            mockSinglePluginConfiguration();
+            Map<String, Long> byTenant = new HashMap<>();
+            byTenant.put(TENANT_ID, 7L);
+            byTenant.put(null, 2L);
+            PendingJobSummary.ActivityCount activity =
+                    new PendingJobSummary.ActivityCount("my-process", "My Process", "wait", "Wait", 9);
+            when(pendingJobQuery.counts()).thenReturn(new PendingJobQuery.Counts(9, 2, byTenant, List.of(activity)));
+
+            PendingJobSummary summary = adminService.getPendingJobSummary();
+
+            assertThat(summary.total()).isEqualTo(9);
+            assertThat(summary.unwired()).isEqualTo(2);
+            assertThat(summary.byTenant()).containsExactly(
+                    new PendingJobSummary.TenantCount(TENANT_ID, CONFIG_TITLE, 7),
+                    new PendingJobSummary.TenantCount(null, null, 2));
+            assertThat(summary.byActivity()).containsExactly(activity);
+        }
+    }
+
     @Nested
     class Reconcile {
 
@@ -978,6 +1094,26 @@ class EpistolaAdminServiceTest {
             assertThat(result.requestId()).isEqualTo("req-1");
         }
 
+        @Test
+        void shouldAnswerFromLocalJobResultsWithoutCallingEpistola() {
+            mockExecutionWithSubscription("exec-1", "pi-1", TENANT_ID + "/req-1");
+            when(resultCollectorRunner.findResult(TENANT_ID, "req-1"))
+                    .thenReturn(Optional.of(GenerationJobDetail.builder()
+                            .requestId("req-1")
+                            .status(GenerationJobStatus.COMPLETED)
+                            .documentId("doc-1")
+                            .build()));
+            when(correlationService.correlateCompletion(TENANT_ID, "req-1", "COMPLETED", "doc-1", null))
+                    .thenReturn(1);
+
+            ReconcileResult result = adminService.reconcile("exec-1");
+
+            assertThat(result.correlated()).isTrue();
+            assertThat(result.epistolaStatus()).isEqualTo("COMPLETED");
+            verify(epistolaService, never()).getJobStatus(any(), any(), any(), any());
+            verify(pluginService, never()).findPluginConfigurations(any(), any());
+        }
+
         @Test
         void shouldNotCorrelateWhenJobIsStillPending() {
             mockSinglePluginConfiguration();
@@ -1066,6 +1202,98 @@ class EpistolaAdminServiceTest {
         }
     }
 
+    @Nested
+    class ReconcileAll {
+
+        @Test
+        void shouldReconcileEveryWaitingExecutionAndLoadConfigurationsOnce() {
+            mockSinglePluginConfiguration();
+            mockWaitingExecutions(Map.of(
+                    "exec-1", "epistola:job:" + TENANT_ID + "/req-1",
+                    "exec-2", "epistola:job:" + TENANT_ID + "/req-2",
+                    "exec-3", "epistola:job:" + TENANT_ID + "/req-3"));
+            when(resultCollectorRunner.findResult(TENANT_ID, "req-1"))
+                    .thenReturn(Optional.of(job("req-1", GenerationJobStatus.COMPLETED)));
+            when(epistolaService.getJobStatus(BASE_URL, API_KEY, TENANT_ID, "req-2"))
+                    .thenReturn(job("req-2", GenerationJobStatus.FAILED));
+            when(epistolaService.getJobStatus(BASE_URL, API_KEY, TENANT_ID, "req-3"))
+                    .thenReturn(job("req-3", GenerationJobStatus.IN_PROGRESS));
+            when(correlationService.correlateCompletion(eq(TENANT_ID), anyString(), anyString(), any(), any()))
+                    .thenReturn(1);
+            List<BulkReconcileProgress> progress = new ArrayList<>();
+
+            BulkReconcileSummary summary = adminService.reconcileAll(null, progress::add);
+
+            assertThat(summary.total()).isEqualTo(3);
+            assertThat(summary.correlated()).isEqualTo(2);
+            assertThat(summary.stillPending()).isEqualTo(1);
+            assertThat(summary.failed()).isZero();
+            assertThat(progress).extracting(BulkReconcileProgress::processed).containsExactly(1, 2, 3);
+            assertThat(progress).extracting(BulkReconcileProgress::executionId)
+                    .containsExactlyInAnyOrder("exec-1", "exec-2", "exec-3");
+            verify(correlationService, never()).correlateCompletion(any(), eq("req-3"), any(), any(), any());
+            verify(epistolaService, never()).getJobStatus(any(), any(), any(), eq("req-1"));
+            verify(pluginService, times(1)).findPluginConfigurations(eq(EpistolaPlugin.class), any());
+        }
+
+        @Test
+        void shouldReportFailuresAndCarryOn() {
+            mockSinglePluginConfiguration();
+            mockWaitingExecutions(Map.of(
+                    "exec-1", "epistola:job:" + TENANT_ID + "/req-1",
+                    "exec-2", "epistola:job:unknown-tenant/req-2"));
+            when(epistolaService.getJobStatus(BASE_URL, API_KEY, TENANT_ID, "req-1"))
+                    .thenReturn(job("req-1", GenerationJobStatus.COMPLETED));
+            List<BulkReconcileProgress> progress = new ArrayList<>();
+
+            BulkReconcileSummary summary = adminService.reconcileAll(null, progress::add);
+
+            assertThat(summary.correlated()).isEqualTo(1);
+            assertThat(summary.failed()).isEqualTo(1);
+            assertThat(progress).filteredOn(p -> p.error() != null)
+                    .singleElement()
+                    .satisfies(p -> {
+                        assertThat(p.executionId()).isEqualTo("exec-2");
+                        assertThat(p.error()).contains("No Epistola plugin configuration");
+                    });
+        }
+
+        @Test
+        void shouldOnlyReconcileTheRequestedTenant() {
+            mockWaitingExecutions(Map.of(
+                    "exec-1", "epistola:job:" + TENANT_ID + "/req-1",
+                    "exec-2", "epistola:job:other-tenant/req-2"));
+            when(resultCollectorRunner.findResult(TENANT_ID, "req-1"))
+                    .thenReturn(Optional.of(job("req-1", GenerationJobStatus.CANCELLED)));
+
+            BulkReconcileSummary summary = adminService.reconcileAll(TENANT_ID, progress -> { });
+
+            assertThat(summary.total()).isEqualTo(1);
+            assertThat(summary.correlated()).isEqualTo(1);
+            verify(correlationService).correlateCompletion(TENANT_ID, "req-1", "CANCELLED", null, null);
+            verify(pluginService, never()).findPluginConfigurations(any(), any());
+        }
+
+        private void mockWaitingExecutions(Map<String, String> waitForByExecution) {
+            List<Execution> executions = new ArrayList<>();
+            waitForByExecution.forEach((executionId, waitFor) -> {
+                Execution execution = mock(Execution.class);
+                lenient().when(execution.getId()).thenReturn(executionId);
+                lenient().when(execution.getProcessInstanceId()).thenReturn("pi-" + executionId);
+                executions.add(execution);
+                when(runtimeService.getVariable(executionId, "epistolaWaitFor")).thenReturn(waitFor);
+            });
+            ExecutionQuery query = mock(ExecutionQuery.class);
+            when(runtimeService.createExecutionQuery()).thenReturn(query);
+            when(query.messageEventSubscriptionName("EpistolaDocumentGenerated")).thenReturn(query);
+            when(query.list()).thenReturn(executions);
+        }
+
+        private GenerationJobDetail job(String requestId, GenerationJobStatus status) {
+            return GenerationJobDetail.builder().requestId(requestId).status(status).build();
+        }
+    }
+
     @Nested
     class GetValidationReport {
 
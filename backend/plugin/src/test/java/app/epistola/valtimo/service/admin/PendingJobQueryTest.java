@@ -0,0 +1,222 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.admin;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.ManagementService;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.RuntimeService;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.operaton.bpm.engine.runtime.EventSubscription;
+import org.operaton.bpm.engine.runtime.EventSubscriptionQuery;
+import org.operaton.bpm.engine.runtime.Execution;
+import org.operaton.bpm.engine.runtime.ProcessInstance;
+import org.operaton.bpm.engine.runtime.ProcessInstanceQuery;
+import org.operaton.bpm.engine.runtime.VariableInstance;
+import org.operaton.bpm.engine.runtime.VariableInstanceQuery;
+import org.operaton.bpm.model.bpmn.BpmnModelInstance;
+import org.operaton.bpm.model.bpmn.instance.FlowElement;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PendingJobQueryTest {
+
+    private static final String DEFINITION_ID = "my-process:3:abc";
+    private static final Instant CREATED = Instant.parse("2026-03-01T08:00:00Z");
+
+    private RuntimeService runtimeService;
+    private RepositoryService repositoryService;
+    private ManagementService managementService;
+    private JdbcTemplate jdbcTemplate;
+    private EventSubscriptionQuery subscriptionQuery;
+    private VariableInstanceQuery variableQuery;
+    private PendingJobQuery query;
+
+    @BeforeEach
+    void setUp() {
+        runtimeService = mock(RuntimeService.class);
+        repositoryService = mock(RepositoryService.class);
+        managementService = mock(ManagementService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        subscriptionQuery = mock(EventSubscriptionQuery.class, RETURNS_SELF);
+        variableQuery = mock(VariableInstanceQuery.class, RETURNS_SELF);
+        when(runtimeService.createEventSubscriptionQuery()).thenReturn(subscriptionQuery);
+        when(runtimeService.createVariableInstanceQuery()).thenReturn(variableQuery);
+        query = new PendingJobQuery(runtimeService, repositoryService, managementService, jdbcTemplate);
+    }
+
+    @Test
+    void readsAPageWithAFixedNumberOfQueries() {
+        when(subscriptionQuery.listPage(0, 10)).thenReturn(List.of(
+                subscription("exec-1", "pi-1"),
+                subscription("exec-2", "pi-2"),
+                subscription("exec-3", "pi-3")));
+        VariableInstance waitFor1 = variable("exec-1", "pi-1", "epistola:job:acme/req-1");
+        VariableInstance waitFor2 = variable("exec-2", "pi-2", "epistola:job:acme/req-2");
+        VariableInstance tenant3 = variable("pi-3", "pi-3", "globex");
+        when(variableQuery.list()).thenReturn(List.of(waitFor1, waitFor2), List.of(tenant3));
+        ProcessInstanceQuery instanceQuery = mock(ProcessInstanceQuery.class, RETURNS_SELF);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(instanceQuery);
+        when(instanceQuery.list()).thenReturn(List.of(instance("pi-1"), instance("pi-2"), instance("pi-3")));
+        mockDefinition("waitForDocument", "Wait for document");
+
+        List<PendingJobQuery.Row> rows = query.page(0, 10, false);
+
+        assertThat(rows).extracting(PendingJobQuery.Row::executionId).containsExactly("exec-1", "exec-2", "exec-3");
+        assertThat(rows.get(0).waitFor()).isEqualTo("epistola:job:acme/req-1");
+        assertThat(rows.get(0).processDefinitionKey()).isEqualTo("my-process");
+        assertThat(rows.get(0).processDefinitionName()).isEqualTo("My Process");
+        assertThat(rows.get(0).activityName()).isEqualTo("Wait for document");
+        assertThat(rows.get(0).waitingSince()).isEqualTo(CREATED);
+        assertThat(rows.get(2).waitFor()).isNull();
+        assertThat(rows.get(2).tenantVariable()).isEqualTo("globex");
+
+        verify(subscriptionQuery).asc();
+        verify(runtimeService, times(2)).createVariableInstanceQuery();
+        verify(runtimeService, times(1)).createProcessInstanceQuery();
+        verify(repositoryService, times(1)).getBpmnModelInstance(DEFINITION_ID);
+    }
+
+    @Test
+    void parsesEachProcessDefinitionOnlyOnceAcrossPages() {
+        when(subscriptionQuery.listPage(0, 1)).thenReturn(List.of(subscription("exec-1", "pi-1")));
+        when(subscriptionQuery.listPage(1, 1)).thenReturn(List.of(subscription("exec-2", "pi-2")));
+        when(variableQuery.list()).thenReturn(
+                List.of(variable("exec-1", "pi-1", "epistola:job:acme/req-1")),
+                List.of(variable("exec-2", "pi-2", "epistola:job:acme/req-2")));
+        ProcessInstanceQuery instanceQuery = mock(ProcessInstanceQuery.class, RETURNS_SELF);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(instanceQuery);
+        when(instanceQuery.list()).thenReturn(List.of(instance("pi-1")), List.of(instance("pi-2")));
+        mockDefinition("waitForDocument", "Wait for document");
+
+        query.page(0, 1, true);
+        List<PendingJobQuery.Row> second = query.page(1, 1, true);
+
+        assertThat(second.get(0).activityName()).isEqualTo("Wait for document");
+        verify(repositoryService, times(1)).getBpmnModelInstance(DEFINITION_ID);
+        verify(repositoryService, times(1)).getProcessDefinition(DEFINITION_ID);
+    }
+
+    @Test
+    void countsQueryTheEngineTablesWithTheirConfiguredPrefix() {
+        when(managementService.getTableName(Execution.class)).thenReturn("ENGINE_ACT_RU_EXECUTION");
+
+        query.counts();
+        query.counts();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).query(sql.capture(), any(RowCallbackHandler.class),
+                anyString(), anyString(), anyString(), anyString());
+        assertThat(sql.getValue())
+                .contains("from ENGINE_ACT_RU_EVENT_SUBSCR s", "join ENGINE_ACT_RU_EXECUTION x",
+                        "left join ENGINE_ACT_RU_VARIABLE w", "left join ENGINE_ACT_RU_VARIABLE t",
+                        "group by");
+        verify(managementService, times(1)).getTableName(Execution.class);
+    }
+
+    @Test
+    void sumsTheCountsGroupedByTheDatabase() throws SQLException {
+        when(managementService.getTableName(Execution.class)).thenReturn("ACT_RU_EXECUTION");
+        mockDefinition("waitForDocument", "Wait for document");
+        ResultSet acme = group("acme", 5, 4);
+        ResultSet unknown = group(null, 2, 0);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(acme);
+            handler.processRow(unknown);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                anyString(), anyString(), anyString(), anyString());
+
+        PendingJobQuery.Counts counts = query.counts();
+
+        assertThat(counts.total()).isEqualTo(7);
+        assertThat(counts.unwired()).isEqualTo(3);
+        assertThat(counts.byTenant()).containsEntry("acme", 5L).containsEntry(null, 2L);
+        assertThat(counts.byActivity()).singleElement().satisfies(activity -> {
+            assertThat(activity.processDefinitionKey()).isEqualTo("my-process");
+            assertThat(activity.activityName()).isEqualTo("Wait for document");
+            assertThat(activity.count()).isEqualTo(7);
+        });
+    }
+
+    private ResultSet group(String tenantId, long count, long wired) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn("waitForDocument");
+        when(rs.getString(2)).thenReturn(DEFINITION_ID);
+        when(rs.getString(3)).thenReturn(tenantId);
+        when(rs.getLong(4)).thenReturn(count);
+        when(rs.getLong(5)).thenReturn(wired);
+        return rs;
+    }
+
+    private EventSubscription subscription(String executionId, String processInstanceId) {
+        EventSubscription subscription = mock(EventSubscription.class);
+        when(subscription.getExecutionId()).thenReturn(executionId);
+        when(subscription.getProcessInstanceId()).thenReturn(processInstanceId);
+        when(subscription.getActivityId()).thenReturn("waitForDocument");
+        when(subscription.getCreated()).thenReturn(Date.from(CREATED));
+        return subscription;
+    }
+
+    private VariableInstance variable(String executionId, String processInstanceId, Object value) {
+        VariableInstance variable = mock(VariableInstance.class);
+        when(variable.getExecutionId()).thenReturn(executionId);
+        when(variable.getProcessInstanceId()).thenReturn(processInstanceId);
+        when(variable.getValue()).thenReturn(value);
+        return variable;
+    }
+
+    private ProcessInstance instance(String processInstanceId) {
+        ProcessInstance instance = mock(ProcessInstance.class);
+        when(instance.getId()).thenReturn(processInstanceId);
+        when(instance.getProcessDefinitionId()).thenReturn(DEFINITION_ID);
+        return instance;
+    }
+
+    private void mockDefinition(String activityId, String activityName) {
+        ProcessDefinition definition = mock(ProcessDefinition.class);
+        when(definition.getKey()).thenReturn("my-process");
+        when(definition.getName()).thenReturn("My Process");
+        when(repositoryService.getProcessDefinition(DEFINITION_ID)).thenReturn(definition);
+        BpmnModelInstance model = mock(BpmnModelInstance.class);
+        FlowElement element = mock(FlowElement.class);
+        when(element.getId()).thenReturn(activityId);
+        when(element.getName()).thenReturn(activityName);
+        when(model.getModelElementsByType(FlowElement.class)).thenReturn(List.of(element));
+        when(repositoryService.getBpmnModelInstance(DEFINITION_ID)).thenReturn(model);
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.admin;
+
+import app.epistola.valtimo.deployment.EpistolaProcessDeployedEvent;
+import app.epistola.valtimo.deployment.EpistolaProcessLinksChangedEvent;
+import app.epistola.valtimo.web.rest.dto.PluginUsageEntry;
+import com.ritense.plugin.domain.PluginConfigurationId;
+import com.ritense.plugin.domain.PluginProcessLink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.repository.ProcessDefinition;
+import org.operaton.bpm.engine.repository.ProcessDefinitionQuery;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PluginUsageIndexTest {
+
+    private static final PluginConfigurationId CONFIG_ID = mock(PluginConfigurationId.class);
+
+    private EpistolaAdminService adminService;
+    private ProcessDefinitionQuery definitionQuery;
+    private PluginUsageIndex index;
+    private final List<List<String>> computedKeys = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        adminService = mock(EpistolaAdminService.class);
+        RepositoryService repositoryService = mock(RepositoryService.class);
+        definitionQuery = mock(ProcessDefinitionQuery.class, RETURNS_SELF);
+        when(repositoryService.createProcessDefinitionQuery()).thenReturn(definitionQuery);
+        when(adminService.getPluginUsage(anyMap())).thenAnswer(invocation -> {
+            Map<ProcessDefinition, List<PluginProcessLink>> linksByDefinition = invocation.getArgument(0);
+            computedKeys.add(linksByDefinition.keySet().stream().map(ProcessDefinition::getKey).toList());
+            return linksByDefinition.entrySet().stream()
+                    .flatMap(entry -> entry.getValue().stream().map(link -> entry(entry.getKey(), link)))
+                    .toList();
+        });
+        index = new PluginUsageIndex(adminService, repositoryService, Duration.ofHours(1));
+    }
+
+    @Test
+    void buildsOnFirstReadAndServesTheSnapshotWithoutRescanning() {
+        ProcessDefinition invoice = definition("invoice", "invoice:1:a");
+        ProcessDefinition letter = definition("letter", "letter:1:b");
+        when(definitionQuery.list()).thenReturn(List.of(letter, invoice));
+        linksOf(invoice, link("generate-invoice"));
+        linksOf(letter, link("generate-letter"), link("generate-reminder"));
+
+        PluginUsageIndex.Snapshot first = index.snapshot();
+        index.refresh();
+        PluginUsageIndex.Snapshot second = index.snapshot();
+
+        assertThat(first.entries()).extracting(PluginUsageEntry::processDefinitionKey)
+                .containsExactly("invoice", "letter", "letter");
+        assertThat(first.refreshedAt()).isNotNull();
+        assertThat(second).isSameAs(first);
+        assertThat(computedKeys).hasSize(1);
+    }
+
+    @Test
+    void deploymentRecomputesOnlyTheDeployedDefinition() {
+        ProcessDefinition invoice = definition("invoice", "invoice:1:a");
+        ProcessDefinition letter = definition("letter", "letter:1:b");
+        when(definitionQuery.list()).thenReturn(List.of(invoice, letter));
+        linksOf(invoice, link("generate-invoice"));
+        linksOf(letter, link("generate-letter"));
+        index.snapshot();
+
+        ProcessDefinition letterV2 = definition("letter", "letter:2:c");
+        when(definitionQuery.singleResult()).thenReturn(letterV2);
+        linksOf(letterV2, link("generate-letter"), link("generate-reminder"));
+        index.onProcessDeployed(new EpistolaProcessDeployedEvent("letter"));
+        index.refresh();
+
+        assertThat(computedKeys).containsExactly(List.of("invoice", "letter"), List.of("letter"));
+        assertThat(index.snapshot().entries()).extracting(PluginUsageEntry::activityId)
+                .containsExactly("generate-invoice", "generate-letter", "generate-reminder");
+        verify(definitionQuery).processDefinitionKey("letter");
+    }
+
+    @Test
+    void reparseOfAnUnchangedDefinitionIsNotRecomputed() {
+        ProcessDefinition invoice = definition("invoice", "invoice:1:a");
+        PluginProcessLink link = link("generate-invoice");
+        when(definitionQuery.list()).thenReturn(List.of(invoice));
+        linksOf(invoice, link);
+        index.snapshot();
+
+        when(definitionQuery.singleResult()).thenReturn(invoice);
+        index.onProcessDeployed(new EpistolaProcessDeployedEvent("invoice"));
+        index.refresh();
+
+        assertThat(computedKeys).hasSize(1);
+    }
+
+    @Test
+    void processLinkChangeRecomputesDefinitionsWhoseLinksChanged() {
+        ProcessDefinition invoice = definition("invoice", "invoice:1:a");
+        ProcessDefinition letter = definition("letter", "letter:1:b");
+        PluginProcessLink invoiceLink = link("generate-invoice");
+        when(definitionQuery.list()).thenReturn(List.of(invoice, letter));
+        linksOf(invoice, invoiceLink);
+        linksOf(letter, link("generate-letter"));
+        index.snapshot();
+
+        linksOf(invoice, invoiceLink);
+        linksOf(letter);
+        index.onProcessLinksChanged(EpistolaProcessLinksChangedEvent.ofAllDefinitions());
+        index.refresh();
+
+        assertThat(computedKeys).hasSize(1);
+        assertThat(index.snapshot().entries()).extracting(PluginUsageEntry::processDefinitionKey)
+                .containsExactly("invoice");
+    }
+
+    @Test
+    void processLinkChangeOfAKnownDefinitionRereadsOnlyThatKey() {
+        ProcessDefinition invoice = definition("invoice", "invoice:1:a");
+        ProcessDefinition letter = definition("letter", "letter:1:b");
+        when(definitionQuery.list()).thenReturn(List.of(invoice, letter));
+        linksOf(invoice, link("generate-invoice"));
+        linksOf(letter, link("generate-letter"));
+        index.snapshot();
+        clearInvocations(adminService);
+
+        linksOf(letter);
+        when(definitionQuery.singleResult()).thenReturn(letter);
+        index.onProcessLinksChanged(new EpistolaProcessLinksChangedEvent(Set.of("letter:1:b"), Set.of("letter")));
+        index.refresh();
+
+        verify(definitionQuery).processDefinitionKey("letter");
+        verify(adminService, never()).getEpistolaProcessLinks("invoice:1:a");
+        assertThat(index.snapshot().entries()).extracting(PluginUsageEntry::processDefinitionKey)
+                .containsExactly("invoice");
+    }
+
+    @Test
+    void requestedRebuildRecomputesEverything() {
+        ProcessDefinition invoice = definition("invoice", "invoice:1:a");
+        when(definitionQuery.list()).thenReturn(List.of(invoice));
+        linksOf(invoice, link("generate-invoice"));
+        index.snapshot();
+        clearInvocations(adminService);
+
+        index.requestRebuild();
+        index.refresh();
+
+        assertThat(computedKeys).containsExactly(List.of("invoice"), List.of("invoice"));
+        verify(adminService, times(1)).getEpistolaProcessLinks("invoice:1:a");
+    }
+
+    @Test
+    void idleRefreshDoesNotQueryTheEngine() {
+        ProcessDefinition invoice = definition("invoice", "invoice:1:a");
+        when(definitionQuery.list()).thenReturn(List.of(invoice));
+        linksOf(invoice, link("generate-invoice"));
+        index.snapshot();
+        clearInvocations(adminService, definitionQuery);
+
+        index.refresh();
+
+        verify(definitionQuery, never()).list();
+        verify(adminService, never()).getEpistolaProcessLinks("invoice:1:a");
+    }
+
+    private void linksOf(ProcessDefinition definition, PluginProcessLink... links) {
+        when(adminService.getEpistolaProcessLinks(definition.getId())).thenReturn(List.of(links));
+    }
+
+    private static ProcessDefinition definition(String key, String id) {
+        ProcessDefinition definition = mock(ProcessDefinition.class);
+        when(definition.getKey()).thenReturn(key);
+        when(definition.getId()).thenReturn(id);
+        return definition;
+    }
+
+    private static PluginProcessLink link(String activityId) {
+        PluginProcessLink link = mock(PluginProcessLink.class);
+        when(link.getId()).thenReturn(UUID.nameUUIDFromBytes(activityId.getBytes()));
+        when(link.getActivityId()).thenReturn(activityId);
+        when(link.getPluginActionDefinitionKey()).thenReturn("epistola-generate-document");
+        when(link.getPluginConfigurationId()).thenReturn(CONFIG_ID);
+        return link;
+    }
+
+    private static PluginUsageEntry entry(ProcessDefinition definition, PluginProcessLink link) {
+        return new PluginUsageEntry(link.getId().toString(), null, null, definition.getKey(), definition.getKey(),
+                link.getActivityId(), link.getActivityId(), link.getPluginActionDefinitionKey(),
+                link.getPluginConfigurationId().toString(), "Epistola", List.of());
+    }
+}
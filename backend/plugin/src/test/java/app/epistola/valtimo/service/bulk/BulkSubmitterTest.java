@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkSubmitterTest {
+
+    @Test
+    void neverRunsMoreCallsThanTheParallelismAtOnce() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 40).boxed().toList();
+
+        List<BulkSubmitter.Outcome<Integer>> outcomes = new BulkSubmitter(4, 16, 1000).submitAll(items, 3, item -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            return item * 2;
+        });
+
+        assertThat(maxInFlight.get()).isBetween(1, 3);
+        assertThat(outcomes).extracting(BulkSubmitter.Outcome::value)
+                .containsExactlyElementsOf(items.stream().map(item -> item * 2).toList());
+    }
+
+    @Test
+    void aFailingCallOnlyFailsItsOwnItem() {
+        List<BulkSubmitter.Outcome<String>> outcomes = new BulkSubmitter(4, 16, 1000).submitAll(List.of("a", "b", "c"), 2,
+                item -> {
+                    if (item.equals("b")) {
+                        throw new IllegalStateException("boom");
+                    }
+                    return item.toUpperCase();
+                });
+
+        assertThat(outcomes).extracting(BulkSubmitter.Outcome::succeeded).containsExactly(true, false, true);
+        assertThat(outcomes.get(0).value()).isEqualTo("A");
+        assertThat(outcomes.get(1).error()).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+    }
+
+    @Test
+    void requestedParallelismFallsBackToTheDefaultAndIsCapped() {
+        BulkSubmitter submitter = new BulkSubmitter(4, 8, 100);
+
+        assertThat(submitter.parallelism(null)).isEqualTo(4);
+        assertThat(submitter.parallelism(0)).isEqualTo(4);
+        assertThat(submitter.parallelism(2)).isEqualTo(2);
+        assertThat(submitter.parallelism(50)).isEqualTo(8);
+    }
+
+    @Test
+    void rejectsNonPositiveLimits() {
+        assertThatThrownBy(() -> new BulkSubmitter(0, 8, 100)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
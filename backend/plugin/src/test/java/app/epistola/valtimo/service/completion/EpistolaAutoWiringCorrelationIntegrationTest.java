@@ -20,6 +20,7 @@ package app.epistola.valtimo.service.completion;
 import app.epistola.valtimo.deployment.EpistolaCatchEventLinkResolver;
 import app.epistola.valtimo.deployment.EpistolaCatchEventParseListener;
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ritense.plugin.domain.PluginProcessLink;
@@ -279,7 +280,9 @@ class EpistolaAutoWiringCorrelationIntegrationTest {
         ProcessLinkService processLinkService = mock(ProcessLinkService.class);
         when(processLinkService.getProcessLinks(anyString())).thenReturn(List.<ProcessLink>of(linkA, linkB, linkC));
         EpistolaCatchEventLinkResolver resolver =
-                new EpistolaCatchEventLinkResolver(processEngine.getRepositoryService(), processLinkService);
+                new EpistolaCatchEventLinkResolver(processEngine.getRepositoryService(),
+                        EpistolaProcessLinkIndex.uncached(processLinkService), null,
+                        EpistolaCatchEventLinkResolver.DEFAULT_MAX_CACHED_DEFINITIONS);
 
         startRef.set(new EpistolaCatchEventStartListener(resolver, correlationService));
 
@@ -17,7 +17,10 @@
  */
 package app.epistola.valtimo.service.completion;
 
+import app.epistola.client.collect.ResultCollector;
+import app.epistola.valtimo.config.EpistolaProperties;
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
+import app.epistola.valtimo.service.bulk.BatchResults;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +35,7 @@ import org.operaton.bpm.engine.runtime.Execution;
 import org.operaton.bpm.engine.runtime.Job;
 import org.operaton.bpm.engine.runtime.ProcessInstance;
 
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -204,6 +208,33 @@ class EpistolaParallelCorrelationIntegrationTest {
             </bpmn:definitions>
             """;
 
+    /** A {@code generate-documents} batch with a catch event waiting for the whole batch. */
+    private static final String BATCH_BPMN = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <bpmn:definitions xmlns:bpmn="http://www.omg.org/spec/BPMN/20100524/MODEL"
+                              xmlns:camunda="http://camunda.org/schema/1.0/bpmn"
+                              targetNamespace="http://bpmn.io/schema/bpmn" id="defs_batch">
+              <bpmn:message id="msg_batch" name="EpistolaDocumentGenerated" />
+              <bpmn:process id="batch-generation" isExecutable="true" camunda:historyTimeToLive="P1D">
+                <bpmn:startEvent id="b_start"><bpmn:outgoing>bq1</bpmn:outgoing></bpmn:startEvent>
+                <bpmn:sequenceFlow id="bq1" sourceRef="b_start" targetRef="submit-batch" />
+                <bpmn:serviceTask id="submit-batch" camunda:class="app.epistola.valtimo.service.completion.EpistolaParallelCorrelationIntegrationTest$BatchSubmitDelegate">
+                  <bpmn:incoming>bq1</bpmn:incoming><bpmn:outgoing>bq2</bpmn:outgoing>
+                </bpmn:serviceTask>
+                <bpmn:sequenceFlow id="bq2" sourceRef="submit-batch" targetRef="wait-batch" />
+                <bpmn:intermediateCatchEvent id="wait-batch" camunda:asyncAfter="true">
+                  <bpmn:extensionElements><camunda:inputOutput>
+                    <camunda:inputParameter name="epistolaWaitFor">${letters.jobPath}</camunda:inputParameter>
+                  </camunda:inputOutput></bpmn:extensionElements>
+                  <bpmn:incoming>bq2</bpmn:incoming><bpmn:outgoing>bq3</bpmn:outgoing>
+                  <bpmn:messageEventDefinition messageRef="msg_batch" />
+                </bpmn:intermediateCatchEvent>
+                <bpmn:sequenceFlow id="bq3" sourceRef="wait-batch" targetRef="b_end" />
+                <bpmn:endEvent id="b_end"><bpmn:incoming>bq3</bpmn:incoming></bpmn:endEvent>
+              </bpmn:process>
+            </bpmn:definitions>
+            """;
+
     private ProcessEngine processEngine;
     private RuntimeService runtimeService;
     private ManagementService managementService;
@@ -224,6 +255,7 @@ class EpistolaParallelCorrelationIntegrationTest {
                 .addString("mi.bpmn", MULTI_INSTANCE_BPMN)
                 .addString("sequential.bpmn", SEQUENTIAL_BPMN)
                 .addString("async.bpmn", ASYNC_BOUNDARY_BPMN)
+                .addString("batch.bpmn", BATCH_BPMN)
                 .deploy();
     }
 
@@ -329,6 +361,93 @@ class EpistolaParallelCorrelationIntegrationTest {
                 .isEqualTo(1);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void selfHealFindsAResultWithoutALocatorThroughTheLinkedResultVariable() {
+        // A generation that reused a finished job stores the result but writes no locator.
+        ProcessInstance pi = runtimeService.startProcessInstanceByKey("async-generation");
+        String jobPath = EpistolaMessageCorrelationService.buildJobPath(TENANT, "req-async");
+        Map<String, Object> result = new LinkedHashMap<>(
+                (Map<String, Object>) runtimeService.getVariable(pi.getId(), "resultAsync"));
+        result.put(EpistolaProcessVariables.RESULT_KEY_STATUS, "COMPLETED");
+        runtimeService.setVariable(pi.getId(), "resultAsync", result);
+        runtimeService.removeVariable(pi.getId(), jobPath);
+
+        executeAllJobs();
+        Execution waiting = runtimeService.createExecutionQuery()
+                .processInstanceId(pi.getId()).messageEventSubscriptionName(MESSAGE).singleResult();
+        assertThat(correlationService.selfHeal(waiting.getId())).as("no locator to resolve").isFalse();
+        assertThat(correlationService.selfHeal(waiting.getId(), "resultAsync")).isTrue();
+        executeAllJobs();
+
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceId(pi.getId()).singleResult())
+                .isNull();
+    }
+
+    @Test
+    void batchCatchEventWakesOnlyOnceEveryItemHasFinished() {
+        ProcessInstance pi = runtimeService.startProcessInstanceByKey("batch-generation");
+        assertThat(messageSubscriptionCount(pi.getId())).isEqualTo(1);
+
+        String batchPath = BatchResults.buildBatchPath(TENANT, "batch-1");
+        assertThat(correlationService.correlateCompletion(TENANT, "item-1", "IN_PROGRESS", null, null)).isZero();
+        assertThat(locatorCount(pi.getId(), EpistolaMessageCorrelationService.buildJobPath(TENANT, "item-1")))
+                .as("a running item keeps its locator").isEqualTo(1);
+
+        assertThat(correlationService.correlateCompletion(TENANT, "item-1", "COMPLETED", "doc-1", null)).isZero();
+        assertThat(messageSubscriptionCount(pi.getId())).as("one item still pending").isEqualTo(1);
+        Map<?, ?> batch = (Map<?, ?>) runtimeService.getVariable(pi.getId(), "letters");
+        assertThat(batch.get(EpistolaProcessVariables.RESULT_KEY_COMPLETED))
+                .as("the aggregate is only built once the last item is in").isEqualTo(0);
+        assertThat(runtimeService.getVariable(pi.getId(), BatchResults.itemResultVariable(batchPath, "item-1")))
+                .as("the item result is kept in its own variable").isNotNull();
+        assertThat(locatorCount(pi.getId(), EpistolaMessageCorrelationService.buildJobPath(TENANT, "item-1")))
+                .as("a finished item's locator is removed").isZero();
+        assertThat(correlationService.correlateCompletion(TENANT, "item-1", "COMPLETED", "doc-1", null))
+                .as("a redelivered result is ignored").isZero();
+
+        assertThat(correlationService.correlateCompletion(TENANT, "item-2", "FAILED", null, "boom")).isEqualTo(1);
+        executeAllJobs();
+
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceId(pi.getId()).singleResult())
+                .as("the batch catch event was woken and the process completed").isNull();
+        Map<?, ?> finished = (Map<?, ?>) historicValue(pi.getId(), "letters");
+        assertThat(finished.get(EpistolaProcessVariables.RESULT_KEY_STATUS)).isEqualTo("FAILED");
+        assertThat(finished.get(EpistolaProcessVariables.RESULT_KEY_COMPLETED)).isEqualTo(1);
+        assertThat(finished.get(EpistolaProcessVariables.RESULT_KEY_FAILED)).isEqualTo(1);
+        List<?> items = (List<?>) finished.get(EpistolaProcessVariables.RESULT_KEY_ITEMS);
+        assertThat(documentIdOf(items.get(0))).isEqualTo("doc-1");
+        assertThat(((Map<?, ?>) items.get(1)).get(EpistolaProcessVariables.RESULT_KEY_ERROR_MESSAGE)).isEqualTo("boom");
+        assertThat(processEngine.getHistoryService().createHistoricVariableInstanceQuery()
+                .processInstanceId(pi.getId())
+                .variableNameLike(BatchResults.itemResultVariablePattern(batchPath))
+                .list())
+                .as("item results are removed once the aggregate is built")
+                .allMatch(variable -> "DELETED".equals(variable.getState()));
+    }
+
+    @Test
+    void batchItemThatFinishedBeforeTheBatchCommittedIsRedeliveredAfterTheCommit() {
+        EpistolaResultCollectorRunner runner = new EpistolaResultCollectorRunner(null, null, correlationService,
+                new EpistolaProperties(), null, null, new InMemoryJobResultStore(10, Duration.ofHours(1)));
+
+        // item-1 finishes while generate-documents is still committing: its locator is not visible yet.
+        runner.handleResult(TENANT, generationResult("item-1", "COMPLETED", "doc-1"));
+        ProcessInstance pi = runtimeService.startProcessInstanceByKey("batch-generation");
+        runner.handleResult(TENANT, generationResult("item-2", "COMPLETED", "doc-2"));
+        assertThat(messageSubscriptionCount(pi.getId()))
+                .as("the batch misses the item that finished before the commit").isEqualTo(1);
+
+        runner.redeliverFinishedResult(TENANT, "item-1");
+        executeAllJobs();
+
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceId(pi.getId()).singleResult())
+                .as("the batch catch event was woken and the process completed").isNull();
+        Map<?, ?> finished = (Map<?, ?>) historicValue(pi.getId(), "letters");
+        assertThat(finished.get(EpistolaProcessVariables.RESULT_KEY_STATUS)).isEqualTo("COMPLETED");
+        assertThat(finished.get(EpistolaProcessVariables.RESULT_KEY_COMPLETED)).isEqualTo(2);
+    }
+
     @Test
     void correlatingAnUnknownJobWakesNothing() {
         ProcessInstance pi = runtimeService.startProcessInstanceByKey("parallel-generation");
@@ -346,6 +465,12 @@ class EpistolaParallelCorrelationIntegrationTest {
         }
     }
 
+    private static ResultCollector.GenerationResult generationResult(String requestId, String status,
+                                                                     String documentId) {
+        return new ResultCollector.GenerationResult(1L, requestId, null, status, documentId, null, null, null,
+                null, null, null, null, null, null, null);
+    }
+
     private long messageSubscriptionCount(String processInstanceId) {
         return runtimeService.createEventSubscriptionQuery()
                 .processInstanceId(processInstanceId).eventName(MESSAGE).count();
@@ -384,6 +509,24 @@ class EpistolaParallelCorrelationIntegrationTest {
         }
     }
 
+    /** Mirrors {@code EpistolaPlugin.generateDocuments}: batch aggregate, batch locator and item locators. */
+    public static class BatchSubmitDelegate implements JavaDelegate {
+        @Override
+        public void execute(DelegateExecution execution) {
+            Map<String, Object> batch = BatchResults.create(TENANT, "batch-1", List.of(
+                    new BatchResults.Item(0, "item-1", "PENDING", null),
+                    new BatchResults.Item(1, "item-2", "PENDING", null)));
+            String batchPath = BatchResults.buildBatchPath(TENANT, "batch-1");
+            execution.setVariable("letters", batch);
+            execution.setVariable(batchPath, "letters");
+            for (String requestId : List.of("item-1", "item-2")) {
+                execution.setVariable(EpistolaMessageCorrelationService.buildJobPath(TENANT, requestId),
+                        EpistolaProcessVariables.BATCH_ITEM_LOCATOR_PREFIX + batchPath);
+            }
+            execution.setVariable(BatchResults.submittedCountVariable(batchPath), 2);
+        }
+    }
+
     private static void putGeneration(DelegateExecution execution, String requestId, String resultVar) {
         String jobPath = EpistolaMessageCorrelationService.buildJobPath(TENANT, requestId);
         Map<String, Object> result = new LinkedHashMap<>();
@@ -20,6 +20,8 @@ package app.epistola.valtimo.service.completion;
 import app.epistola.client.collect.ResultCollector;
 import app.epistola.valtimo.client.EpistolaApiClientFactory;
 import app.epistola.valtimo.config.EpistolaProperties;
+import app.epistola.valtimo.domain.GenerationJobStatus;
+import app.epistola.valtimo.service.mailmerge.MailMergeResultTracker;
 import com.ritense.plugin.domain.PluginConfiguration;
 import com.ritense.plugin.events.PluginConfigurationDeletedEvent;
 import com.ritense.plugin.service.PluginService;
@@ -27,13 +29,16 @@ import com.ritense.valtimo.contract.event.PluginsDeployedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -58,7 +63,7 @@ class EpistolaResultCollectorRunnerTest {
         correlationService = mock(EpistolaMessageCorrelationService.class);
         properties = new EpistolaProperties();
         runner = new EpistolaResultCollectorRunner(
-                pluginService, apiClientFactory, correlationService, properties);
+                pluginService, apiClientFactory, correlationService, properties, null, null, null);
     }
 
     @Test
@@ -90,6 +95,40 @@ class EpistolaResultCollectorRunnerTest {
         verify(correlationService).correlateCompletion("acme", "req-456", "FAILED", null, "boom");
     }
 
+    @Test
+    void handleResult_countsMailMergeResultsWithoutCorrelating() {
+        // Mail-merge jobs have no waiting execution; correlating each one would only cost a
+        // runtime query per document.
+        MailMergeResultTracker tracker = new MailMergeResultTracker();
+        EpistolaResultCollectorRunner mailMergeRunner = new EpistolaResultCollectorRunner(
+                pluginService, apiClientFactory, correlationService, properties, null, tracker, null);
+        UUID runId = UUID.randomUUID();
+
+        mailMergeRunner.handleResult("acme", makeResult("req-1", "COMPLETED", "doc-1", null,
+                MailMergeResultTracker.correlationId(runId, "case-1")));
+        mailMergeRunner.handleResult("acme", makeResult("req-2", "COMPLETED", "doc-2", null, "order-42"));
+
+        verify(correlationService, never()).correlateCompletion(eq("acme"), eq("req-1"), any(), any(), any());
+        verify(correlationService).correlateCompletion("acme", "req-2", "COMPLETED", "doc-2", null);
+        assertThat(tracker.drain()).containsEntry(runId, new MailMergeResultTracker.Counts(1, 0));
+    }
+
+    @Test
+    void handleResult_recordsTerminalResultsForLocalStatusChecks() {
+        EpistolaResultCollectorRunner storingRunner = new EpistolaResultCollectorRunner(
+                pluginService, apiClientFactory, correlationService, properties, null, null,
+                new InMemoryJobResultStore(10, Duration.ofHours(1)));
+
+        storingRunner.handleResult("acme", makeResult("req-9", "FAILED", null, "template missing"));
+
+        assertThat(storingRunner.findResult("acme", "req-9")).hasValueSatisfying(detail -> {
+            assertThat(detail.getStatus()).isEqualTo(GenerationJobStatus.FAILED);
+            assertThat(detail.getErrorMessage()).isEqualTo("template missing");
+        });
+        assertThat(storingRunner.findResult("other-tenant", "req-9")).isEmpty();
+        assertThat(runner.findResult("acme", "req-9")).isEmpty();
+    }
+
     @Test
     void routingKeyFor_returnsNullWhenNoCollectorMatches() {
         // No collectors started yet (would need a full reconcile to spin one up). Cold start.
@@ -147,13 +186,18 @@ class EpistolaResultCollectorRunnerTest {
 
     private static ResultCollector.GenerationResult makeResult(
             String requestId, String status, String documentId, String error) {
+        return makeResult(requestId, status, documentId, error, null);
+    }
+
+    private static ResultCollector.GenerationResult makeResult(
+            String requestId, String status, String documentId, String error, String correlationId) {
         return new ResultCollector.GenerationResult(
                 /* sequence */ 1L,
                 requestId,
                 /* batchId */ null,
                 status,
                 documentId,
-                /* correlationId */ null,
+                correlationId,
                 /* routingKey */ null,
                 /* templateId */ null,
                 /* variantId */ null,
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.completion;
+
+import app.epistola.valtimo.domain.GenerationJobDetail;
+import app.epistola.valtimo.domain.GenerationJobStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryJobResultStoreTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+
+    @Test
+    void evictsTheOldestResultOnceFull() {
+        InMemoryJobResultStore store = new InMemoryJobResultStore(2, Duration.ofHours(1));
+
+        store.record("acme", completed("req-1"));
+        store.record("acme", completed("req-2"));
+        store.record("acme", completed("req-1"));
+        store.record("acme", completed("req-3"));
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.find("acme", "req-2")).isEmpty();
+        assertThat(store.find("acme", "req-1")).isPresent();
+        assertThat(store.find("acme", "req-3")).isPresent();
+    }
+
+    @Test
+    void forgetsResultsOlderThanTheRetention() {
+        MutableClock clock = new MutableClock(NOW);
+        InMemoryJobResultStore store = new InMemoryJobResultStore(10, Duration.ofMinutes(5), clock);
+        store.record("acme", completed("req-1"));
+
+        clock.now = NOW.plus(Duration.ofMinutes(5));
+        assertThat(store.find("acme", "req-1")).isPresent();
+
+        clock.now = NOW.plus(Duration.ofMinutes(6));
+        assertThat(store.find("acme", "req-1")).isEmpty();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void keysResultsByTenant() {
+        InMemoryJobResultStore store = new InMemoryJobResultStore(10, Duration.ofHours(1));
+        store.record("acme", completed("req-1"));
+
+        assertThat(store.find("globex", "req-1")).isEmpty();
+    }
+
+    private static GenerationJobDetail completed(String requestId) {
+        return GenerationJobDetail.builder()
+                .requestId(requestId)
+                .status(GenerationJobStatus.COMPLETED)
+                .documentId("doc-" + requestId)
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
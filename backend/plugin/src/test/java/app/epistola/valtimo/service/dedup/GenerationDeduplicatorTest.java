@@ -0,0 +1,171 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.dedup;
+
+import app.epistola.valtimo.domain.FileFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationDeduplicatorTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final GenerationDeduplicator deduplicator = new GenerationDeduplicator(
+            new ObjectMapper(), Duration.ofMinutes(10), 3, Duration.ofSeconds(5), clock);
+
+    @Test
+    void fingerprintIgnoresMapKeyOrderButNotValues() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("name", "Jan");
+        first.put("address", Map.of("city", "Utrecht", "street", "Domplein"));
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("address", Map.of("street", "Domplein", "city", "Utrecht"));
+        second.put("name", "Jan");
+
+        assertThat(fingerprint(first)).isEqualTo(fingerprint(second));
+        assertThat(fingerprint(first)).isNotEqualTo(fingerprint(Map.of("name", "Piet")));
+        assertThat(fingerprint(first)).isNotEqualTo(deduplicator.fingerprint("https://epistola.test", "tenant",
+                "catalog", "letter", null, null, "production", FileFormat.PDF, "other.pdf", first));
+    }
+
+    @Test
+    void reusesCompletedJobWithinWindow() {
+        lead("a").submitted("tenant", "request-1");
+        deduplicator.onResult("tenant", "request-1", "COMPLETED", "document-1", null);
+
+        GenerationDeduplicator.Claim claim = deduplicator.claim("a");
+
+        assertThat(claim).isInstanceOfSatisfying(GenerationDeduplicator.Reuse.class, reuse -> {
+            assertThat(reuse.job().requestId()).isEqualTo("request-1");
+            assertThat(reuse.job().status()).isEqualTo("COMPLETED");
+            assertThat(reuse.job().documentId()).isEqualTo("document-1");
+            assertThat(reuse.job().jobPath()).isEqualTo("epistola:job:tenant/request-1");
+        });
+    }
+
+    @Test
+    void attachesToJobStillRendering() {
+        lead("a").submitted("tenant", "request-1");
+
+        GenerationDeduplicator.Claim claim = deduplicator.claim("a");
+
+        assertThat(claim).isInstanceOfSatisfying(GenerationDeduplicator.Reuse.class,
+                reuse -> assertThat(reuse.job().status()).isEqualTo("PENDING"));
+        assertThat(deduplicator.job("tenant", "request-1")).get()
+                .extracting(GenerationDeduplicator.Job::isFinished).isEqualTo(false);
+    }
+
+    @Test
+    void neverReusesFailedJobs() {
+        lead("a").submitted("tenant", "request-1");
+        deduplicator.onResult("tenant", "request-1", "FAILED", null, "Template error");
+
+        assertThat(deduplicator.claim("a")).isInstanceOf(GenerationDeduplicator.Lead.class);
+    }
+
+    @Test
+    void expiresEntriesAfterWindow() {
+        lead("a").submitted("tenant", "request-1");
+        clock.advance(Duration.ofMinutes(11));
+
+        assertThat(deduplicator.claim("a")).isInstanceOf(GenerationDeduplicator.Lead.class);
+        assertThat(deduplicator.job("tenant", "request-1")).isEmpty();
+    }
+
+    @Test
+    void evictsOldestEntryBeyondMaxEntries() {
+        for (String key : List.of("a", "b", "c", "d")) {
+            lead(key).submitted("tenant", "request-" + key);
+        }
+
+        assertThat(deduplicator.size()).isEqualTo(3);
+        assertThat(deduplicator.job("tenant", "request-a")).isEmpty();
+        assertThat(deduplicator.claim("d")).isInstanceOf(GenerationDeduplicator.Reuse.class);
+    }
+
+    @Test
+    void concurrentIdenticalRequestWaitsForTheSubmission() throws Exception {
+        GenerationDeduplicator.Lead lead = lead("a");
+
+        CompletableFuture<GenerationDeduplicator.Claim> waiter = CompletableFuture.supplyAsync(() -> deduplicator.claim("a"));
+        Thread.sleep(50);
+        assertThat(waiter).isNotDone();
+        lead.submitted("tenant", "request-1");
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isInstanceOfSatisfying(GenerationDeduplicator.Reuse.class,
+                reuse -> assertThat(reuse.job().requestId()).isEqualTo("request-1"));
+    }
+
+    @Test
+    void abandonedSubmissionLetsWaitersSubmitThemselves() throws Exception {
+        GenerationDeduplicator.Lead lead = lead("a");
+
+        CompletableFuture<GenerationDeduplicator.Claim> waiter = CompletableFuture.supplyAsync(() -> deduplicator.claim("a"));
+        Thread.sleep(50);
+        lead.abandon();
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isInstanceOf(GenerationDeduplicator.Lead.class);
+        assertThat(deduplicator.claim("a")).isInstanceOf(GenerationDeduplicator.Lead.class);
+    }
+
+    private GenerationDeduplicator.Lead lead(String key) {
+        GenerationDeduplicator.Claim claim = deduplicator.claim(key);
+        assertThat(claim).isInstanceOf(GenerationDeduplicator.Lead.class);
+        return (GenerationDeduplicator.Lead) claim;
+    }
+
+    private String fingerprint(Map<String, Object> data) {
+        return deduplicator.fingerprint("https://epistola.test", "tenant", "catalog", "letter",
+                null, null, "production", FileFormat.PDF, "letter.pdf", data);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -444,11 +444,53 @@ class FormioFormGeneratorTest {
                     "name", "name", "string",
                     FieldType.SCALAR, false, null, List.of());
 
-            // null parentData is handled via the ternary in buildComponent
+            // null parentData is handled via the ternary in applyDefaults
             ObjectNode form = generator.generateForm(List.of(field), Map.of());
 
             ObjectNode component = (ObjectNode) form.get("components").get(0);
             assertNull(component.get("defaultValue"));
         }
     }
+
+    @Nested
+    class SkeletonAndPrefill {
+
+        private final List<TemplateField> fields = List.of(
+                new TemplateField("name", "customer.name", "string", FieldType.SCALAR, true, null, List.of()),
+                new TemplateField("address", "address", "object", FieldType.OBJECT, false, null, List.of(
+                        new TemplateField("city", "address.city", "string", FieldType.SCALAR, false, null, List.of()))),
+                new TemplateField("lines", "lines", "array", FieldType.ARRAY, false, null, List.of(
+                        new TemplateField("amount", "lines.amount", "number", FieldType.SCALAR, false, null, List.of()))));
+
+        @Test
+        void skeleton_hasNoDefaultValues() {
+            ObjectNode skeleton = generator.generateSkeleton(fields);
+
+            assertFalse(skeleton.toString().contains("defaultValue"));
+            assertEquals(3, skeleton.get("components").size());
+        }
+
+        @Test
+        void prefill_matchesGenerateForm() {
+            Map<String, Object> data = Map.of(
+                    "name", "Jane",
+                    "address", Map.of("city", "Utrecht"),
+                    "lines", List.of(Map.of("amount", 10)));
+
+            ObjectNode skeleton = generator.generateSkeleton(fields);
+            ObjectNode prefilled = generator.prefill(skeleton, fields, data);
+
+            assertEquals(generator.generateForm(fields, data), prefilled);
+        }
+
+        @Test
+        void prefill_leavesSkeletonUntouched() {
+            ObjectNode skeleton = generator.generateSkeleton(fields);
+            ObjectNode before = skeleton.deepCopy();
+
+            generator.prefill(skeleton, fields, Map.of("name", "Jane"));
+
+            assertEquals(before, skeleton);
+        }
+    }
 }
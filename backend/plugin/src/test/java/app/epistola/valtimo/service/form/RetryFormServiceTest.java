@@ -21,6 +21,7 @@ import app.epistola.valtimo.service.form.FormioFormGenerator;
 import app.epistola.valtimo.service.EpistolaService;
 
 import app.epistola.valtimo.mapping.JsonataMappingService;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
 import app.epistola.valtimo.domain.TemplateDetails;
 import app.epistola.valtimo.domain.TemplateField;
@@ -44,6 +45,11 @@ import org.operaton.bpm.engine.runtime.ProcessInstanceQuery;
 import org.operaton.bpm.engine.task.Task;
 import org.operaton.bpm.engine.task.TaskQuery;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 
@@ -56,6 +62,8 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -91,11 +99,13 @@ class RetryFormServiceTest {
                 epistolaService,
                 runtimeService,
                 taskService,
-                processLinkService,
+                EpistolaProcessLinkIndex.uncached(processLinkService),
                 jsonataMappingService,
                 documentService,
                 formioFormGenerator,
-                objectMapper
+                objectMapper,
+                Duration.ofMinutes(5),
+                500
         );
     }
 
@@ -125,7 +135,9 @@ class RetryFormServiceTest {
             ObjectNode expectedForm = objectMapper.createObjectNode();
             expectedForm.put("display", "form");
             expectedForm.putArray("components");
-            when(formioFormGenerator.generateForm(eq(templateDetails.fields()), eq(resolvedData)))
+            ObjectNode skeleton = objectMapper.createObjectNode();
+            when(formioFormGenerator.generateSkeleton(templateDetails.fields())).thenReturn(skeleton);
+            when(formioFormGenerator.prefill(eq(skeleton), eq(templateDetails.fields()), eq(resolvedData)))
                     .thenReturn(expectedForm);
 
             // Act
@@ -160,7 +172,8 @@ class RetryFormServiceTest {
             ObjectNode expectedForm = objectMapper.createObjectNode();
             expectedForm.put("display", "form");
             expectedForm.putArray("components");
-            when(formioFormGenerator.generateForm(anyList(), anyMap()))
+            when(formioFormGenerator.generateSkeleton(anyList())).thenReturn(objectMapper.createObjectNode());
+            when(formioFormGenerator.prefill(any(), anyList(), anyMap()))
                     .thenReturn(expectedForm);
 
             // Act — no sourceActivityId provided
@@ -306,7 +319,8 @@ class RetryFormServiceTest {
             ObjectNode expectedForm = objectMapper.createObjectNode();
             expectedForm.put("display", "form");
             expectedForm.putArray("components");
-            when(formioFormGenerator.generateForm(anyList(), anyMap()))
+            when(formioFormGenerator.generateSkeleton(anyList())).thenReturn(objectMapper.createObjectNode());
+            when(formioFormGenerator.prefill(any(), anyList(), anyMap()))
                     .thenReturn(expectedForm);
 
             // Act — no sourceActivityId argument, should discover from task variable
@@ -317,6 +331,68 @@ class RetryFormServiceTest {
         }
     }
 
+    @Nested
+    class TemplateSkeletonCache {
+
+        private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        private final List<TemplateField> fields = List.of(new TemplateField("name", "name", "string",
+                TemplateField.FieldType.SCALAR, true, null, List.of()));
+
+        @BeforeEach
+        void setUpCachingService() {
+            retryFormService = new RetryFormService(pluginService, epistolaService, runtimeService,
+                    taskService, EpistolaProcessLinkIndex.uncached(processLinkService), jsonataMappingService,
+                    documentService, formioFormGenerator, objectMapper, Duration.ofMinutes(5), 10, clock);
+
+            mockProcessInstanceLookup(BUSINESS_KEY);
+            PluginProcessLink link = mockPluginProcessLink(ACTIVITY_ID, TEMPLATE_ID, "{ \"name\": $doc.name }");
+            mockProcessLinkServiceForActivity(PROCESS_DEFINITION_ID, ACTIVITY_ID, link);
+            mockPluginInstance(link);
+            when(jsonataMappingService.evaluate(any(app.epistola.valtimo.mapping.EvaluationContext.class)))
+                    .thenReturn(Map.of("name", "John Doe"), Map.of("name", "Jane Doe"));
+            when(formioFormGenerator.prefill(any(), anyList(), anyMap()))
+                    .thenAnswer(invocation -> ((ObjectNode) invocation.getArgument(0)).deepCopy());
+        }
+
+        @Test
+        void reusesSkeletonWithinTtlAndPrefillsEachRequest() {
+            ObjectNode skeleton = objectMapper.createObjectNode();
+            when(epistolaService.getTemplateDetails(BASE_URL, API_KEY, TENANT_ID, CATALOG_ID, TEMPLATE_ID))
+                    .thenReturn(new TemplateDetails(TEMPLATE_ID, "Invoice", fields));
+            when(formioFormGenerator.generateSkeleton(fields)).thenReturn(skeleton);
+
+            retryFormService.generateRetryForm(PROCESS_INSTANCE_ID, null, ACTIVITY_ID);
+            clock.advance(Duration.ofMinutes(4));
+            retryFormService.generateRetryForm(PROCESS_INSTANCE_ID, null, ACTIVITY_ID);
+
+            verify(epistolaService, times(1)).getTemplateDetails(BASE_URL, API_KEY, TENANT_ID, CATALOG_ID, TEMPLATE_ID);
+            verify(formioFormGenerator, times(1)).generateSkeleton(fields);
+            verify(formioFormGenerator).prefill(skeleton, fields, Map.of("name", "John Doe"));
+            verify(formioFormGenerator).prefill(skeleton, fields, Map.of("name", "Jane Doe"));
+        }
+
+        @Test
+        void refetchesAfterTtlButOnlyRebuildsWhenSchemaChanged() {
+            List<TemplateField> changedFields = List.of(new TemplateField("email", "email", "string",
+                    TemplateField.FieldType.SCALAR, false, null, List.of()));
+            when(epistolaService.getTemplateDetails(BASE_URL, API_KEY, TENANT_ID, CATALOG_ID, TEMPLATE_ID))
+                    .thenReturn(new TemplateDetails(TEMPLATE_ID, "Invoice", fields),
+                            new TemplateDetails(TEMPLATE_ID, "Invoice", fields),
+                            new TemplateDetails(TEMPLATE_ID, "Invoice", changedFields));
+            when(formioFormGenerator.generateSkeleton(anyList())).thenReturn(objectMapper.createObjectNode());
+
+            retryFormService.generateRetryForm(PROCESS_INSTANCE_ID, null, ACTIVITY_ID);
+            clock.advance(Duration.ofMinutes(6));
+            retryFormService.generateRetryForm(PROCESS_INSTANCE_ID, null, ACTIVITY_ID);
+            clock.advance(Duration.ofMinutes(6));
+            retryFormService.generateRetryForm(PROCESS_INSTANCE_ID, null, ACTIVITY_ID);
+
+            verify(epistolaService, times(3)).getTemplateDetails(BASE_URL, API_KEY, TENANT_ID, CATALOG_ID, TEMPLATE_ID);
+            verify(formioFormGenerator, times(1)).generateSkeleton(fields);
+            verify(formioFormGenerator, times(1)).generateSkeleton(changedFields);
+        }
+    }
+
     // ---- Helper methods ----
 
     private ProcessInstance mockProcessInstanceLookup(String businessKey) {
@@ -377,4 +453,31 @@ class RetryFormServiceTest {
         lenient().when(taskQuery.active()).thenReturn(taskQuery);
         lenient().when(taskQuery.list()).thenReturn(List.of());
     }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
 }
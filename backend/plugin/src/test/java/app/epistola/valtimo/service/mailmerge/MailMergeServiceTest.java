@@ -0,0 +1,444 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.mailmerge;
+
+import app.epistola.valtimo.config.EpistolaProperties;
+import app.epistola.valtimo.domain.FileFormat;
+import app.epistola.valtimo.domain.GenerationJobResult;
+import app.epistola.valtimo.expression.ExpressionFunctionRegistry;
+import app.epistola.valtimo.mapping.EvaluationBudgets;
+import app.epistola.valtimo.mapping.ExpressionFunctionResultCache;
+import app.epistola.valtimo.mapping.JsonataMappingService;
+import app.epistola.valtimo.service.EpistolaRateLimitedException;
+import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
+import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.web.rest.dto.MailMergeProgress;
+import com.ritense.plugin.domain.PluginConfiguration;
+import com.ritense.plugin.domain.PluginConfigurationId;
+import com.ritense.plugin.service.PluginService;
+import com.ritense.valtimo.epistola.plugin.EpistolaPlugin;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailMergeServiceTest {
+
+    private static final UUID CONFIGURATION_ID = UUID.randomUUID();
+    private static final Instant NOW = Instant.parse("2026-01-15T08:00:00Z");
+
+    private EpistolaService epistolaService;
+    private InMemoryRunStore store;
+    private InMemoryDocumentSource documents;
+    private EpistolaProperties properties;
+    private MailMergeService service;
+
+    @BeforeEach
+    void setUp() {
+        epistolaService = mock(EpistolaService.class);
+        store = new InMemoryRunStore();
+        documents = new InMemoryDocumentSource();
+        properties = new EpistolaProperties();
+        properties.getMailMerge().setPageSize(2);
+
+        EpistolaPlugin plugin = mock(EpistolaPlugin.class);
+        when(plugin.getBaseUrl()).thenReturn("https://epistola.example");
+        when(plugin.getApiKey()).thenReturn("key");
+        when(plugin.getTenantId()).thenReturn("acme");
+        when(plugin.getDefaultEnvironmentId()).thenReturn("production");
+        PluginConfiguration configuration = mock(PluginConfiguration.class);
+        PluginConfigurationId configurationId = mock(PluginConfigurationId.class);
+        when(configuration.getId()).thenReturn(configurationId);
+        when(configurationId.getId()).thenReturn(CONFIGURATION_ID);
+        PluginService pluginService = mock(PluginService.class);
+        when(pluginService.findPluginConfigurations(eq(EpistolaPlugin.class), any())).thenReturn(List.of(configuration));
+        when(pluginService.createInstance(configuration)).thenReturn(plugin);
+
+        AtomicInteger requests = new AtomicInteger();
+        when(epistolaService.submitGenerationJob(anyString(), anyString(), anyString(), anyString(), anyString(),
+                isNull(), isNull(), anyString(), any(), eq(FileFormat.PDF), anyString(), anyString(), isNull()))
+                .thenAnswer(invocation -> GenerationJobResult.builder()
+                        .requestId("request-" + requests.incrementAndGet())
+                        .status("PENDING")
+                        .build());
+
+        service = new MailMergeService(pluginService, epistolaService,
+                new JsonataMappingService(new ExpressionFunctionRegistry(List.of()), new ExpressionFunctionResultCache(new SimpleMeterRegistry()),
+                        new EvaluationBudgets(), new SimpleMeterRegistry()),
+                mock(EpistolaResultCollectorRunner.class), new BulkSubmitter(4, 16, 1000), store, documents,
+                new MailMergeResultTracker(), properties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void pagesThroughAllDocumentsAndSkipsThoseRejectedByTheFilter() {
+        documents.add("Alice", true);
+        documents.add("Bob", false);
+        documents.add("Carol", true);
+        documents.add("Dave", true);
+        documents.add("Eve", true);
+        UUID id = startAndClaim("$doc.active = true");
+
+        service.execute(id);
+
+        MailMergeRun run = store.find(id).orElseThrow();
+        assertThat(run.status()).isEqualTo(MailMergeRunStatus.COMPLETED);
+        assertThat(run.estimatedTotal()).isEqualTo(5);
+        assertThat(run.scanned()).isEqualTo(5);
+        assertThat(run.submitted()).isEqualTo(4);
+        assertThat(run.skipped()).isEqualTo(1);
+        assertThat(run.failed()).isZero();
+        assertThat(run.cursor().documentId()).isEqualTo(documents.idOf("Eve"));
+        assertThat(store.checkpoints).isEqualTo(3);
+        verify(epistolaService).submitGenerationJob(eq("https://epistola.example"), eq("key"), eq("acme"),
+                eq("catalog"), eq("letter"), isNull(), isNull(), eq("production"), eq(Map.of("name", "Carol")),
+                eq(FileFormat.PDF), eq("Carol.pdf"),
+                eq(MailMergeResultTracker.correlationId(id, documents.idOf("Carol"))), isNull());
+        verify(epistolaService, never()).submitGenerationJob(anyString(), anyString(), anyString(), anyString(),
+                anyString(), any(), any(), anyString(), eq(Map.of("name", "Bob")), any(), anyString(), any(), any());
+    }
+
+    @Test
+    void resumesAfterTheCheckpointedCursor() {
+        documents.add("Alice", true);
+        documents.add("Bob", true);
+        documents.add("Carol", true);
+        UUID id = startAndClaim(null);
+        store.runs.put(id, withCursor(store.runs.get(id), documents.cursorOf("Bob")));
+
+        service.execute(id);
+
+        verify(epistolaService, times(1)).submitGenerationJob(anyString(), anyString(), anyString(), anyString(),
+                anyString(), any(), any(), anyString(), any(), any(), anyString(), anyString(), any());
+        assertThat(store.find(id).orElseThrow().submitted()).isEqualTo(1);
+    }
+
+    @Test
+    void pausesAtTheLastSubmittedDocumentWhenEpistolaThrottles() {
+        documents.add("Alice", true);
+        documents.add("Bob", true);
+        properties.getMailMerge().setParallelism(1);
+        when(epistolaService.submitGenerationJob(anyString(), anyString(), anyString(), anyString(), anyString(),
+                isNull(), isNull(), anyString(), eq(Map.of("name", "Bob")), any(), anyString(), anyString(), isNull()))
+                .thenThrow(new EpistolaRateLimitedException("queue full", "acme", Duration.ofSeconds(5)));
+        UUID id = startAndClaim(null);
+
+        service.execute(id);
+
+        MailMergeRun run = store.find(id).orElseThrow();
+        assertThat(run.status()).isEqualTo(MailMergeRunStatus.RUNNING);
+        assertThat(run.submitted()).isEqualTo(1);
+        assertThat(run.failed()).isZero();
+        assertThat(run.cursor().documentId()).isEqualTo(documents.idOf("Alice"));
+        assertThat(run.leaseUntil()).isEqualTo(NOW.plus(properties.getMailMerge().getThrottleBackoff()));
+    }
+
+    @Test
+    void startsNoFurtherSubmissionsOfThePageOnceEpistolaThrottles() {
+        documents.add("Alice", true);
+        documents.add("Bob", true);
+        documents.add("Carol", true);
+        properties.getMailMerge().setParallelism(1);
+        when(epistolaService.submitGenerationJob(anyString(), anyString(), anyString(), anyString(), anyString(),
+                isNull(), isNull(), anyString(), eq(Map.of("name", "Alice")), any(), anyString(), anyString(), isNull()))
+                .thenThrow(new EpistolaRateLimitedException("queue full", "acme", Duration.ofSeconds(5)));
+        UUID id = startAndClaim(null);
+
+        service.execute(id);
+
+        verify(epistolaService, times(1)).submitGenerationJob(anyString(), anyString(), anyString(), anyString(),
+                anyString(), any(), any(), anyString(), any(), any(), anyString(), anyString(), any());
+        MailMergeRun run = store.find(id).orElseThrow();
+        assertThat(run.submitted()).isZero();
+        assertThat(run.cursor()).isNull();
+    }
+
+    @Test
+    void doesNotSubmitDocumentsHandledAheadOfTheCursorAgainOnResume() {
+        documents.add("Alice", true);
+        documents.add("Bob", true);
+        documents.add("Carol", true);
+        UUID id = startAndClaim(null);
+        MailMergeCursor alice = documents.cursorOf("Alice");
+        store.runs.put(id, withCursor(store.runs.get(id),
+                new MailMergeCursor(alice.createdOn(), alice.documentId(), Set.of(documents.idOf("Carol")))));
+
+        service.execute(id);
+
+        verify(epistolaService, times(1)).submitGenerationJob(anyString(), anyString(), anyString(), anyString(),
+                anyString(), any(), any(), anyString(), eq(Map.of("name", "Bob")), any(), anyString(), anyString(),
+                any());
+        verify(epistolaService, never()).submitGenerationJob(anyString(), anyString(), anyString(), anyString(),
+                anyString(), any(), any(), anyString(), eq(Map.of("name", "Carol")), any(), anyString(), any(), any());
+        MailMergeRun run = store.find(id).orElseThrow();
+        assertThat(run.status()).isEqualTo(MailMergeRunStatus.COMPLETED);
+        assertThat(run.submitted()).isEqualTo(1);
+        assertThat(run.cursor().documentId()).isEqualTo(documents.idOf("Carol"));
+        assertThat(run.cursor().handledAhead()).isEmpty();
+    }
+
+    @Test
+    void countsDocumentsWhoseMappingFailsAndContinues() {
+        documents.add("Alice", true);
+        documents.add("Bob", true);
+        UUID id = startAndClaim("$doc.name = \"Bob\" ? $error(\"no address\") : true");
+
+        service.execute(id);
+
+        MailMergeRun run = store.find(id).orElseThrow();
+        assertThat(run.status()).isEqualTo(MailMergeRunStatus.COMPLETED);
+        assertThat(run.submitted()).isEqualTo(1);
+        assertThat(run.failed()).isEqualTo(1);
+    }
+
+    @Test
+    void stopsWithoutFinishingWhenTheRunWasCancelled() {
+        documents.add("Alice", true);
+        documents.add("Bob", true);
+        documents.add("Carol", true);
+        UUID id = startAndClaim(null);
+        store.cancel(id, NOW);
+
+        service.execute(id);
+
+        assertThat(store.find(id).orElseThrow().status()).isEqualTo(MailMergeRunStatus.CANCELLED);
+        assertThat(store.checkpoints).isZero();
+        verify(epistolaService, never()).submitGenerationJob(anyString(), anyString(), anyString(), anyString(),
+                anyString(), any(), any(), anyString(), any(), any(), anyString(), any(), any());
+    }
+
+    @Test
+    void startRejectsAnInvalidMapping() {
+        assertThatThrownBy(() -> service.start(definition(null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("dataMapping");
+        assertThat(store.runs).isEmpty();
+    }
+
+    @Test
+    void progressReportsThroughputAndEstimatedCompletion() {
+        MailMergeRun run = new MailMergeRun(UUID.randomUUID(), definition(null, "{}"), MailMergeRunStatus.RUNNING,
+                null, 1000L, 200, 190, 10, 0, 150, 2, NOW.minusSeconds(100), NOW.minusSeconds(100),
+                NOW.minusSeconds(100), NOW, null, "node", NOW.plusSeconds(60), null);
+
+        MailMergeProgress progress = service.progress(run);
+
+        assertThat(progress.documentsPerSecond()).isEqualTo(2.0);
+        assertThat(progress.estimatedCompletionAt()).isEqualTo(NOW.plusSeconds(400));
+        assertThat(progress.rendered()).isEqualTo(150);
+    }
+
+    @Test
+    void flushesResultCountsToTheStore() {
+        MailMergeResultTracker tracker = new MailMergeResultTracker();
+        MailMergeService trackingService = new MailMergeService(mock(PluginService.class), epistolaService,
+                mock(JsonataMappingService.class), mock(EpistolaResultCollectorRunner.class), new BulkSubmitter(4, 16, 1000),
+                store, documents, tracker, properties, Clock.fixed(NOW, ZoneOffset.UTC));
+        UUID id = UUID.randomUUID();
+        store.create(id, definition(null, "{}"), NOW, NOW);
+        tracker.offer(MailMergeResultTracker.correlationId(id, "a"), "COMPLETED");
+        tracker.offer(MailMergeResultTracker.correlationId(id, "b"), "FAILED");
+
+        trackingService.flushResults();
+
+        assertThat(store.find(id).orElseThrow().rendered()).isEqualTo(1);
+        assertThat(store.find(id).orElseThrow().renderFailed()).isEqualTo(1);
+    }
+
+    private UUID startAndClaim(String filter) {
+        UUID id = service.start(definition(filter, "{\"name\": $doc.name}")).id();
+        assertThat(service.claim(id, NOW)).isTrue();
+        return id;
+    }
+
+    private static MailMergeDefinition definition(String filter, String dataMapping) {
+        return new MailMergeDefinition("Yearly statement", CONFIGURATION_ID.toString(), "person", filter, 1,
+                "catalog", "letter", null, null, null, dataMapping, "\"PDF\"", "$doc.name & \".pdf\"", null);
+    }
+
+    private static MailMergeRun withCursor(MailMergeRun run, MailMergeCursor cursor) {
+        return new MailMergeRun(run.id(), run.definition(), run.status(), cursor, run.estimatedTotal(),
+                run.scanned(), run.submitted(), run.skipped(), run.failed(), run.rendered(), run.renderFailed(),
+                run.startAt(), run.createdAt(), run.startedAt(), run.updatedAt(), run.finishedAt(),
+                run.leaseOwner(), run.leaseUntil(), run.lastError());
+    }
+
+    private static final class InMemoryDocumentSource implements MailMergeDocumentSource {
+
+        private final List<CaseDocument> documents = new ArrayList<>();
+
+        void add(String name, boolean active) {
+            Map<String, Object> content = new HashMap<>();
+            content.put("name", name);
+            content.put("active", active);
+            documents.add(new CaseDocument(UUID.randomUUID().toString(),
+                    NOW.minusSeconds(1000 - documents.size()), content));
+        }
+
+        String idOf(String name) {
+            return documents.stream().filter(d -> name.equals(d.content().get("name"))).findFirst()
+                    .orElseThrow().id();
+        }
+
+        MailMergeCursor cursorOf(String name) {
+            return documents.stream().filter(d -> name.equals(d.content().get("name"))).findFirst()
+                    .orElseThrow().cursor();
+        }
+
+        @Override
+        public List<CaseDocument> nextPage(String caseDefinitionKey, MailMergeCursor after, int limit) {
+            return documents.stream()
+                    .sorted(Comparator.comparing(CaseDocument::createdOn).thenComparing(CaseDocument::id))
+                    .filter(d -> after == null || d.createdOn().isAfter(after.createdOn())
+                            || (d.createdOn().equals(after.createdOn()) && d.id().compareTo(after.documentId()) > 0))
+                    .limit(limit)
+                    .toList();
+        }
+
+        @Override
+        public long count(String caseDefinitionKey) {
+            return documents.size();
+        }
+    }
+
+    private static final class InMemoryRunStore implements MailMergeRunStore {
+
+        private final Map<UUID, MailMergeRun> runs = new HashMap<>();
+        private int checkpoints;
+
+        @Override
+        public void create(UUID id, MailMergeDefinition definition, Instant startAt, Instant now) {
+            runs.put(id, new MailMergeRun(id, definition, MailMergeRunStatus.SCHEDULED, null, null,
+                    0, 0, 0, 0, 0, 0, startAt, now, null, now, null, null, null, null));
+        }
+
+        @Override
+        public Optional<MailMergeRun> find(UUID id) {
+            return Optional.ofNullable(runs.get(id));
+        }
+
+        @Override
+        public List<MailMergeRun> findRecent(int limit) {
+            return runs.values().stream().limit(limit).toList();
+        }
+
+        @Override
+        public List<UUID> findClaimable(Instant now) {
+            return runs.values().stream().filter(r -> claimable(r, now)).map(MailMergeRun::id).toList();
+        }
+
+        @Override
+        public boolean claim(UUID id, String owner, Instant now, Instant leaseUntil) {
+            MailMergeRun r = runs.get(id);
+            if (r == null || !claimable(r, now)) {
+                return false;
+            }
+            runs.put(id, new MailMergeRun(id, r.definition(), MailMergeRunStatus.RUNNING, r.cursor(),
+                    r.estimatedTotal(), r.scanned(), r.submitted(), r.skipped(), r.failed(), r.rendered(),
+                    r.renderFailed(), r.startAt(), r.createdAt(), r.startedAt() != null ? r.startedAt() : now,
+                    now, null, owner, leaseUntil, null));
+            return true;
+        }
+
+        @Override
+        public void updateEstimatedTotal(UUID id, long estimatedTotal) {
+            MailMergeRun r = runs.get(id);
+            runs.put(id, new MailMergeRun(id, r.definition(), r.status(), r.cursor(), estimatedTotal,
+                    r.scanned(), r.submitted(), r.skipped(), r.failed(), r.rendered(), r.renderFailed(),
+                    r.startAt(), r.createdAt(), r.startedAt(), r.updatedAt(), r.finishedAt(), r.leaseOwner(),
+                    r.leaseUntil(), r.lastError()));
+        }
+
+        @Override
+        public boolean checkpoint(UUID id, String owner, MailMergeCursor cursor, MailMergeRun.PageCounts counts,
+                                  Instant now, Instant leaseUntil) {
+            MailMergeRun r = runs.get(id);
+            if (r.status() != MailMergeRunStatus.RUNNING || !owner.equals(r.leaseOwner())) {
+                return false;
+            }
+            checkpoints++;
+            runs.put(id, new MailMergeRun(id, r.definition(), r.status(), cursor, r.estimatedTotal(),
+                    r.scanned() + counts.scanned(), r.submitted() + counts.submitted(),
+                    r.skipped() + counts.skipped(), r.failed() + counts.failed(), r.rendered(), r.renderFailed(),
+                    r.startAt(), r.createdAt(), r.startedAt(), now, null, owner, leaseUntil, null));
+            return true;
+        }
+
+        @Override
+        public void finish(UUID id, String owner, MailMergeRunStatus status, String error, Instant now) {
+            MailMergeRun r = runs.get(id);
+            if (r.status() != MailMergeRunStatus.RUNNING || !owner.equals(r.leaseOwner())) {
+                return;
+            }
+            runs.put(id, new MailMergeRun(id, r.definition(), status, r.cursor(), r.estimatedTotal(),
+                    r.scanned(), r.submitted(), r.skipped(), r.failed(), r.rendered(), r.renderFailed(),
+                    r.startAt(), r.createdAt(), r.startedAt(), now, now, null, null, error));
+        }
+
+        @Override
+        public boolean cancel(UUID id, Instant now) {
+            MailMergeRun r = runs.get(id);
+            if (r == null || r.status().isTerminal()) {
+                return false;
+            }
+            runs.put(id, new MailMergeRun(id, r.definition(), MailMergeRunStatus.CANCELLED, r.cursor(),
+                    r.estimatedTotal(), r.scanned(), r.submitted(), r.skipped(), r.failed(), r.rendered(),
+                    r.renderFailed(), r.startAt(), r.createdAt(), r.startedAt(), now, now, null, null, null));
+            return true;
+        }
+
+        @Override
+        public void addResults(UUID id, long rendered, long renderFailed) {
+            MailMergeRun r = runs.get(id);
+            runs.put(id, new MailMergeRun(id, r.definition(), r.status(), r.cursor(), r.estimatedTotal(),
+                    r.scanned(), r.submitted(), r.skipped(), r.failed(), r.rendered() + rendered,
+                    r.renderFailed() + renderFailed, r.startAt(), r.createdAt(), r.startedAt(), r.updatedAt(),
+                    r.finishedAt(), r.leaseOwner(), r.leaseUntil(), r.lastError()));
+        }
+
+        private static boolean claimable(MailMergeRun r, Instant now) {
+            return (r.status() == MailMergeRunStatus.SCHEDULED && !r.startAt().isAfter(now))
+                    || (r.status() == MailMergeRunStatus.RUNNING && r.leaseUntil().isBefore(now));
+        }
+    }
+}
@@ -22,6 +22,7 @@ import app.epistola.valtimo.service.EpistolaService;
 import app.epistola.valtimo.mapping.EvaluationContext;
 import app.epistola.valtimo.mapping.JsonataMappingService;
 import app.epistola.valtimo.service.preview.PreviewService.PreviewException;
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import app.epistola.valtimo.web.rest.dto.PreviewRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -30,12 +31,12 @@ import com.ritense.plugin.service.PluginService;
 import com.ritense.processlink.service.ProcessLinkService;
 import com.ritense.valtimo.epistola.plugin.EpistolaPlugin;
 import com.ritense.valtimo.operaton.service.OperatonRepositoryService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -90,9 +91,15 @@ class PreviewServiceTest {
     @Captor
     private ArgumentCaptor<EvaluationContext> evaluationContextCaptor;
 
-    @InjectMocks
     private PreviewService previewService;
 
+    @BeforeEach
+    void setUp() {
+        previewService = new PreviewService(pluginService, epistolaService,
+                EpistolaProcessLinkIndex.uncached(processLinkService),
+                repositoryService, runtimeService, jsonataMappingService, documentService, objectMapper);
+    }
+
     private void mockProcessInstance(String processInstanceId, String processDefinitionId) {
         ProcessInstanceQuery query = mock(ProcessInstanceQuery.class);
         when(runtimeService.createProcessInstanceQuery()).thenReturn(query);
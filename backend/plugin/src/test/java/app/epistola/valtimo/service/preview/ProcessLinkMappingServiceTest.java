@@ -17,6 +17,7 @@
  */
 package app.epistola.valtimo.service.preview;
 
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ritense.plugin.domain.PluginProcessLink;
@@ -53,7 +54,8 @@ class ProcessLinkMappingServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new ProcessLinkMappingService(repositoryService, processLinkService);
+        service = new ProcessLinkMappingService(repositoryService,
+                EpistolaProcessLinkIndex.uncached(processLinkService));
     }
 
     private void mockLatestDefinition(String key, String definitionId) {
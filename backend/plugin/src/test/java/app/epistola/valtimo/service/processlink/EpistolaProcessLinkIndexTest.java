@@ -0,0 +1,222 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.processlink;
+
+import app.epistola.valtimo.deployment.EpistolaProcessDeployedEvent;
+import app.epistola.valtimo.deployment.EpistolaProcessLinksChangedEvent;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ritense.plugin.domain.PluginProcessLink;
+import com.ritense.processlink.domain.ProcessLink;
+import com.ritense.processlink.service.ProcessLinkService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EpistolaProcessLinkIndexTest {
+
+    private static final String DEF_ID = "letter:1:100";
+    private static final String OTHER_DEF_ID = "invoice:3:200";
+
+    private final ProcessLinkService processLinkService = mock(ProcessLinkService.class);
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private EpistolaProcessLinkIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EpistolaProcessLinkIndex(processLinkService, Duration.ofMinutes(5), 10, clock);
+    }
+
+    @Test
+    void readsADefinitionOnceAndServesActivityLookupsFromIt() {
+        PluginProcessLink generate = generateDocumentLink("generate", "{ \"name\": $doc.name }");
+        PluginProcessLink download = link("download", "epistola-download-document");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(generate, download));
+
+        assertThat(index.pluginLink(DEF_ID, "generate").link()).isSameAs(generate);
+        assertThat(index.pluginLink(DEF_ID, "download").link()).isSameAs(download);
+        assertThat(index.pluginLink(DEF_ID, "missing")).isNull();
+        assertThat(index.generateDocumentLinks(DEF_ID)).extracting(IndexedProcessLink::link).containsExactly(generate);
+
+        verify(processLinkService, times(1)).getProcessLinks(DEF_ID);
+        verify(processLinkService, never()).getProcessLinks(DEF_ID, "generate");
+    }
+
+    @Test
+    void parsesGenerateDocumentConfigurationOnce() {
+        PluginProcessLink generate = generateDocumentLink("generate", "{ \"name\": $doc.name }");
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(generate));
+
+        IndexedProcessLink first = index.pluginLink(DEF_ID, "generate");
+        IndexedProcessLink second = index.pluginLink(DEF_ID, "generate");
+
+        assertThat(first.configuration().dataMapping()).isEqualTo("{ \"name\": $doc.name }");
+        assertThat(second.configuration()).isSameAs(first.configuration());
+        verify(generate, times(1)).getActionProperties();
+    }
+
+    @Test
+    void remembersAMalformedConfiguration() {
+        PluginProcessLink generate = generateDocumentLink("generate", null);
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.<ProcessLink>of(generate));
+
+        IndexedProcessLink link = index.pluginLink(DEF_ID, "generate");
+
+        assertThatThrownBy(link::configuration)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("dataMapping");
+        assertThatThrownBy(link::configuration).isInstanceOf(IllegalArgumentException.class);
+        verify(generate, times(1)).getActionProperties();
+    }
+
+    @Test
+    void processLinkChangesOfUnknownDefinitionsDropTheWholeIndex() {
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.of());
+        when(processLinkService.getProcessLinks(OTHER_DEF_ID)).thenReturn(List.of());
+        index.pluginLinks(DEF_ID);
+        index.pluginLinks(OTHER_DEF_ID);
+
+        index.onProcessLinksChanged(EpistolaProcessLinksChangedEvent.ofAllDefinitions());
+        index.pluginLinks(DEF_ID);
+        index.pluginLinks(OTHER_DEF_ID);
+
+        verify(processLinkService, times(2)).getProcessLinks(DEF_ID);
+        verify(processLinkService, times(2)).getProcessLinks(OTHER_DEF_ID);
+    }
+
+    @Test
+    void processLinkChangesDropOnlyTheChangedDefinitions() {
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.of());
+        when(processLinkService.getProcessLinks(OTHER_DEF_ID)).thenReturn(List.of());
+        index.pluginLinks(DEF_ID);
+        index.pluginLinks(OTHER_DEF_ID);
+
+        index.onProcessLinksChanged(new EpistolaProcessLinksChangedEvent(Set.of(DEF_ID), Set.of("letter")));
+        index.pluginLinks(DEF_ID);
+        index.pluginLinks(OTHER_DEF_ID);
+
+        verify(processLinkService, times(2)).getProcessLinks(DEF_ID);
+        verify(processLinkService, times(1)).getProcessLinks(OTHER_DEF_ID);
+    }
+
+    @Test
+    void deploymentDropsOnlyTheDeployedKey() {
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.of());
+        when(processLinkService.getProcessLinks(OTHER_DEF_ID)).thenReturn(List.of());
+        index.pluginLinks(DEF_ID);
+        index.pluginLinks(OTHER_DEF_ID);
+
+        index.onProcessDeployed(new EpistolaProcessDeployedEvent("letter"));
+        index.pluginLinks(DEF_ID);
+        index.pluginLinks(OTHER_DEF_ID);
+
+        verify(processLinkService, times(2)).getProcessLinks(DEF_ID);
+        verify(processLinkService, times(1)).getProcessLinks(OTHER_DEF_ID);
+    }
+
+    @Test
+    void entriesExpireAfterMaxAge() {
+        when(processLinkService.getProcessLinks(DEF_ID)).thenReturn(List.of());
+
+        index.pluginLinks(DEF_ID);
+        clock.advance(Duration.ofMinutes(4));
+        index.pluginLinks(DEF_ID);
+        clock.advance(Duration.ofMinutes(2));
+        index.pluginLinks(DEF_ID);
+
+        verify(processLinkService, times(2)).getProcessLinks(DEF_ID);
+    }
+
+    @Test
+    void uncachedIndexReadsThroughOnEveryLookup() {
+        EpistolaProcessLinkIndex uncached = EpistolaProcessLinkIndex.uncached(processLinkService);
+        PluginProcessLink generate = generateDocumentLink("generate", "{}");
+        when(processLinkService.getProcessLinks(DEF_ID, "generate")).thenReturn(List.<ProcessLink>of(generate));
+
+        uncached.pluginLink(DEF_ID, "generate");
+        uncached.pluginLink(DEF_ID, "generate");
+
+        verify(processLinkService, times(2)).getProcessLinks(DEF_ID, "generate");
+        verify(processLinkService, never()).getProcessLinks(DEF_ID);
+    }
+
+    private PluginProcessLink generateDocumentLink(String activityId, String dataMapping) {
+        ObjectNode props = JsonNodeFactory.instance.objectNode();
+        props.put("actionConfigVersion", 1);
+        props.put("catalogId", "default");
+        props.put("templateId", "letter");
+        props.put("outputFormat", "'PDF'");
+        props.put("filename", "'letter.pdf'");
+        props.put("resultProcessVariable", "letterResult");
+        if (dataMapping != null) {
+            props.put("dataMapping", dataMapping);
+        }
+        PluginProcessLink link = link(activityId, "epistola-generate-document");
+        when(link.getActionProperties()).thenReturn(props);
+        return link;
+    }
+
+    private PluginProcessLink link(String activityId, String actionKey) {
+        PluginProcessLink link = mock(PluginProcessLink.class);
+        when(link.getActivityId()).thenReturn(activityId);
+        when(link.getPluginActionDefinitionKey()).thenReturn(actionKey);
+        return link;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import app.epistola.valtimo.config.EpistolaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static app.epistola.valtimo.service.resilience.EpistolaTrafficClass.ADMIN;
+import static app.epistola.valtimo.service.resilience.EpistolaTrafficClass.BULK;
+import static app.epistola.valtimo.service.resilience.EpistolaTrafficClass.INTERACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EpistolaBulkheadTest {
+
+    @Test
+    void bulkLaneCannotTakeTheSlotsReservedForOtherLanes() throws Exception {
+        EpistolaBulkhead bulkhead = new EpistolaBulkhead(3, Map.of(BULK, 2), Duration.ofMillis(10));
+
+        assertThat(bulkhead.tryAcquire(BULK)).isTrue();
+        assertThat(bulkhead.tryAcquire(BULK)).isTrue();
+        assertThat(bulkhead.tryAcquire(BULK)).isFalse();
+
+        assertThat(bulkhead.tryAcquire(INTERACTIVE)).isTrue();
+        assertThat(bulkhead.getActiveCalls()).isEqualTo(3);
+        assertThat(bulkhead.getActiveCalls(BULK)).isEqualTo(2);
+    }
+
+    @Test
+    void freedSlotGoesToTheHighestPriorityWaiter() throws Exception {
+        EpistolaBulkhead bulkhead = new EpistolaBulkhead(1, Map.of(), Duration.ofSeconds(5));
+        assertThat(bulkhead.tryAcquire(BULK)).isTrue();
+
+        List<EpistolaTrafficClass> served = new CopyOnWriteArrayList<>();
+        Thread bulk = Thread.ofVirtual().start(() -> acquireAndRelease(bulkhead, BULK, served));
+        awaitWaiting(bulkhead, 1);
+        Thread admin = Thread.ofVirtual().start(() -> acquireAndRelease(bulkhead, ADMIN, served));
+        awaitWaiting(bulkhead, 2);
+        Thread interactive = Thread.ofVirtual().start(() -> acquireAndRelease(bulkhead, INTERACTIVE, served));
+        awaitWaiting(bulkhead, 3);
+
+        bulkhead.release(BULK);
+        bulk.join();
+        admin.join();
+        interactive.join();
+
+        assertThat(served).containsExactly(INTERACTIVE, ADMIN, BULK);
+    }
+
+    @Test
+    void registryRecordsLatencyPerTrafficClass() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EpistolaResilienceRegistry registry = new EpistolaResilienceRegistry(new EpistolaProperties(), meterRegistry);
+
+        registry.execute("http://epistola", "t1", INTERACTIVE, "previewDocument", false, () -> "pdf");
+        registry.execute("http://epistola", "t1", BULK, "getJobStatus", true, () -> "status");
+        registry.execute("http://epistola", "t1", BULK, "getJobStatus", true, () -> "status");
+
+        assertThat(meterRegistry.get("epistola.client.requests").tag("traffic.class", "interactive")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("epistola.client.requests").tag("traffic.class", "bulk")
+                .tag("outcome", "success").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void callAsOverridesTheDefaultClassAndRestoresTheOuterOne() {
+        assertThat(EpistolaTrafficClass.currentOr(INTERACTIVE)).isEqualTo(INTERACTIVE);
+
+        EpistolaTrafficClass nested = EpistolaTrafficClass.callAs(BULK,
+                () -> EpistolaTrafficClass.callAs(ADMIN, () -> EpistolaTrafficClass.currentOr(INTERACTIVE)));
+        EpistolaTrafficClass outer = EpistolaTrafficClass.callAs(BULK, () -> {
+            EpistolaTrafficClass.callAs(ADMIN, () -> null);
+            return EpistolaTrafficClass.currentOr(INTERACTIVE);
+        });
+
+        assertThat(nested).isEqualTo(ADMIN);
+        assertThat(outer).isEqualTo(BULK);
+        assertThat(EpistolaTrafficClass.currentOr(INTERACTIVE)).isEqualTo(INTERACTIVE);
+    }
+
+    private static void acquireAndRelease(EpistolaBulkhead bulkhead, EpistolaTrafficClass lane,
+                                          List<EpistolaTrafficClass> served) {
+        try {
+            if (bulkhead.tryAcquire(lane)) {
+                served.add(lane);
+                bulkhead.release(lane);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitWaiting(EpistolaBulkhead bulkhead, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getWaitingCalls() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(bulkhead.getWaitingCalls()).isEqualTo(expected);
+    }
+}
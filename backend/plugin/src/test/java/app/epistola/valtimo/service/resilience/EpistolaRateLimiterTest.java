@@ -0,0 +1,240 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import app.epistola.valtimo.config.EpistolaProperties;
+import app.epistola.valtimo.service.EpistolaApiException;
+import app.epistola.valtimo.service.EpistolaBulkheadFullException;
+import app.epistola.valtimo.service.EpistolaRateLimitedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EpistolaRateLimiterTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    private EpistolaRateLimiter limiter(int maxQueueSize, Duration maxWait) {
+        return new EpistolaRateLimiter("test",
+                new EpistolaRateLimiter.Config(10, 1, 2, 1, 0.5, maxQueueSize, maxWait), clock);
+    }
+
+    @Test
+    void burstIsServedImmediatelyThenCallersQueueForTheNextToken() {
+        EpistolaRateLimiter limiter = limiter(5, Duration.ofSeconds(5));
+
+        assertThat(limiter.reserve()).isEqualTo(new EpistolaRateLimiter.Reservation(true, Duration.ZERO));
+        assertThat(limiter.reserve()).isEqualTo(new EpistolaRateLimiter.Reservation(true, Duration.ZERO));
+
+        EpistolaRateLimiter.Reservation queued = limiter.reserve();
+        assertThat(queued.granted()).isTrue();
+        assertThat(queued.delay()).isEqualTo(Duration.ofMillis(100));
+        assertThat(limiter.getQueueDepth()).isEqualTo(1);
+
+        limiter.leaveQueue();
+        clock.advance(Duration.ofMillis(100));
+        assertThat(limiter.reserve().delay()).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() {
+        EpistolaRateLimiter limiter = limiter(1, Duration.ofSeconds(5));
+        limiter.reserve();
+        limiter.reserve();
+        limiter.reserve();
+
+        EpistolaRateLimiter.Reservation rejected = limiter.reserve();
+
+        assertThat(rejected.granted()).isFalse();
+        assertThat(rejected.delay()).isPositive();
+    }
+
+    @Test
+    void throttlingHalvesTheRateAndRetryAfterBlocksAllPermits() {
+        EpistolaRateLimiter limiter = limiter(5, Duration.ofSeconds(5));
+
+        limiter.onThrottled(Duration.ofSeconds(30));
+
+        assertThat(limiter.getPermitsPerSecond()).isEqualTo(5);
+        EpistolaRateLimiter.Reservation rejected = limiter.reserve();
+        assertThat(rejected.granted()).isFalse();
+        assertThat(rejected.delay()).isEqualTo(Duration.ofMillis(30_200));
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(limiter.reserve().granted()).isTrue();
+    }
+
+    @Test
+    void callersQueuedBehindRetryAfterAreSpacedAtTheRateAfterTheBlock() {
+        EpistolaRateLimiter limiter = limiter(5, Duration.ofSeconds(5));
+        limiter.onThrottled(Duration.ofSeconds(2));
+
+        clock.advance(Duration.ofMillis(1_500));
+        // No tokens accrued while blocked: each caller gets its own slot at 5 permits/s after the block.
+        assertThat(limiter.reserve().delay()).isEqualTo(Duration.ofMillis(700));
+        assertThat(limiter.reserve().delay()).isEqualTo(Duration.ofMillis(900));
+        assertThat(limiter.reserve().delay()).isEqualTo(Duration.ofMillis(1_100));
+    }
+
+    @Test
+    void successesGrowTheRateBackUpToTheConfiguredCeiling() {
+        EpistolaRateLimiter limiter = limiter(5, Duration.ofSeconds(5));
+        limiter.onThrottled(null);
+        limiter.onThrottled(null);
+        limiter.onThrottled(null);
+        limiter.onThrottled(null);
+        assertThat(limiter.getPermitsPerSecond()).isEqualTo(1);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess();
+        }
+
+        assertThat(limiter.getPermitsPerSecond()).isEqualTo(10);
+    }
+
+    @Nested
+    class ThroughRegistry {
+
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        private EpistolaResilienceRegistry registry(long maxWaitMs) {
+            EpistolaProperties properties = new EpistolaProperties();
+            properties.getClient().getRateLimiter().setPermitsPerSecond(10);
+            properties.getClient().getRateLimiter().setMaxWaitMs(maxWaitMs);
+            return new EpistolaResilienceRegistry(properties, meterRegistry, clock);
+        }
+
+        @Test
+        void tooManyRequestsTightensTheLimiterAndHonoursRetryAfter() {
+            EpistolaResilienceRegistry registry = registry(1000);
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "120");
+            EpistolaApiException throttled = new EpistolaApiException("Failed to submit document generation request",
+                    HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                            headers, null, null));
+
+            assertThatThrownBy(() -> registry.executeRateLimited("http://epistola", "t1", EpistolaTrafficClass.BULK, "submitGenerationJob", () -> {
+                throw throttled;
+            })).isSameAs(throttled);
+
+            assertThatThrownBy(() -> registry.executeRateLimited("http://epistola", "t1", EpistolaTrafficClass.BULK, "submitGenerationJob",
+                    () -> "unreachable"))
+                    .isInstanceOf(EpistolaRateLimitedException.class)
+                    .satisfies(e -> assertThat(((EpistolaRateLimitedException) e).getRetryAfter())
+                            .isBetween(Duration.ofSeconds(120), Duration.ofSeconds(121)));
+
+            assertThat(meterRegistry.get("epistola.client.rate-limiter.throttled").tag("tenant", "t1")
+                    .counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("epistola.client.rate-limiter.rejections").tag("tenant", "t1")
+                    .counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("epistola.client.rate-limiter.permits-per-second").tag("tenant", "t1")
+                    .gauge().value()).isEqualTo(5);
+        }
+
+        @Test
+        void clientErrorsOtherThan429DoNotTightenTheLimiter() {
+            EpistolaResilienceRegistry registry = registry(1000);
+            EpistolaApiException invalid = new EpistolaApiException("Failed",
+                    HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+
+            assertThatThrownBy(() -> registry.executeRateLimited("http://epistola", "t1", EpistolaTrafficClass.BULK, "submitGenerationJob", () -> {
+                throw invalid;
+            })).isSameAs(invalid);
+
+            assertThat(meterRegistry.get("epistola.client.rate-limiter.permits-per-second").tag("tenant", "t1")
+                    .gauge().value()).isEqualTo(10);
+        }
+
+        @Test
+        void onlyResponsesFromEpistolaRelaxTheLimiter() {
+            EpistolaResilienceRegistry registry = registry(1000);
+            EpistolaApiException throttled = new EpistolaApiException("Failed",
+                    HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                            null, null, null));
+            assertThatThrownBy(() -> registry.executeRateLimited("http://epistola", "t1", EpistolaTrafficClass.BULK, "submitGenerationJob", () -> {
+                throw throttled;
+            })).isSameAs(throttled);
+
+            EpistolaBulkheadFullException rejected = new EpistolaBulkheadFullException("No free slot", "t1");
+            assertThatThrownBy(() -> registry.executeRateLimited("http://epistola", "t1", EpistolaTrafficClass.BULK, "submitGenerationJob", () -> {
+                throw rejected;
+            })).isSameAs(rejected);
+            assertThat(meterRegistry.get("epistola.client.rate-limiter.permits-per-second").tag("tenant", "t1")
+                    .gauge().value()).as("a local rejection never reached Epistola").isEqualTo(5);
+
+            EpistolaApiException invalid = new EpistolaApiException("Failed",
+                    HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+            assertThatThrownBy(() -> registry.executeRateLimited("http://epistola", "t1", EpistolaTrafficClass.BULK, "submitGenerationJob", () -> {
+                throw invalid;
+            })).isSameAs(invalid);
+            assertThat(meterRegistry.get("epistola.client.rate-limiter.permits-per-second").tag("tenant", "t1")
+                    .gauge().value()).as("Epistola answered").isGreaterThan(5);
+        }
+    }
+
+    @Test
+    void parsesRetryAfterInSecondsAndHttpDateForm() {
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        HttpHeaders seconds = new HttpHeaders();
+        seconds.set(HttpHeaders.RETRY_AFTER, "7");
+        HttpHeaders date = new HttpHeaders();
+        date.set(HttpHeaders.RETRY_AFTER, "Thu, 01 Jan 2026 00:01:00 GMT");
+        HttpHeaders garbage = new HttpHeaders();
+        garbage.set(HttpHeaders.RETRY_AFTER, "soon");
+
+        assertThat(EpistolaResilienceRegistry.parseRetryAfter(seconds, now)).isEqualTo(Duration.ofSeconds(7));
+        assertThat(EpistolaResilienceRegistry.parseRetryAfter(date, now)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(EpistolaResilienceRegistry.parseRetryAfter(garbage, now)).isNull();
+        assertThat(EpistolaResilienceRegistry.parseRetryAfter(new HttpHeaders(), now)).isNull();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
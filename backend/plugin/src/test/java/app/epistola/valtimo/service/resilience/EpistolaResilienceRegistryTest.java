@@ -0,0 +1,226 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.resilience;
+
+import app.epistola.valtimo.config.EpistolaProperties;
+import app.epistola.valtimo.service.EpistolaApiException;
+import app.epistola.valtimo.service.EpistolaBulkheadFullException;
+import app.epistola.valtimo.service.EpistolaCircuitOpenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Exercises the per-connection circuit breaker state machine and bulkhead through the
+ * registry, with a controllable clock so the open-state wait needs no sleeping.
+ */
+class EpistolaResilienceRegistryTest {
+
+    private static final String BASE_URL = "http://epistola.test";
+    private static final String TENANT = "tenant";
+
+    private final MutableClock clock = new MutableClock();
+    private EpistolaProperties properties;
+    private EpistolaResilienceRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EpistolaProperties();
+        EpistolaProperties.Client.CircuitBreaker cb = properties.getClient().getCircuitBreaker();
+        cb.setSlidingWindowSize(4);
+        cb.setMinimumNumberOfCalls(4);
+        cb.setFailureRateThreshold(50);
+        cb.setWaitDurationInOpenStateMs(30000);
+        cb.setPermittedCallsInHalfOpenState(2);
+        registry = new EpistolaResilienceRegistry(properties, new SimpleMeterRegistry(), clock);
+    }
+
+    @Test
+    void opensAfterFailureRateThresholdAndFailsFastWithoutCallingEpistola() {
+        succeed();
+        succeed();
+        fail(new ResourceAccessException("read timed out"));
+        fail(new ResourceAccessException("read timed out"));
+
+        assertThat(state()).isEqualTo(EpistolaCircuitBreaker.State.OPEN);
+
+        AtomicInteger invocations = new AtomicInteger();
+        assertThatThrownBy(() -> registry.execute(BASE_URL, TENANT, EpistolaTrafficClass.BULK, "getJobStatus", true, () -> {
+            invocations.incrementAndGet();
+            return "unreachable";
+        }))
+                .isInstanceOf(EpistolaCircuitOpenException.class)
+                .isInstanceOf(EpistolaApiException.class)
+                .satisfies(e -> assertThat(((EpistolaCircuitOpenException) e).getRetryAfter())
+                        .isEqualTo(Duration.ofSeconds(30)));
+        assertThat(invocations).hasValue(0);
+    }
+
+    @Test
+    void clientErrorsDoNotCountAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            fail(new EpistolaApiException("Failed", HttpClientErrorException.create(
+                    HttpStatus.NOT_FOUND, "Not Found", null, null, null)));
+        }
+
+        assertThat(state()).isEqualTo(EpistolaCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenProbesCloseTheCircuitWhenHealthy() {
+        openCircuit();
+        clock.advance(Duration.ofSeconds(31));
+
+        succeed();
+        assertThat(state()).isEqualTo(EpistolaCircuitBreaker.State.HALF_OPEN);
+        succeed();
+
+        assertThat(state()).isEqualTo(EpistolaCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failingHalfOpenProbesReopenTheCircuit() {
+        openCircuit();
+        clock.advance(Duration.ofSeconds(31));
+
+        fail(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+        fail(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        assertThat(state()).isEqualTo(EpistolaCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void slowCallsOpenTheCircuit() {
+        properties.getClient().getCircuitBreaker().setSlowCallDurationMs(0);
+        registry = new EpistolaResilienceRegistry(properties, new SimpleMeterRegistry(), clock);
+
+        for (int i = 0; i < 4; i++) {
+            succeed();
+        }
+
+        assertThat(state()).isEqualTo(EpistolaCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void longRunningTransfersNeverCountAsSlow() {
+        properties.getClient().getCircuitBreaker().setSlowCallDurationMs(0);
+        registry = new EpistolaResilienceRegistry(properties, new SimpleMeterRegistry(), clock);
+
+        for (int i = 0; i < 4; i++) {
+            registry.execute(BASE_URL, TENANT, EpistolaTrafficClass.BULK, "downloadDocument", false, () -> new byte[0]);
+        }
+
+        assertThat(state()).isEqualTo(EpistolaCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void bulkheadRejectsWhenAllSlotsStayBusy() throws Exception {
+        properties.getClient().getBulkhead().setMaxConcurrentCalls(1);
+        properties.getClient().getBulkhead().setMaxWaitMs(10);
+        registry = new EpistolaResilienceRegistry(properties, new SimpleMeterRegistry(), clock);
+
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> registry.execute(BASE_URL, TENANT, EpistolaTrafficClass.BULK, "submit", true, () -> {
+            inCall.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        }));
+        assertThat(inCall.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> succeed()).isInstanceOf(EpistolaBulkheadFullException.class);
+        assertThat(registry.statusFor(BASE_URL, TENANT).orElseThrow().activeCalls()).isEqualTo(1);
+
+        release.countDown();
+        holder.join();
+        assertThat(registry.statusFor(BASE_URL, TENANT).orElseThrow().activeCalls()).isZero();
+    }
+
+    @Test
+    void connectionsAreIsolated() {
+        openCircuit();
+
+        String other = registry.execute(BASE_URL, "other-tenant", EpistolaTrafficClass.BULK, "getJobStatus", true, () -> "ok");
+
+        assertThat(other).isEqualTo("ok");
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            fail(new ResourceAccessException("connection refused"));
+        }
+        assertThat(state()).isEqualTo(EpistolaCircuitBreaker.State.OPEN);
+    }
+
+    private void succeed() {
+        registry.execute(BASE_URL, TENANT, EpistolaTrafficClass.BULK, "getJobStatus", true, () -> "ok");
+    }
+
+    private void fail(RuntimeException error) {
+        assertThatThrownBy(() -> registry.execute(BASE_URL, TENANT, EpistolaTrafficClass.BULK, "getJobStatus", true, () -> {
+            throw error;
+        })).isSameAs(error);
+    }
+
+    private EpistolaCircuitBreaker.State state() {
+        return registry.statusFor(BASE_URL, TENANT).orElseThrow().circuitBreaker().state();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
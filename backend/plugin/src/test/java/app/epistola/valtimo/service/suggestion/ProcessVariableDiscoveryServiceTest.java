@@ -17,6 +17,7 @@
  */
 package app.epistola.valtimo.service.suggestion;
 
+import app.epistola.valtimo.service.processlink.EpistolaProcessLinkIndex;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.ritense.plugin.domain.PluginProcessLink;
 import com.ritense.processlink.domain.ProcessLink;
@@ -24,18 +25,31 @@ import com.ritense.processlink.service.ProcessLinkService;
 import org.junit.jupiter.api.Test;
 import org.operaton.bpm.engine.HistoryService;
 import org.operaton.bpm.engine.RepositoryService;
+import org.operaton.bpm.engine.history.HistoricProcessInstance;
+import org.operaton.bpm.engine.history.HistoricProcessInstanceQuery;
 import org.operaton.bpm.engine.history.HistoricVariableInstance;
 import org.operaton.bpm.engine.history.HistoricVariableInstanceQuery;
 import org.operaton.bpm.engine.repository.ProcessDefinition;
 import org.operaton.bpm.engine.repository.ProcessDefinitionQuery;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ProcessVariableDiscoveryServiceTest {
@@ -44,7 +58,8 @@ class ProcessVariableDiscoveryServiceTest {
     private final RepositoryService repositoryService = mock(RepositoryService.class);
     private final ProcessLinkService processLinkService = mock(ProcessLinkService.class);
     private final ProcessVariableDiscoveryService service =
-            new ProcessVariableDiscoveryService(historyService, repositoryService, processLinkService);
+            new ProcessVariableDiscoveryService(historyService, repositoryService,
+                    EpistolaProcessLinkIndex.uncached(processLinkService), 200, 500, 3, Duration.ofMinutes(5), 200);
 
     @Test
     void discoversNestedPathsFromHistoricMapValues() {
@@ -124,6 +139,80 @@ class ProcessVariableDiscoveryServiceTest {
         );
     }
 
+    @Test
+    void readsOnlyTheRecentWindowAndCapsSamplesPerName() {
+        ProcessVariableDiscoveryService bounded = new ProcessVariableDiscoveryService(
+                historyService, repositoryService, EpistolaProcessLinkIndex.uncached(processLinkService),
+                50, 500, 2, Duration.ofMinutes(5), 10);
+        HistoricProcessInstanceQuery instances = stubRecentInstances("instance-1");
+        HistoricVariableInstanceQuery query = stubVariables(List.of(variable("epistolaResult", Map.of("status", "COMPLETED"))));
+
+        assertThat(bounded.discoverVariables("letter-process"))
+                .containsExactly("epistolaResult", "epistolaResult.status");
+        verify(instances).listPage(0, 50);
+        verify(query).processInstanceIdIn("instance-1");
+        verify(query).disableCustomObjectDeserialization();
+        verify(query, never()).list();
+        verify(query.variableName("epistolaResult")).listPage(0, 2);
+    }
+
+    @Test
+    void answersFromCacheAndRefreshesNewInstancesInTheBackground() {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        List<Runnable> background = new ArrayList<>();
+        ProcessVariableDiscoveryService cached = new ProcessVariableDiscoveryService(
+                historyService, repositoryService, EpistolaProcessLinkIndex.uncached(processLinkService),
+                200, 500, 3, Duration.ofMinutes(5), 10, background::add, clock);
+        stubHistory(List.of(variable("filename", "letter.pdf")));
+
+        assertThat(cached.discoverVariables("letter-process")).containsExactly("filename");
+        assertThat(cached.discoverVariables("letter-process")).containsExactly("filename");
+        verify(historyService, times(1)).createHistoricProcessInstanceQuery();
+
+        clock.now = clock.now.plus(Duration.ofMinutes(6));
+        stubRecentInstances("instance-2", "instance-1");
+        HistoricVariableInstanceQuery newer = stubVariables(List.of(variable("recipient", "Jan")));
+
+        assertThat(cached.discoverVariables("letter-process")).containsExactly("filename");
+        assertThat(background).hasSize(1);
+        background.get(0).run();
+
+        assertThat(cached.discoverVariables("letter-process")).containsExactly("filename", "recipient");
+        verify(newer).processInstanceIdIn("instance-2");
+        verify(newer, never()).processInstanceIdIn("instance-2", "instance-1");
+    }
+
+    @Test
+    void rescansRunningInstancesForVariablesTheyWriteLater() {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        List<Runnable> background = new ArrayList<>();
+        ProcessVariableDiscoveryService cached = new ProcessVariableDiscoveryService(
+                historyService, repositoryService, EpistolaProcessLinkIndex.uncached(processLinkService),
+                200, 500, 3, Duration.ofMinutes(5), 10, background::add, clock);
+        when(repositoryService.createProcessDefinitionQuery()).thenThrow(new IllegalStateException("not deployed"));
+        stubRecentInstances(List.of("instance-1"), "instance-1");
+        stubVariables(List.of(variable("filename", "letter.pdf")));
+
+        assertThat(cached.discoverVariables("letter-process")).containsExactly("filename");
+
+        clock.now = clock.now.plus(Duration.ofMinutes(6));
+        stubRecentInstances("instance-1");
+        HistoricVariableInstanceQuery later = stubVariables(
+                List.of(variable("filename", "letter.pdf"), variable("epistolaResult", "PENDING")));
+        cached.discoverVariables("letter-process");
+        background.get(0).run();
+
+        assertThat(cached.discoverVariables("letter-process")).containsExactly("epistolaResult", "filename");
+        verify(later).processInstanceIdIn("instance-1");
+
+        clock.now = clock.now.plus(Duration.ofMinutes(6));
+        HistoricVariableInstanceQuery afterFinish = stubVariables(List.of());
+        cached.discoverVariables("letter-process");
+        background.get(1).run();
+
+        verify(afterFinish, never()).processInstanceIdIn("instance-1");
+    }
+
     private HistoricVariableInstance variable(String name, Object value) {
         HistoricVariableInstance variable = mock(HistoricVariableInstance.class);
         when(variable.getName()).thenReturn(name);
@@ -131,14 +220,51 @@ class ProcessVariableDiscoveryServiceTest {
         return variable;
     }
 
+    /** Stub the recent-instance query with finished instances. */
+    private HistoricProcessInstanceQuery stubRecentInstances(String... instanceIds) {
+        return stubRecentInstances(List.of(), instanceIds);
+    }
+
+    private HistoricProcessInstanceQuery stubRecentInstances(List<String> runningIds, String... instanceIds) {
+        HistoricProcessInstanceQuery query = mock(HistoricProcessInstanceQuery.class, RETURNS_SELF);
+        List<HistoricProcessInstance> instances = new ArrayList<>();
+        for (String instanceId : instanceIds) {
+            HistoricProcessInstance instance = mock(HistoricProcessInstance.class);
+            when(instance.getId()).thenReturn(instanceId);
+            if (!runningIds.contains(instanceId)) {
+                when(instance.getEndTime()).thenReturn(new Date());
+            }
+            instances.add(instance);
+        }
+        when(historyService.createHistoricProcessInstanceQuery()).thenReturn(query);
+        when(query.listPage(anyInt(), anyInt())).thenReturn(instances);
+        return query;
+    }
+
     private void stubHistory(List<HistoricVariableInstance> variables) {
-        HistoricVariableInstanceQuery query = mock(HistoricVariableInstanceQuery.class);
-        when(historyService.createHistoricVariableInstanceQuery()).thenReturn(query);
-        when(query.processDefinitionKey("letter-process")).thenReturn(query);
-        when(query.list()).thenReturn(variables);
+        stubRecentInstances("instance-1");
+        stubVariables(variables);
         when(repositoryService.createProcessDefinitionQuery()).thenThrow(new IllegalStateException("not deployed"));
     }
 
+    /**
+     * Stub the variable queries: the paged name query returns {@code variables}, and the sampling
+     * query of each name returns the variables with that name.
+     */
+    private HistoricVariableInstanceQuery stubVariables(List<HistoricVariableInstance> variables) {
+        HistoricVariableInstanceQuery query = mock(HistoricVariableInstanceQuery.class, RETURNS_SELF);
+        when(historyService.createHistoricVariableInstanceQuery()).thenReturn(query);
+        when(query.listPage(anyInt(), anyInt())).thenReturn(variables);
+        for (HistoricVariableInstance variable : variables) {
+            HistoricVariableInstanceQuery byName = mock(HistoricVariableInstanceQuery.class, RETURNS_SELF);
+            when(byName.listPage(anyInt(), anyInt())).thenReturn(variables.stream()
+                    .filter(other -> other.getName().equals(variable.getName()))
+                    .toList());
+            when(query.variableName(variable.getName())).thenReturn(byName);
+        }
+        return query;
+    }
+
     private void stubLatestDeployment(List<PluginProcessLink> links) {
         ProcessDefinitionQuery query = mock(ProcessDefinitionQuery.class);
         ProcessDefinition definition = mock(ProcessDefinition.class);
@@ -152,6 +278,30 @@ class ProcessVariableDiscoveryServiceTest {
                 .thenReturn(links.stream().map(ProcessLink.class::cast).toList());
     }
 
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
     private PluginProcessLink generateDocumentLink(String resultProcessVariable) {
         PluginProcessLink link = mock(PluginProcessLink.class);
         when(link.getPluginActionDefinitionKey()).thenReturn("epistola-generate-document");
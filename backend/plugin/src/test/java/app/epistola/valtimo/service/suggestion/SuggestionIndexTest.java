@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.suggestion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionIndexTest {
+
+    private final SuggestionIndex index = SuggestionIndex.of(List.of(
+            "epistolaResult", "epistolaResult.status", "filename", "epistolaResult.documentId",
+            "EpistolaTenantId", "address.street", "address.city"));
+
+    @Test
+    void returnsPathsStartingWithThePrefixIgnoringCase() {
+        assertThat(index.withPrefix("epistola", 10)).containsExactly(
+                "epistolaResult", "epistolaResult.documentId", "epistolaResult.status", "EpistolaTenantId");
+        assertThat(index.withPrefix("ADDRESS.", 10)).containsExactly("address.city", "address.street");
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        assertThat(index.withPrefix("epistolaResult", 2)).containsExactly(
+                "epistolaResult", "epistolaResult.documentId");
+    }
+
+    @Test
+    void answersEmptyAndUnmatchedPrefixes() {
+        assertThat(index.withPrefix("", 3)).containsExactly("address.city", "address.street", "epistolaResult");
+        assertThat(index.withPrefix("zzz", 10)).isEmpty();
+        assertThat(SuggestionIndex.EMPTY.withPrefix("a", 10)).isEmpty();
+    }
+
+    @Test
+    void keepsTheOriginalOrderForAllPaths() {
+        assertThat(index.all()).first().isEqualTo("epistolaResult");
+        assertThat(index.all()).hasSize(7);
+    }
+}
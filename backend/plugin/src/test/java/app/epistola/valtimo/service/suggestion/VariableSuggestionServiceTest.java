@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package app.epistola.valtimo.service.suggestion;
+
+import app.epistola.valtimo.deployment.EpistolaProcessDeployedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ritense.document.domain.DocumentDefinition;
+import com.ritense.document.service.DocumentDefinitionService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VariableSuggestionServiceTest {
+
+    private final DocumentDefinitionService documentDefinitionService = mock(DocumentDefinitionService.class);
+    private final ProcessVariableDiscoveryService discoveryService = mock(ProcessVariableDiscoveryService.class);
+    private final VariableSuggestionService service =
+            new VariableSuggestionService(documentDefinitionService, discoveryService, Duration.ofMinutes(5), 2);
+
+    @Test
+    void answersPrefixQueriesFromTheDocumentSchemaAndProcessVariables() throws Exception {
+        stubSchema("""
+                {"properties": {
+                  "applicant": {"type": "object", "properties": {"name": {"type": "string"}}},
+                  "amount": {"type": "number"}
+                }}""");
+        when(discoveryService.discoverVariables("letter-process"))
+                .thenReturn(List.of("applicationId", "epistolaResult", "epistolaResult.status"));
+
+        VariableSuggestionService.VariableSuggestions suggestions =
+                service.getSuggestions("permit", "letter-process", "app", 10);
+
+        assertThat(suggestions.doc()).containsExactly("applicant", "applicant.name");
+        assertThat(suggestions.pv()).containsExactly("applicationId");
+    }
+
+    @Test
+    void reusesTheProcessIndexUntilTheProcessIsDeployedAgain() {
+        when(discoveryService.discoverVariables("letter-process"))
+                .thenReturn(List.of("filename"))
+                .thenReturn(List.of("filename", "recipient"));
+
+        assertThat(service.getSuggestions(null, "letter-process", "", 10).pv()).containsExactly("filename");
+        assertThat(service.getSuggestions(null, "letter-process", "r", 10).pv()).isEmpty();
+        verify(discoveryService, times(1)).discoverVariables("letter-process");
+
+        service.onProcessDeployed(new EpistolaProcessDeployedEvent("letter-process"));
+
+        assertThat(service.getSuggestions(null, "letter-process", "r", 10).pv()).containsExactly("recipient");
+        verify(discoveryService, times(2)).discoverVariables("letter-process");
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentlyUsedIndexesAndNeverCachesUnknownKeys() {
+        when(discoveryService.discoverVariables("a")).thenReturn(List.of("a1"));
+        when(discoveryService.discoverVariables("b")).thenReturn(List.of("b1"));
+        when(discoveryService.discoverVariables("c")).thenReturn(List.of("c1"));
+        when(discoveryService.discoverVariables("unknown")).thenReturn(List.of());
+
+        service.getSuggestions(null, "a", "", 10);
+        service.getSuggestions(null, "b", "", 10);
+        service.getSuggestions(null, "a", "", 10);
+        service.getSuggestions(null, "c", "", 10);
+        service.getSuggestions(null, "unknown", "", 10);
+        service.getSuggestions(null, "unknown", "", 10);
+        service.getSuggestions(null, "a", "", 10);
+        service.getSuggestions(null, "c", "", 10);
+        service.getSuggestions(null, "b", "", 10);
+
+        verify(discoveryService, times(1)).discoverVariables("a");
+        verify(discoveryService, times(1)).discoverVariables("c");
+        verify(discoveryService, times(2)).discoverVariables("b");
+        verify(discoveryService, times(2)).discoverVariables("unknown");
+    }
+
+    @Test
+    void withoutPrefixReturnsEveryPathInSchemaOrder() throws Exception {
+        stubSchema("""
+                {"properties": {"zipCode": {"type": "string"}, "city": {"type": "string"}}}""");
+
+        assertThat(service.getSuggestions("permit", null).doc()).containsExactly("zipCode", "city");
+    }
+
+    private void stubSchema(String schema) throws Exception {
+        JsonNode schemaNode = new ObjectMapper().readTree(schema);
+        DocumentDefinition definition = mock(DocumentDefinition.class);
+        when(definition.schema()).thenReturn(schemaNode);
+        doReturn(Optional.of(definition)).when(documentDefinitionService).findActiveByName("permit");
+    }
+}
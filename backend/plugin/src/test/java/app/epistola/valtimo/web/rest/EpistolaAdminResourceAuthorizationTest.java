@@ -21,12 +21,14 @@ import app.epistola.valtimo.authorization.EpistolaAdministration;
 import app.epistola.valtimo.authorization.EpistolaAdministrationActionProvider;
 import app.epistola.valtimo.service.admin.EpistolaAdminService;
 import app.epistola.valtimo.service.admin.EpistolaLegacyOverrideScanService;
+import app.epistola.valtimo.service.admin.PluginUsageIndex;
 import com.ritense.authorization.AuthorizationService;
 import com.ritense.authorization.request.AuthorizationRequest;
 import com.ritense.authorization.request.EntityAuthorizationRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 
 import java.util.List;
@@ -39,6 +41,7 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class EpistolaAdminResourceAuthorizationTest {
@@ -53,7 +56,8 @@ class EpistolaAdminResourceAuthorizationTest {
         authorizationService = mock(AuthorizationService.class);
         adminService = mock(EpistolaAdminService.class);
         legacyOverrideScanService = mock(EpistolaLegacyOverrideScanService.class);
-        resource = new EpistolaAdminResource(adminService, authorizationService, legacyOverrideScanService);
+        resource = new EpistolaAdminResource(adminService, authorizationService, legacyOverrideScanService,
+                null, null, null);
     }
 
     @Test
@@ -113,6 +117,19 @@ class EpistolaAdminResourceAuthorizationTest {
         });
     }
 
+    @Test
+    void pluginUsage_isComputedDirectlyWhileTheIndexHasNeverBeenBuilt() {
+        PluginUsageIndex pluginUsageIndex = mock(PluginUsageIndex.class);
+        when(pluginUsageIndex.snapshot()).thenReturn(null);
+        when(adminService.getPluginUsage()).thenReturn(List.of());
+        resource = new EpistolaAdminResource(adminService, authorizationService, legacyOverrideScanService, null,
+                pluginUsageIndex, null);
+
+        assertThat(resource.getPluginUsage().getStatusCode().value()).isEqualTo(200);
+        assertThat(resource.refreshPluginUsage().getStatusCode().value()).isEqualTo(200);
+        verify(adminService, times(2)).getPluginUsage();
+    }
+
     @Test
     void exportProcessLink_requiresEpistolaAdministrationManage() {
         var processLinkId = UUID.randomUUID();
@@ -134,8 +151,14 @@ class EpistolaAdminResourceAuthorizationTest {
         assertThatThrownBy(() -> resource.checkConnections()).isInstanceOf(AccessDeniedException.class);
         assertThatThrownBy(() -> resource.getVersions()).isInstanceOf(AccessDeniedException.class);
         assertThatThrownBy(() -> resource.getPluginUsage()).isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> resource.refreshPluginUsage()).isInstanceOf(AccessDeniedException.class);
         assertThatThrownBy(() -> resource.getPendingJobs()).isInstanceOf(AccessDeniedException.class);
         assertThatThrownBy(() -> resource.exportProcessLink(UUID.randomUUID()))
                 .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> resource.reconcileAllPending(null)).isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> resource.getPendingJobPage(PageRequest.of(0, 50)))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> resource.getPendingJobSummary()).isInstanceOf(AccessDeniedException.class);
+        verifyNoInteractions(adminService);
     }
 }
@@ -23,6 +23,7 @@ import app.epistola.valtimo.domain.GenerationJobStatus;
 import app.epistola.valtimo.domain.EpistolaProcessVariables;
 import app.epistola.valtimo.mapping.JsonataMappingService;
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
 import app.epistola.valtimo.service.download.DocumentStorageStrategy;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -34,6 +35,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.eq;
@@ -60,11 +62,13 @@ class EpistolaPluginCheckJobStatusTest {
     private static final String REQUEST_ID = "req-1";
 
     private EpistolaService epistolaService;
+    private EpistolaResultCollectorRunner resultCollectorRunner;
     private DelegateExecution execution;
 
     @BeforeEach
     void setUp() {
         epistolaService = mock(EpistolaService.class);
+        resultCollectorRunner = mock(EpistolaResultCollectorRunner.class);
         execution = mock(DelegateExecution.class);
     }
 
@@ -75,8 +79,10 @@ class EpistolaPluginCheckJobStatusTest {
                 mock(ObjectMapper.class),
                 mock(JsonataMappingService.class),
                 mock(DocumentService.class),
-                mock(EpistolaResultCollectorRunner.class),
-                strategies);
+                resultCollectorRunner,
+                strategies,
+                null,
+                new BulkSubmitter(4, 16, 1000));
         ReflectionTestUtils.setField(plugin, "baseUrl", BASE_URL);
         ReflectionTestUtils.setField(plugin, "apiKey", API_KEY);
         ReflectionTestUtils.setField(plugin, "tenantId", TENANT_ID);
@@ -104,6 +110,23 @@ class EpistolaPluginCheckJobStatusTest {
         verify(execution, never()).setVariable(eq(ERROR_VAR), org.mockito.ArgumentMatchers.any());
     }
 
+    @Test
+    void answersFromResultReceivedByTheCollectorWithoutCallingEpistola() {
+        when(execution.getVariable(REQUEST_ID_VAR)).thenReturn(REQUEST_ID);
+        when(resultCollectorRunner.findResult(TENANT_ID, REQUEST_ID)).thenReturn(Optional.of(
+                GenerationJobDetail.builder()
+                        .requestId(REQUEST_ID)
+                        .status(GenerationJobStatus.COMPLETED)
+                        .documentId("doc-7")
+                        .build()));
+
+        plugin().checkJobStatus(execution, REQUEST_ID_VAR, STATUS_VAR, DOCUMENT_ID_VAR, ERROR_VAR);
+
+        verify(execution).setVariable(STATUS_VAR, "COMPLETED");
+        verify(execution).setVariable(DOCUMENT_ID_VAR, "doc-7");
+        verifyNoInteractions(epistolaService);
+    }
+
     @Test
     void extractsRequestIdFromLegacyStringVariable() {
         when(execution.getVariable(REQUEST_ID_VAR)).thenReturn(REQUEST_ID);
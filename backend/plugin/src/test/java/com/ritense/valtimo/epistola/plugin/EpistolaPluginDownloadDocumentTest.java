@@ -20,6 +20,7 @@ package com.ritense.valtimo.epistola.plugin;
 import app.epistola.valtimo.domain.DocumentStorageTarget;
 import app.epistola.valtimo.mapping.JsonataMappingService;
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
 import app.epistola.valtimo.service.download.DocumentStorageStrategy;
 import app.epistola.valtimo.service.download.ProcessVariableStorageStrategy;
@@ -87,7 +88,9 @@ class EpistolaPluginDownloadDocumentTest {
                 mock(JsonataMappingService.class),
                 mock(DocumentService.class),
                 mock(EpistolaResultCollectorRunner.class),
-                strategies);
+                strategies,
+                null,
+                new BulkSubmitter(4, 16, 1000));
         ReflectionTestUtils.setField(plugin, "baseUrl", BASE_URL);
         ReflectionTestUtils.setField(plugin, "apiKey", API_KEY);
         ReflectionTestUtils.setField(plugin, "tenantId", TENANT_ID);
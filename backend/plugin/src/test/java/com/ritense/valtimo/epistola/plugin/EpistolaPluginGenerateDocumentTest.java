@@ -23,26 +23,34 @@ import app.epistola.valtimo.domain.GenerationJobResult;
 import app.epistola.valtimo.mapping.EvaluationContext;
 import app.epistola.valtimo.mapping.JsonataMappingService;
 import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
 import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.service.dedup.GenerationDeduplicator;
 import app.epistola.valtimo.service.download.DocumentStorageStrategy;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ritense.document.service.DocumentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.operaton.bpm.engine.ProcessEngineServices;
 import org.operaton.bpm.engine.delegate.DelegateExecution;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.util.EnumMap;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -64,9 +72,17 @@ class EpistolaPluginGenerateDocumentTest {
         jsonataMappingService = mock(JsonataMappingService.class);
         resultCollectorRunner = mock(EpistolaResultCollectorRunner.class);
         execution = mock(DelegateExecution.class);
+        ProcessEngineServices engineServices = mock(ProcessEngineServices.class, RETURNS_DEEP_STUBS);
+        when(engineServices.getRepositoryService().getProcessDefinition(any()).getKey()).thenReturn("letters");
+        when(execution.getProcessEngineServices()).thenReturn(engineServices);
+        when(execution.getProcessDefinitionId()).thenReturn("letters:3:definition");
     }
 
     private EpistolaPlugin plugin() {
+        return plugin(null);
+    }
+
+    private EpistolaPlugin plugin(GenerationDeduplicator deduplicator) {
         Map<DocumentStorageTarget, DocumentStorageStrategy> strategies = new EnumMap<>(DocumentStorageTarget.class);
         EpistolaPlugin plugin = new EpistolaPlugin(
                 epistolaService,
@@ -74,7 +90,9 @@ class EpistolaPluginGenerateDocumentTest {
                 jsonataMappingService,
                 mock(DocumentService.class),
                 resultCollectorRunner,
-                strategies);
+                strategies,
+                deduplicator,
+                new BulkSubmitter(4, 16, 1000));
         ReflectionTestUtils.setField(plugin, "baseUrl", BASE_URL);
         ReflectionTestUtils.setField(plugin, "apiKey", API_KEY);
         ReflectionTestUtils.setField(plugin, "tenantId", TENANT_ID);
@@ -119,6 +137,28 @@ class EpistolaPluginGenerateDocumentTest {
         verify(execution, never()).setVariable(anyString(), any());
     }
 
+    @Test
+    void generateDocumentEvaluatesWithTheKeyOfTheProcessDefinition() {
+        stubSuccessfulGeneration("production");
+
+        plugin().generateDocument(
+                execution,
+                null,
+                "catalog",
+                "template",
+                null,
+                null,
+                null,
+                "{}",
+                "PDF",
+                "document.pdf",
+                null,
+                "epistolaResult");
+
+        verify(jsonataMappingService).evaluate(argThat(context ->
+                "letters".equals(context.getProcessDefinitionKey())));
+    }
+
     @Test
     void generateDocumentResolvesEnvironmentExpression() {
         stubSuccessfulGeneration("production");
@@ -255,4 +295,62 @@ class EpistolaPluginGenerateDocumentTest {
 
         verifyNoInteractions(epistolaService);
     }
+
+    @Test
+    void identicalRequestReusesCompletedJobWithoutALocatorWhenDedupEnabled() {
+        stubSuccessfulGeneration(null);
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(
+                new ObjectMapper(), Duration.ofMinutes(10), 100, Duration.ofSeconds(5));
+        EpistolaPlugin plugin = plugin(deduplicator);
+
+        generateDefaultDocument(plugin);
+        deduplicator.onResult(TENANT_ID, "request-1", "COMPLETED", "document-1", null);
+        generateDefaultDocument(plugin);
+
+        verify(epistolaService, times(1)).submitGenerationJob(
+                anyString(), anyString(), anyString(), anyString(), anyString(),
+                isNull(), isNull(), any(), anyMap(), any(), anyString(), isNull(), isNull());
+        verify(execution).setVariable(eq("epistolaResult"), argThat(value -> value instanceof Map<?, ?> result
+                && "COMPLETED".equals(result.get("status"))
+                && "document-1".equals(result.get("documentId"))
+                && "epistola:job:demo/request-1".equals(result.get("jobPath"))));
+        verify(execution, times(1)).setVariable("epistola:job:demo/request-1", "epistolaResult");
+    }
+
+    @Test
+    void failedSubmissionIsNotRemembered() {
+        stubSuccessfulGeneration(null);
+        when(epistolaService.submitGenerationJob(
+                anyString(), anyString(), anyString(), anyString(), anyString(),
+                isNull(), isNull(), any(), anyMap(), eq(FileFormat.PDF), anyString(), isNull(), isNull()))
+                .thenThrow(new IllegalStateException("boom"))
+                .thenReturn(GenerationJobResult.builder().requestId("request-2").status("PENDING").build());
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(
+                new ObjectMapper(), Duration.ofMinutes(10), 100, Duration.ofSeconds(5));
+        EpistolaPlugin plugin = plugin(deduplicator);
+
+        assertThatThrownBy(() -> generateDefaultDocument(plugin)).isInstanceOf(RuntimeException.class);
+        generateDefaultDocument(plugin);
+
+        verify(epistolaService, times(2)).submitGenerationJob(
+                anyString(), anyString(), anyString(), anyString(), anyString(),
+                isNull(), isNull(), any(), anyMap(), any(), anyString(), isNull(), isNull());
+        assertThat(deduplicator.job(TENANT_ID, "request-2")).isPresent();
+    }
+
+    private void generateDefaultDocument(EpistolaPlugin plugin) {
+        plugin.generateDocument(
+                execution,
+                null,
+                "catalog",
+                "template",
+                null,
+                null,
+                null,
+                "{}",
+                "PDF",
+                "document.pdf",
+                null,
+                "epistolaResult");
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2025 Epistola.
+ *
+ * Licensed under EUPL, Version 1.2 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: EUPL-1.2
+ */
+package com.ritense.valtimo.epistola.plugin;
+
+import app.epistola.valtimo.domain.DocumentStorageTarget;
+import app.epistola.valtimo.domain.FileFormat;
+import app.epistola.valtimo.domain.GenerationJobResult;
+import app.epistola.valtimo.mapping.JsonataMappingService;
+import app.epistola.valtimo.service.EpistolaApiException;
+import app.epistola.valtimo.service.EpistolaService;
+import app.epistola.valtimo.service.bulk.BulkSubmitter;
+import app.epistola.valtimo.service.completion.EpistolaResultCollectorRunner;
+import app.epistola.valtimo.service.download.DocumentStorageStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ritense.document.service.DocumentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.operaton.bpm.engine.ProcessEngineServices;
+import org.operaton.bpm.engine.delegate.DelegateExecution;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class EpistolaPluginGenerateDocumentsTest {
+
+    private static final String BASE_URL = "https://api.epistola.app";
+    private static final String API_KEY = "api-key";
+    private static final String TENANT_ID = "demo";
+
+    private EpistolaService epistolaService;
+    private JsonataMappingService jsonataMappingService;
+    private EpistolaResultCollectorRunner resultCollectorRunner;
+    private DelegateExecution execution;
+
+    @BeforeEach
+    void setUp() {
+        epistolaService = mock(EpistolaService.class);
+        jsonataMappingService = mock(JsonataMappingService.class);
+        resultCollectorRunner = mock(EpistolaResultCollectorRunner.class);
+        execution = mock(DelegateExecution.class);
+        ProcessEngineServices engineServices = mock(ProcessEngineServices.class, RETURNS_DEEP_STUBS);
+        when(engineServices.getRepositoryService().getProcessDefinition(any()).getKey()).thenReturn("letters");
+        when(execution.getProcessEngineServices()).thenReturn(engineServices);
+        when(execution.getProcessDefinitionId()).thenReturn("letters:3:definition");
+        when(jsonataMappingService.evaluateScalar(any(), any()))
+                .thenAnswer(invocation -> "letter-" + ((Map<?, ?>) invocation.getArgument(1)).get("id") + ".pdf");
+    }
+
+    private EpistolaPlugin plugin(BulkSubmitter bulkSubmitter) {
+        Map<DocumentStorageTarget, DocumentStorageStrategy> strategies = new EnumMap<>(DocumentStorageTarget.class);
+        EpistolaPlugin plugin = new EpistolaPlugin(
+                epistolaService,
+                mock(ObjectMapper.class),
+                jsonataMappingService,
+                mock(DocumentService.class),
+                resultCollectorRunner,
+                strategies,
+                null,
+                bulkSubmitter);
+        ReflectionTestUtils.setField(plugin, "baseUrl", BASE_URL);
+        ReflectionTestUtils.setField(plugin, "apiKey", API_KEY);
+        ReflectionTestUtils.setField(plugin, "tenantId", TENANT_ID);
+        ReflectionTestUtils.setField(plugin, "defaultEnvironmentId", "default");
+        return plugin;
+    }
+
+    private void stubItems(String... ids) {
+        when(jsonataMappingService.evaluateList(any())).thenReturn(
+                Arrays.stream(ids).map(id -> Map.<String, Object>of("id", id)).toList());
+    }
+
+    /** Submissions succeed with request id {@code request-<id>}, except for the given failing ids. */
+    private void stubSubmissions(String... failingIds) {
+        List<String> failing = List.of(failingIds);
+        when(epistolaService.submitGenerationJob(any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any())).thenAnswer(invocation -> {
+            Object id = ((Map<?, ?>) invocation.getArgument(8)).get("id");
+            if (failing.contains(id)) {
+                throw new EpistolaApiException("Epistola unavailable");
+            }
+            return GenerationJobResult.builder().requestId("request-" + id).status("PENDING").build();
+        });
+    }
+
+    private void generate(EpistolaPlugin plugin) {
+        plugin.generateDocuments(execution, "catalog", "template", null, null, "$pv.recipients",
+                "\"letter-\" & id & \".pdf\"", null, "letters");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> storedBatch() {
+        ArgumentCaptor<Object> value = ArgumentCaptor.forClass(Object.class);
+        verify(execution).setVariable(eq("letters"), value.capture());
+        return (Map<String, Object>) value.getValue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitsOneRequestPerItemAndStoresTheBatchResult() {
+        stubItems("1", "2", "3");
+        stubSubmissions();
+
+        generate(plugin(new BulkSubmitter(4, 16, 1000)));
+
+        verify(epistolaService, times(3)).submitGenerationJob(eq(BASE_URL), eq(API_KEY), eq(TENANT_ID),
+                eq("catalog"), eq("template"), any(), any(), eq("default"), any(), eq(FileFormat.PDF),
+                anyString(), any(), any());
+        verify(epistolaService).submitGenerationJob(any(), any(), any(), any(), any(), any(), any(), any(),
+                eq(Map.of("id", "2")), any(), eq("letter-2.pdf"), any(), any());
+
+        Map<String, Object> batch = storedBatch();
+        assertThat(batch).containsEntry("status", "PENDING").containsEntry("total", 3)
+                .containsEntry("completed", 0).containsEntry("failed", 0);
+        String batchPath = (String) batch.get("jobPath");
+        assertThat(batchPath).startsWith("epistola:batch:demo/");
+        List<Map<String, Object>> items = (List<Map<String, Object>>) batch.get("items");
+        assertThat(items).extracting(item -> item.get("requestId"))
+                .containsExactly("request-1", "request-2", "request-3");
+
+        verify(execution).setVariable(batchPath, "letters");
+        verify(execution).setVariable("epistola:job:demo/request-2", "batch:letters");
+        verify(execution).setVariable("epistolaTenantId", TENANT_ID);
+        verify(resultCollectorRunner).kickFor(BASE_URL, API_KEY, TENANT_ID);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedSubmissionIsRecordedAsFailedItemWhileOthersProceed() {
+        stubItems("1", "2", "3");
+        stubSubmissions("2");
+
+        generate(plugin(new BulkSubmitter(4, 16, 1000)));
+
+        Map<String, Object> batch = storedBatch();
+        assertThat(batch).containsEntry("status", "PENDING").containsEntry("failed", 1);
+        List<Map<String, Object>> items = (List<Map<String, Object>>) batch.get("items");
+        assertThat(items.get(1)).containsEntry("status", "FAILED").containsEntry("requestId", null);
+        assertThat((String) items.get(1).get("errorMessage")).contains("Epistola unavailable");
+        verify(execution).setVariable("epistola:job:demo/request-1", "batch:letters");
+        verify(execution).setVariable("epistola:job:demo/request-3", "batch:letters");
+    }
+
+    @Test
+    void redeliversItemsThatFinishedBeforeTheBatchCommitted() {
+        stubItems("1", "2", "3");
+        stubSubmissions("2");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            generate(plugin(new BulkSubmitter(4, 16, 1000)));
+            verify(resultCollectorRunner, never()).redeliverFinishedResult(any(), any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(resultCollectorRunner).redeliverFinishedResult(TENANT_ID, "request-1");
+        verify(resultCollectorRunner).redeliverFinishedResult(TENANT_ID, "request-3");
+        verify(resultCollectorRunner, times(2)).redeliverFinishedResult(any(), any());
+    }
+
+    @Test
+    void failsWhenEverySubmissionFails() {
+        stubItems("1", "2");
+        stubSubmissions("1", "2");
+
+        assertThatThrownBy(() -> generate(plugin(new BulkSubmitter(4, 16, 1000))))
+                .isInstanceOf(RuntimeException.class)
+                .hasCauseInstanceOf(EpistolaApiException.class);
+        verify(execution, never()).setVariable(eq("letters"), any());
+    }
+
+    @Test
+    void rejectsMoreItemsThanTheConfiguredMaximum() {
+        stubItems("1", "2", "3");
+
+        assertThatThrownBy(() -> generate(plugin(new BulkSubmitter(2, 4, 2))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("max-items");
+        verifyNoInteractions(epistolaService);
+    }
+
+    @Test
+    void emptyItemsProduceACompletedEmptyBatch() {
+        stubItems();
+
+        generate(plugin(new BulkSubmitter(4, 16, 1000)));
+
+        assertThat(storedBatch()).containsEntry("status", "COMPLETED").containsEntry("total", 0);
+        verifyNoInteractions(epistolaService);
+    }
+}
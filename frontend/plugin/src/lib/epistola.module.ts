@@ -28,6 +28,7 @@ import { PluginTranslatePipeModule } from '@valtimo/plugin';
 import { FormIoModule, FormModule, InputModule, SelectModule } from '@valtimo/components';
 import { EpistolaConfigurationComponent } from './components/epistola-configuration/epistola-configuration.component';
 import { GenerateDocumentConfigurationComponent } from './components/generate-document-configuration/generate-document-configuration.component';
+import { GenerateDocumentsConfigurationComponent } from './components/generate-documents-configuration/generate-documents-configuration.component';
 import { CheckJobStatusConfigurationComponent } from './components/check-job-status-configuration/check-job-status-configuration.component';
 import { DownloadDocumentConfigurationComponent } from './components/download-document-configuration/download-document-configuration.component';
 import { EpistolaDocumentComponent } from './components/epistola-document/epistola-document.component';
@@ -50,6 +51,7 @@ import { EpistolaRegistrationService } from './services/epistola-registration.se
     EpistolaAdminRoutingModule,
     EpistolaConfigurationComponent,
     GenerateDocumentConfigurationComponent,
+    GenerateDocumentsConfigurationComponent,
     CheckJobStatusConfigurationComponent,
     DownloadDocumentConfigurationComponent,
     EpistolaDocumentComponent,
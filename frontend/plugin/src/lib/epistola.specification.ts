@@ -19,6 +19,7 @@
 import { PluginSpecification } from '@valtimo/plugin';
 import { EpistolaConfigurationComponent } from './components/epistola-configuration/epistola-configuration.component';
 import { GenerateDocumentConfigurationComponent } from './components/generate-document-configuration/generate-document-configuration.component';
+import { GenerateDocumentsConfigurationComponent } from './components/generate-documents-configuration/generate-documents-configuration.component';
 import { CheckJobStatusConfigurationComponent } from './components/check-job-status-configuration/check-job-status-configuration.component';
 import { DownloadDocumentConfigurationComponent } from './components/download-document-configuration/download-document-configuration.component';
 import { EPISTOLA_PLUGIN_LOGO_BASE64 } from './assets';
@@ -41,6 +42,7 @@ const epistolaPluginSpecification: PluginSpecification = {
   // Map action keys to their configuration components
   functionConfigurationComponents: {
     'epistola-generate-document': GenerateDocumentConfigurationComponent,
+    'epistola-generate-documents': GenerateDocumentsConfigurationComponent,
     'epistola-check-job-status': CheckJobStatusConfigurationComponent,
     'epistola-download-document': DownloadDocumentConfigurationComponent,
   },
@@ -164,6 +166,19 @@ const epistolaPluginSpecification: PluginSpecification = {
       itemFieldMappingTitle: 'Veldkoppeling per item:',
       sourceFieldPlaceholder: 'Bronveldnaam',
       noTemplateFields: 'Geen template velden beschikbaar',
+      // Generate documents (bulk) action
+      'epistola-generate-documents': 'Genereer Documenten',
+      itemsMapping: 'Items',
+      itemsMappingTooltip:
+        'JSONata-expressie die een lijst van template data oplevert, één object per document. Gebruik $doc, $pv en $case.',
+      bulkEnvironmentIdTooltip: 'De doelomgeving (optioneel, standaard die van de plugin)',
+      bulkFilenameTooltip:
+        'JSONata-expressie voor de bestandsnaam, per item geëvalueerd met het item als invoer (bijv. "brief-" & id & ".pdf")',
+      maxParallelism: 'Maximale parallelliteit',
+      maxParallelismTooltip:
+        'Maximaal aantal gelijktijdige verzoeken aan Epistola (optioneel, begrensd door epistola.bulk-generation.max-parallelism)',
+      bulkResultProcessVariableTooltip:
+        'De naam van de procesvariabele waarin het batchresultaat wordt opgeslagen, met de status van elk document',
       // Check job status action
       'epistola-check-job-status': 'Controleer Taakstatus',
       requestIdVariable: 'Request ID Variabele',
@@ -421,6 +436,19 @@ const epistolaPluginSpecification: PluginSpecification = {
       itemFieldMappingTitle: 'Item field mapping:',
       sourceFieldPlaceholder: 'Source field name',
       noTemplateFields: 'No template fields available',
+      // Generate documents (bulk) action
+      'epistola-generate-documents': 'Generate Documents',
+      itemsMapping: 'Items',
+      itemsMappingTooltip:
+        'JSONata expression producing a list of template data payloads, one object per document. Use $doc, $pv and $case.',
+      bulkEnvironmentIdTooltip: 'The target environment (optional, defaults to the plugin default)',
+      bulkFilenameTooltip:
+        'JSONata expression for the filename, evaluated per item with the item as input (e.g. "letter-" & id & ".pdf")',
+      maxParallelism: 'Max Parallelism',
+      maxParallelismTooltip:
+        'Maximum number of concurrent requests to Epistola (optional, capped by epistola.bulk-generation.max-parallelism)',
+      bulkResultProcessVariableTooltip:
+        'The name of the process variable to store the batch result in, with the status of every document',
       // Check job status action
       'epistola-check-job-status': 'Check Job Status',
       requestIdVariable: 'Request ID Variable',
@@ -30,6 +30,23 @@ export interface ConnectionStatus {
   contractVersion?: string;
   serverContractVersion?: string;
   contractCompatibilitySeverity?: ContractCompatibilitySeverity;
+  resilience?: ResilienceStatus;
+}
+
+/**
+ * Client-side circuit breaker and bulkhead state for one connection.
+ * Absent until the connection has made at least one guarded call.
+ * Rates are percentages, -1 until enough calls were made to evaluate them.
+ */
+export interface ResilienceStatus {
+  circuitState?: 'CLOSED' | 'OPEN' | 'HALF_OPEN';
+  failureRatePercent: number;
+  slowCallRatePercent: number;
+  bufferedCalls: number;
+  openedAt?: string;
+  activeCalls: number;
+  waitingCalls: number;
+  maxConcurrentCalls: number;
 }
 
 export type ContractCompatibilitySeverity = 'OK' | 'WARNING' | 'ERROR' | 'UNKNOWN';
@@ -80,6 +80,23 @@ export type GenerateDocumentConfigVersioned = GenerateDocumentConfigV0 | Generat
 /** Current shape used when creating or saving a generate-document action. */
 export type GenerateDocumentConfig = GenerateDocumentConfigV1;
 
+/**
+ * Action configuration for the generate-documents (bulk) action: one document per item of the
+ * `itemsMapping` array. `filename` is evaluated per item, with the item as JSONata input. The
+ * result variable receives the batch result (`batchId`, `status`, `total`, `completed`, `failed`
+ * and the per-item `items`).
+ */
+export interface GenerateDocumentsConfig {
+  catalogId: string;
+  templateId: string;
+  variantId?: string;
+  environmentId?: string;
+  itemsMapping: string;
+  filename: string;
+  maxParallelism?: number;
+  resultProcessVariable: string;
+}
+
 /**
  * Action configuration for the check-job-status action.
  * Specifies which process variables to read from and write to.
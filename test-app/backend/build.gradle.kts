@@ -120,6 +120,7 @@ ktlint {
     version.set("1.4.1")
 }
 
+apply(from = "../../backend/plugin/gradle/epistolaCatalogs.gradle.kts")
 apply(from = "gradle/environment.gradle.kts")
 val configureEnvironment = extra["configureEnvironment"] as (task: ProcessForkOptions) -> Unit
 